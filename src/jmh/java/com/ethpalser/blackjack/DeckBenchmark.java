@@ -0,0 +1,73 @@
+package com.ethpalser.blackjack;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures drawing, undoing, finding, removing and adding cards, and counting them, for every deck count and deck type.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeckBenchmark {
+
+    @Benchmark
+    public Card draw(TableState state) {
+        return state.deck.draw();
+    }
+
+    @Benchmark
+    public Card drawAndUndo(TableState state) {
+        Card card = state.deck.draw();
+        state.deck.undoDraw();
+        return card;
+    }
+
+    @Benchmark
+    public int drawAndRollback(TableState state) {
+        long mark = state.deck.mark();
+        for (int i = 0; i < 5; i++) {
+            state.deck.draw();
+        }
+        state.deck.rollback(mark);
+        return state.deck.size();
+    }
+
+    @Benchmark
+    public int find(DeckState state) {
+        return state.deck.find(state.card);
+    }
+
+    @Benchmark
+    public int removeAndAdd(TableState state) {
+        Card card = state.deck.remove(state.dealerUpCard);
+        if (card != null) {
+            state.deck.add(card);
+        }
+        return state.deck.size();
+    }
+
+    @Benchmark
+    public int[] count(DeckState state) {
+        return state.deck.count();
+    }
+
+    @Benchmark
+    public int[] countValues(TableState state) {
+        return state.deck.countValues();
+    }
+
+    @Benchmark
+    public double drawAndTrueCount(TableState state) {
+        state.deck.draw();
+        return state.deck.getTrueCount(CountingSystem.HI_LO);
+    }
+}
@@ -0,0 +1,30 @@
+package com.ethpalser.blackjack;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * A full Deck that is set up once for each combination of deck count and deck type, for benchmarks of the operations
+ * only a Deck has, as a RankShoe does not keep individual cards.
+ */
+@State(Scope.Thread)
+public class DeckState {
+
+    @Param({"1", "2", "4", "8"})
+    public int numDecks;
+
+    @Param({"RANDOM", "SEGMENTED"})
+    public DeckType deckType;
+
+    public Deck deck;
+    public Card card;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        deck = new Deck(deckType, numDecks, false, RandomSource.create(42));
+        card = Card.of(CardType.SEVEN, CardSuit.HEARTS);
+    }
+}
@@ -0,0 +1,65 @@
+package com.ethpalser.blackjack;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures adding cards to a hand and reading its value, and the choice a player makes for a hand.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HandBenchmark {
+
+    @State(Scope.Thread)
+    public static class HandState {
+        public Hand hand;
+        public Card[] cards;
+        public Hand[] hands;
+        public int next;
+
+        @Setup(Level.Trial)
+        public void setup(TableState tableState) {
+            hand = new Hand();
+            cards = new Card[64];
+            hands = new Hand[64];
+            for (int i = 0; i < cards.length; i++) {
+                cards[i] = tableState.deck.draw();
+            }
+            for (int i = 0; i < hands.length; i++) {
+                hands[i] = new Hand(tableState.deck.draw(), tableState.deck.draw());
+            }
+        }
+    }
+
+    @Benchmark
+    public int addCardAndEvaluate(HandState state) {
+        Hand hand = state.hand;
+        hand.clear();
+        int i = state.next;
+        state.next = (i + 3) & 63;
+        hand.addCard(state.cards[i]);
+        hand.addCard(state.cards[(i + 1) & 63]);
+        hand.addCard(state.cards[(i + 2) & 63]);
+        return hand.isBust() ? 0 : hand.getValue();
+    }
+
+    @Benchmark
+    public PlayerChoice choose(TableState tableState, HandState state) {
+        int i = state.next;
+        state.next = (i + 1) & 63;
+        return tableState.table.getPlayer(0).choose(state.hands[i], tableState.dealerUpCard);
+    }
+}
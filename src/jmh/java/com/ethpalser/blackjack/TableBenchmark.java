@@ -0,0 +1,76 @@
+package com.ethpalser.blackjack;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures one round at a table, where every player is autoplayed, the dealer plays and the table is reset. One
+ * variant deals every player a pair of Eights, so each round includes splits.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TableBenchmark {
+
+    @State(Scope.Thread)
+    public static class SplitState {
+        public Table table;
+        public Card dealerUpCard;
+
+        @Setup(Level.Trial)
+        public void setup(TableState tableState) {
+            table = new Table(tableState.table);
+            for (Player player : table.getPlayers()) {
+                Card first = removeEight(table.getDeck());
+                Card second = removeEight(table.getDeck());
+                if (first != null && second != null) {
+                    player.setHand(new Hand(first, second));
+                }
+            }
+            table.mark();
+            dealerUpCard = table.getDealer().getHand(0).getCard(1);
+        }
+    }
+
+    private static Card removeEight(Shoe deck) {
+        for (CardSuit suit : CardSuit.values()) {
+            Card card = deck.remove(Card.of(CardType.EIGHT, suit));
+            if (card != null) {
+                return card;
+            }
+        }
+        return null;
+    }
+
+    @Benchmark
+    public int autoplay(TableState state) {
+        return playRound(state.table, state.dealerUpCard);
+    }
+
+    @Benchmark
+    public int autoplayWithSplits(SplitState state) {
+        return playRound(state.table, state.dealerUpCard);
+    }
+
+    private static int playRound(Table table, Card dealerUpCard) {
+        for (Player player : table.getPlayers()) {
+            table.autoplay(player, 0, dealerUpCard);
+        }
+        table.resolve();
+        int hands = table.getPlayer(0).getHandQty();
+        table.reset();
+        return hands;
+    }
+}
@@ -0,0 +1,36 @@
+package com.ethpalser.blackjack;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * A table that is set up once for each combination of deck count, deck type and player count, which every benchmark
+ * runs against so that results can be compared across the same parameters.
+ */
+@State(Scope.Thread)
+public class TableState {
+
+    @Param({"1", "2", "4", "8"})
+    public int numDecks;
+
+    @Param({"RANDOM", "SEGMENTED", "RANK_ONLY"})
+    public DeckType deckType;
+
+    @Param({"1", "4", "7"})
+    public int numPlayers;
+
+    public Table table;
+    public Shoe deck;
+    public Card dealerUpCard;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        table = new Table(numPlayers, numDecks, GameMode.ALL_PLAYERS_VISIBLE, deckType, 10, RandomSource.create(42));
+        table.setup();
+        deck = table.getDeck();
+        dealerUpCard = table.getDealer().getHand(0).getCard(1);
+    }
+}
@@ -0,0 +1,40 @@
+package com.ethpalser.game;
+
+import com.ethpalser.blackjack.RandomSource;
+import com.ethpalser.blackjack.TableState;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the full trial loop of a simulation on one worker and on every available processor. Each operation is one
+ * trial, so the score is trials per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SimulationBenchmark {
+
+    private static final int TRIALS = 10000;
+
+    @Benchmark
+    @OperationsPerInvocation(TRIALS)
+    public SimulationResult simulateOneWorker(TableState state) {
+        return Simulation.simulate(state.table, TRIALS, 1, RandomSource.create());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TRIALS)
+    public SimulationResult simulateAllWorkers(TableState state) {
+        return Simulation.simulate(state.table, TRIALS, Runtime.getRuntime().availableProcessors(),
+                RandomSource.create());
+    }
+}
@@ -0,0 +1,72 @@
+package com.ethpalser.blackjack;
+
+import java.util.Arrays;
+
+/**
+ * A RandomSource that can replay its numbers mirrored, so that a pair of games can be played with opposite draws.
+ * While recording, each number is taken from another source and kept. While mirroring, each kept number u is replayed
+ * as 1 - u, and once they run out numbers are taken from the other source again.
+ * <br/>
+ * Every number is still uniformly random, but the two games of a pair are negatively correlated when a small number
+ * draws a low card and a large number draws a high card, such as from a deck sorted with Deck.sortByValue(). The
+ * average of the pair then varies less than the average of two independent games.
+ */
+public class AntitheticRandomSource implements RandomSource {
+
+    private final RandomSource source;
+    private double[] recorded;
+    private int numRecorded;
+    private int numReplayed;
+    private boolean isMirroring;
+
+    public AntitheticRandomSource(RandomSource source) {
+        if (source == null) {
+            throw new IllegalArgumentException("Source must not be null.");
+        }
+        this.source = source;
+        this.recorded = new double[64];
+    }
+
+    /**
+     * Forgets the kept numbers and starts keeping every number taken from the other source.
+     */
+    public void record() {
+        this.numRecorded = 0;
+        this.isMirroring = false;
+    }
+
+    /**
+     * Starts replaying the kept numbers mirrored, from the first number kept since record() was called.
+     */
+    public void mirror() {
+        this.numReplayed = 0;
+        this.isMirroring = true;
+    }
+
+    @Override
+    public int nextInt(int bound) {
+        if (bound <= 0) {
+            throw new IllegalArgumentException("Bound must be positive.");
+        }
+        // A mirrored 0 is 1, which is outside the range, so it is moved to the last number instead
+        return Math.min((int) (nextDouble() * bound), bound - 1);
+    }
+
+    @Override
+    public double nextDouble() {
+        if (isMirroring) {
+            return numReplayed < numRecorded ? 1 - recorded[numReplayed++] : source.nextDouble();
+        }
+        double u = source.nextDouble();
+        if (numRecorded == recorded.length) {
+            recorded = Arrays.copyOf(recorded, recorded.length * 2);
+        }
+        recorded[numRecorded++] = u;
+        return u;
+    }
+
+    @Override
+    public RandomSource split() {
+        return new AntitheticRandomSource(source.split());
+    }
+}
@@ -16,76 +16,71 @@ package com.ethpalser.blackjack;
  *     <li>
  *         Each card can be visible to every player, except the dealer has only one card visible. Additionally, one
  *         card is always burned and not visible to players. All played cards are visible until the deck is shuffled.
+ *         Visibility is kept by the hand holding the card, as the card itself is shared.
  *     </li>
  * </ul>
  *
+ * Cards are immutable and there is only one instance of each of the 52 cards, which is shared by every deck, hand and
+ * thread. Cards are retrieved using one of the of() methods instead of being constructed.
+ *
  * @see CardType
  */
 public class Card implements Comparable<Card> {
 
+    private static final Card[] CARDS = new Card[52];
+
+    static {
+        for (CardSuit suit : CardSuit.values()) {
+            for (CardType type : CardType.values()) {
+                Card card = new Card(type, suit);
+                CARDS[card.ordinalValue] = card;
+            }
+        }
+    }
+
     private final CardType cardType;
     private final CardSuit cardSuit;
-    private boolean isVisible;
+    private final int ordinalValue;
 
-    /**
-     * Construct a Card given only its type.
-     *
-     * @param cardType Type of card from Two to Ace. This determines the card's value in Blackjack.
-     */
-    public Card(CardType cardType) {
-        this(cardType, CardSuit.SPADES, true);
+    private Card(CardType cardType, CardSuit cardSuit) {
+        this.cardType = cardType;
+        this.cardSuit = cardSuit;
+        this.ordinalValue = 13 * cardSuit.ordinal() + cardType.ordinal();
     }
 
     /**
-     * Construct a Card given its type and suit
+     * Get a Card given only its type, which will be a Spade.
      *
      * @param cardType Type of card from Two to Ace. This determines the card's value in Blackjack.
-     * @param cardSuit Suit of card (Spades, Hearts, Diamonds, Clubs). This affects the card's order in the deck
+     * @return The card of the given type
      */
-    public Card(CardType cardType, CardSuit cardSuit) {
-        this(cardType, cardSuit, true);
+    public static Card of(CardType cardType) {
+        return of(cardType, CardSuit.SPADES);
     }
 
     /**
-     * Construct a card given all its variables.
+     * Get a Card given its type and suit.
      *
-     * @param cardType  Type of card from Two to Ace. This determines the card's value in Blackjack.
-     * @param cardSuit  The suit of a card to visually distinguish it.
-     * @param isVisible The visibility of this card to all players.
-     */
-    public Card(CardType cardType, CardSuit cardSuit, boolean isVisible) {
-        this.cardType = cardType;
-        this.cardSuit = cardSuit;
-        this.isVisible = isVisible;
-    }
-
-    /**
-     * Construct a card given an id related to a card's index in a sorted deck of cards. I.e. 0 is Ace, 12 is King.
-     * Anything outside these bounds will be treated as an Ace.
-     *
-     * @param cardId Represents the ordinal value of the card in a deck of playing cards.
+     * @param cardType Type of card from Two to Ace. This determines the card's value in Blackjack.
+     * @param cardSuit Suit of card (Spades, Hearts, Diamonds, Clubs). This affects the card's order in the deck
+     * @return The card of the given type and suit
      */
-    public Card(int cardId) {
-        this(cardId, CardSuit.SPADES, false);
+    public static Card of(CardType cardType, CardSuit cardSuit) {
+        return CARDS[13 * cardSuit.ordinal() + cardType.ordinal()];
     }
 
-
     /**
-     * Construct a card given an id related to a card's index in a sorted deck of cards (I.e. 0 is Ace, 12 is King.
-     * Anything outside these bounds will be treated as an Ace.), and all its other properties.
+     * Get a card given its index in a sorted deck of cards. I.e. 0 is the Ace of Spades, 12 is the King of Spades and
+     * 51 is the King of Clubs.
      *
-     * @param cardId    Represents the ordinal value of the card in a deck of playing cards.
-     * @param cardSuit  The suit of a card to visually distinguish it.
-     * @param isVisible The visibility of this card to all players.
+     * @param ordinalValue Represents the ordinal value of the card in a deck of playing cards.
+     * @return The card at that index
      */
-    public Card(int cardId, CardSuit cardSuit, boolean isVisible) {
-        if (cardId < 0 || cardId > 12) {
+    public static Card of(int ordinalValue) {
+        if (ordinalValue < 0 || ordinalValue >= CARDS.length) {
             throw new IndexOutOfBoundsException();
-        } else {
-            this.cardType = CardType.values()[cardId];
         }
-        this.cardSuit = cardSuit;
-        this.isVisible = isVisible;
+        return CARDS[ordinalValue];
     }
 
     /**
@@ -115,31 +110,12 @@ public class Card implements Comparable<Card> {
      * @return The value of this card in a deck of cards
      */
     public int getOrdinalValue() {
-        return 13 * this.cardSuit.ordinal() + this.cardType.ordinal();
+        return this.ordinalValue;
     }
 
-    /**
-     * A card's visibility determines if all players can see the card or only the person holding the card can.
-     *
-     * @return True or false
-     */
-    public boolean isVisible() {
-        return this.isVisible;
-    }
-
-    /**
-     * Reveals or hides the card for all players, except the person holding this card.
-     *
-     * @param isVisible True if the card is revealed to all, false if the card is revealed only to the holder
-     */
-    public void setVisible(boolean isVisible) {
-        this.isVisible = isVisible;
-    }
-
-
     @Override
     public int compareTo(Card o) {
-        return this.getOrdinalValue() - o.getOrdinalValue();
+        return this.ordinalValue - o.ordinalValue;
     }
 
     @Override
@@ -183,18 +159,38 @@ public class Card implements Comparable<Card> {
         };
     }
 
+    /**
+     * Parses a card from its type followed by an optional suit, where the type is one character or "10". The type "x"
+     * is a hidden card of a random type.
+     *
+     * @param str String representing a card
+     * @return The card represented by the string
+     * @see #isHidden(String)
+     */
     public static Card parseCard(String str) {
         CardType type;
         CardSuit suit = CardSuit.SPADES;
-        if (str.length() == 1) {
-            type = CardType.fromString(str.substring(0, 1));
-        } else if (str.length() == 2) {
-            type = CardType.fromString(str.substring(0, 1));
-            suit = CardSuit.fromString(str.substring(1, 2));
+        // Ten is the only type written with two characters
+        int typeLength = str.startsWith("10") ? 2 : 1;
+        if (str.length() == typeLength) {
+            type = CardType.fromString(str);
+        } else if (str.length() == typeLength + 1) {
+            type = CardType.fromString(str.substring(0, typeLength));
+            suit = CardSuit.fromString(str.substring(typeLength));
         } else {
-            throw new IllegalArgumentException("String format is invalid. String must have only one or two characters");
+            throw new IllegalArgumentException("String format is invalid. String must be a type and an optional suit");
         }
-        boolean isVisible = !"x".equals(str.substring(0, 1));
-        return new Card(type, suit, isVisible);
+        if (type == null || suit == null) {
+            throw new IllegalArgumentException("String format is invalid. Card type or suit is not recognized");
+        }
+        return of(type, suit);
+    }
+
+    /**
+     * @param str String representing a card
+     * @return True if the string represents a card that is not visible to other players, otherwise false
+     */
+    public static boolean isHidden(String str) {
+        return str.startsWith("x");
     }
 }
@@ -1,5 +1,7 @@
 package com.ethpalser.blackjack;
 
+import java.util.concurrent.ThreadLocalRandom;
+
 /**
  * The representation of a card in a deck of playing cards. Each type has one intrinsic value within the game of
  * Blackjack, except ACE having two values. ACE's values will be considered in computations instead of stored.
@@ -52,7 +54,7 @@ public enum CardType {
             case "J" -> JACK;
             case "Q" -> QUEEN;
             case "K" -> KING;
-            case "x" -> CardType.values()[(int) Math.floor(Math.random() * 13)];
+            case "x" -> CardType.values()[ThreadLocalRandom.current().nextInt(13)];
             default -> null;
         };
     }
@@ -0,0 +1,242 @@
+package com.ethpalser.blackjack;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * A strategy that follows a chart of choices for every hard total, soft total and pair against every dealer up card.
+ * <br/>
+ * The chart is compiled once into a flat array of choices, with one copy for each combination of whether the hand can
+ * Double Down and can Surrender. Choosing is then a single array load, where the index is the hand's row in the chart,
+ * the dealer's up card and what the hand is allowed to do.
+ * <br/>
+ * Charts are read from text, where each section starts with [hard], [soft] or [pair], and each row is a hand followed
+ * by the choice against a dealer up card of 2 to 10 and then Ace:
+ * <ul>
+ *     <li>H: Hit</li>
+ *     <li>S: Stand</li>
+ *     <li>P: Split, only in the pair section</li>
+ *     <li>D: Double Down if allowed, otherwise Hit</li>
+ *     <li>Ds: Double Down if allowed, otherwise Stand</li>
+ *     <li>R: Surrender if allowed, otherwise Hit</li>
+ *     <li>Rs: Surrender if allowed, otherwise Stand</li>
+ * </ul>
+ * Pairs are given by the value of one card, so 1 is a pair of Aces and 10 is a pair of any ten-valued cards. Rows that
+ * are not in the chart Hit below hard 17 or soft 18 and Stand otherwise, and pairs that are not in the chart are played
+ * by their total.
+ */
+public class ChartStrategy implements Strategy {
+
+    private static final String BASIC_CHART = "basic-strategy.txt";
+
+    private static final int NUM_UP_CARDS = 10;
+    // Rows of the chart, where hard totals are 0 to 31, soft totals are 32 to 63 and pairs are 64 to 74
+    private static final int SOFT = 32;
+    private static final int PAIR = 64;
+    private static final int NUM_ROWS = PAIR + 11;
+    // The chart is compiled once for each combination of these
+    private static final int CAN_DOUBLE = 1;
+    private static final int CAN_SURRENDER = 2;
+
+    private static final byte HIT = 0;
+    private static final byte STAND = 1;
+    private static final byte SPLIT = 2;
+    private static final byte DOUBLE_OR_HIT = 3;
+    private static final byte DOUBLE_OR_STAND = 4;
+    private static final byte SURRENDER_OR_HIT = 5;
+    private static final byte SURRENDER_OR_STAND = 6;
+
+    private final PlayerChoice[] choices;
+
+    private ChartStrategy(byte[] chart) {
+        this.choices = new PlayerChoice[4 * NUM_ROWS * NUM_UP_CARDS];
+        for (int rules = 0; rules < 4; rules++) {
+            for (int i = 0; i < chart.length; i++) {
+                this.choices[rules * chart.length + i] = compile(chart[i], rules);
+            }
+        }
+    }
+
+    /**
+     * Gets the basic strategy for four or more decks, where the dealer stands on soft 17, doubling after a split is
+     * allowed and late surrender is offered.
+     *
+     * @return The basic strategy, which is shared as it never changes
+     */
+    public static ChartStrategy basic() {
+        return Basic.INSTANCE;
+    }
+
+    /**
+     * Reads a chart from a file.
+     *
+     * @param path Path of the file containing the chart
+     * @return A strategy following the chart
+     * @throws IOException              Runtime exception while reading the file
+     * @throws IllegalArgumentException if the chart is not in the expected format
+     */
+    public static ChartStrategy load(Path path) throws IOException {
+        try (BufferedReader br = Files.newBufferedReader(path)) {
+            return parse(br);
+        }
+    }
+
+    /**
+     * Reads a chart line by line until there are no more lines.
+     *
+     * @param br BufferedReader for reading the chart
+     * @return A strategy following the chart
+     * @throws IOException              Runtime exception while reading the chart
+     * @throws IllegalArgumentException if the chart is not in the expected format
+     */
+    public static ChartStrategy parse(BufferedReader br) throws IOException {
+        byte[] chart = new byte[NUM_ROWS * NUM_UP_CARDS];
+        boolean[] isRowRead = new boolean[NUM_ROWS];
+
+        int section = -1;
+        int lineNum = 0;
+        String line;
+        while ((line = br.readLine()) != null) {
+            lineNum++;
+            int comment = line.indexOf('#');
+            if (comment >= 0) {
+                line = line.substring(0, comment);
+            }
+            line = line.trim();
+            if (line.isEmpty()) {
+                continue;
+            }
+            switch (line.toLowerCase()) {
+                case "[hard]" -> section = 0;
+                case "[soft]" -> section = SOFT;
+                case "[pair]" -> section = PAIR;
+                default -> {
+                    if (section < 0) {
+                        throw new IllegalArgumentException("Line " + lineNum + ": Row is not in a section.");
+                    }
+                    int row = section + parseRow(line, section, lineNum, chart);
+                    isRowRead[row] = true;
+                }
+            }
+        }
+        fillMissingRows(chart, isRowRead);
+        return new ChartStrategy(chart);
+    }
+
+    @Override
+    public PlayerChoice choose(Hand playerHand, Card dealerUpCard, boolean canSplit, boolean canSurrender) {
+        int value = playerHand.getValue();
+        if (value > 21) {
+            return PlayerChoice.STAND;
+        }
+        int row;
+        if (canSplit && playerHand.canSplit()) {
+            row = PAIR + playerHand.getCard(0).getValue();
+        } else if (playerHand.isSoft()) {
+            row = SOFT + value;
+        } else {
+            row = value;
+        }
+        int rules = (playerHand.size() == 2 ? CAN_DOUBLE : 0) | (canSurrender ? CAN_SURRENDER : 0);
+        return choices[(rules * NUM_ROWS + row) * NUM_UP_CARDS + dealerUpCard.getValue() - 1];
+    }
+
+    /**
+     * Reads one row of the chart into the chart.
+     *
+     * @return Row's hand, which is a total or the value of a pair's card
+     */
+    private static int parseRow(String line, int section, int lineNum, byte[] chart) {
+        String[] tokens = line.split("\\s+");
+        if (tokens.length != NUM_UP_CARDS + 1) {
+            throw new IllegalArgumentException("Line " + lineNum + ": Row must have a hand and " + NUM_UP_CARDS
+                    + " choices.");
+        }
+        int hand;
+        try {
+            hand = Integer.parseInt(tokens[0]);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Line " + lineNum + ": Hand '" + tokens[0] + "' is not a number.");
+        }
+        int min = section == PAIR ? 1 : section == SOFT ? 12 : 4;
+        int max = section == PAIR ? 10 : 21;
+        if (hand < min || hand > max) {
+            throw new IllegalArgumentException("Line " + lineNum + ": Hand must be from " + min + " to " + max + ".");
+        }
+
+        for (int i = 0; i < NUM_UP_CARDS; i++) {
+            byte code = switch (tokens[i + 1].toUpperCase()) {
+                case "H" -> HIT;
+                case "S" -> STAND;
+                case "P" -> SPLIT;
+                case "D" -> DOUBLE_OR_HIT;
+                case "DS" -> DOUBLE_OR_STAND;
+                case "R" -> SURRENDER_OR_HIT;
+                case "RS" -> SURRENDER_OR_STAND;
+                default -> throw new IllegalArgumentException("Line " + lineNum + ": Choice '" + tokens[i + 1]
+                        + "' is not recognized.");
+            };
+            if (code == SPLIT && section != PAIR) {
+                throw new IllegalArgumentException("Line " + lineNum + ": Only pairs can be split.");
+            }
+            // Charts list the Ace last, but it is the first up card by value
+            int upCard = i == NUM_UP_CARDS - 1 ? 0 : i + 1;
+            chart[(section + hand) * NUM_UP_CARDS + upCard] = code;
+        }
+        return hand;
+    }
+
+    private static void fillMissingRows(byte[] chart, boolean[] isRowRead) {
+        for (int row = 0; row < PAIR; row++) {
+            if (!isRowRead[row]) {
+                int value = row % SOFT;
+                boolean isStand = row < SOFT ? value >= 17 : value >= 18;
+                for (int up = 0; up < NUM_UP_CARDS; up++) {
+                    chart[row * NUM_UP_CARDS + up] = isStand ? STAND : HIT;
+                }
+            }
+        }
+        for (int pair = 1; pair <= 10; pair++) {
+            if (!isRowRead[PAIR + pair]) {
+                // A pair of Aces is a soft 12, and every other pair is a hard total
+                int totalRow = pair == 1 ? SOFT + 12 : 2 * pair;
+                System.arraycopy(chart, totalRow * NUM_UP_CARDS, chart, (PAIR + pair) * NUM_UP_CARDS, NUM_UP_CARDS);
+            }
+        }
+    }
+
+    private static PlayerChoice compile(byte code, int rules) {
+        boolean canDouble = (rules & CAN_DOUBLE) != 0;
+        boolean canSurrender = (rules & CAN_SURRENDER) != 0;
+        return switch (code) {
+            case STAND -> PlayerChoice.STAND;
+            case SPLIT -> PlayerChoice.SPLIT;
+            case DOUBLE_OR_HIT -> canDouble ? PlayerChoice.DOUBLE_DOWN : PlayerChoice.HIT;
+            case DOUBLE_OR_STAND -> canDouble ? PlayerChoice.DOUBLE_DOWN : PlayerChoice.STAND;
+            case SURRENDER_OR_HIT -> canSurrender ? PlayerChoice.SURRENDER : PlayerChoice.HIT;
+            case SURRENDER_OR_STAND -> canSurrender ? PlayerChoice.SURRENDER : PlayerChoice.STAND;
+            default -> PlayerChoice.HIT;
+        };
+    }
+
+    private static class Basic {
+        private static final ChartStrategy INSTANCE = loadBasic();
+
+        private static ChartStrategy loadBasic() {
+            try (InputStream is = ChartStrategy.class.getResourceAsStream(BASIC_CHART)) {
+                if (is == null) {
+                    throw new IllegalStateException("Basic strategy chart " + BASIC_CHART + " is missing.");
+                }
+                return parse(new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8)));
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.ethpalser.blackjack;
+
+import java.util.Arrays;
+
+/**
+ * A RandomSource that can replay its numbers, so that several games can be played with the same draws. While
+ * recording, each number is taken from another source and kept. While replaying, the kept numbers are returned again
+ * in order, and once they run out numbers are taken from the other source and kept as well, so every later replay
+ * also shares them.
+ * <br/>
+ * Playing each choice of a hand against the same numbers makes the differences between the choices vary far less
+ * than playing each against its own numbers, as luck that favours one choice mostly favours the others too.
+ */
+public class CommonRandomSource implements RandomSource {
+
+    private final RandomSource source;
+    private double[] recorded;
+    private int numRecorded;
+    private int numReplayed;
+    private boolean isReplaying;
+
+    public CommonRandomSource(RandomSource source) {
+        if (source == null) {
+            throw new IllegalArgumentException("Source must not be null.");
+        }
+        this.source = source;
+        this.recorded = new double[64];
+    }
+
+    /**
+     * Forgets the kept numbers and starts keeping every number taken from the other source.
+     */
+    public void record() {
+        this.numRecorded = 0;
+        this.isReplaying = false;
+    }
+
+    /**
+     * Starts replaying the kept numbers, from the first number kept since record() was called.
+     */
+    public void replay() {
+        this.numReplayed = 0;
+        this.isReplaying = true;
+    }
+
+    @Override
+    public int nextInt(int bound) {
+        if (bound <= 0) {
+            throw new IllegalArgumentException("Bound must be positive.");
+        }
+        return (int) (nextDouble() * bound);
+    }
+
+    @Override
+    public double nextDouble() {
+        if (isReplaying && numReplayed < numRecorded) {
+            return recorded[numReplayed++];
+        }
+        double u = source.nextDouble();
+        if (numRecorded == recorded.length) {
+            recorded = Arrays.copyOf(recorded, recorded.length * 2);
+        }
+        recorded[numRecorded++] = u;
+        numReplayed = numRecorded;
+        return u;
+    }
+
+    @Override
+    public RandomSource split() {
+        return new CommonRandomSource(source.split());
+    }
+}
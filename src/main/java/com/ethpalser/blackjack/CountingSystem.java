@@ -0,0 +1,94 @@
+package com.ethpalser.blackjack;
+
+/**
+ * A card counting system, which gives each value of card a tag that is added to the running count when a card of
+ * that value leaves the shoe. A balanced system's tags add up to 0 over a full deck, so its running count starts at 0
+ * when the shoe is shuffled and can be divided by the decks remaining into a true count. An unbalanced system is
+ * used by its running count alone, so it starts from an initial count that depends on the number of decks and ends
+ * at its pivot once every card has been counted. For Knock-Out this is 4 - 4 x decks, ending at +4.
+ */
+public enum CountingSystem {
+    HI_LO("Hi-Lo", 0, -1, 1, 1, 1, 1, 1, 0, 0, 0, -1),
+    KO("Knock-Out", 4, -1, 1, 1, 1, 1, 1, 1, 0, 0, -1),
+    OMEGA_II("Omega II", 0, 0, 1, 1, 2, 2, 2, 1, 0, -1, -2);
+
+    private final String displayValue;
+    // Running count once every card of the shoe has been counted
+    private final int pivot;
+    // Tag of each value, from Aces at index 0 to ten-valued cards at index 9
+    private final int[] tags;
+
+    CountingSystem(String displayValue, int pivot, int... tags) {
+        this.displayValue = displayValue;
+        this.pivot = pivot;
+        this.tags = tags;
+    }
+
+    public String getDisplay() {
+        return this.displayValue;
+    }
+
+    /**
+     * @param value Value of the card, where an Ace is 1 and every ten-valued card is 10
+     * @return Amount the running count changes by when a card of this value leaves the shoe
+     */
+    public int getTag(int value) {
+        return this.tags[value - 1];
+    }
+
+    /**
+     * @return True if the tags of a full deck add up to 0
+     */
+    public boolean isBalanced() {
+        return sumOfDeck() == 0;
+    }
+
+    public int getPivot() {
+        return this.pivot;
+    }
+
+    /**
+     * @param numDecks Number of decks of 52 cards in the shoe
+     * @return Running count of a freshly shuffled shoe, which is 0 for a balanced system
+     */
+    public int getInitialCount(int numDecks) {
+        return pivot - numDecks * sumOfDeck();
+    }
+
+    /**
+     * @param valueCounts Number of cards of each value, from Aces at index 0 to ten-valued cards at index 9
+     * @return Total of the tags of the cards
+     */
+    public int sum(int[] valueCounts) {
+        int total = 0;
+        for (int v = 0; v < tags.length; v++) {
+            total += tags[v] * valueCounts[v];
+        }
+        return total;
+    }
+
+    /**
+     * @param system       CountingSystem the running count is of
+     * @param runningCount Running count of the cards that have been counted
+     * @param numUncounted Number of cards that have not been counted
+     * @return Running count per deck of uncounted cards, or the running count if every card has been counted
+     * @throws IllegalArgumentException if the system is not balanced
+     */
+    static double trueCount(CountingSystem system, int runningCount, int numUncounted) {
+        if (!system.isBalanced()) {
+            throw new IllegalArgumentException(system.getDisplay() + " is unbalanced, so it has no true count.");
+        }
+        return numUncounted == 0 ? runningCount : runningCount * 52.0 / numUncounted;
+    }
+
+    /**
+     * @return Total of the tags of one deck of 52 cards
+     */
+    private int sumOfDeck() {
+        int total = 0;
+        for (int v = 0; v < tags.length; v++) {
+            total += tags[v] * (v == tags.length - 1 ? 16 : 4);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,36 @@
+package com.ethpalser.blackjack;
+
+/**
+ * The final result of the dealer's hand once the dealer stops taking cards.
+ */
+public enum DealerOutcome {
+    SEVENTEEN,
+    EIGHTEEN,
+    NINETEEN,
+    TWENTY,
+    TWENTY_ONE,
+    BUST,
+    BLACKJACK;
+
+    /**
+     * @param value         Best value of the dealer's final hand
+     * @param isTwoCardHand True if the hand has only the dealer's first two cards
+     * @return The outcome of a hand with this value
+     */
+    public static DealerOutcome fromValue(int value, boolean isTwoCardHand) {
+        if (value > 21) {
+            return BUST;
+        }
+        if (value == 21 && isTwoCardHand) {
+            return BLACKJACK;
+        }
+        return switch (value) {
+            case 17 -> SEVENTEEN;
+            case 18 -> EIGHTEEN;
+            case 19 -> NINETEEN;
+            case 20 -> TWENTY;
+            case 21 -> TWENTY_ONE;
+            default -> throw new IllegalArgumentException("Dealer cannot stop on a value of " + value + ".");
+        };
+    }
+}
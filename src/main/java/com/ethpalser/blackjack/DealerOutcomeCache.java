@@ -0,0 +1,172 @@
+package com.ethpalser.blackjack;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A size-bounded cache of dealer outcome probabilities, keyed by the dealer rule, up card and the count of each value
+ * of card remaining. Analyzing many hands from the same shoe repeats the same dealer calculation, so it is calculated
+ * once and looked up after.
+ * <br/>
+ * When the cache is full, the entry that was used least recently is removed. Every method is synchronized, so a cache
+ * can be shared between tables and threads.
+ */
+public class DealerOutcomeCache {
+
+    private static final int NUM_VALUES = 10;
+    // Each count is kept in 11 bits, with the first five counts in one long and the last five in the other
+    private static final int COUNT_BITS = 11;
+    private static final int MAX_COUNT = (1 << COUNT_BITS) - 1;
+
+    private final int capacity;
+    private final LinkedHashMap<Key, double[]> entries;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * @param capacity Maximum number of distributions kept in the cache
+     * @throws IllegalArgumentException if capacity is less than 1
+     */
+    public DealerOutcomeCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1.");
+        }
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, double[]> eldest) {
+                if (size() > DealerOutcomeCache.this.capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Checks if the counts can be used as a key of the cache, which is only false for shoes larger than any table.
+     *
+     * @param valueCounts Number of cards remaining of each value
+     * @return True if every count fits in the key, otherwise false
+     */
+    static boolean isCacheable(int[] valueCounts) {
+        for (int count : valueCounts) {
+            if (count > MAX_COUNT) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds the distribution for a rule, up card and shoe.
+     *
+     * @param dealerRule  Rule the dealer plays by
+     * @param upCardValue Value of the dealer's up card, where an Ace is 1
+     * @param valueCounts Number of cards remaining of each value
+     * @return A copy of the cached distribution, or null if it is not in the cache
+     */
+    public synchronized double[] get(DealerRule dealerRule, int upCardValue, int[] valueCounts) {
+        double[] odds = entries.get(new Key(dealerRule, upCardValue, valueCounts));
+        if (odds == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return odds.clone();
+    }
+
+    /**
+     * Adds the distribution for a rule, up card and shoe, removing the least recently used entry if the cache is full.
+     *
+     * @param dealerRule  Rule the dealer plays by
+     * @param upCardValue Value of the dealer's up card, where an Ace is 1
+     * @param valueCounts Number of cards remaining of each value
+     * @param odds        Probability of each outcome, which is copied
+     */
+    public synchronized void put(DealerRule dealerRule, int upCardValue, int[] valueCounts, double[] odds) {
+        entries.put(new Key(dealerRule, upCardValue, valueCounts), odds.clone());
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * @return The fraction of lookups that were found in the cache, or 0 if there were no lookups.
+     */
+    public synchronized double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : hits / (double) lookups;
+    }
+
+    /**
+     * Removes every entry and resets the statistics.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        hits = 0;
+        misses = 0;
+        evictions = 0;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "DealerOutcomeCache[size=" + entries.size() + "/" + capacity + ", hits=" + hits + ", misses=" + misses
+                + ", evictions=" + evictions + "]";
+    }
+
+    /**
+     * The rule, up card and counts packed into two longs.
+     */
+    private static final class Key {
+        private final long low;
+        private final long high;
+
+        private Key(DealerRule dealerRule, int upCardValue, int[] valueCounts) {
+            long low = ((long) dealerRule.ordinal() << 4) | upCardValue;
+            long high = 0;
+            for (int v = 0; v < NUM_VALUES / 2; v++) {
+                low = (low << COUNT_BITS) | valueCounts[v];
+                high = (high << COUNT_BITS) | valueCounts[v + NUM_VALUES / 2];
+            }
+            this.low = low;
+            this.high = high;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return low == other.low && high == other.high;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(low * 31 + high);
+        }
+    }
+}
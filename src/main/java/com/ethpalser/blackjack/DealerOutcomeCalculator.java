@@ -0,0 +1,198 @@
+package com.ethpalser.blackjack;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Calculates the exact probability of each outcome of the dealer's hand, given the dealer's up card and the cards
+ * remaining in the shoe. The dealer's hidden card is treated as unknown, so it is drawn from the shoe like every other
+ * card the dealer takes.
+ * <br/>
+ * Every way the dealer can play out the hand is followed, drawing each value of card in proportion to how many remain.
+ * The dealer's hand depends only on which cards were drawn and not their order, so each combination of drawn cards
+ * is calculated once and reused. Suits have no effect, so only the count of each value from Ace to ten is needed.
+ * <br/>
+ * A calculator can be given a cache, so the same up card and shoe are only calculated once across many calculations.
+ */
+public class DealerOutcomeCalculator {
+
+    private static final int NUM_VALUES = 10;
+    private static final int NUM_OUTCOMES = DealerOutcome.values().length;
+    // Each value's number of drawn cards is kept in 4 bits of the key of a combination of drawn cards
+    private static final int KEY_BITS = 4;
+    private static final int MAX_DRAWN = (1 << KEY_BITS) - 1;
+    // The odds of a hand the dealer stands on, which are shared as they are never changed
+    private static final double[][] FINAL_OUTCOMES = new double[NUM_OUTCOMES][NUM_OUTCOMES];
+
+    static {
+        for (int o = 0; o < NUM_OUTCOMES; o++) {
+            FINAL_OUTCOMES[o][o] = 1.0;
+        }
+    }
+
+    private final DealerRule dealerRule;
+    private final DealerOutcomeCache cache;
+
+    public DealerOutcomeCalculator(DealerRule dealerRule) {
+        this(dealerRule, null);
+    }
+
+    /**
+     * @param dealerRule Rule the dealer plays by
+     * @param cache      Cache of previous calculations that is checked first, or null to always calculate
+     */
+    public DealerOutcomeCalculator(DealerRule dealerRule, DealerOutcomeCache cache) {
+        if (dealerRule == null) {
+            throw new IllegalArgumentException("Dealer rule must not be null.");
+        }
+        this.dealerRule = dealerRule;
+        this.cache = cache;
+    }
+
+    public DealerRule getDealerRule() {
+        return this.dealerRule;
+    }
+
+    /**
+     * Calculates the probability of each outcome for the dealer.
+     *
+     * @param upCardValue Value of the dealer's up card, where an Ace is 1
+     * @param valueCounts Number of cards remaining of each value, where index 0 is Aces and index 9 is ten-valued
+     *                    cards. This should include the dealer's hidden card, as it is not known.
+     * @return Probability of each outcome, indexed by the ordinal of DealerOutcome
+     * @throws IllegalArgumentException if the up card value or counts are invalid
+     * @see DealerOutcome
+     */
+    public double[] calculate(int upCardValue, int[] valueCounts) {
+        checkValue(upCardValue, "Up card");
+        int total = sum(valueCounts);
+        if (total == 0) {
+            throw new IllegalArgumentException("The shoe must have at least one card.");
+        }
+        boolean isCached = cache != null && DealerOutcomeCache.isCacheable(valueCounts);
+        if (isCached) {
+            double[] odds = cache.get(dealerRule, upCardValue, valueCounts);
+            if (odds != null) {
+                return odds;
+            }
+        }
+        Calculation calculation = new Calculation(valueCounts.clone(), total);
+        double[] odds = calculation.play(upCardValue, upCardValue == 1, 1, 0L).clone();
+        if (isCached) {
+            cache.put(dealerRule, upCardValue, valueCounts, odds);
+        }
+        return odds;
+    }
+
+    /**
+     * Calculates the probability of each outcome for the dealer when the dealer's hidden card is known. These results
+     * are not cached, as the cache is keyed by the up card alone.
+     *
+     * @param upCardValue   Value of the dealer's up card, where an Ace is 1
+     * @param holeCardValue Value of the dealer's hidden card, where an Ace is 1
+     * @param valueCounts   Number of cards remaining of each value, not including the dealer's hidden card
+     * @return Probability of each outcome, indexed by the ordinal of DealerOutcome
+     * @throws IllegalArgumentException if a card value or the counts are invalid
+     */
+    public double[] calculate(int upCardValue, int holeCardValue, int[] valueCounts) {
+        checkValue(upCardValue, "Up card");
+        checkValue(holeCardValue, "Hidden card");
+        Calculation calculation = new Calculation(valueCounts.clone(), sum(valueCounts) + 1);
+        boolean hasAce = upCardValue == 1 || holeCardValue == 1;
+        return calculation.play(upCardValue + holeCardValue, hasAce, 2, 0L).clone();
+    }
+
+    /**
+     * Calculates the probability of each outcome for the dealer, using the cards remaining in the deck.
+     *
+     * @param upCard Dealer's up card
+     * @param deck   Shoe containing the cards the dealer will draw
+     * @return Probability of each outcome, indexed by the ordinal of DealerOutcome
+     */
+    public double[] calculate(Card upCard, Shoe deck) {
+        return calculate(upCard.getValue(), deck.countValues());
+    }
+
+    private static void checkValue(int value, String name) {
+        if (value < 1 || value > NUM_VALUES) {
+            throw new IllegalArgumentException(name + " value must be from 1 to " + NUM_VALUES + ".");
+        }
+    }
+
+    /**
+     * @return Total number of cards in the counts
+     */
+    private static int sum(int[] valueCounts) {
+        if (valueCounts.length != NUM_VALUES) {
+            throw new IllegalArgumentException("Counts must have one count for each of the " + NUM_VALUES
+                    + " values.");
+        }
+        int total = 0;
+        for (int count : valueCounts) {
+            if (count < 0) {
+                throw new IllegalArgumentException("Counts must not be negative.");
+            }
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * The state of one calculation, where the drawn cards are added and removed while following each way the dealer
+     * can play.
+     */
+    private class Calculation {
+        private final int[] counts;
+        private final int total;
+        private final int[] drawn;
+        private final Map<Long, double[]> memo;
+
+        private Calculation(int[] counts, int total) {
+            this.counts = counts;
+            this.total = total;
+            this.drawn = new int[NUM_VALUES];
+            this.memo = new HashMap<>();
+        }
+
+        /**
+         * @param hardValue Value of the dealer's hand with every Ace counted as 1
+         * @param hasAce    True if the dealer's hand has an Ace
+         * @param numCards  Number of cards in the dealer's hand
+         * @param key       Combination of cards drawn so far, with 4 bits for the count of each value
+         * @return Probability of each outcome from this hand
+         */
+        private double[] play(int hardValue, boolean hasAce, int numCards, long key) {
+            boolean isSoft = hasAce && hardValue <= 11;
+            int value = isSoft ? hardValue + 10 : hardValue;
+            if (numCards >= 2 && !dealerRule.isHit(value, isSoft)) {
+                return FINAL_OUTCOMES[DealerOutcome.fromValue(value, numCards == 2).ordinal()];
+            }
+            double[] odds = memo.get(key);
+            if (odds != null) {
+                return odds;
+            }
+
+            odds = new double[NUM_OUTCOMES];
+            int remaining = total - numCards + 1;
+            for (int v = 0; v < NUM_VALUES; v++) {
+                int count = counts[v] - drawn[v];
+                if (count <= 0) {
+                    continue;
+                }
+                if (drawn[v] == MAX_DRAWN) {
+                    throw new IllegalStateException("Dealer cannot draw more than " + MAX_DRAWN + " of one value.");
+                }
+                double p = count / (double) remaining;
+                drawn[v]++;
+                double[] next = play(hardValue + v + 1, hasAce || v == 0, numCards + 1,
+                        key + (1L << (KEY_BITS * v)));
+                drawn[v]--;
+                for (int o = 0; o < NUM_OUTCOMES; o++) {
+                    odds[o] += p * next[o];
+                }
+            }
+            memo.put(key, odds);
+            return odds;
+        }
+    }
+}
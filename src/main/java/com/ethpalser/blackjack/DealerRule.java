@@ -0,0 +1,27 @@
+package com.ethpalser.blackjack;
+
+public enum DealerRule {
+    STAND_SOFT_17("Dealer stands on soft 17"),
+    HIT_SOFT_17("Dealer hits on soft 17");
+
+    private String displayValue;
+
+    DealerRule(String displayValue) {
+        this.displayValue = displayValue;
+    }
+
+    public String getDisplay() {
+        return this.displayValue;
+    }
+
+    /**
+     * Determines if the dealer must take another card for a hand of this value.
+     *
+     * @param value  Best value of the dealer's hand
+     * @param isSoft True if the dealer's hand has an Ace counted as 11
+     * @return True if the dealer must hit, otherwise false
+     */
+    public boolean isHit(int value, boolean isSoft) {
+        return value < 17 || value == 17 && isSoft && this == HIT_SOFT_17;
+    }
+}
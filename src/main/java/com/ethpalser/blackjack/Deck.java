@@ -1,21 +1,63 @@
 package com.ethpalser.blackjack;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
-public class Deck {
+/**
+ * A shoe of one or more decks of 52 playing cards. Every card in the shoe is stored as its ordinal value in one array.
+ * Cards still in the deck are at the front of the array, and drawn cards are at the back with the most recently drawn
+ * card first. A card is drawn by swapping it with the last card still in the deck, so drawing never shifts or
+ * allocates the array, and the position it was swapped from is kept so the draw can be undone. Drawn cards are the
+ * shared instances from Card.of(), so no cards are created when drawing or reshuffling.
+ * <br/>
+ * Each deck of 52 cards keeps its own segment of the array, and a drawn card is always swapped within its segment.
+ * A SEGMENTED deck draws from the last segment that still has cards, while a RANDOM deck draws from every segment.
+ * <br/>
+ * The number of cards of each value in the deck is updated with every card that is drawn or put back, so counting the
+ * values and the running count of a counting system never scan the deck.
+ */
+public class Deck implements Shoe {
+
+    // Types of changes recorded in the log, stored in the upper bits of each entry
+    private static final int OP_DRAW = 1;
+    private static final int OP_UNDO = 2;
+    private static final int OP_MOVE = 3;
+    private static final int OP_REPLACE = 4;
+    private static final int OP_SHUFFLE = 5;
+    private static final int OP_SHIFT = 16;
+    private static final int OP_MASK = (1 << OP_SHIFT) - 1;
 
     private final DeckType deckType;
     private final int numDecks;
     private final boolean hasInsert;
+    private final RandomSource rng;
 
-    private List<Card> cardList;
-    private int numDrawn;
+    // Ordinal value of every card in the shoe, where cards in the deck are at [0, size) and drawn cards after
+    private final int[] cards;
+    // Position each drawn card was swapped from, used to put the card back where it was when a draw is undone
+    private final int[] swaps;
+    private int size;
     private int posInsert;
+    // Number of cards of each value in the deck, and in the whole shoe when every card is in the deck
+    private final int[] valueCounts;
+    private final int[] fullValueCounts;
+
+    // The shoe as it was before it was last reshuffled, so the draw that reshuffled can be undone
+    private final int[] prevCards;
+    private final int[] prevSwaps;
+    private final int[] prevValueCounts;
+    private int prevSize;
+    private int prevPosInsert;
+
+    // The most recent changes to the deck, kept in a ring so that the deck can be rolled back to a mark
+    private final int[] log;
+    private long logCount;
+    private long logStart;
 
-    private List<Card> drawnList;
-    private List<Integer> prevInsertList;
+    // Counts of what has happened to the shoe, which are not changed by rolling back
+    private long drawCount;
+    private long undoCount;
+    private long shuffleCount;
 
     public Deck() {
         this(DeckType.SEGMENTED, 1);
@@ -26,6 +68,18 @@ public class Deck {
     }
 
     public Deck(DeckType deckType, int numDecks, boolean hasInsert) {
+        this(deckType, numDecks, hasInsert, RandomSource.create());
+    }
+
+    /**
+     * Construct a deck that draws its cards using the given source of random numbers.
+     *
+     * @param deckType  If the whole deck is drawn from randomly among multiple decks or from one deck
+     * @param numDecks  How many decks of 52 cards there are, from 1 to 8
+     * @param hasInsert If the deck is reshuffled at a random point instead of when it is nearly empty
+     * @param rng       RandomSource used for drawing cards and placing the insert
+     */
+    public Deck(DeckType deckType, int numDecks, boolean hasInsert, RandomSource rng) {
         if (numDecks < 1) {
             numDecks = 1;
         }
@@ -35,72 +89,227 @@ public class Deck {
         this.deckType = deckType;
         this.numDecks = numDecks;
         this.hasInsert = hasInsert;
-        this.cardList = this.setup();
-        this.drawnList = new ArrayList<>(this.cardList.size() / 2);
-        this.prevInsertList = new ArrayList<>();
+        this.rng = rng;
+        this.cards = new int[52 * numDecks];
+        this.swaps = new int[this.cards.length];
+        for (int i = 0; i < this.cards.length; i++) {
+            this.cards[i] = i % 52;
+            this.swaps[i] = i;
+        }
+        this.valueCounts = new int[10];
+        this.fullValueCounts = countValues(this.cards, this.cards.length);
+        this.prevCards = new int[this.cards.length];
+        this.prevSwaps = new int[this.cards.length];
+        this.prevValueCounts = new int[10];
+        this.prevSize = -1;
+        this.log = new int[2 * this.cards.length];
+        this.setup();
     }
 
+    /**
+     * Construct a deck containing only the given cards. The rest of the cards needed to fill every deck of 52 cards are
+     * treated as already drawn, and will be added back when the deck is reshuffled.
+     *
+     * @param deckType If the whole deck is drawn from randomly among multiple decks or from one deck
+     * @param cards    Cards in the deck
+     */
     public Deck(DeckType deckType, Card... cards) {
         this.deckType = deckType;
-        this.numDecks = (int) Math.ceil(cards.length / 52.0);
-        this.cardList = new ArrayList<>();
-        this.cardList.addAll(Arrays.asList(cards));
-        this.drawnList = new ArrayList<>(this.cardList.size() / 2);
-        this.numDrawn = 52 * this.numDecks - cardList.size();
+        this.numDecks = Math.max(1, (int) Math.ceil(cards.length / 52.0));
         this.hasInsert = false;
+        this.rng = RandomSource.create();
+
+        // The missing cards of each deck are placed after the given cards, as if they were drawn
+        int[] missing = new int[52];
+        for (int i = 0; i < 52; i++) {
+            missing[i] = this.numDecks;
+        }
+        for (Card card : cards) {
+            missing[card.getOrdinalValue()]--;
+        }
+        int numMissing = 0;
+        for (int count : missing) {
+            numMissing += Math.max(0, count);
+        }
+
+        this.cards = new int[cards.length + numMissing];
+        this.swaps = new int[this.cards.length];
+        for (int i = 0; i < cards.length; i++) {
+            this.cards[i] = cards[i].getOrdinalValue();
+        }
+        int pos = cards.length;
+        for (int i = 0; i < 52; i++) {
+            for (int n = 0; n < missing[i]; n++) {
+                this.cards[pos++] = i;
+            }
+        }
+        for (int i = 0; i < this.swaps.length; i++) {
+            this.swaps[i] = i;
+        }
+        this.size = cards.length;
         this.posInsert = 52 * this.numDecks;
-        this.prevInsertList = new ArrayList<>();
+        this.valueCounts = countValues(this.cards, this.size);
+        this.fullValueCounts = countValues(this.cards, this.cards.length);
+        this.prevCards = new int[this.cards.length];
+        this.prevSwaps = new int[this.cards.length];
+        this.prevValueCounts = new int[10];
+        this.prevSize = -1;
+        this.log = new int[2 * this.cards.length];
+    }
+
+    /**
+     * Construct a deck as a copy of another deck, including the cards already drawn from it so that the copy can
+     * undo draws the same way as the original.
+     *
+     * @param other Deck to copy
+     */
+    public Deck(Deck other) {
+        this(other, other.rng.split());
+    }
+
+    /**
+     * Construct a deck as a copy of another deck that draws its cards using the given source of random numbers.
+     *
+     * @param other Deck to copy
+     * @param rng   RandomSource used for drawing cards and placing the insert
+     */
+    public Deck(Deck other, RandomSource rng) {
+        this.deckType = other.deckType;
+        this.numDecks = other.numDecks;
+        this.hasInsert = other.hasInsert;
+        this.rng = rng;
+        this.cards = other.cards.clone();
+        this.swaps = other.swaps.clone();
+        this.size = other.size;
+        this.posInsert = other.posInsert;
+        this.valueCounts = other.valueCounts.clone();
+        this.fullValueCounts = other.fullValueCounts;
+        this.prevCards = other.prevCards.clone();
+        this.prevSwaps = other.prevSwaps.clone();
+        this.prevValueCounts = other.prevValueCounts.clone();
+        this.prevSize = other.prevSize;
+        this.prevPosInsert = other.prevPosInsert;
+        this.log = other.log.clone();
+        this.logCount = other.logCount;
+        this.logStart = other.logStart;
+    }
+
+    /**
+     * Construct a deck with as many cards as a snapshot, which are then restored from it.
+     */
+    private Deck(Snapshot snapshot, RandomSource rng) {
+        this.deckType = snapshot.deckType;
+        this.numDecks = snapshot.numDecks;
+        this.hasInsert = snapshot.hasInsert;
+        this.rng = rng;
+        this.cards = new int[snapshot.cards.length];
+        this.swaps = new int[this.cards.length];
+        this.valueCounts = new int[10];
+        this.fullValueCounts = countValues(snapshot.cards, snapshot.cards.length);
+        this.prevCards = new int[this.cards.length];
+        this.prevSwaps = new int[this.cards.length];
+        this.prevValueCounts = new int[10];
+        this.prevSize = -1;
+        this.log = new int[2 * this.cards.length];
+    }
+
+    @Override
+    public Shoe copy(RandomSource rng) {
+        return new Deck(this, rng);
+    }
+
+    @Override
+    public Shoe.Snapshot snapshot() {
+        return new Snapshot(this);
+    }
+
+    @Override
+    public void restore(Shoe.Snapshot snapshot) {
+        if (!(snapshot instanceof Snapshot other) || other.deckType != deckType || other.cards.length != cards.length) {
+            throw new IllegalArgumentException("Snapshot is not of a " + deckType + " deck of " + numDecks
+                    + " decks.");
+        }
+        System.arraycopy(other.cards, 0, this.cards, 0, this.cards.length);
+        System.arraycopy(other.swaps, 0, this.swaps, 0, this.swaps.length);
+        this.size = other.size;
+        this.posInsert = other.posInsert;
+        System.arraycopy(countValues(this.cards, this.size), 0, this.valueCounts, 0, this.valueCounts.length);
+        this.prevSize = -1;
+        // Changes before the snapshot was restored can no longer be reversed
+        this.logStart = this.logCount;
     }
 
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < size(); i++) {
-            sb.append(cardList.get(i)).append(" ");
+        for (int i = 0; i < size; i++) {
+            sb.append(toCard(cards[i])).append(" ");
         }
-        sb.append("\n").append("insert: ").append(posInsert).append(" num drawn: ").append(numDrawn).append(" drawn: ")
-                .append(drawnList.size());
+        sb.append("\n").append("insert: ").append(posInsert).append(" num drawn: ").append(getNumDrawn())
+                .append(" drawn: ").append(cards.length - size);
         return sb.toString();
     }
 
+    @Override
+    public DeckType getDeckType() {
+        return this.deckType;
+    }
+
+    @Override
+    public int getNumDecks() {
+        return this.numDecks;
+    }
+
+    @Override
+    public boolean hasInsert() {
+        return this.hasInsert;
+    }
+
+    @Override
     public int getPosInsert() {
         return this.posInsert;
     }
 
+    @Override
+    public RandomSource getRandomSource() {
+        return this.rng;
+    }
+
     /**
-     * Finds a card that matches the given card by type and suit. This will find the card using binary search.
+     * @return Number of cards drawn or removed since the deck was last shuffled.
+     */
+    @Override
+    public int getNumDrawn() {
+        return this.cards.length - this.size;
+    }
+
+    @Override
+    public long getDrawCount() {
+        return this.drawCount;
+    }
+
+    @Override
+    public long getUndoCount() {
+        return this.undoCount;
+    }
+
+    @Override
+    public long getShuffleCount() {
+        return this.shuffleCount;
+    }
+
+    /**
+     * Finds a card that matches the given card by type and suit.
      *
      * @param card Card to find within the deck.
-     * @return Index of the card found, otherwise -1 if it is not found.
+     * @return Index of the first matching card in the deck, otherwise -1 if it is not found.
      */
     public int find(Card card) {
         int cardOrdinalValue = card.getOrdinalValue();
-        int minBound = 0;
-        int maxBound;
-        int p;
-        int q;
-        int r;
-
-        while (minBound < cardList.size()) {
-            maxBound = this.findDeckBounds(minBound);
-            // binary search the bounds of this deck
-            p = minBound;
-            q = maxBound;
-            r = (p + q) / 2;
-            while (q >= p) {
-                // Equal card values
-                if (cardOrdinalValue == cardList.get(r).getOrdinalValue()) {
-                    return r;
-                } // Card is to the right
-                else if (cardOrdinalValue > cardList.get(r).getOrdinalValue()) {
-                    p = r + 1;
-                } // Card is to the left
-                else if (cardOrdinalValue < cardList.get(r).getOrdinalValue()) {
-                    q = r - 1;
-                }
-                r = (p + q) / 2;
+        for (int i = 0; i < size; i++) {
+            if (cards[i] == cardOrdinalValue) {
+                return i;
             }
-            minBound = maxBound + 1;
         }
         return -1;
     }
@@ -113,86 +322,79 @@ public class Deck {
      */
     public Card get(Card card) {
         int index = this.find(card);
-        if (index < 0 || index > cardList.size()) {
+        if (index < 0) {
             return null;
         }
-        return this.cardList.get(index);
+        return toCard(this.cards[index]);
     }
 
     /**
      * Returns all cards in the deck.
      *
-     * @return A list of all cards in the deck.
+     * @return A new list of all cards in the deck.
      */
     public List<Card> getAll() {
-        return this.cardList;
+        List<Card> cardList = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            cardList.add(toCard(cards[i]));
+        }
+        return cardList;
     }
 
     /**
-     * Adds a card to the deck in the first location applicable while maintaining the deck's sorted order.
+     * Adds a drawn card back to the deck. If the card is the most recently drawn card, it is returned to the position
+     * it was drawn from, the same as undoing that draw.
      *
      * @param card Card to add.
      */
+    @Override
     public void add(Card card) {
         // Do not add any more cards to the deck, as this will exceed the number of decks there should be
-        if (cardList.size() >= 52 * numDecks) {
+        if (size >= cards.length) {
             return;
         }
         int cardOrdinalValue = card.getOrdinalValue();
-        int minBound = 0;
-        int maxBound;
-        int p;
-        int q;
-        int r;
-
-        while (minBound < cardList.size()) {
-            maxBound = this.findDeckBounds(minBound);
-            // binary search the bounds of this deck
-            p = minBound;
-            q = maxBound;
-            r = (p + q) / 2;
-            while (q >= p) {
-                if (cardOrdinalValue == cardList.get(r).getOrdinalValue()) {
-                    break;
-                } else if (cardOrdinalValue > cardList.get(r).getOrdinalValue()) {
-                    p = r + 1;
-                } else if (cardOrdinalValue < cardList.get(r).getOrdinalValue()) {
-                    q = r - 1;
-                }
-                r = (p + q) / 2;
-            }
-            // This is where the card is less than all elements to the right and greater than those to the left
-            if (cardOrdinalValue != cardList.get(r).getOrdinalValue()) {
-                cardList.add(r + 1, card);
-                removeDrawn(card);
-                numDrawn--;
-                break;
-            }
-            minBound = maxBound + 1;
+        if (cards[size] == cardOrdinalValue) {
+            this.record(OP_UNDO, this.undoSwap());
+            return;
+        }
+
+        int index = size + 1;
+        while (index < cards.length && cards[index] != cardOrdinalValue) {
+            index++;
+        }
+        if (index < cards.length) {
+            // Move the card to the front of the drawn cards, as that is where the deck ends
+            this.record(OP_MOVE, index);
+            cards[index] = cards[size];
+        } else {
+            // A card that was not drawn from this shoe replaces the most recently drawn card
+            this.record(OP_REPLACE, cards[size]);
         }
+        cards[size] = cardOrdinalValue;
+        size++;
+        valueCounts[valueOf(cardOrdinalValue) - 1]++;
     }
 
     /**
-     * Finds the card using find() and removes that card from the deck, if it exists.
+     * Finds a card that matches the given card and removes it from the deck, if it exists. The match closest to the
+     * end of the deck is removed, so the card is taken from the segment that is being drawn from when possible.
      *
      * @param card Card to find in the deck.
      * @return Card removed from the deck if it exists, otherwise null.
      */
+    @Override
     public Card remove(Card card) {
-        int index = this.find(card);
-        if (index < 0 || index > cardList.size()) {
-            return null;
+        int cardOrdinalValue = card.getOrdinalValue();
+        int index = size - 1;
+        while (index >= 0 && cards[index] != cardOrdinalValue) {
+            index--;
         }
-        return cardList.remove(index);
-    }
-
-    private void removeDrawn(Card card) {
-        for (int i = 0; i < drawnList.size(); i++) {
-            if (card.getOrdinalValue() == drawnList.get(i).getOrdinalValue()) {
-                drawnList.remove(i);
-                break;
-            }
+        if (index < 0) {
+            return null;
         }
+        this.record(OP_DRAW, index);
+        return toCard(this.swapOut(index));
     }
 
     /**
@@ -200,8 +402,9 @@ public class Deck {
      *
      * @return Number of cards in the deck.
      */
+    @Override
     public int size() {
-        return this.cardList.size();
+        return this.size;
     }
 
     /**
@@ -209,40 +412,54 @@ public class Deck {
      *
      * @return Array of counts for each type of card in the deck.
      */
+    @Override
     public int[] count() {
         int[] count = new int[13];
-        for (int i = 0; i < this.size(); i++) {
-            count[this.cardList.get(i).getType().ordinal()]++;
+        for (int i = 0; i < size; i++) {
+            count[cards[i] % 13]++;
         }
         return count;
     }
 
     /**
-     * Initializes the deck with one or more sets of 52 playing cards.
+     * Count for each value of card in the deck, where Jacks, Queens and Kings are counted with the Tens.
      *
-     * @return List of cards
+     * @return Array of counts for each value of card, from Aces at index 0 to ten-valued cards at index 9.
      */
-    private List<Card> setup() {
-        if (this.numDecks < 1) {
-            throw new IllegalArgumentException("Deck must have at least 1 deck of cards.");
-        }
-        List<Card> cards = new ArrayList<>(52 * this.numDecks);
-        for (int n = 0; n < this.numDecks; n++) {
-            // Adding every card by suit
-            for (int j = 0; j < 4; j++) {
-                for (int i = 0; i < 13; i++) {
-                    cards.add(new Card(i, CardSuit.values()[j], false));
-                }
-            }
+    @Override
+    public int[] countValues() {
+        return this.valueCounts.clone();
+    }
+
+    @Override
+    public int getRunningCount(CountingSystem system) {
+        return system.getInitialCount(numDecks) + system.sum(this.fullValueCounts) - system.sum(this.valueCounts);
+    }
+
+    /**
+     * @return Count of each value among the first cards of the array
+     */
+    private static int[] countValues(int[] cards, int numCards) {
+        int[] count = new int[10];
+        for (int i = 0; i < numCards; i++) {
+            count[valueOf(cards[i]) - 1]++;
         }
+        return count;
+    }
+
+    /**
+     * Returns every drawn card to the deck and places a new insert. Drawn cards stay in the segment they were drawn
+     * from, so only the size of the deck needs to be reset.
+     */
+    private void setup() {
+        this.size = this.cards.length;
+        System.arraycopy(this.fullValueCounts, 0, this.valueCounts, 0, this.valueCounts.length);
         // Add a random split card to the deck that the dealer will stop at
         if (this.hasInsert) {
-            this.posInsert = (int) (cards.size() / 6.0 + Math.random() * cards.size() * 4.0 / 6.0);
+            this.posInsert = cards.length / 6 + rng.nextInt(cards.length * 4 / 6);
         } else {
-            this.posInsert = 52 * numDecks - 1;
+            this.posInsert = cards.length - 1;
         }
-        this.numDrawn = 0;
-        return cards;
     }
 
     /**
@@ -250,88 +467,296 @@ public class Deck {
      *
      * @return Card removed from the deck.
      */
+    @Override
     public Card draw() {
-        // "reshuffle" the deck by resetting it, either when it is empty or when the split card is reached
-        if (cardList == null || cardList.isEmpty() || numDrawn >= posInsert) {
-            this.prevInsertList.add(posInsert);
-            this.cardList = this.setup();
-        }
-        int bounds = this.deckType.equals(DeckType.RANDOM) ? cardList.size() : 52 - Math.floorMod(numDrawn, 52);
-        int index = (int) Math.floor((Math.random() * bounds));
-        Card card = cardList.remove(index);
-        this.drawnList.add(card);
-        this.numDrawn++;
-        card.setVisible(true);
-        return card;
+        this.reshuffleIfNeeded();
+        int lowerBound = this.getLowerBound();
+        int index = lowerBound + rng.nextInt(size - lowerBound);
+        this.record(OP_DRAW, index);
+        this.drawCount++;
+        return toCard(this.swapOut(index));
     }
 
     /**
-     * Remove a card from the deck revealed or hidden.
+     * Remove a random card of the given value from the cards that can be drawn next. Each card of that value is
+     * equally likely to be removed.
      *
-     * @param setVisible Visibility to update the card.
+     * @param value Value of the card, where an Ace is 1 and every ten-valued card is 10
      * @return Card removed from the deck.
+     * @throws IllegalArgumentException if the value is not from 1 to 10
+     * @throws IllegalStateException    if no card of that value can be drawn next
      */
-    public Card draw(boolean setVisible) {
-        Card drawn = this.draw();
-        drawn.setVisible(setVisible);
-        return drawn;
+    @Override
+    public Card drawValue(int value) {
+        if (value < 1 || value > 10) {
+            throw new IllegalArgumentException("Value must be from 1 to 10.");
+        }
+        this.reshuffleIfNeeded();
+        int lowerBound = this.getLowerBound();
+        int range = size - lowerBound;
+        // Guess a few times, as most values are common enough to be found quickly
+        for (int attempt = 0; attempt < 32; attempt++) {
+            int index = lowerBound + rng.nextInt(range);
+            if (valueOf(cards[index]) == value) {
+                this.record(OP_DRAW, index);
+                this.drawCount++;
+                return toCard(this.swapOut(index));
+            }
+        }
+        int matches = 0;
+        for (int i = lowerBound; i < size; i++) {
+            if (valueOf(cards[i]) == value) {
+                matches++;
+            }
+        }
+        if (matches == 0) {
+            throw new IllegalStateException("No card of value " + value + " can be drawn.");
+        }
+        int target = rng.nextInt(matches);
+        int index = lowerBound;
+        while (valueOf(cards[index]) != value || target-- > 0) {
+            index++;
+        }
+        this.record(OP_DRAW, index);
+        this.drawCount++;
+        return toCard(this.swapOut(index));
+    }
+
+    /**
+     * Count for each value of card that can be drawn next, which is every card in a RANDOM deck and the cards in the
+     * current segment of a SEGMENTED deck. If the next draw would reshuffle the deck, these are not the cards it would
+     * draw from.
+     *
+     * @return Array of counts for each value of card, from Aces at index 0 to ten-valued cards at index 9.
+     */
+    @Override
+    public int[] countNextValues() {
+        int[] count = new int[10];
+        for (int i = this.getLowerBound(); i < size; i++) {
+            count[valueOf(cards[i]) - 1]++;
+        }
+        return count;
+    }
+
+    /**
+     * Sorts the cards in each segment of the deck from Aces to Kings. Every card is still equally likely to be drawn,
+     * but random numbers that are close together now draw cards of close value, and the first and last positions draw
+     * cards of opposite value. The sort is not recorded, so it cannot be rolled back, but rolling back to a mark made
+     * after sorting restores the sorted order.
+     */
+    @Override
+    public void sortByValue() {
+        int[] countByOrdinal = new int[52];
+        for (int start = 0; start < size; start += 52) {
+            int end = Math.min(start + 52, size);
+            for (int i = start; i < end; i++) {
+                countByOrdinal[cards[i]]++;
+            }
+            int pos = start;
+            for (int type = 0; type < 13; type++) {
+                for (int suit = 0; suit < 4; suit++) {
+                    int ordinalValue = suit * 13 + type;
+                    for (; countByOrdinal[ordinalValue] > 0; countByOrdinal[ordinalValue]--) {
+                        cards[pos++] = ordinalValue;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * "Reshuffle" the deck by resetting it, either when it is empty or when the split card is reached.
+     */
+    private void reshuffleIfNeeded() {
+        if (size == 0 || getNumDrawn() >= posInsert) {
+            ReshuffleEvent event = new ReshuffleEvent();
+            event.begin();
+            int numDrawn = getNumDrawn();
+            System.arraycopy(this.cards, 0, this.prevCards, 0, this.cards.length);
+            System.arraycopy(this.swaps, 0, this.prevSwaps, 0, this.swaps.length);
+            System.arraycopy(this.valueCounts, 0, this.prevValueCounts, 0, this.valueCounts.length);
+            this.prevSize = this.size;
+            this.prevPosInsert = this.posInsert;
+            this.record(OP_SHUFFLE, 0);
+            this.shuffleCount++;
+            this.setup();
+            event.finish(this, this.prevPosInsert, numDrawn);
+        }
     }
 
     /**
-     * Adds back the last card that was removed from the deck. If the deck is complete it will be rebuilt without
-     * all cards that should be removed.
+     * @return Position of the first card that can be drawn next.
      */
+    private int getLowerBound() {
+        return !DeckType.SEGMENTED.equals(this.deckType) || size == 0 ? 0 : (size - 1) / 52 * 52;
+    }
+
+    private static int valueOf(int cardOrdinalValue) {
+        return Math.min(cardOrdinalValue % 13, 9) + 1;
+    }
+
+    /**
+     * Adds back the last card that was drawn or removed from the deck, in the position it was taken from. If that draw
+     * reshuffled the deck, the deck is restored to how it was before it was reshuffled.
+     */
+    @Override
     public void undoDraw() {
-        if (this.drawnList == null || this.drawnList.isEmpty()) {
+        if (size >= cards.length) {
             return;
         }
+        this.record(OP_UNDO, this.undoSwap());
+        this.undoCount++;
         // Newly reshuffled deck
-        if (this.drawnList.size() > numDrawn && numDrawn == 0) {
-            // Deck size - insert location + 1 (ex. 52 - (10 + 1) = 42 cards drawn)
-            int numDrawnBeforeShuffle = 52 * numDecks - prevInsertList.get(prevInsertList.size() - 1) - 1;
-            // If 0 is larger, the drawn deck is smaller than prev deck, otherwise drawn cards has multiple shuffles
-            int stopIndex = Math.max(0, this.drawnList.size() - numDrawnBeforeShuffle);
-            // Remove the last-drawn card
-            this.drawnList.remove(this.drawnList.size() - 1);
-            // reset deck
-            this.setup();
-            this.posInsert = prevInsertList.remove(prevInsertList.size() - 1);
-            this.numDrawn = numDrawnBeforeShuffle;
+        if (size == cards.length && prevSize >= 0) {
+            this.unshuffle();
+            // The shuffled deck is no longer kept, so no mark before this can be rolled back to
+            this.logStart = this.logCount;
+        }
+    }
 
-            for (int i = this.drawnList.size() - 1; i >= stopIndex; i--) {
-                this.remove(drawnList.get(i));
+    /**
+     * Records the current state of the deck, so that it can be restored later using rollback(). Marking the deck is
+     * free, as every change to the deck is already recorded.
+     *
+     * @return Mark of the deck's current state
+     */
+    @Override
+    public long mark() {
+        return this.logCount;
+    }
+
+    /**
+     * Restores the deck to the state it had when the mark was made, by reversing each change made since then. This
+     * takes time proportional to the number of cards drawn, added or removed since the mark, instead of to the size
+     * of the deck.
+     * <br/>
+     * Only the most recent changes are kept, up to twice the number of cards in the deck, and only one reshuffle can
+     * be reversed, so a mark that is too old can no longer be rolled back to.
+     *
+     * @param mark A mark from mark()
+     * @throws IllegalArgumentException if the mark was not made by this deck
+     * @throws IllegalStateException    if the changes since the mark are no longer kept
+     */
+    @Override
+    public void rollback(long mark) {
+        if (mark > this.logCount) {
+            throw new IllegalArgumentException("Mark is ahead of the deck's changes.");
+        }
+        if (mark < this.logStart || this.logCount - mark > this.log.length) {
+            throw new IllegalStateException("Deck has changed too much since the mark to roll back.");
+        }
+        while (this.logCount > mark) {
+            this.logCount--;
+            int entry = this.log[(int) (this.logCount % this.log.length)];
+            int value = entry & OP_MASK;
+            switch (entry >>> OP_SHIFT) {
+                case OP_DRAW -> {
+                    swaps[size] = value;
+                    this.undoSwap();
+                }
+                case OP_UNDO -> this.swapOut(value);
+                case OP_MOVE -> {
+                    size--;
+                    int cardOrdinalValue = cards[size];
+                    valueCounts[valueOf(cardOrdinalValue) - 1]--;
+                    cards[size] = cards[value];
+                    cards[value] = cardOrdinalValue;
+                }
+                case OP_REPLACE -> {
+                    size--;
+                    valueCounts[valueOf(cards[size]) - 1]--;
+                    cards[size] = value;
+                }
+                case OP_SHUFFLE -> {
+                    if (this.prevSize < 0) {
+                        this.logStart = this.logCount + 1;
+                        throw new IllegalStateException("Deck has been reshuffled too many times to roll back.");
+                    }
+                    this.unshuffle();
+                }
+                default -> throw new IllegalStateException("Unknown change recorded in the deck.");
             }
-        } else {
-            // Add back the last-drawn card
-            this.add(this.drawnList.remove(this.drawnList.size() - 1));
         }
     }
 
+    private void record(int op, int value) {
+        this.log[(int) (this.logCount % this.log.length)] = (op << OP_SHIFT) | value;
+        this.logCount++;
+    }
+
+    private void unshuffle() {
+        System.arraycopy(this.prevCards, 0, this.cards, 0, this.cards.length);
+        System.arraycopy(this.prevSwaps, 0, this.swaps, 0, this.swaps.length);
+        System.arraycopy(this.prevValueCounts, 0, this.valueCounts, 0, this.valueCounts.length);
+        this.size = this.prevSize;
+        this.posInsert = this.prevPosInsert;
+        this.prevSize = -1;
+    }
+
     /**
-     * Finds the bounds for a subset of the Deck that is 52 or fewer cards.
+     * Swaps the card at the given index with the last card of the deck, and removes it from the deck.
      *
-     * @param start Start index of the deck.
-     * @return Index of the last card (right bound) within this deck subset
+     * @param index Index of the card in the deck
+     * @return Ordinal value of the card removed
      */
-    private int findDeckBounds(int start) {
-        if (start < 0 || start >= cardList.size()) {
-            throw new IndexOutOfBoundsException();
-        }
+    private int swapOut(int index) {
+        int last = --size;
+        int cardOrdinalValue = cards[index];
+        cards[index] = cards[last];
+        cards[last] = cardOrdinalValue;
+        swaps[last] = index;
+        valueCounts[valueOf(cardOrdinalValue) - 1]--;
+        return cardOrdinalValue;
+    }
 
-        int startValue = cardList.get(start).getOrdinalValue();
-        int[] seenValues = new int[52]; // There are only 52 possible values for a card in a deck
+    /**
+     * Reverses the swap made by the most recent swapOut(), adding the card back to the deck.
+     *
+     * @return Index the card was added back to
+     */
+    private int undoSwap() {
+        int index = swaps[size];
+        int cardOrdinalValue = cards[size];
+        cards[size] = cards[index];
+        cards[index] = cardOrdinalValue;
+        size++;
+        valueCounts[valueOf(cardOrdinalValue) - 1]++;
+        return index;
+    }
 
-        int pos = start;
-        int peek;
-        while (pos < cardList.size()) {
-            peek = cardList.get(pos).getOrdinalValue();
-            // Already seen or this value is not within this deck
-            if (seenValues[peek] > 0 || peek < startValue) {
-                return pos - 1;
-            }
-            seenValues[peek]++;
-            pos++;
+    private static Card toCard(int cardOrdinalValue) {
+        return Card.of(cardOrdinalValue);
+    }
+
+    /**
+     * The order of every card and the position each drawn card was swapped from, so draws made before the snapshot
+     * can still be undone one at a time after it is restored.
+     */
+    private static final class Snapshot implements Shoe.Snapshot {
+
+        private final DeckType deckType;
+        private final int numDecks;
+        private final boolean hasInsert;
+        private final int[] cards;
+        private final int[] swaps;
+        private final int size;
+        private final int posInsert;
+
+        private Snapshot(Deck deck) {
+            this.deckType = deck.deckType;
+            this.numDecks = deck.numDecks;
+            this.hasInsert = deck.hasInsert;
+            this.cards = deck.cards.clone();
+            this.swaps = deck.swaps.clone();
+            this.size = deck.size;
+            this.posInsert = deck.posInsert;
+        }
+
+        @Override
+        public Shoe toShoe(RandomSource rng) {
+            Deck deck = new Deck(this, rng);
+            deck.restore(this);
+            return deck;
         }
-        return cardList.size() - 1;
     }
 }
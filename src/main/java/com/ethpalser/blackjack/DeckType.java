@@ -2,7 +2,8 @@ package com.ethpalser.blackjack;
 
 public enum DeckType {
     RANDOM("Deck has all cards randomized together"),
-    SEGMENTED("Deck has all cards randomized within each deck segment");
+    SEGMENTED("Deck has all cards randomized within each deck segment"),
+    RANK_ONLY("Deck only counts the cards of each value, ignoring suits");
 
     private String displayValue;
 
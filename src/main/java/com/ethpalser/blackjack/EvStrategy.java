@@ -0,0 +1,73 @@
+package com.ethpalser.blackjack;
+
+/**
+ * A strategy that makes the choice with the highest expected value in an EvTable for hands of two cards, and follows
+ * another strategy for every other hand or when the table does not have a value.
+ * <br/>
+ * The table is only read, so the strategy can be shared by players across tables and threads like any other strategy.
+ */
+public class EvStrategy implements Strategy {
+
+    private final EvTable table;
+    private final DealerRule dealerRule;
+    private final int numDecks;
+    private final DeckType deckType;
+    private final Strategy fallback;
+
+    /**
+     * Creates a strategy that follows basic strategy when the table does not have a value.
+     *
+     * @see #EvStrategy(EvTable, DealerRule, int, DeckType, Strategy)
+     */
+    public EvStrategy(EvTable table, DealerRule dealerRule, int numDecks, DeckType deckType) {
+        this(table, dealerRule, numDecks, deckType, ChartStrategy.basic());
+    }
+
+    /**
+     * @param table      EvTable of expected values
+     * @param dealerRule Rule the dealer plays by, which chooses the values to read
+     * @param numDecks   Number of decks in the shoe, which must be in the table
+     * @param deckType   DeckType of the shoe
+     * @param fallback   Strategy used for hands the table has no value for
+     * @throws IllegalArgumentException if the deck count is not in the table or any argument is null
+     */
+    public EvStrategy(EvTable table, DealerRule dealerRule, int numDecks, DeckType deckType, Strategy fallback) {
+        if (table == null || dealerRule == null || deckType == null || fallback == null) {
+            throw new IllegalArgumentException("Table, dealer rule, deck type and fallback must not be null.");
+        }
+        if (numDecks < table.getMinDecks() || numDecks > table.getMaxDecks()) {
+            throw new IllegalArgumentException("Table has " + table.getMinDecks() + " to " + table.getMaxDecks()
+                    + " decks, not " + numDecks + ".");
+        }
+        this.table = table;
+        this.dealerRule = dealerRule;
+        this.numDecks = numDecks;
+        this.deckType = deckType;
+        this.fallback = fallback;
+    }
+
+    @Override
+    public PlayerChoice choose(Hand playerHand, Card dealerUpCard, boolean canSplit, boolean canSurrender) {
+        if (playerHand.size() != 2) {
+            return fallback.choose(playerHand, dealerUpCard, canSplit, canSurrender);
+        }
+        int first = playerHand.getCard(0).getValue();
+        int second = playerHand.getCard(1).getValue();
+        int up = dealerUpCard.getValue();
+        PlayerChoice best = null;
+        float bestEv = Float.NEGATIVE_INFINITY;
+        for (PlayerChoice choice : PlayerChoice.values()) {
+            if (choice == PlayerChoice.SPLIT && !(canSplit && playerHand.canSplit())
+                    || choice == PlayerChoice.SURRENDER && !canSurrender) {
+                continue;
+            }
+            float ev = table.getEv(dealerRule, numDecks, deckType, first, second, up, choice);
+            // NaN is never greater, so choices the table does not have are skipped
+            if (ev > bestEv) {
+                bestEv = ev;
+                best = choice;
+            }
+        }
+        return best != null ? best : fallback.choose(playerHand, dealerUpCard, canSplit, canSurrender);
+    }
+}
@@ -0,0 +1,303 @@
+package com.ethpalser.blackjack;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Precomputed expected values of every choice for every two-card starting hand against every dealer up card, along
+ * with the chance of each outcome of the dealer's hand from a full shoe, read from a file.
+ * <br/>
+ * The file is mapped into memory instead of being read, so opening it takes no time regardless of its size, and every
+ * process that opens the same file shares the same pages. Values are read from the mapping when they are asked for,
+ * and nothing changes the mapping after it is opened, so a table can be shared by every thread.
+ * <br/>
+ * A file is a header of {@value #HEADER_SIZE} bytes followed by two arrays of little-endian floats, where a missing
+ * value is NaN:
+ * <ul>
+ *     <li>Expected values, indexed by dealer rule, deck count, deck type, starting hand, up card and choice in the
+ *     order of PlayerChoice</li>
+ *     <li>Dealer outcomes, indexed by dealer rule, deck count, deck type, up card and outcome</li>
+ * </ul>
+ * The header holds the size of each index and the offset of each array, so a table can cover any range of deck
+ * counts. A file with another version is rejected rather than read incorrectly.
+ */
+public class EvTable {
+
+    public static final int VERSION = 2;
+    // "BJEV" as read from the start of the file
+    private static final int MAGIC = 0x56454A42;
+    private static final int HEADER_SIZE = 64;
+    private static final int NUM_VALUES = 10;
+    // Starting hands are pairs of values where the first is not more than the second
+    private static final int NUM_HANDS = NUM_VALUES * (NUM_VALUES + 1) / 2;
+    // RANK_ONLY deals the same as RANDOM, so they share their values
+    private static final int NUM_DECK_TYPES = 2;
+    private static final PlayerChoice[] CHOICES = PlayerChoice.values();
+    private static final int NUM_OUTCOMES = DealerOutcome.values().length;
+    private static final int NUM_RULES = DealerRule.values().length;
+
+    private final int minDecks;
+    private final int maxDecks;
+    private final FloatBuffer evs;
+    private final FloatBuffer dealerOutcomes;
+
+    private EvTable(int minDecks, int maxDecks, FloatBuffer evs, FloatBuffer dealerOutcomes) {
+        this.minDecks = minDecks;
+        this.maxDecks = maxDecks;
+        this.evs = evs;
+        this.dealerOutcomes = dealerOutcomes;
+    }
+
+    /**
+     * Maps a table file into memory.
+     *
+     * @param path Path of the table file
+     * @return A table reading from the mapped file
+     * @throws IOException              Runtime exception while opening or mapping the file
+     * @throws IllegalArgumentException if the file is not a table, has another version or is shorter than its header
+     *                                  says
+     */
+    public static EvTable open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length < HEADER_SIZE) {
+                throw new IllegalArgumentException("File " + path + " is too short to be an EV table.");
+            }
+            // The mapping stays valid after the channel is closed
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length).order(ByteOrder.LITTLE_ENDIAN);
+            return read(buffer, path.toString());
+        }
+    }
+
+    private static EvTable read(ByteBuffer buffer, String name) {
+        if (buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("File " + name + " is not an EV table.");
+        }
+        int version = buffer.getInt(4);
+        if (version != VERSION) {
+            throw new IllegalArgumentException("File " + name + " has version " + version + ", but only version "
+                    + VERSION + " can be read.");
+        }
+        int minDecks = buffer.getInt(8);
+        int maxDecks = buffer.getInt(12);
+        if (minDecks < 1 || maxDecks < minDecks || buffer.getInt(16) != NUM_RULES
+                || buffer.getInt(20) != NUM_DECK_TYPES || buffer.getInt(24) != NUM_HANDS
+                || buffer.getInt(28) != NUM_VALUES || buffer.getInt(32) != CHOICES.length
+                || buffer.getInt(36) != NUM_OUTCOMES) {
+            throw new IllegalArgumentException("File " + name + " has a header that does not match its version.");
+        }
+        int numEvs = evLength(minDecks, maxDecks);
+        int numOutcomes = dealerLength(minDecks, maxDecks);
+        long evOffset = buffer.getLong(40);
+        long dealerOffset = buffer.getLong(48);
+        if (evOffset < HEADER_SIZE || dealerOffset < HEADER_SIZE
+                || evOffset + 4L * numEvs > buffer.capacity() || dealerOffset + 4L * numOutcomes > buffer.capacity()) {
+            throw new IllegalArgumentException("File " + name + " is shorter than its header says.");
+        }
+        return new EvTable(minDecks, maxDecks, slice(buffer, evOffset, numEvs),
+                slice(buffer, dealerOffset, numOutcomes));
+    }
+
+    private static FloatBuffer slice(ByteBuffer buffer, long offset, int numFloats) {
+        return buffer.slice((int) offset, 4 * numFloats).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+    }
+
+    public int getMinDecks() {
+        return this.minDecks;
+    }
+
+    public int getMaxDecks() {
+        return this.maxDecks;
+    }
+
+    /**
+     * Gets the expected value of making a choice first with a starting hand, per unit bet.
+     *
+     * @param dealerRule  Rule the dealer plays by
+     * @param numDecks    Number of decks in the shoe
+     * @param deckType    DeckType of the shoe
+     * @param firstValue  Value of the first card, where an Ace is 1 and every ten-valued card is 10
+     * @param secondValue Value of the second card
+     * @param upValue     Value of the dealer's up card
+     * @param choice      Choice made first
+     * @return Expected value, or NaN if the table does not have it
+     * @throws IllegalArgumentException if the deck count is not in the table or a value is not from 1 to 10
+     */
+    public float getEv(DealerRule dealerRule, int numDecks, DeckType deckType, int firstValue, int secondValue,
+                       int upValue, PlayerChoice choice) {
+        int index = evIndex(minDecks, maxDecks, dealerRule, numDecks, deckType, firstValue, secondValue, upValue,
+                choice);
+        return evs.get(index);
+    }
+
+    /**
+     * Gets the chance of one outcome of the dealer's hand when the dealer's hidden card and every card after it are
+     * drawn from a full shoe without the up card. A SEGMENTED shoe only draws from its current deck of 52 cards, so
+     * its outcomes are those of a single deck whatever the number of decks.
+     *
+     * @param dealerRule Rule the dealer plays by
+     * @param numDecks   Number of decks in the shoe
+     * @param deckType   DeckType of the shoe
+     * @param upValue    Value of the dealer's up card, where an Ace is 1
+     * @param outcome    Outcome of the dealer's hand
+     * @return Chance of the outcome, or NaN if the table does not have it
+     * @throws IllegalArgumentException if the deck count is not in the table or the value is not from 1 to 10
+     */
+    public float getDealerOutcome(DealerRule dealerRule, int numDecks, DeckType deckType, int upValue,
+                                  DealerOutcome outcome) {
+        checkValue(upValue);
+        int shoe = shoeIndex(minDecks, maxDecks, dealerRule, numDecks, deckType);
+        int index = (shoe * NUM_VALUES + upValue - 1) * NUM_OUTCOMES + outcome.ordinal();
+        return dealerOutcomes.get(index);
+    }
+
+    private static int evIndex(int minDecks, int maxDecks, DealerRule dealerRule, int numDecks, DeckType deckType,
+                               int firstValue, int secondValue, int upValue, PlayerChoice choice) {
+        checkValue(firstValue);
+        checkValue(secondValue);
+        checkValue(upValue);
+        int hand = handIndex(Math.min(firstValue, secondValue), Math.max(firstValue, secondValue));
+        int shoe = shoeIndex(minDecks, maxDecks, dealerRule, numDecks, deckType);
+        return ((shoe * NUM_HANDS + hand) * NUM_VALUES + upValue - 1) * CHOICES.length + choice.ordinal();
+    }
+
+    private static int shoeIndex(int minDecks, int maxDecks, DealerRule dealerRule, int numDecks,
+                                 DeckType deckType) {
+        if (numDecks < minDecks || numDecks > maxDecks) {
+            throw new IllegalArgumentException("Table has " + minDecks + " to " + maxDecks + " decks, not "
+                    + numDecks + ".");
+        }
+        int type = DeckType.SEGMENTED.equals(deckType) ? 1 : 0;
+        return (dealerRule.ordinal() * (maxDecks - minDecks + 1) + numDecks - minDecks) * NUM_DECK_TYPES + type;
+    }
+
+    private static int handIndex(int low, int high) {
+        // Hands are in order of their lower value, and each lower value has one hand for every higher value
+        return (low - 1) * NUM_VALUES - (low - 1) * (low - 2) / 2 + high - low;
+    }
+
+    private static void checkValue(int value) {
+        if (value < 1 || value > NUM_VALUES) {
+            throw new IllegalArgumentException("Value must be from 1 to " + NUM_VALUES + ".");
+        }
+    }
+
+    private static int evLength(int minDecks, int maxDecks) {
+        return NUM_RULES * (maxDecks - minDecks + 1) * NUM_DECK_TYPES * NUM_HANDS * NUM_VALUES * CHOICES.length;
+    }
+
+    private static int dealerLength(int minDecks, int maxDecks) {
+        return NUM_RULES * (maxDecks - minDecks + 1) * NUM_DECK_TYPES * NUM_VALUES * NUM_OUTCOMES;
+    }
+
+    /**
+     * Collects expected values for a range of deck counts and writes them as a table file. The dealer outcomes are
+     * calculated exactly when the file is written, so only the expected values need to be given.
+     */
+    public static class Builder {
+
+        private final int minDecks;
+        private final int maxDecks;
+        private final float[] evs;
+
+        /**
+         * @param minDecks Fewest decks in the shoe
+         * @param maxDecks Most decks in the shoe
+         */
+        public Builder(int minDecks, int maxDecks) {
+            if (minDecks < 1 || maxDecks < minDecks) {
+                throw new IllegalArgumentException("Deck counts must be at least 1 and in order.");
+            }
+            this.minDecks = minDecks;
+            this.maxDecks = maxDecks;
+            this.evs = new float[evLength(minDecks, maxDecks)];
+            Arrays.fill(this.evs, Float.NaN);
+        }
+
+        /**
+         * Sets the expected value of making a choice first with a starting hand.
+         *
+         * @return This builder
+         * @see EvTable#getEv(DealerRule, int, DeckType, int, int, int, PlayerChoice)
+         */
+        public Builder setEv(DealerRule dealerRule, int numDecks, DeckType deckType, int firstValue, int secondValue,
+                             int upValue, PlayerChoice choice, float ev) {
+            evs[evIndex(minDecks, maxDecks, dealerRule, numDecks, deckType, firstValue, secondValue, upValue,
+                    choice)] = ev;
+            return this;
+        }
+
+        /**
+         * Writes the table to a file, replacing it only once the whole table is written.
+         *
+         * @param path Path of the table file
+         * @throws IOException Runtime exception while writing the file
+         */
+        public void write(Path path) throws IOException {
+            float[] outcomes = dealerOutcomes();
+            long evOffset = HEADER_SIZE;
+            long dealerOffset = evOffset + 4L * evs.length;
+            ByteBuffer buffer = ByteBuffer.allocate((int) (dealerOffset + 4L * outcomes.length))
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(minDecks).putInt(maxDecks).putInt(NUM_RULES)
+                    .putInt(NUM_DECK_TYPES).putInt(NUM_HANDS).putInt(NUM_VALUES).putInt(CHOICES.length)
+                    .putInt(NUM_OUTCOMES).putLong(evOffset).putLong(dealerOffset);
+            buffer.position(HEADER_SIZE);
+            buffer.asFloatBuffer().put(evs).put(outcomes);
+
+            Path dir = path.toAbsolutePath().getParent();
+            Path temp = Files.createTempFile(dir, path.getFileName().toString(), ".tmp");
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                buffer.rewind();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        private float[] dealerOutcomes() {
+            float[] outcomes = new float[dealerLength(minDecks, maxDecks)];
+            int index = 0;
+            for (DealerRule rule : DealerRule.values()) {
+                DealerOutcomeCalculator calculator = new DealerOutcomeCalculator(rule);
+                // A SEGMENTED shoe draws from one deck at a time, so it always has the outcomes of a single deck
+                double[][] segmented = byUpCard(calculator, 1);
+                for (int numDecks = minDecks; numDecks <= maxDecks; numDecks++) {
+                    // RANDOM comes before SEGMENTED, as in the index of each shoe
+                    for (double[][] shoe : new double[][][]{byUpCard(calculator, numDecks), segmented}) {
+                        for (double[] odds : shoe) {
+                            for (double odd : odds) {
+                                outcomes[index++] = (float) odd;
+                            }
+                        }
+                    }
+                }
+            }
+            return outcomes;
+        }
+
+        /**
+         * @return The dealer's outcomes for each up card, drawn from a full shoe of this many decks without the up card
+         */
+        private static double[][] byUpCard(DealerOutcomeCalculator calculator, int numDecks) {
+            double[][] byUpCard = new double[NUM_VALUES][];
+            for (int up = 1; up <= NUM_VALUES; up++) {
+                int[] counts = new int[NUM_VALUES];
+                Arrays.fill(counts, 4 * numDecks);
+                counts[NUM_VALUES - 1] = 16 * numDecks;
+                counts[up - 1]--;
+                byUpCard[up - 1] = calculator.calculate(up, counts);
+            }
+            return byUpCard;
+        }
+    }
+}
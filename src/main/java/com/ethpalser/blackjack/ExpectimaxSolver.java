@@ -0,0 +1,344 @@
+package com.ethpalser.blackjack;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Calculates the exact expected value of each choice for a player's hand, given the dealer's up card and the cards
+ * the player cannot see. Every card the player could draw is followed, and after each one the player takes whichever
+ * of Hit or Stand is worth more, while the dealer's hand is calculated by a DealerOutcomeCalculator.
+ * <br/>
+ * The value of a hand depends only on its total, whether it is soft, and which cards remain, so each of these states
+ * is calculated once and kept in a transposition table keyed by a single long. Many orders of drawing reach the same
+ * state, so the table is far smaller than the tree of draws. The search stops once the table has more states than
+ * its budget, or once it has taken longer than its time limit, so the caller can estimate the hand another way
+ * instead of waiting.
+ * <br/>
+ * Only the hand being played is followed. The cards taken by later hands and players are not known when the dealer
+ * plays, so they are treated as unseen. A Split is twice the value of one of the split hands, which may Double but
+ * not Split again, played from the same cards.
+ */
+public class ExpectimaxSolver {
+
+    public static final int DEFAULT_MAX_STATES = 500;
+
+    private static final int NUM_VALUES = 10;
+    private static final int NUM_CHOICES = PlayerChoice.values().length;
+    // Each value's number of drawn cards is kept in 5 bits of the key, followed by the hard total and the soft flag
+    private static final int KEY_BITS = 5;
+    private static final int MAX_DRAWN = (1 << KEY_BITS) - 1;
+    private static final int TOTAL_SHIFT = KEY_BITS * NUM_VALUES;
+    private static final long SOFT_BIT = 1L << (TOTAL_SHIFT + KEY_BITS);
+    // Expected value and chance of winning of a hand that is bust
+    private static final double[] BUST = {-1, 0};
+
+    private final DealerOutcomeCalculator calculator;
+    private final int maxStates;
+    private final long maxNanos;
+
+    public ExpectimaxSolver(DealerRule dealerRule) {
+        this(dealerRule, DEFAULT_MAX_STATES);
+    }
+
+    public ExpectimaxSolver(DealerRule dealerRule, int maxStates) {
+        this(dealerRule, maxStates, Long.MAX_VALUE);
+    }
+
+    /**
+     * @param dealerRule Rule the dealer plays by
+     * @param maxStates  Most states kept in the transposition table before the search is abandoned
+     * @param maxNanos   Longest time a search can take before it is abandoned
+     * @throws IllegalArgumentException if the rule is null or a budget is less than 1
+     */
+    public ExpectimaxSolver(DealerRule dealerRule, int maxStates, long maxNanos) {
+        if (maxStates < 1 || maxNanos < 1) {
+            throw new IllegalArgumentException("State and time budgets must be at least 1.");
+        }
+        this.calculator = new DealerOutcomeCalculator(dealerRule);
+        this.maxStates = maxStates;
+        this.maxNanos = maxNanos;
+    }
+
+    public int getMaxStates() {
+        return this.maxStates;
+    }
+
+    public long getMaxNanos() {
+        return this.maxNanos;
+    }
+
+    /**
+     * Calculates the expected value of each choice for the hand, per unit of the hand's bet.
+     *
+     * @param hand        Hand being played
+     * @param upCardValue Value of the dealer's up card, where an Ace is 1
+     * @param valueCounts Number of unseen cards of each value, including the dealer's hidden card
+     * @param choices     Choices the player can make for the hand
+     * @return The value of each choice, or null if the hand has more states than the budget or takes too long
+     * @throws IllegalArgumentException if an argument is null, the up card value is invalid, the counts are invalid
+     *                                  or the hand cannot be split but Split is a choice
+     */
+    public Solution solve(Hand hand, int upCardValue, int[] valueCounts, Collection<PlayerChoice> choices) {
+        if (hand == null || valueCounts == null || choices == null) {
+            throw new IllegalArgumentException("Hand, counts and choices must not be null.");
+        }
+        if (upCardValue < 1 || upCardValue > NUM_VALUES) {
+            throw new IllegalArgumentException("Up card value must be from 1 to " + NUM_VALUES + ".");
+        }
+        if (valueCounts.length != NUM_VALUES) {
+            throw new IllegalArgumentException("Counts must have one count for each of the " + NUM_VALUES
+                    + " values.");
+        }
+        if (choices.contains(PlayerChoice.SPLIT) && !hand.canSplit()) {
+            throw new IllegalArgumentException("Hand " + hand + " cannot be split.");
+        }
+        Search search = new Search(upCardValue, valueCounts.clone());
+        boolean isSoft = hand.isSoft();
+        int hardValue = isSoft ? hand.getValue() - 10 : hand.getValue();
+
+        double[] evs = new double[NUM_CHOICES];
+        double[] winRates = new double[NUM_CHOICES];
+        Arrays.fill(evs, Double.NaN);
+        Arrays.fill(winRates, Double.NaN);
+        for (PlayerChoice choice : choices) {
+            double[] value = switch (choice) {
+                case HIT -> search.hit(hardValue, isSoft);
+                case STAND -> search.stand(hardValue, isSoft);
+                case DOUBLE_DOWN -> search.doubleDown(hardValue, isSoft);
+                case SPLIT -> search.split(hand.getCard(0).getValue());
+                case SURRENDER -> new double[]{-0.5, 0};
+            };
+            if (search.isAbandoned) {
+                return null;
+            }
+            evs[choice.ordinal()] = value[0];
+            winRates[choice.ordinal()] = value[1];
+        }
+        return new Solution(evs, winRates, search.memo.size());
+    }
+
+    /**
+     * The expected value and chance of winning of each choice, when every later choice is the one worth the most.
+     */
+    public static final class Solution {
+        private final double[] evs;
+        private final double[] winRates;
+        private final int numStates;
+
+        private Solution(double[] evs, double[] winRates, int numStates) {
+            this.evs = evs;
+            this.winRates = winRates;
+            this.numStates = numStates;
+        }
+
+        /**
+         * @return Average amount won per unit bet, across the hand and the hands split from it
+         * @throws IllegalArgumentException if the choice was not solved
+         */
+        public double getEv(PlayerChoice choice) {
+            return check(evs[choice.ordinal()], choice);
+        }
+
+        /**
+         * @return Fraction of the hand and the hands split from it that are expected to win
+         * @throws IllegalArgumentException if the choice was not solved
+         */
+        public double getWinRate(PlayerChoice choice) {
+            return check(winRates[choice.ordinal()], choice);
+        }
+
+        public boolean isSolved(PlayerChoice choice) {
+            return !Double.isNaN(evs[choice.ordinal()]);
+        }
+
+        /**
+         * @return Number of states in the transposition table when the search finished
+         */
+        public int getNumStates() {
+            return numStates;
+        }
+
+        private static double check(double value, PlayerChoice choice) {
+            if (Double.isNaN(value)) {
+                throw new IllegalArgumentException("Choice " + choice + " was not solved.");
+            }
+            return value;
+        }
+    }
+
+    /**
+     * The state of one search, where the drawn cards are added and removed while following each card the player can
+     * draw. Every method returns the expected value and the chance of winning, in that order.
+     */
+    private class Search {
+        private final int upCardValue;
+        private final int[] counts;
+        private final int total;
+        private final int[] drawn;
+        private long drawnKey;
+        private int numDrawn;
+        // Best of Hit and Stand for each state, and the dealer's outcomes for each combination of drawn cards
+        private final Map<Long, double[]> memo;
+        private final Map<Long, double[]> dealerOdds;
+        private final long start;
+        private boolean isAbandoned;
+
+        private Search(int upCardValue, int[] counts) {
+            this.start = System.nanoTime();
+            this.upCardValue = upCardValue;
+            this.counts = counts;
+            int total = 0;
+            for (int count : counts) {
+                if (count < 0) {
+                    throw new IllegalArgumentException("Counts must not be negative.");
+                }
+                total += count;
+            }
+            this.total = total;
+            this.drawn = new int[NUM_VALUES];
+            this.memo = new HashMap<>();
+            this.dealerOdds = new HashMap<>();
+        }
+
+        private double[] stand(int hardValue, boolean isSoft) {
+            if (hardValue > 21) {
+                return BUST;
+            }
+            double[] odds = dealerOdds.get(drawnKey);
+            if (odds == null) {
+                if (numDrawn == total) {
+                    // The dealer has nothing to draw, which only happens with a nearly empty shoe
+                    isAbandoned = true;
+                    return BUST;
+                }
+                int[] remaining = new int[NUM_VALUES];
+                for (int v = 0; v < NUM_VALUES; v++) {
+                    remaining[v] = counts[v] - drawn[v];
+                }
+                odds = calculator.calculate(upCardValue, remaining);
+                dealerOdds.put(drawnKey, odds);
+            }
+            int value = isSoft && hardValue <= 11 ? hardValue + 10 : hardValue;
+            double win = odds[DealerOutcome.BUST.ordinal()];
+            double loss = 0;
+            for (DealerOutcome outcome : DealerOutcome.values()) {
+                if (outcome == DealerOutcome.BUST) {
+                    continue;
+                }
+                int dealerValue = outcome == DealerOutcome.BLACKJACK ? 21 : 17 + outcome.ordinal();
+                if (value > dealerValue) {
+                    win += odds[outcome.ordinal()];
+                } else if (value < dealerValue) {
+                    loss += odds[outcome.ordinal()];
+                }
+            }
+            return new double[]{win - loss, win};
+        }
+
+        /**
+         * @return The value of the better of Hit and Stand
+         */
+        private double[] best(int hardValue, boolean isSoft) {
+            if (hardValue > 21) {
+                return BUST;
+            }
+            // Once the hard total is over 11 an Ace can only count as 1, so the hand is the same with or without one
+            boolean hasSoftAce = isSoft && hardValue <= 11;
+            long key = drawnKey | ((long) hardValue << TOTAL_SHIFT) | (hasSoftAce ? SOFT_BIT : 0);
+            double[] value = memo.get(key);
+            if (value != null) {
+                return value;
+            }
+            double[] stand = stand(hardValue, hasSoftAce);
+            double[] hit = hit(hardValue, hasSoftAce);
+            value = hit[0] > stand[0] ? hit : stand;
+            memo.put(key, value);
+            // Most of the time goes to the dealer's outcomes of each new state, so the clock is checked as often
+            if (memo.size() > maxStates || System.nanoTime() - start > maxNanos) {
+                isAbandoned = true;
+            }
+            return value;
+        }
+
+        private double[] hit(int hardValue, boolean isSoft) {
+            return draw(hardValue, isSoft, false);
+        }
+
+        private double[] doubleDown(int hardValue, boolean isSoft) {
+            double[] value = draw(hardValue, isSoft, true);
+            return new double[]{value[0] * 2, value[1]};
+        }
+
+        /**
+         * @param cardValue Value of each of the split cards, where an Ace is 1
+         * @return The value of both split hands
+         */
+        private double[] split(int cardValue) {
+            double ev = 0;
+            double win = 0;
+            int remaining = total - numDrawn;
+            for (int v = 0; v < NUM_VALUES && !isAbandoned; v++) {
+                int count = counts[v] - drawn[v];
+                if (count <= 0) {
+                    continue;
+                }
+                double p = count / (double) remaining;
+                take(v);
+                int hardValue = cardValue + v + 1;
+                boolean isSoft = cardValue == 1 || v == 0;
+                double[] value = best(hardValue, isSoft);
+                double[] doubled = doubleDown(hardValue, isSoft);
+                if (doubled[0] > value[0]) {
+                    value = doubled;
+                }
+                putBack(v);
+                ev += p * value[0];
+                win += p * value[1];
+            }
+            return new double[]{ev * 2, win};
+        }
+
+        /**
+         * @param isLastCard True if the player must Stand after this card, as when doubling down
+         */
+        private double[] draw(int hardValue, boolean isSoft, boolean isLastCard) {
+            double ev = 0;
+            double win = 0;
+            int remaining = total - numDrawn;
+            for (int v = 0; v < NUM_VALUES && !isAbandoned; v++) {
+                int count = counts[v] - drawn[v];
+                if (count <= 0) {
+                    continue;
+                }
+                double p = count / (double) remaining;
+                take(v);
+                double[] value = isLastCard ? stand(hardValue + v + 1, isSoft || v == 0)
+                        : best(hardValue + v + 1, isSoft || v == 0);
+                putBack(v);
+                ev += p * value[0];
+                win += p * value[1];
+            }
+            if (remaining == 0) {
+                isAbandoned = true;
+            }
+            return new double[]{ev, win};
+        }
+
+        private void take(int v) {
+            if (drawn[v] == MAX_DRAWN) {
+                throw new IllegalStateException("Player cannot draw more than " + MAX_DRAWN + " of one value.");
+            }
+            drawn[v]++;
+            numDrawn++;
+            drawnKey += 1L << (KEY_BITS * v);
+        }
+
+        private void putBack(int v) {
+            drawn[v]--;
+            numDrawn--;
+            drawnKey -= 1L << (KEY_BITS * v);
+        }
+    }
+}
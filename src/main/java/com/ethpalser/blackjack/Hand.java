@@ -1,13 +1,26 @@
 package com.ethpalser.blackjack;
 
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
+/**
+ * The cards held by a player or the dealer. The hand's value is updated as each card is added or removed instead of
+ * being recalculated from every card. The hard value counts every Ace as 1, and one Ace counts as 11 whenever that
+ * does not exceed 21, so the best value, and whether the hand is soft or bust, never requires going through the cards.
+ * <br/>
+ * A hand can be cleared and refilled, so the same hand can be reused for every round of a simulation. Cards are shared
+ * by every hand, so whether each card is visible to other players is kept by the hand as one bit per card.
+ */
 public class Hand {
 
-    private final List<Card> cardList;
-    private int bestValue;
+    private Card[] cards;
+    private int size;
+    // Sum of every card's value with each Ace counting as 1
+    private int hardValue;
+    private int numAces;
+    // Bit i is set when card i is visible to all players
+    private long visibleMask;
+    private boolean isSurrendered;
     private HandResult result;
     private int bet;
 
@@ -15,8 +28,7 @@ public class Hand {
      * Initialize a hand with no cards.
      */
     public Hand() {
-        cardList = new ArrayList<>();
-        bestValue = 0;
+        cards = new Card[8];
         result = null;
     }
 
@@ -28,10 +40,8 @@ public class Hand {
      * @see Card
      */
     public Hand(Card card) {
-        cardList = new ArrayList<>(8);
-        cardList.add(card);
-        this.evaluate();
-        result = null;
+        this();
+        this.addCard(card);
     }
 
     /**
@@ -42,11 +52,9 @@ public class Hand {
      * @see Card
      */
     public Hand(Card first, Card second) {
-        cardList = new ArrayList<>(8);
-        cardList.add(first);
-        cardList.add(second);
-        this.evaluate();
-        result = null;
+        this();
+        this.addCard(first);
+        this.addCard(second);
     }
 
     /**
@@ -55,15 +63,70 @@ public class Hand {
      * @param cards A list of one or more cards
      */
     public Hand(Card... cards) {
-        cardList = new ArrayList<>(8);
-        cardList.addAll(Arrays.asList(cards));
-        this.evaluate();
-        result = null;
+        this.cards = new Card[Math.max(8, cards.length)];
+        for (Card card : cards) {
+            this.addCard(card);
+        }
     }
 
     public Hand(List<Card> cards) {
-        cardList = cards;
-        this.evaluate();
+        this.cards = new Card[Math.max(8, cards.size())];
+        for (Card card : cards) {
+            this.addCard(card);
+        }
+    }
+
+    /**
+     * Initialize a hand as a copy of another hand, including which cards are visible.
+     *
+     * @param other Hand to copy
+     */
+    public Hand(Hand other) {
+        cards = other.cards.clone();
+        size = other.size;
+        hardValue = other.hardValue;
+        numAces = other.numAces;
+        visibleMask = other.visibleMask;
+        isSurrendered = other.isSurrendered;
+        result = other.result;
+        bet = other.bet;
+    }
+
+    /**
+     * Replaces this hand's cards, value, result and bet with those of another hand. No objects are created unless this
+     * hand has too few spaces for the other hand's cards.
+     *
+     * @param other Hand to copy
+     */
+    public void copyFrom(Hand other) {
+        if (cards.length < other.size) {
+            cards = new Card[other.cards.length];
+        }
+        System.arraycopy(other.cards, 0, cards, 0, other.size);
+        for (int i = other.size; i < size; i++) {
+            cards[i] = null;
+        }
+        size = other.size;
+        hardValue = other.hardValue;
+        numAces = other.numAces;
+        visibleMask = other.visibleMask;
+        isSurrendered = other.isSurrendered;
+        result = other.result;
+        bet = other.bet;
+    }
+
+    /**
+     * Removes every card and the result from the hand, so it can be dealt again.
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            cards[i] = null;
+        }
+        size = 0;
+        hardValue = 0;
+        numAces = 0;
+        visibleMask = 0;
+        isSurrendered = false;
         result = null;
     }
 
@@ -71,7 +134,7 @@ public class Hand {
      * @return The number of cards in the hand
      */
     public int size() {
-        return cardList.size();
+        return size;
     }
 
     /**
@@ -81,19 +144,80 @@ public class Hand {
      * @return A card if it exists, otherwise null
      */
     public Card getCard(int index) {
-        if (index < 0 || cardList == null || index >= cardList.size())
+        if (index < 0 || index >= size)
             return null;
-        return cardList.get(index);
+        return cards[index];
     }
 
     /**
-     * Adds a card to the hand and recalculates the hand's value.
+     * Adds a card visible to all players to the hand and updates the hand's value.
      *
      * @param card A card
      */
     public void addCard(Card card) {
-        cardList.add(card);
-        this.evaluate();
+        this.addCard(card, true);
+    }
+
+    /**
+     * Adds a card to the hand and updates the hand's value.
+     *
+     * @param card      A card
+     * @param isVisible True if the card is revealed to all, false if the card is revealed only to the holder
+     */
+    public void addCard(Card card, boolean isVisible) {
+        if (size == cards.length) {
+            cards = Arrays.copyOf(cards, size * 2);
+        }
+        cards[size] = card;
+        this.setVisible(size, isVisible);
+        size++;
+        this.count(card, 1);
+    }
+
+    /**
+     * A card's visibility determines if all players can see the card or only the person holding the card can. Cards
+     * beyond the 64th in a hand are always visible.
+     *
+     * @param index A number from 0 to the hand's size.
+     * @return True if the card is visible to all players, otherwise false
+     */
+    public boolean isVisible(int index) {
+        return index >= Long.SIZE || (visibleMask & (1L << index)) != 0;
+    }
+
+    /**
+     * Reveals or hides a card for all players, except the person holding this hand.
+     *
+     * @param index     A number from 0 to the hand's size.
+     * @param isVisible True if the card is revealed to all, false if the card is revealed only to the holder
+     */
+    public void setVisible(int index, boolean isVisible) {
+        if (index >= Long.SIZE) {
+            return;
+        }
+        if (isVisible) {
+            visibleMask |= 1L << index;
+        } else {
+            visibleMask &= ~(1L << index);
+        }
+    }
+
+    /**
+     * Replaces the card at the given index with another card and updates the hand's value. The new card keeps the
+     * visibility of the card it replaces.
+     *
+     * @param index A number from 0 to the hand's size.
+     * @param card  Card to put in its place
+     * @return The card that was replaced
+     */
+    public Card replaceCard(int index, Card card) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException();
+        Card replaced = cards[index];
+        this.count(replaced, -1);
+        cards[index] = card;
+        this.count(card, 1);
+        return replaced;
     }
 
     /**
@@ -102,27 +226,30 @@ public class Hand {
      * @return The card removed from the hand.
      */
     public Card removeCard(int index) {
-        if (index < 0 || cardList == null || index >= cardList.size())
+        if (index < 0 || index >= size)
             throw new IndexOutOfBoundsException();
-        return cardList.remove(index);
+        Card removed = cards[index];
+        System.arraycopy(cards, index + 1, cards, index, size - index - 1);
+        cards[--size] = null;
+        // Shift the visibility of every card after the removed card down by one
+        long below = (1L << index) - 1;
+        visibleMask = (visibleMask & below) | ((visibleMask >>> 1) & ~below);
+        this.count(removed, -1);
+        return removed;
     }
 
     /**
      * Updates all cards in the hand to visible.
      */
     public void showHand() {
-        for (Card card : cardList) {
-            card.setVisible(true);
-        }
+        visibleMask = -1L;
     }
 
     /**
      * Updates all cards in the hand to not visible.
      */
     public void hideHand() {
-        for (Card card : cardList) {
-            card.setVisible(false);
-        }
+        visibleMask = 0;
     }
 
     /**
@@ -132,7 +259,17 @@ public class Hand {
      * @return Best possible value of the hand.
      */
     public int getValue() {
-        return this.bestValue;
+        // Counting one Ace as 11 instead of 1 adds 10
+        return this.isSoft() ? this.hardValue + 10 : this.hardValue;
+    }
+
+    /**
+     * A soft hand has an Ace counted as 11, so it cannot bust by taking one more card.
+     *
+     * @return True if the hand has an Ace that can count as 11 without exceeding 21, otherwise false
+     */
+    public boolean isSoft() {
+        return this.numAces > 0 && this.hardValue <= 11;
     }
 
     /**
@@ -155,44 +292,28 @@ public class Hand {
     }
 
     /**
-     * <p>Determine the best value of the hand. The value of the hand depends on the value of each card. Calculating
-     * the hand's value is the sum of each card and using any Ace as its best value without exceeding 21.</p>
+     * <p>Updates the value of the hand for a card being added or removed. Every Ace is counted as 1 here, and
+     * getValue() counts one of them as 11 when that does not exceed 21.</p>
      * <p>Example: Ace, Seven, Queen</p>
      * <p>Seven: 7, Queen: 10, Ace: 1 or 11</p>
      * <p>Since 17 + 11 > 21 Ace will have the value 1.</p>
      * <p>Therefore, the best value is 18.</p>
+     *
+     * @param card      Card added or removed
+     * @param direction 1 if the card was added, -1 if it was removed
      */
-    private void evaluate() {
-        int numAces = 0;
-        int totalValue = 0;
-        for (Card card : cardList) {
-            // Add aces later, as it can have the value of 1 or 11
-            if (CardType.ACE.equals(card.getType())) {
-                numAces++;
-            } else {
-                totalValue += card.getValue();
-            }
+    private void count(Card card, int direction) {
+        this.hardValue += direction * card.getValue();
+        if (card.getType() == CardType.ACE) {
+            this.numAces += direction;
         }
-        // Treat all aces, except one, having the value 1, as counting two aces with 11 will be a bust.
-        for (int i = 0; i < numAces - 1; i++) {
-            totalValue += 1;
-        }
-        // Count the last ace as either 1 or 11
-        if (numAces > 0) {
-            if (totalValue + 11 <= 21) {
-                totalValue += 11;
-            } else {
-                totalValue += 1;
-            }
-        }
-        this.bestValue = totalValue;
     }
 
     /**
      * @return True if the best value is greater than 21, otherwise false
      */
     public boolean isBust() {
-        return bestValue > 21;
+        return hardValue > 21;
     }
 
     /**
@@ -202,7 +323,7 @@ public class Hand {
      * @return True if this hand and better than dealer and not bust, otherwise false
      */
     public boolean isWin(Hand dealer) {
-        return !isBust() && (dealer.isBust() || bestValue > dealer.getValue());
+        return !isBust() && (dealer.isBust() || getValue() > dealer.getValue());
     }
 
     /**
@@ -212,7 +333,7 @@ public class Hand {
      * @return True if the hand has only two cards of the same type, otherwise false
      */
     public boolean canSplit() {
-        return cardList.size() == 2 && getCard(0).getType().equals(getCard(1).getType());
+        return size == 2 && cards[0].getType() == cards[1].getType();
     }
 
     /**
@@ -222,7 +343,9 @@ public class Hand {
      * @return HandResult of this hand compared to the dealer
      */
     public HandResult result(Hand dealer) {
-        if (!isBust() && this.getValue() == dealer.getValue()) {
+        if (isSurrendered) {
+            this.result = HandResult.LOSS;
+        } else if (!isBust() && this.getValue() == dealer.getValue()) {
             this.result = HandResult.DRAW;
         } else if (isWin(dealer)) {
             this.result = HandResult.WIN;
@@ -232,6 +355,18 @@ public class Hand {
         return this.result;
     }
 
+    /**
+     * Forfeits the hand, so it will be a loss regardless of the dealer's hand. Half of the bet is expected to be
+     * returned to the player when they surrender.
+     */
+    public void surrender() {
+        this.isSurrendered = true;
+    }
+
+    public boolean isSurrendered() {
+        return this.isSurrendered;
+    }
+
     public HandResult getResult() {
         return this.result;
     }
@@ -243,16 +378,15 @@ public class Hand {
      * @return True if the hand's value equals 17 and includes one Ace and equals Seventeen
      */
     public boolean isSoftSeventeen() {
-        return size() == 2 && getValue() == 17
-                && (CardType.ACE.equals(getCard(0).getType()) || CardType.ACE.equals(getCard(1).getType()));
+        return size == 2 && hardValue == 7 && numAces > 0;
     }
 
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < cardList.size(); i++) {
-            sb.append(cardList.get(i).isVisible() ? cardList.get(i).toString() : "x");
-            if (i < cardList.size() - 1) {
+        for (int i = 0; i < size; i++) {
+            sb.append(isVisible(i) ? cards[i].toString() : "x");
+            if (i < size - 1) {
                 sb.append(" ");
             }
         }
@@ -1,25 +1,53 @@
 package com.ethpalser.blackjack;
 
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * The representation of a person at a table participating in a game of Blackjack. Each player always has one hand, and
  * may split that hand and subsequent hands (if possible) to have more hands for a round of Blackjack.
  */
 public class Player {
 
-    private List<Hand> handList;
+    // Most hands a player can have by splitting
+    public static final int MAX_HANDS = 4;
+
+    // Hands beyond handQty are kept so they can be reused by the next split
+    private final Hand[] hands;
+    private int handQty;
     private int money;
+    private Strategy strategy;
 
     public Player() {
-        this.handList = new ArrayList<>();
-        money = 1000;
+        this(1000);
     }
 
     public Player(int money) {
-        this.handList = new ArrayList<>();
+        this(money, ChartStrategy.basic());
+    }
+
+    /**
+     * Construct a player that makes every choice using the given strategy.
+     *
+     * @param money    Money the player starts with
+     * @param strategy Strategy used to choose what to do with each hand
+     */
+    public Player(int money, Strategy strategy) {
+        this.hands = new Hand[MAX_HANDS];
         this.money = money;
+        this.strategy = strategy;
+    }
+
+    /**
+     * Construct a player as a copy of another player, including a copy of each of their hands.
+     *
+     * @param other Player to copy
+     */
+    public Player(Player other) {
+        this.hands = new Hand[MAX_HANDS];
+        for (int i = 0; i < other.handQty; i++) {
+            this.hands[i] = new Hand(other.hands[i]);
+        }
+        this.handQty = other.handQty;
+        this.money = other.money;
+        this.strategy = other.strategy;
     }
 
     /**
@@ -30,9 +58,9 @@ public class Player {
      * @see Hand
      */
     public Hand getHand(int index) {
-        if (index < 0 || handList == null || index >= handList.size())
+        if (index < 0 || index >= handQty)
             return null;
-        return handList.get(index);
+        return hands[index];
     }
 
     /**
@@ -42,11 +70,7 @@ public class Player {
      * @see Hand
      */
     public void setHand(Hand hand) {
-        handList = new ArrayList<>();
-        int playedBet = Math.min(this.money, 10);
-        adjustMoney(-playedBet);
-        hand.setBet(playedBet);
-        handList.add(hand);
+        this.setHand(hand, 10);
     }
 
     /**
@@ -57,26 +81,76 @@ public class Player {
      * @see Hand
      */
     public void setHand(Hand hand, int betAmount) {
-        handList = new ArrayList<>();
         int playedBet = Math.min(this.money, betAmount);
         adjustMoney(-playedBet);
         hand.setBet(playedBet);
-        handList.add(hand);
+        hands[0] = hand;
+        handQty = 1;
+    }
+
+    /**
+     * Replaces all hands with a copy of the given hand, including its bet, and sets the player's money. Unlike
+     * setHand(), the player's current hand is reused and no bet is taken, so this is used to return the player to a
+     * previous state.
+     *
+     * @param hand  Hand to copy into the player's first hand
+     * @param money Money the player will have
+     */
+    public void restoreHand(Hand hand, int money) {
+        if (hands[0] == null) {
+            hands[0] = new Hand();
+        }
+        hands[0].copyFrom(hand);
+        handQty = 1;
+        this.money = money;
+    }
+
+    /**
+     * Replaces all hands with copies of the given hands and sets the player's money, reusing the player's hands so
+     * nothing is created once the player has held as many hands before.
+     *
+     * @param from  Hands to copy, in order, which is empty for a player who has not been dealt a hand
+     * @param money Money the player will have
+     * @throws IllegalArgumentException if there are more hands than a player can hold
+     */
+    public void restoreHands(Hand[] from, int money) {
+        if (from.length > MAX_HANDS) {
+            throw new IllegalArgumentException("A player can have at most " + MAX_HANDS + " hands.");
+        }
+        for (int i = 0; i < from.length; i++) {
+            if (hands[i] == null) {
+                hands[i] = new Hand();
+            }
+            hands[i].copyFrom(from[i]);
+        }
+        handQty = from.length;
+        this.money = money;
+    }
+
+    /**
+     * @return A copy of each hand held by the player, in order.
+     */
+    Hand[] copyHands() {
+        Hand[] copies = new Hand[handQty];
+        for (int i = 0; i < handQty; i++) {
+            copies[i] = new Hand(hands[i]);
+        }
+        return copies;
     }
 
     /**
      * @return The quantity of hands held by the player.
      */
     public int getHandQty() {
-        return handList.size();
+        return handQty;
     }
 
     /**
      * Reveals all cards in all hands held by the player.
      */
     public void showHands() {
-        for (Hand hand : handList) {
-            hand.showHand();
+        for (int i = 0; i < handQty; i++) {
+            hands[i].showHand();
         }
     }
 
@@ -84,11 +158,19 @@ public class Player {
      * Hides all cards in all hands held by the player.
      */
     public void hideHands() {
-        for (Hand hand : handList) {
-            hand.hideHand();
+        for (int i = 0; i < handQty; i++) {
+            hands[i].hideHand();
         }
     }
 
+    public Strategy getStrategy() {
+        return this.strategy;
+    }
+
+    public void setStrategy(Strategy strategy) {
+        this.strategy = strategy;
+    }
+
     /**
      * Returns the amount of money held by the player.
      *
@@ -114,7 +196,7 @@ public class Player {
      * @return True if the player has less than four hands, otherwise false
      */
     public boolean canSplit() {
-        return handList.size() < 4;
+        return handQty < MAX_HANDS;
     }
 
     /**
@@ -141,10 +223,17 @@ public class Player {
             ex.printStackTrace();
         }
         if (card != null) {
-            Hand splitHand = new Hand(card);
+            Hand splitHand = hands[handQty];
+            if (splitHand == null) {
+                splitHand = new Hand();
+                hands[handQty] = splitHand;
+            } else {
+                splitHand.clear();
+            }
+            splitHand.addCard(card);
             // Give the new hand the same bet as the original hand
             splitHand.setBet(hand.getBet());
-            handList.add(splitHand);
+            handQty++;
         }
     }
 
@@ -155,6 +244,7 @@ public class Player {
      * 2. Stand
      * 3. Split
      * 4. Surrender
+     * 5. Double Down
      *
      * @param handIndex  The hand that the choice will be made for. In most cases this value is 0.
      * @param dealerHand The dealer's hand that decisions will be based off of.
@@ -167,43 +257,23 @@ public class Player {
     }
 
     /**
-     * This will return a choice using known information from the player's hand and the dealer's hand. Choices are
-     * the following:
+     * This will return a choice using known information from the player's hand and the dealer's hand. The choice is
+     * made by the player's strategy. Choices are the following:
      * 1. Hit
      * 2. Stand
      * 3. Split
      * 4. Surrender
+     * 5. Double Down
      *
      * @param playerHand   The hand that the choice will be made for.
      * @param dealerUpCard The dealer's only visible card used to for making a choice.
      * @return A choice that will be performed
+     * @see Strategy
      */
     public PlayerChoice choose(Hand playerHand, Card dealerUpCard) {
-        // This is a winning hand, unless the dealer also has blackjack
-        if (playerHand.getValue() == 21) {
-            return PlayerChoice.STAND;
-        }
-
-        CardType playerCardType = playerHand.getCard(0).getType();
-        if (canSplit()
-                && (CardType.ACE.equals(playerCardType) || CardType.EIGHT.equals(playerCardType)
-                || CardType.SIX.equals(playerCardType) && dealerUpCard.isPoor()
-                || (CardType.TWO.equals(playerCardType) || CardType.THREE.equals(playerCardType)
-                || CardType.SEVEN.equals(playerCardType)) && !dealerUpCard.isGood())) {
-            // Always split Ace and Eight, split Two, Three and Seven if up card is not good and Six if up card is poor
-            return PlayerChoice.SPLIT;
-        }
-
-        // This is a soft hand, so it is always safe to hit, or
-        // You are likely to lose, so it is better to try higher, or
-        // The dealer is likely to bust trying to reach 17
-        if (playerHand.isSoftSeventeen()
-                || playerHand.getValue() < 17 && dealerUpCard.isGood()
-                || playerHand.getValue() < 13 && dealerUpCard.isFair()
-                || playerHand.getValue() < 12 && dealerUpCard.isPoor()) {
-            return PlayerChoice.HIT;
-        }
-        return PlayerChoice.STAND;
+        // Surrendering is only allowed as the first choice for the player's only hand
+        boolean canSurrender = handQty == 1 && playerHand.size() == 2;
+        return strategy.choose(playerHand, dealerUpCard, canSplit(), canSurrender);
     }
 
     /**
@@ -212,7 +282,8 @@ public class Player {
      * @param dealer Player representing the dealer
      */
     public void resolve(Player dealer) {
-        for (Hand hand : handList) {
+        for (int i = 0; i < handQty; i++) {
+            Hand hand = hands[i];
             HandResult result = hand.result(dealer.getHand(0));
             switch (result) {
                 case WIN -> adjustMoney(hand.getBet() * 2);
@@ -227,8 +298,8 @@ public class Player {
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
-        for (Hand hand : handList) {
-            sb.append(hand.toString()).append(" ");
+        for (int i = 0; i < handQty; i++) {
+            sb.append(hands[i].toString()).append(" ");
         }
         return sb.toString();
     }
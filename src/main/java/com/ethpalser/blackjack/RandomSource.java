@@ -0,0 +1,48 @@
+package com.ethpalser.blackjack;
+
+/**
+ * A source of random numbers used to shuffle and draw from a deck. Implementations are not synchronized, so each
+ * thread should have its own source, which can be created from another source using split().
+ * <br/>
+ * A source created with a seed always generates the same sequence of numbers, which allows a game or simulation to be
+ * reproduced.
+ */
+public interface RandomSource {
+
+    /**
+     * Generates a random number between zero (inclusive) and the given bound (exclusive). Every number in this range
+     * is equally likely.
+     *
+     * @param bound Upper bound of the number, which must be positive.
+     * @return A number from 0 to bound - 1
+     */
+    int nextInt(int bound);
+
+    /**
+     * @return A random number from 0.0 (inclusive) to 1.0 (exclusive)
+     */
+    double nextDouble();
+
+    /**
+     * Creates a new source whose numbers are independent of this source's numbers. Splitting a seeded source is
+     * repeatable, so the sources split from it will also generate the same numbers on every run.
+     *
+     * @return A new RandomSource
+     */
+    RandomSource split();
+
+    /**
+     * @return A RandomSource with a seed that differs on every call
+     */
+    static RandomSource create() {
+        return new SplittableRandomSource();
+    }
+
+    /**
+     * @param seed Initial state of the source
+     * @return A RandomSource that will always generate the same numbers for the same seed
+     */
+    static RandomSource create(long seed) {
+        return new SplittableRandomSource(seed);
+    }
+}
@@ -0,0 +1,462 @@
+package com.ethpalser.blackjack;
+
+import java.util.Arrays;
+
+/**
+ * A shoe that only keeps the number of cards of each type, from Aces to Kings. Suits have no effect on a hand, so this
+ * draws the same cards with the same chances as a RANDOM Deck, while its whole state is a few small arrays.
+ * <br/>
+ * A card is drawn by choosing a random position among the remaining cards and walking the counts to find which value
+ * it falls on, so values are drawn in order from Aces to Tens without sorting. A ten-valued card is then a Ten, Jack,
+ * Queen or King in proportion to how many of each remain, so two ten-valued cards are a pair as often as in a real
+ * shoe. Each change is recorded as one byte, and undoing a change only adds to or subtracts from a count. Drawn cards
+ * are Spades.
+ */
+public class RankShoe implements Shoe {
+
+    private static final int NUM_VALUES = 10;
+    // Tens, Jacks, Queens and Kings, which are the last types of card
+    private static final int NUM_TEN_TYPES = 4;
+    private static final Card[] CARDS = new Card[NUM_VALUES - 1 + NUM_TEN_TYPES];
+    // Types of changes recorded in the log, stored in the upper bits of each entry with the type in the lower bits
+    private static final int OP_DRAW = 1;
+    private static final int OP_ADD = 2;
+    private static final int OP_SHUFFLE = 3;
+    private static final int OP_SHIFT = 4;
+    private static final int TYPE_MASK = (1 << OP_SHIFT) - 1;
+    // Changes that can be rolled back, which is far more than the cards one round of Blackjack draws
+    private static final int LOG_SIZE = 256;
+
+    static {
+        for (int t = 0; t < CARDS.length; t++) {
+            CARDS[t] = Card.of(CardType.values()[t]);
+        }
+    }
+
+    private final int numDecks;
+    private final boolean hasInsert;
+    private final RandomSource rng;
+    private final int capacity;
+
+    // Cards of each value, where every ten-valued card is counted at index 9, and of each ten-valued type
+    private final int[] counts;
+    private final int[] tenCounts;
+    private int size;
+    private int posInsert;
+
+    // The counts as they were before the shoe was last reshuffled, so the draw that reshuffled can be undone
+    private final int[] prevCounts;
+    private final int[] prevTenCounts;
+    private int prevSize;
+    private int prevPosInsert;
+
+    private final byte[] log;
+    private long logCount;
+    private long logStart;
+
+    // Counts of what has happened to the shoe, which are not changed by rolling back
+    private long drawCount;
+    private long undoCount;
+    private long shuffleCount;
+
+    public RankShoe(int numDecks) {
+        this(numDecks, false, RandomSource.create());
+    }
+
+    /**
+     * Construct a full shoe that draws its cards using the given source of random numbers.
+     *
+     * @param numDecks  How many decks of 52 cards there are, from 1 to 8
+     * @param hasInsert If the shoe is reshuffled at a random point instead of when it is nearly empty
+     * @param rng       RandomSource used for drawing cards and placing the insert
+     */
+    public RankShoe(int numDecks, boolean hasInsert, RandomSource rng) {
+        this.numDecks = Math.max(1, Math.min(numDecks, 8));
+        this.hasInsert = hasInsert;
+        this.rng = rng;
+        this.capacity = 52 * this.numDecks;
+        this.counts = new int[NUM_VALUES];
+        this.tenCounts = new int[NUM_TEN_TYPES];
+        this.prevCounts = new int[NUM_VALUES];
+        this.prevTenCounts = new int[NUM_TEN_TYPES];
+        this.prevSize = -1;
+        this.log = new byte[LOG_SIZE];
+        this.setup();
+    }
+
+    private RankShoe(RankShoe other, RandomSource rng) {
+        this.numDecks = other.numDecks;
+        this.hasInsert = other.hasInsert;
+        this.rng = rng;
+        this.capacity = other.capacity;
+        this.counts = other.counts.clone();
+        this.tenCounts = other.tenCounts.clone();
+        this.size = other.size;
+        this.posInsert = other.posInsert;
+        this.prevCounts = other.prevCounts.clone();
+        this.prevTenCounts = other.prevTenCounts.clone();
+        this.prevSize = other.prevSize;
+        this.prevPosInsert = other.prevPosInsert;
+        this.log = other.log.clone();
+        this.logCount = other.logCount;
+        this.logStart = other.logStart;
+    }
+
+    /**
+     * Creates a shoe with the same number of cards of each type as another shoe, which is reshuffled at the same
+     * point. Changes made to the other shoe are not copied, so the new shoe can only be rolled back to its own marks.
+     *
+     * @param other Shoe to copy the counts of
+     * @param rng   RandomSource used for drawing cards and placing the insert
+     * @return A new RankShoe
+     */
+    public static RankShoe of(Shoe other, RandomSource rng) {
+        RankShoe shoe = new RankShoe(other.getNumDecks(), other.hasInsert(), rng);
+        int[] otherCounts = other.count();
+        Arrays.fill(shoe.counts, 0);
+        for (int t = 0; t < otherCounts.length; t++) {
+            shoe.counts[Math.min(t, NUM_VALUES - 1)] += otherCounts[t];
+        }
+        System.arraycopy(otherCounts, NUM_VALUES - 1, shoe.tenCounts, 0, NUM_TEN_TYPES);
+        shoe.size = other.size();
+        shoe.posInsert = other.getPosInsert();
+        return shoe;
+    }
+
+    @Override
+    public Shoe copy(RandomSource rng) {
+        return new RankShoe(this, rng);
+    }
+
+    @Override
+    public Shoe.Snapshot snapshot() {
+        return new Snapshot(this);
+    }
+
+    @Override
+    public void restore(Shoe.Snapshot snapshot) {
+        if (!(snapshot instanceof Snapshot other) || other.numDecks != numDecks) {
+            throw new IllegalArgumentException("Snapshot is not of a shoe of " + numDecks + " decks.");
+        }
+        System.arraycopy(other.counts, 0, this.counts, 0, NUM_VALUES);
+        System.arraycopy(other.tenCounts, 0, this.tenCounts, 0, NUM_TEN_TYPES);
+        this.size = other.size;
+        this.posInsert = other.posInsert;
+        this.prevSize = -1;
+        // Changes before the snapshot was restored can no longer be reversed
+        this.logStart = this.logCount;
+    }
+
+    @Override
+    public DeckType getDeckType() {
+        return DeckType.RANK_ONLY;
+    }
+
+    @Override
+    public int getNumDecks() {
+        return this.numDecks;
+    }
+
+    @Override
+    public boolean hasInsert() {
+        return this.hasInsert;
+    }
+
+    @Override
+    public int getPosInsert() {
+        return this.posInsert;
+    }
+
+    @Override
+    public RandomSource getRandomSource() {
+        return this.rng;
+    }
+
+    @Override
+    public int getNumDrawn() {
+        return this.capacity - this.size;
+    }
+
+    @Override
+    public long getDrawCount() {
+        return this.drawCount;
+    }
+
+    @Override
+    public long getUndoCount() {
+        return this.undoCount;
+    }
+
+    @Override
+    public long getShuffleCount() {
+        return this.shuffleCount;
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public int[] count() {
+        int[] count = new int[CARDS.length];
+        System.arraycopy(this.counts, 0, count, 0, NUM_VALUES - 1);
+        System.arraycopy(this.tenCounts, 0, count, NUM_VALUES - 1, NUM_TEN_TYPES);
+        return count;
+    }
+
+    @Override
+    public int[] countValues() {
+        return this.counts.clone();
+    }
+
+    @Override
+    public int[] countNextValues() {
+        return this.counts.clone();
+    }
+
+    @Override
+    public int getRunningCount(CountingSystem system) {
+        // Every card is in a full shoe, so the cards counted are what the full shoe's tags add up to less what remains
+        int fullSum = 0;
+        for (int v = 1; v <= NUM_VALUES; v++) {
+            fullSum += system.getTag(v) * (v == NUM_VALUES ? 16 : 4) * numDecks;
+        }
+        return system.getInitialCount(numDecks) + fullSum - system.sum(this.counts);
+    }
+
+    @Override
+    public Card draw() {
+        this.reshuffleIfNeeded();
+        int position = rng.nextInt(size);
+        int value = 0;
+        while (position >= counts[value]) {
+            position -= counts[value];
+            value++;
+        }
+        this.drawCount++;
+        return this.take(value, position);
+    }
+
+    @Override
+    public Card drawValue(int value) {
+        if (value < 1 || value > NUM_VALUES) {
+            throw new IllegalArgumentException("Value must be from 1 to " + NUM_VALUES + ".");
+        }
+        this.reshuffleIfNeeded();
+        if (counts[value - 1] == 0) {
+            throw new IllegalStateException("No card of value " + value + " can be drawn.");
+        }
+        this.drawCount++;
+        // Only a ten-valued card needs a position, to choose which type of ten it is
+        int position = value == NUM_VALUES ? rng.nextInt(counts[NUM_VALUES - 1]) : 0;
+        return this.take(value - 1, position);
+    }
+
+    @Override
+    public void undoDraw() {
+        if (logCount == logStart) {
+            return;
+        }
+        if (this.lastOp() != OP_DRAW) {
+            return;
+        }
+        this.rollback(logCount - 1);
+        this.undoCount++;
+        // Newly reshuffled shoe, which is put back to how it was before the draw
+        if (logCount > logStart && this.lastOp() == OP_SHUFFLE && prevSize >= 0) {
+            this.rollback(logCount - 1);
+        }
+    }
+
+    /**
+     * Adds a card back to the shoe. Only the card's type is kept, and the card is not added if the shoe is full.
+     *
+     * @param card Card to add.
+     */
+    @Override
+    public void add(Card card) {
+        if (size >= capacity) {
+            return;
+        }
+        int type = card.getType().ordinal();
+        this.change(type, 1);
+        this.record(OP_ADD, type);
+    }
+
+    /**
+     * Removes a card of the same type as the given card, if there is one.
+     *
+     * @param card Card to find in the shoe.
+     * @return The given card if one of its type was removed, otherwise null.
+     */
+    @Override
+    public Card remove(Card card) {
+        int type = card.getType().ordinal();
+        if (type < NUM_VALUES - 1 ? counts[type] == 0 : tenCounts[type - NUM_VALUES + 1] == 0) {
+            return null;
+        }
+        this.change(type, -1);
+        this.record(OP_DRAW, type);
+        return card;
+    }
+
+    /**
+     * Does nothing, as values are always drawn in order from Aces to Tens.
+     */
+    @Override
+    public void sortByValue() {
+    }
+
+    @Override
+    public long mark() {
+        return this.logCount;
+    }
+
+    @Override
+    public void rollback(long mark) {
+        if (mark > this.logCount) {
+            throw new IllegalArgumentException("Mark is ahead of the shoe's changes.");
+        }
+        if (mark < this.logStart || this.logCount - mark > LOG_SIZE) {
+            throw new IllegalStateException("Shoe has changed too much since the mark to roll back.");
+        }
+        while (this.logCount > mark) {
+            this.logCount--;
+            int entry = this.log[(int) (this.logCount % LOG_SIZE)];
+            int type = entry & TYPE_MASK;
+            switch (entry >>> OP_SHIFT) {
+                case OP_DRAW -> this.change(type, 1);
+                case OP_ADD -> this.change(type, -1);
+                case OP_SHUFFLE -> {
+                    if (this.prevSize < 0) {
+                        this.logStart = this.logCount + 1;
+                        throw new IllegalStateException("Shoe has been reshuffled too many times to roll back.");
+                    }
+                    System.arraycopy(this.prevCounts, 0, this.counts, 0, NUM_VALUES);
+                    System.arraycopy(this.prevTenCounts, 0, this.tenCounts, 0, NUM_TEN_TYPES);
+                    this.size = this.prevSize;
+                    this.posInsert = this.prevPosInsert;
+                    this.prevSize = -1;
+                }
+                default -> throw new IllegalStateException("Unknown change recorded in the shoe.");
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        int[] count = this.count();
+        for (int t = 0; t < CARDS.length; t++) {
+            sb.append(CARDS[t]).append(": ").append(count[t]).append(" ");
+        }
+        sb.append("\n").append("insert: ").append(posInsert).append(" num drawn: ").append(getNumDrawn());
+        return sb.toString();
+    }
+
+    /**
+     * @param value    Value of the drawn card minus 1
+     * @param position Position of the drawn card among the remaining cards of its value
+     */
+    private Card take(int value, int position) {
+        int type = value;
+        if (value == NUM_VALUES - 1) {
+            // Walk the ten-valued types the same way as the values, so each is drawn in proportion to its count
+            type = 0;
+            while (position >= tenCounts[type]) {
+                position -= tenCounts[type];
+                type++;
+            }
+            type += NUM_VALUES - 1;
+        }
+        this.change(type, -1);
+        this.record(OP_DRAW, type);
+        return CARDS[type];
+    }
+
+    /**
+     * Adds to the count of a type of card, and to the count of its value and the size of the shoe.
+     *
+     * @param type Ordinal of the card's CardType
+     */
+    private void change(int type, int amount) {
+        if (type >= NUM_VALUES - 1) {
+            tenCounts[type - NUM_VALUES + 1] += amount;
+            type = NUM_VALUES - 1;
+        }
+        counts[type] += amount;
+        size += amount;
+    }
+
+    /**
+     * Fills every count and places a new insert.
+     */
+    private void setup() {
+        for (int v = 0; v < NUM_VALUES - 1; v++) {
+            counts[v] = 4 * numDecks;
+        }
+        counts[NUM_VALUES - 1] = 16 * numDecks;
+        Arrays.fill(tenCounts, 4 * numDecks);
+        this.size = this.capacity;
+        if (this.hasInsert) {
+            this.posInsert = capacity / 6 + rng.nextInt(capacity * 4 / 6);
+        } else {
+            this.posInsert = capacity - 1;
+        }
+    }
+
+    private void reshuffleIfNeeded() {
+        if (size == 0 || getNumDrawn() >= posInsert) {
+            ReshuffleEvent event = new ReshuffleEvent();
+            event.begin();
+            int numDrawn = getNumDrawn();
+            System.arraycopy(this.counts, 0, this.prevCounts, 0, NUM_VALUES);
+            System.arraycopy(this.tenCounts, 0, this.prevTenCounts, 0, NUM_TEN_TYPES);
+            this.prevSize = this.size;
+            this.prevPosInsert = this.posInsert;
+            this.record(OP_SHUFFLE, 0);
+            this.shuffleCount++;
+            this.setup();
+            event.finish(this, this.prevPosInsert, numDrawn);
+        }
+    }
+
+    private int lastOp() {
+        return log[(int) ((logCount - 1) % LOG_SIZE)] >>> OP_SHIFT;
+    }
+
+    private void record(int op, int type) {
+        this.log[(int) (this.logCount % LOG_SIZE)] = (byte) ((op << OP_SHIFT) | type);
+        this.logCount++;
+    }
+
+    /**
+     * The number of cards of each value and of each ten-valued type, which is the whole state of the shoe.
+     */
+    private static final class Snapshot implements Shoe.Snapshot {
+
+        private final int numDecks;
+        private final boolean hasInsert;
+        private final int[] counts;
+        private final int[] tenCounts;
+        private final int size;
+        private final int posInsert;
+
+        private Snapshot(RankShoe shoe) {
+            this.numDecks = shoe.numDecks;
+            this.hasInsert = shoe.hasInsert;
+            this.counts = shoe.counts.clone();
+            this.tenCounts = shoe.tenCounts.clone();
+            this.size = shoe.size;
+            this.posInsert = shoe.posInsert;
+        }
+
+        @Override
+        public Shoe toShoe(RandomSource rng) {
+            RankShoe shoe = new RankShoe(numDecks, hasInsert, rng);
+            shoe.restore(this);
+            return shoe;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.ethpalser.blackjack;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for a shoe being reshuffled, which lasts as long as the reshuffle. It is only recorded when
+ * enabled, e.g. by the blackjack.jfc settings.
+ */
+@Name("com.ethpalser.blackjack.Reshuffle")
+@Label("Reshuffle")
+@Category({"Blackjack", "Shoe"})
+@Description("A shoe reshuffled after reaching its insert card or running out of cards")
+@Enabled(false)
+final class ReshuffleEvent extends Event {
+
+    @Label("Shoe")
+    String shoe;
+
+    @Label("Deck Type")
+    String deckType;
+
+    @Label("Decks")
+    int numDecks;
+
+    @Label("Insert Position")
+    @Description("Number of cards that could be drawn before the reshuffle")
+    int insertPosition;
+
+    @Label("Cards Drawn")
+    @Description("Number of cards drawn when the shoe was reshuffled")
+    int cardsDrawn;
+
+    /**
+     * Records the event if it is enabled and lasted long enough, with the state of the shoe before it was reshuffled.
+     */
+    void finish(Shoe reshuffled, int prevInsertPosition, int prevCardsDrawn) {
+        end();
+        if (shouldCommit()) {
+            shoe = reshuffled.getClass().getSimpleName();
+            deckType = reshuffled.getDeckType().name();
+            numDecks = reshuffled.getNumDecks();
+            insertPosition = prevInsertPosition;
+            cardsDrawn = prevCardsDrawn;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.ethpalser.blackjack;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight recorder event for a table being reset to its mark, which lasts as long as rolling back its shoe and
+ * restoring every hand. A reset happens after every trial, so only resets longer than the threshold are recorded, and
+ * only when enabled, e.g. by the blackjack.jfc settings.
+ */
+@Name("com.ethpalser.blackjack.Rollback")
+@Label("Table Rollback")
+@Category({"Blackjack", "Table"})
+@Description("A table reset to its mark by undoing every change to its shoe")
+@Enabled(false)
+@Threshold("20 us")
+final class RollbackEvent extends Event {
+
+    @Label("Changes Undone")
+    @Description("Number of draws, adds and reshuffles of the shoe that were undone")
+    long numChanges;
+
+    @Label("Players")
+    int numPlayers;
+}
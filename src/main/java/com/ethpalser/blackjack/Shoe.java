@@ -0,0 +1,205 @@
+package com.ethpalser.blackjack;
+
+/**
+ * The cards a table deals from. A shoe is drawn from at random and is reshuffled once its insert is reached, and every
+ * change to it can be rolled back to a mark, which lets a table be replayed many times from the same state.
+ * <br/>
+ * Deck keeps every card with its suit, while RankShoe only keeps the count of each value, which is all that matters
+ * when no cards need to be displayed.
+ */
+public interface Shoe {
+
+    /**
+     * @return DeckType deciding which cards can be drawn next
+     */
+    DeckType getDeckType();
+
+    /**
+     * @return Number of decks of 52 cards in the shoe
+     */
+    int getNumDecks();
+
+    /**
+     * @return True if the shoe is reshuffled at a random point instead of when it is nearly empty
+     */
+    boolean hasInsert();
+
+    /**
+     * @return Number of cards drawn since the shoe was last shuffled at which the shoe is reshuffled
+     */
+    int getPosInsert();
+
+    RandomSource getRandomSource();
+
+    /**
+     * @return Number of cards drawn or removed since the shoe was last shuffled.
+     */
+    int getNumDrawn();
+
+    /**
+     * @return Number of cards drawn by draw() or drawValue() since the shoe was created, including draws that were
+     * undone or rolled back.
+     */
+    long getDrawCount();
+
+    /**
+     * @return Number of draws undone by undoDraw() since the shoe was created.
+     */
+    long getUndoCount();
+
+    /**
+     * @return Number of times the shoe was reshuffled since it was created, including reshuffles that were undone or
+     * rolled back.
+     */
+    long getShuffleCount();
+
+    /**
+     * @return Number of cards in the shoe.
+     */
+    int size();
+
+    /**
+     * Count for each type of card in the shoe.
+     *
+     * @return Array of counts for each type of card, from Aces at index 0 to Kings at index 12.
+     */
+    int[] count();
+
+    /**
+     * Count for each value of card in the shoe, where Jacks, Queens and Kings are counted with the Tens.
+     *
+     * @return Array of counts for each value of card, from Aces at index 0 to ten-valued cards at index 9.
+     */
+    int[] countValues();
+
+    /**
+     * Count for each value of card that can be drawn next. If the next draw would reshuffle the shoe, these are not
+     * the cards it would draw from.
+     *
+     * @return Array of counts for each value of card, from Aces at index 0 to ten-valued cards at index 9.
+     */
+    int[] countNextValues();
+
+    /**
+     * The running count of a counting system, which is the system's initial count plus the total of the tags of every
+     * card that has left the shoe since it was last shuffled. Cards that are put back are taken off the count again,
+     * so the count follows undone draws, rollbacks and reshuffles. It takes the same time however many cards the shoe
+     * has.
+     * <br/>
+     * Every card that has left the shoe is counted, including a dealer's hidden card, so a count of only the cards
+     * players have seen is given by Table.getRunningCount().
+     *
+     * @param system CountingSystem giving the tag of each value
+     * @return Running count of the system
+     */
+    int getRunningCount(CountingSystem system);
+
+    /**
+     * The running count divided by the number of decks remaining in the shoe, which includes part decks.
+     *
+     * @param system CountingSystem giving the tag of each value
+     * @return True count of the system, or the running count if the shoe is empty
+     * @throws IllegalArgumentException if the system is not balanced, as its running count is used as it is
+     */
+    default double getTrueCount(CountingSystem system) {
+        return CountingSystem.trueCount(system, getRunningCount(system), size());
+    }
+
+    /**
+     * Remove a random card from the shoe, reshuffling first if the shoe is empty or the insert has been reached.
+     *
+     * @return Card removed from the shoe.
+     */
+    Card draw();
+
+    /**
+     * Remove a random card of the given value from the cards that can be drawn next.
+     *
+     * @param value Value of the card, where an Ace is 1 and every ten-valued card is 10
+     * @return Card removed from the shoe.
+     * @throws IllegalArgumentException if the value is not from 1 to 10
+     * @throws IllegalStateException    if no card of that value can be drawn next
+     */
+    Card drawValue(int value);
+
+    /**
+     * Adds back the last card that was drawn or removed from the shoe.
+     */
+    void undoDraw();
+
+    /**
+     * Adds a drawn card back to the shoe.
+     *
+     * @param card Card to add.
+     */
+    void add(Card card);
+
+    /**
+     * Removes a card that matches the given card from the shoe, if it exists.
+     *
+     * @param card Card to find in the shoe.
+     * @return Card removed from the shoe if it exists, otherwise null.
+     */
+    Card remove(Card card);
+
+    /**
+     * Orders the cards so that random numbers close together draw cards of close value. Every card is still equally
+     * likely to be drawn.
+     */
+    void sortByValue();
+
+    /**
+     * Records the current state of the shoe, so that it can be restored later using rollback().
+     *
+     * @return Mark of the shoe's current state
+     */
+    long mark();
+
+    /**
+     * Restores the shoe to the state it was in when the mark was made, reversing every change since then.
+     *
+     * @param mark Mark returned by mark()
+     * @throws IllegalArgumentException if the mark is ahead of the shoe's changes
+     * @throws IllegalStateException    if the shoe has changed too much since the mark to roll back
+     */
+    void rollback(long mark);
+
+    /**
+     * Creates a copy of this shoe that draws using the given source, including its changes so the copy can be rolled
+     * back to the same marks.
+     *
+     * @param rng RandomSource used by the copy
+     * @return A copy of this shoe
+     */
+    Shoe copy(RandomSource rng);
+
+    /**
+     * Copies the cards in the shoe and where it will be reshuffled, without its changes or source of random numbers.
+     *
+     * @return An immutable Snapshot of the shoe
+     */
+    Snapshot snapshot();
+
+    /**
+     * Replaces the cards in the shoe with those of a snapshot, in time proportional to the size of the shoe. Changes
+     * made before restoring can no longer be undone or rolled back, and the shoe keeps its own source of random
+     * numbers.
+     *
+     * @param snapshot Snapshot of a shoe of the same kind, deck type and number of decks
+     * @throws IllegalArgumentException if the snapshot is of a different kind or size of shoe
+     */
+    void restore(Snapshot snapshot);
+
+    /**
+     * The cards of a shoe at one point in time, which never changes, so it can be restored into many shoes or shared
+     * by many threads.
+     */
+    interface Snapshot {
+
+        /**
+         * @param rng RandomSource used by the new shoe
+         * @return A new shoe of the same kind with the snapshot's cards
+         */
+        Shoe toShoe(RandomSource rng);
+    }
+}
@@ -0,0 +1,22 @@
+package com.ethpalser.blackjack;
+
+/**
+ * Decides what a player does with a hand, given the dealer's visible card. A Player delegates every choice to its
+ * strategy, so different strategies can be simulated at the same table.
+ * <br/>
+ * Strategies are shared by players across tables and threads, so implementations should not change once created.
+ */
+public interface Strategy {
+
+    /**
+     * This will return a choice using known information from the player's hand and the dealer's hand. The hand can
+     * only Double Down when it has two cards, and can only Split or Surrender when allowed.
+     *
+     * @param playerHand   The hand that the choice will be made for.
+     * @param dealerUpCard The dealer's only visible card used to for making a choice.
+     * @param canSplit     True if the player may split this hand, as long as the hand is a pair
+     * @param canSurrender True if the player may surrender this hand
+     * @return A choice that will be performed
+     */
+    PlayerChoice choose(Hand playerHand, Card dealerUpCard, boolean canSplit, boolean canSurrender);
+}
@@ -5,11 +5,26 @@ import java.util.List;
 
 public class Table {
 
+    // Recursion of autoplay() at least this deep is counted together
+    public static final int MAX_AUTOPLAY_DEPTH = 16;
+    // Dealer outcomes are shared by every table, as tables dealt from the same shoe often have the same unseen cards
+    private static final DealerOutcomeCache DEALER_OUTCOMES = new DealerOutcomeCache(4096);
+
     private final GameMode gameMode;
-    private final Deck deck;
+    private final Shoe deck;
     private final Player dealer;
     private final List<Player> players;
     private int handBetAmount;
+    private DealerRule dealerRule;
+
+    // Counts of how the table has been played, which are not changed by reset()
+    private long numSplits;
+    private final long[] autoplayDepths = new long[MAX_AUTOPLAY_DEPTH];
+
+    // State of the table when it was last marked, which reset() restores, where the dealer is after every player
+    private long deckMark;
+    private Hand[] markedHands;
+    private int[] markedMoney;
 
     /**
      * Initialize a table with the minimum number of requirements to play Blackjack with a dealer.
@@ -27,6 +42,21 @@ public class Table {
      * @param deckType   If the whole deck is drawn from randomly among multiple decks or from one deck
      */
     public Table(int numPlayers, int numDecks, GameMode gameMode, DeckType deckType, int minBetAmount) {
+        this(numPlayers, numDecks, gameMode, deckType, minBetAmount, RandomSource.create());
+    }
+
+    /**
+     * Initialize a table with a given number of players, decks and game settings, where every card is drawn using the
+     * given source of random numbers. Using a seeded source will deal the same cards every time.
+     *
+     * @param numPlayers How many players there are.
+     * @param numDecks   How many decks there are.
+     * @param gameMode   If all player cards are visible or not
+     * @param deckType   If the whole deck is drawn from randomly among multiple decks or from one deck
+     * @param rng        RandomSource used by the deck
+     */
+    public Table(int numPlayers, int numDecks, GameMode gameMode, DeckType deckType, int minBetAmount,
+                 RandomSource rng) {
         this.gameMode = gameMode;
         this.dealer = new Player();
         this.players = new ArrayList<>();
@@ -34,11 +64,77 @@ public class Table {
             players.add(new Player());
         }
 
-        this.deck = new Deck(deckType, numDecks);
+        if (DeckType.RANK_ONLY.equals(deckType)) {
+            this.deck = new RankShoe(numDecks, false, rng);
+        } else {
+            this.deck = new Deck(deckType, numDecks, false, rng);
+        }
         this.handBetAmount = minBetAmount;
+        this.dealerRule = DealerRule.STAND_SOFT_17;
     }
 
-    public Deck getDeck() {
+    /**
+     * Initialize a table as a copy of another table. The deck, dealer and every player are copied, so the new table
+     * can be played without changing the original table.
+     *
+     * @param other Table to copy
+     */
+    public Table(Table other) {
+        this(other, other.deck.getRandomSource().split());
+    }
+
+    /**
+     * Initialize a table as a copy of another table, where the copied deck draws using the given source of random
+     * numbers instead of the original deck's.
+     *
+     * @param other Table to copy
+     * @param rng   RandomSource used by the copied deck
+     */
+    public Table(Table other, RandomSource rng) {
+        this(other, other.deck.copy(rng));
+        this.deckMark = other.deckMark;
+        this.markedHands = other.markedHands;
+        this.markedMoney = other.markedMoney;
+    }
+
+    /**
+     * Initialize a table as a copy of another table that deals from the given shoe instead of a copy of the original
+     * shoe. The copy has no mark, as the original table's mark is for its own shoe.
+     *
+     * @param other Table to copy
+     * @param shoe  Shoe the copied table deals from
+     */
+    public Table(Table other, Shoe shoe) {
+        this.gameMode = other.gameMode;
+        this.deck = shoe;
+        this.dealer = new Player(other.dealer);
+        this.players = new ArrayList<>(other.players.size());
+        for (Player player : other.players) {
+            this.players.add(new Player(player));
+        }
+        this.handBetAmount = other.handBetAmount;
+        this.dealerRule = other.dealerRule;
+    }
+
+    /**
+     * Initialize a table from a snapshot, which deals from a new shoe with the snapshot's cards.
+     *
+     * @param snapshot TableSnapshot to copy
+     * @param rng      RandomSource used by the new shoe
+     */
+    public Table(TableSnapshot snapshot, RandomSource rng) {
+        int numPlayers = snapshot.getNumPlayers();
+        this.gameMode = snapshot.getGameMode();
+        this.deck = snapshot.getShoe().toShoe(rng);
+        this.dealer = new Player();
+        this.players = new ArrayList<>(numPlayers);
+        for (int i = 0; i < numPlayers; i++) {
+            players.add(new Player());
+        }
+        this.restore(snapshot);
+    }
+
+    public Shoe getDeck() {
         return this.deck;
     }
 
@@ -54,6 +150,103 @@ public class Table {
         return players;
     }
 
+    public DealerRule getDealerRule() {
+        return dealerRule;
+    }
+
+    public void setDealerRule(DealerRule dealerRule) {
+        if (dealerRule == null) {
+            throw new IllegalArgumentException("Dealer rule must not be null.");
+        }
+        this.dealerRule = dealerRule;
+    }
+
+    /**
+     * @return Number of hands split at this table since it was created.
+     */
+    public long getNumSplits() {
+        return numSplits;
+    }
+
+    /**
+     * Counts how deep autoplay() has recursed for each hand it was called for, where each choice made is one level.
+     *
+     * @return Number of calls that reached each depth, where index 0 is depth 1 and the last index also counts every
+     * deeper call
+     */
+    public long[] getAutoplayDepths() {
+        return autoplayDepths.clone();
+    }
+
+    /**
+     * @return The cache of dealer outcomes shared by every table.
+     */
+    public static DealerOutcomeCache getDealerOutcomeCache() {
+        return DEALER_OUTCOMES;
+    }
+
+    /**
+     * Calculates the exact probability of each outcome of the dealer's hand from the cards that players cannot see.
+     * The dealer's hidden card is put back with the cards remaining in the deck, as players only know the up card.
+     *
+     * @return Probability of each outcome, indexed by the ordinal of DealerOutcome
+     * @see DealerOutcomeCalculator
+     */
+    public double[] getDealerOutcomes() {
+        DealerOutcomeCalculator calculator = new DealerOutcomeCalculator(dealerRule, DEALER_OUTCOMES);
+        return calculator.calculate(dealer.getHand(0).getCard(1).getValue(), countUnseenValues());
+    }
+
+    /**
+     * Counts the cards that players cannot see, which are the cards remaining in the deck and the dealer's hidden card.
+     *
+     * @return Number of unseen cards of each value, where index 0 is Aces and index 9 is ten-valued cards
+     */
+    public int[] countUnseenValues() {
+        int[] counts = deck.countValues();
+        Card hiddenCard = getHiddenCard();
+        if (hiddenCard != null) {
+            counts[hiddenCard.getValue() - 1]++;
+        }
+        return counts;
+    }
+
+    /**
+     * The running count of the cards players have seen, which is the deck's running count without the dealer's
+     * hidden card. Count-based strategies and bets should use this instead of the deck's count.
+     *
+     * @param system CountingSystem giving the tag of each value
+     * @return Running count of the system
+     */
+    public int getRunningCount(CountingSystem system) {
+        int count = deck.getRunningCount(system);
+        Card hiddenCard = getHiddenCard();
+        return hiddenCard == null ? count : count - system.getTag(hiddenCard.getValue());
+    }
+
+    /**
+     * The running count of the cards players have seen, divided by the decks of cards they have not seen.
+     *
+     * @param system CountingSystem giving the tag of each value
+     * @return True count of the system
+     * @throws IllegalArgumentException if the system is not balanced
+     */
+    public double getTrueCount(CountingSystem system) {
+        int numUnseen = deck.size() + (getHiddenCard() == null ? 0 : 1);
+        return CountingSystem.trueCount(system, getRunningCount(system), numUnseen);
+    }
+
+    /**
+     * @return The dealer's card that players cannot see, or null if every card of the dealer is visible
+     */
+    private Card getHiddenCard() {
+        Hand dealerHand = dealer.getHand(0);
+        if (dealerHand == null || dealerHand.size() == 0 || dealerHand.isVisible(0)) {
+            return null;
+        }
+        return dealerHand.getCard(0);
+    }
+
     /**
      * Updates all players of the table to have cards to play the game of Blackjack.
      */
@@ -61,14 +254,85 @@ public class Table {
         boolean isPlayerVisible = GameMode.ALL_PLAYERS_VISIBLE.equals(this.gameMode);
 
         for (Player player : players) {
-            player.setHand(new Hand(deck.draw(isPlayerVisible)), handBetAmount);
+            Hand hand = new Hand();
+            hand.addCard(deck.draw(), isPlayerVisible);
+            player.setHand(hand, handBetAmount);
         }
-        dealer.setHand(new Hand(deck.draw(false)));
+        Hand dealerHand = new Hand();
+        dealerHand.addCard(deck.draw(), false);
+        dealer.setHand(dealerHand);
 
         for (Player player : players) {
-            player.getHand(0).addCard(deck.draw(isPlayerVisible));
+            player.getHand(0).addCard(deck.draw(), isPlayerVisible);
         }
-        dealer.getHand(0).addCard(deck.draw(true));
+        dealer.getHand(0).addCard(deck.draw(), true);
+        this.mark();
+    }
+
+    /**
+     * Records the state of the deck and every player's first hand, bet and money, which reset() will restore the
+     * table to. The table is marked when it is set up, and should be marked again whenever hands are given to players
+     * in other ways.
+     */
+    public void mark() {
+        int numPlayers = players.size();
+        this.deckMark = deck.mark();
+        this.markedHands = new Hand[numPlayers + 1];
+        this.markedMoney = new int[numPlayers + 1];
+        for (int p = 0; p <= numPlayers; p++) {
+            Player player = p < numPlayers ? players.get(p) : dealer;
+            Hand hand = player.getHand(0);
+            markedHands[p] = hand == null ? null : new Hand(hand);
+            markedMoney[p] = player.getMoney();
+        }
+    }
+
+    /**
+     * Copies the whole state of the table, so it can be restored later or into other tables without undoing any
+     * changes. The table's counts of splits and autoplay depths are not part of the snapshot.
+     *
+     * @return An immutable TableSnapshot
+     */
+    public TableSnapshot snapshot() {
+        int numPlayers = players.size();
+        Hand[][] hands = new Hand[numPlayers + 1][];
+        int[] money = new int[numPlayers + 1];
+        Strategy[] strategies = new Strategy[numPlayers + 1];
+        for (int p = 0; p <= numPlayers; p++) {
+            Player player = p < numPlayers ? players.get(p) : dealer;
+            hands[p] = player.copyHands();
+            money[p] = player.getMoney();
+            strategies[p] = player.getStrategy();
+        }
+        return new TableSnapshot(gameMode, handBetAmount, dealerRule, deck.snapshot(), hands, money, strategies);
+    }
+
+    /**
+     * Returns the table to a snapshot, reusing its shoe, players and hands. The table's mark is cleared, as the shoe
+     * can no longer be rolled back past the restore, so the table must be marked again before it is reset.
+     *
+     * @param snapshot TableSnapshot of a table with the same number of players and the same kind of shoe
+     * @throws IllegalArgumentException if the snapshot has a different number of players or kind of shoe
+     */
+    public void restore(TableSnapshot snapshot) {
+        int numPlayers = players.size();
+        if (snapshot.getNumPlayers() != numPlayers) {
+            throw new IllegalArgumentException("Snapshot has " + snapshot.getNumPlayers() + " players, not "
+                    + numPlayers + ".");
+        }
+        if (snapshot.getGameMode() != gameMode) {
+            throw new IllegalArgumentException("Snapshot is of a " + snapshot.getGameMode() + " table.");
+        }
+        deck.restore(snapshot.getShoe());
+        for (int p = 0; p <= numPlayers; p++) {
+            Player player = p < numPlayers ? players.get(p) : dealer;
+            player.restoreHands(snapshot.getHands(p), snapshot.getMoney(p));
+            player.setStrategy(snapshot.getStrategy(p));
+        }
+        this.handBetAmount = snapshot.getHandBetAmount();
+        this.dealerRule = snapshot.getDealerRule();
+        this.markedHands = null;
+        this.markedMoney = null;
     }
 
     /**
@@ -84,7 +348,14 @@ public class Table {
         if (player == null || dealerUpCard == null) {
             return;
         }
+        int depth = autoplay(player, handNum, dealerUpCard, 1);
+        autoplayDepths[Math.min(depth, MAX_AUTOPLAY_DEPTH) - 1]++;
+    }
 
+    /**
+     * @return Deepest level of recursion reached, where the first choice is depth 1
+     */
+    private int autoplay(Player player, int handNum, Card dealerUpCard, int depth) {
         Hand hand = player.getHand(handNum);
         if (hand == null) {
             hand = player.getHand(0);
@@ -92,14 +363,16 @@ public class Table {
 
         PlayerChoice choice = player.choose(hand, dealerUpCard);
         boolean canPlay = this.play(player, handNum, choice);
-        if (canPlay) {
-            if (choice == PlayerChoice.SPLIT) {
-                autoplay(player, handNum, dealerUpCard);
-                autoplay(player, handNum + 1, dealerUpCard);
-            } else {
-                autoplay(player, handNum, dealerUpCard);
-            }
+        if (!canPlay) {
+            return depth;
         }
+        if (choice == PlayerChoice.SPLIT) {
+            // The split hand is added after every other hand, and playing this hand may split it again
+            int splitHandNum = player.getHandQty() - 1;
+            int deepest = autoplay(player, handNum, dealerUpCard, depth + 1);
+            return Math.max(deepest, autoplay(player, splitHandNum, dealerUpCard, depth + 1));
+        }
+        return autoplay(player, handNum, dealerUpCard, depth + 1);
     }
 
     /**
@@ -138,16 +411,18 @@ public class Table {
                 return !hand.isBust();
             }
             case SPLIT -> {
-                if (hand.canSplit()) {
+                if (hand.canSplit() && player.canSplit()) {
                     player.splitHand(handNum);
                     player.getHand(handNum).addCard(deck.draw());
-                    player.getHand(handNum + 1).addCard(deck.draw());
+                    player.getHand(player.getHandQty() - 1).addCard(deck.draw());
+                    numSplits++;
                     return true;
                 }
             }
             case SURRENDER -> {
                 int originalBet = player.getHand(handNum).getBet();
                 player.getHand(handNum).setBet(originalBet / 2);
+                player.getHand(handNum).surrender();
                 player.adjustMoney(originalBet / 2);
                 return false;
             }
@@ -170,9 +445,9 @@ public class Table {
      * For every player, compare each player's hands with the dealer.
      */
     public void resolve() {
-        // Dealer stands on 17, this can be updated in the future to have dealer hit on soft 17
-        while (dealer.getHand(0).getValue() < 17) {
-            dealer.getHand(0).addCard(deck.draw());
+        Hand dealerHand = dealer.getHand(0);
+        while (dealerRule.isHit(dealerHand.getValue(), dealerHand.isSoft())) {
+            dealerHand.addCard(deck.draw());
         }
         for (Player player : players) {
             player.resolve(dealer);
@@ -180,33 +455,34 @@ public class Table {
     }
 
     /**
-     * Adds cards drawn back into the deck, until the table is back to when it was set up.
+     * Restores the table to when it was last marked. The deck is rolled back to its mark, which puts back every card
+     * drawn since then, and every player is given back their marked hand, bet and money.
+     *
+     * @throws IllegalStateException if the table has not been marked
      */
     public void reset() {
-        int cardsToUndo = 0;
-        Hand hand;
-        for (Player player : players) {
-            for (int h = 0; h < player.getHandQty(); h++) {
-                if (h >= 1) {
-                    cardsToUndo += player.getHand(h).size();
-                } else {
-                    cardsToUndo += (player.getHand(h).size() - 2);
-                }
-            }
-            // The first hand was split
-            if (player.getHandQty() > 1) {
-                hand = new Hand(player.getHand(0).getCard(0), player.getHand(1).getCard(0));
+        if (markedHands == null) {
+            throw new IllegalStateException("Table must be set up or marked before it can be reset.");
+        }
+        RollbackEvent event = new RollbackEvent();
+        event.begin();
+        long numChanges = deck.mark() - deckMark;
+        deck.rollback(deckMark);
+        int numPlayers = players.size();
+        for (int p = 0; p <= numPlayers; p++) {
+            Player player = p < numPlayers ? players.get(p) : dealer;
+            Hand hand = markedHands[p];
+            if (hand != null) {
+                player.restoreHand(hand, markedMoney[p]);
             } else {
-                hand = new Hand(player.getHand(0).getCard(0), player.getHand(0).getCard(1));
+                player.adjustMoney(markedMoney[p] - player.getMoney());
             }
-            player.setHand(hand);
         }
-        // Only one of the dealer's cards are fixed, the rest were drawn after setup including the dealer's hidden card
-        cardsToUndo += (dealer.getHand(0).size() - 1);
-        dealer.setHand(new Hand(dealer.getHand(0).getCard(0), dealer.getHand(0).getCard(1)));
-
-        for (int i = 0; i < cardsToUndo; i++) {
-            deck.undoDraw();
+        event.end();
+        if (event.shouldCommit()) {
+            event.numChanges = numChanges;
+            event.numPlayers = numPlayers;
+            event.commit();
         }
     }
 
@@ -234,6 +510,38 @@ public class Table {
         return newHand;
     }
 
+    /**
+     * Randomizes cards in a hand by adding a given number of cards back to the deck and replacing them in the hand with
+     * that many cards drawn from the deck. Unlike randomizeHand(), the hand itself is updated.
+     *
+     * @param hand             Hand to replace cards
+     * @param cardsToRandomize Number of cards to replace in the hand, starting from the first card
+     */
+    public void randomizeCards(Hand hand, int cardsToRandomize) {
+        int iterations = Math.min(hand.size(), cardsToRandomize);
+        for (int i = 0; i < iterations; i++) {
+            deck.add(hand.getCard(i));
+        }
+        for (int i = 0; i < iterations; i++) {
+            hand.replaceCard(i, deck.draw());
+        }
+    }
+
+    /**
+     * Replaces one card in a hand with a random card of the given value, after adding the replaced card back to the
+     * deck. This decides the value of a card, such as the dealer's hidden card, while which card of that value it is
+     * stays random.
+     *
+     * @param hand  Hand to replace a card
+     * @param index Position of the card in the hand
+     * @param value Value of the new card, where an Ace is 1 and every ten-valued card is 10
+     * @throws IllegalStateException if the deck has no card of that value to draw
+     */
+    public void randomizeCard(Hand hand, int index, int value) {
+        deck.add(hand.getCard(index));
+        hand.replaceCard(index, deck.drawValue(value));
+    }
+
     @Override
     public String toString() {
         return toString(-1, true);
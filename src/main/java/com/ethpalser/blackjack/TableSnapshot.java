@@ -0,0 +1,102 @@
+package com.ethpalser.blackjack;
+
+/**
+ * The whole state of a table at one point in a round: the cards in its shoe, the dealer's hand, and every player's
+ * hands, bets, money and strategy. A snapshot never changes once taken, so it can be restored into any number of tables
+ * or shared by many threads, such as workers that each play on from the same decision.
+ * <br/>
+ * Taking and restoring a snapshot copies arrays in time proportional to the size of the shoe and the number of cards
+ * held, with no undo log to replay.
+ *
+ * @see Table#snapshot()
+ * @see Table#restore(TableSnapshot)
+ */
+public final class TableSnapshot {
+
+    private final GameMode gameMode;
+    private final int handBetAmount;
+    private final DealerRule dealerRule;
+    private final Shoe.Snapshot shoe;
+    // Hands, money and strategy of every player, where the dealer is after every player
+    private final Hand[][] hands;
+    private final int[] money;
+    private final Strategy[] strategies;
+
+    TableSnapshot(GameMode gameMode, int handBetAmount, DealerRule dealerRule, Shoe.Snapshot shoe, Hand[][] hands,
+                  int[] money, Strategy[] strategies) {
+        this.gameMode = gameMode;
+        this.handBetAmount = handBetAmount;
+        this.dealerRule = dealerRule;
+        this.shoe = shoe;
+        this.hands = hands;
+        this.money = money;
+        this.strategies = strategies;
+    }
+
+    public GameMode getGameMode() {
+        return gameMode;
+    }
+
+    public int getHandBetAmount() {
+        return handBetAmount;
+    }
+
+    public DealerRule getDealerRule() {
+        return dealerRule;
+    }
+
+    /**
+     * @return The number of players at the table, not including the dealer.
+     */
+    public int getNumPlayers() {
+        return hands.length - 1;
+    }
+
+    /**
+     * @param playerPos The position of the player at the table in the list of players.
+     * @return The number of hands the player held.
+     */
+    public int getHandQty(int playerPos) {
+        return hands[playerPos].length;
+    }
+
+    /**
+     * @param playerPos The position of the player at the table in the list of players.
+     * @param handNum   Index of the player's hand
+     * @return A copy of the hand, which can be changed without changing the snapshot.
+     */
+    public Hand getHand(int playerPos, int handNum) {
+        return new Hand(hands[playerPos][handNum]);
+    }
+
+    /**
+     * @return A copy of the dealer's hand, which can be changed without changing the snapshot.
+     */
+    public Hand getDealerHand() {
+        Hand[] dealerHands = hands[hands.length - 1];
+        return dealerHands.length == 0 ? null : new Hand(dealerHands[0]);
+    }
+
+    /**
+     * @param playerPos The position of the player at the table, or the number of players for the dealer.
+     * @return The money the player held.
+     */
+    public int getMoney(int playerPos) {
+        return money[playerPos];
+    }
+
+    Shoe.Snapshot getShoe() {
+        return shoe;
+    }
+
+    /**
+     * @param pos Position of a player, where the dealer is after every player
+     */
+    Hand[] getHands(int pos) {
+        return hands[pos];
+    }
+
+    Strategy getStrategy(int pos) {
+        return strategies[pos];
+    }
+}
@@ -0,0 +1,340 @@
+package com.ethpalser.game;
+
+import com.ethpalser.blackjack.DeckType;
+import com.ethpalser.blackjack.GameMode;
+import com.ethpalser.blackjack.RandomSource;
+import com.ethpalser.blackjack.Table;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+/**
+ * Simulates many saved tables without any input, writing one line of results for each table as soon as it finishes.
+ * Tables are read from every file in a directory, or from each path listed in a manifest file, and are simulated at
+ * the same time on a fixed number of threads. Each table is simulated by one worker, as there are already enough
+ * tables to keep every thread busy.
+ * <br/>
+ * Results are written as CSV, with each player's numbers separated by semicolons, or as one JSON object per line. A
+ * table that cannot be read is written with its error instead of failing the whole batch.
+ */
+public class BatchRunner {
+
+    private static final String USAGE = """
+            Usage: BatchRunner <directory or manifest> [options]
+              --out <file>            File to write results to (default: standard output)
+              --format <csv|json>     Format of each result (default: csv)
+              --trials <n>            Trials for each table (default: 100000)
+              --precision <p>         Stop each table once every win rate is within p, up to --trials
+              --time <ms>             Stop each table after this many milliseconds, up to --trials, or sooner if
+                                      --precision is reached first
+              --mode <mode>           Sampling mode: PLAIN, STRATIFIED, ANTITHETIC or CONTROL_VARIATE
+              --deck-type <type>      Deck type: RANDOM, SEGMENTED or RANK_ONLY (default: RANDOM)
+              --threads <n>           Tables simulated at the same time (default: available processors)
+              --seed <n>              Seed for repeatable results
+            """;
+    private static final String[] RATE_KEYS = {"win_rate", "win_estimate", "standard_error", "draw_rate",
+            "loss_rate"};
+
+    private final StopRule rule;
+    private final SamplingMode mode;
+    private final DeckType deckType;
+    private final boolean isJson;
+    private final int numThreads;
+    private final RandomSource rng;
+
+    /**
+     * @param rule       StopRule used for every table
+     * @param mode       SamplingMode used for every table
+     * @param deckType   DeckType of every table
+     * @param isJson     True to write JSON lines, false to write CSV
+     * @param numThreads Number of tables simulated at the same time
+     * @param rng        RandomSource each table's source is split from, in the order the tables are listed
+     */
+    public BatchRunner(StopRule rule, SamplingMode mode, DeckType deckType, boolean isJson, int numThreads,
+                       RandomSource rng) {
+        if (rule == null || mode == null || deckType == null || rng == null) {
+            throw new IllegalArgumentException("Stop rule, sampling mode, deck type and source must not be null.");
+        }
+        if (numThreads < 1) {
+            throw new IllegalArgumentException("There must be at least one thread.");
+        }
+        this.rule = rule;
+        this.mode = mode;
+        this.deckType = deckType;
+        this.isJson = isJson;
+        this.numThreads = numThreads;
+        this.rng = rng;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length == 0 || args[0].startsWith("--")) {
+            System.err.print(USAGE);
+            System.exit(2);
+        }
+        Path input = Paths.get(args[0]);
+        Path out = null;
+        boolean isJson = false;
+        long trials = 100_000;
+        double precision = 0;
+        long timeMillis = 0;
+        SamplingMode mode = SamplingMode.PLAIN;
+        DeckType deckType = DeckType.RANDOM;
+        int numThreads = Runtime.getRuntime().availableProcessors();
+        RandomSource rng = RandomSource.create();
+        try {
+            for (int i = 1; i < args.length; i += 2) {
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException("Option " + args[i] + " needs a value.");
+                }
+                String value = args[i + 1];
+                switch (args[i]) {
+                    case "--out" -> out = Paths.get(value);
+                    case "--format" -> isJson = switch (value.toLowerCase(Locale.ROOT)) {
+                        case "csv" -> false;
+                        case "json" -> true;
+                        default -> throw new IllegalArgumentException("Format must be csv or json.");
+                    };
+                    case "--trials" -> trials = Long.parseLong(value);
+                    case "--precision" -> precision = Double.parseDouble(value);
+                    case "--time" -> timeMillis = Long.parseLong(value);
+                    case "--mode" -> mode = SamplingMode.valueOf(value.toUpperCase(Locale.ROOT));
+                    case "--deck-type" -> deckType = DeckType.valueOf(value.toUpperCase(Locale.ROOT));
+                    case "--threads" -> numThreads = Integer.parseInt(value);
+                    case "--seed" -> rng = RandomSource.create(Long.parseLong(value));
+                    default -> throw new IllegalArgumentException("Option " + args[i] + " is not recognized.");
+                }
+            }
+        } catch (IllegalArgumentException ex) {
+            System.err.println(ex.getMessage());
+            System.err.print(USAGE);
+            System.exit(2);
+        }
+
+        // Both a precision and a time limit can be given, and the simulation stops at whichever is reached first
+        StopRule rule = StopRule.of(precision, timeMillis, trials);
+        BatchRunner runner = new BatchRunner(rule, mode, deckType, isJson, numThreads, rng);
+        List<Path> scenarios = listScenarios(input);
+        if (out == null) {
+            Writer writer = new OutputStreamWriter(System.out, StandardCharsets.UTF_8);
+            runner.run(scenarios, writer);
+            writer.flush();
+        } else {
+            try (Writer writer = Files.newBufferedWriter(out)) {
+                runner.run(scenarios, writer);
+            }
+        }
+    }
+
+    /**
+     * Finds the files of every table to simulate. A directory lists every file within it and its subdirectories in
+     * order of their path, and a manifest lists one path on each line relative to the manifest, where blank lines and
+     * lines starting with # are skipped.
+     *
+     * @param input Directory or manifest file
+     * @return Path of every table in the order they are listed
+     * @throws IOException Runtime exception while reading the directory or manifest
+     */
+    public static List<Path> listScenarios(Path input) throws IOException {
+        if (Files.isDirectory(input)) {
+            try (Stream<Path> paths = Files.walk(input)) {
+                return paths.filter(Files::isRegularFile).sorted().toList();
+            }
+        }
+        Path dir = input.toAbsolutePath().getParent();
+        List<Path> scenarios = new ArrayList<>();
+        for (String line : Files.readAllLines(input)) {
+            line = line.trim();
+            if (!line.isEmpty() && !line.startsWith("#")) {
+                scenarios.add(dir.resolve(line));
+            }
+        }
+        return scenarios;
+    }
+
+    /**
+     * Simulates every table and writes a line for each as it finishes, so results appear in the order tables finish
+     * rather than the order they are listed. At most a few tables per thread are read ahead of the simulations, so any
+     * number of tables can be run without holding them all in memory.
+     *
+     * @param scenarios Path of every table to simulate
+     * @param writer    Writer that each line of results is written to
+     * @throws IOException          Runtime exception while writing
+     * @throws InterruptedException if interrupted while waiting for the simulations
+     */
+    public void run(List<Path> scenarios, Writer writer) throws IOException, InterruptedException {
+        BufferedWriter out = writer instanceof BufferedWriter bw ? bw : new BufferedWriter(writer);
+        if (!isJson) {
+            out.write("scenario,players,trials,elapsed_ms,win_rate,win_estimate,standard_error,draw_rate,loss_rate,"
+                    + "error");
+            out.newLine();
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        Semaphore pending = new Semaphore(numThreads * 2);
+        AtomicReference<IOException> failure = new AtomicReference<>();
+        try {
+            for (Path scenario : scenarios) {
+                if (failure.get() != null) {
+                    break;
+                }
+                // Split in the order listed, so each table's source is the same however the threads are scheduled
+                RandomSource source = rng.split();
+                pending.acquire();
+                executor.execute(() -> {
+                    try {
+                        String line = simulate(scenario, source);
+                        synchronized (out) {
+                            out.write(line);
+                            out.newLine();
+                            out.flush();
+                        }
+                    } catch (IOException ex) {
+                        failure.compareAndSet(null, ex);
+                    } finally {
+                        pending.release();
+                    }
+                });
+            }
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+        }
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        out.flush();
+    }
+
+    /**
+     * Simulates one table.
+     *
+     * @return Line of results, or of the error if the table could not be read or simulated
+     */
+    String simulate(Path scenario, RandomSource source) {
+        String name = scenario.toString();
+        try {
+            Table table = TableFile.load(scenario, GameMode.ALL_PLAYERS_VISIBLE, deckType);
+            return format(name, simulate(table, source));
+        } catch (IOException | RuntimeException ex) {
+            // Any failure is reported on the table's own line, so no table is missing from the output
+            return formatError(name, ex.getMessage() == null ? ex.toString() : ex.getMessage());
+        }
+    }
+
+    /**
+     * Simulates one table that has been read, on a single worker.
+     */
+    SimulationResult simulate(Table table, RandomSource source) {
+        return Simulation.simulate(table, rule, mode, 1, source);
+    }
+
+    private String format(String name, SimulationResult result) {
+        int numPlayers = result.getNumPlayers();
+        StringBuilder sb = new StringBuilder();
+        if (isJson) {
+            sb.append("{\"scenario\":").append(jsonString(name))
+                    .append(",\"players\":").append(numPlayers)
+                    .append(",\"trials\":").append(result.getNumSimulations())
+                    .append(",\"elapsed_ms\":").append(result.getElapsedMillis());
+            appendJsonRates(sb, result);
+            return sb.append("}").toString();
+        }
+        double[][] columns = rateColumns(result);
+        sb.append(csvString(name)).append(",").append(numPlayers)
+                .append(",").append(result.getNumSimulations())
+                .append(",").append(result.getElapsedMillis());
+        for (double[] column : columns) {
+            sb.append(",");
+            for (int p = 0; p < numPlayers; p++) {
+                sb.append(p == 0 ? "" : ";").append(column[p]);
+            }
+        }
+        return sb.append(",").toString();
+    }
+
+    /**
+     * Appends each player's win rate, win estimate, standard error, draw rate and loss rate as JSON arrays, each after
+     * a comma. A number that is not finite, such as the standard error of fewer than 2 trials, is written as null.
+     */
+    static void appendJsonRates(StringBuilder sb, SimulationResult result) {
+        double[][] columns = rateColumns(result);
+        for (int c = 0; c < RATE_KEYS.length; c++) {
+            sb.append(",\"").append(RATE_KEYS[c]).append("\":[");
+            for (int p = 0; p < columns[c].length; p++) {
+                sb.append(p == 0 ? "" : ",").append(jsonNumber(columns[c][p]));
+            }
+            sb.append("]");
+        }
+    }
+
+    /**
+     * @return Each player's numbers in the order of RATE_KEYS
+     */
+    private static double[][] rateColumns(SimulationResult result) {
+        int numPlayers = result.getNumPlayers();
+        double[][] columns = new double[RATE_KEYS.length][numPlayers];
+        for (int p = 0; p < numPlayers; p++) {
+            columns[0][p] = result.getWinRate(p);
+            columns[1][p] = result.getWinEstimate(p);
+            columns[2][p] = result.getWinStandardError(p);
+            columns[3][p] = result.getDrawRate(p);
+            columns[4][p] = result.getLossRate(p);
+        }
+        return columns;
+    }
+
+    private String formatError(String name, String error) {
+        if (isJson) {
+            return "{\"scenario\":" + jsonString(name) + ",\"error\":" + jsonString(error) + "}";
+        }
+        return csvString(name) + ",,,,,,,,," + csvString(error);
+    }
+
+    /**
+     * @return The number as JSON, or null if it is infinite or not a number, as JSON has no way to write them
+     */
+    static String jsonNumber(double value) {
+        return Double.isFinite(value) ? Double.toString(value) : "null";
+    }
+
+    static String jsonString(String value) {
+        StringBuilder sb = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    private static String csvString(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+}
@@ -0,0 +1,136 @@
+package com.ethpalser.game;
+
+import com.ethpalser.blackjack.ExpectimaxSolver;
+import com.ethpalser.blackjack.PlayerChoice;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The expected value and win rate of each choice a player could make for a hand, estimated by a ChoiceAdvisor. The
+ * expected value is the average amount won per unit of the hand's bet, across the hand and any hands split from it,
+ * when the hand makes the choice and then follows the player's strategy.
+ * <br/>
+ * Advice is either exact, where every card the hand could draw was followed and later choices are the best ones, or
+ * sampled from a number of trials, where each value has a standard error.
+ */
+public class ChoiceAdvice {
+
+    private final Map<PlayerChoice, Double> evs;
+    private final Map<PlayerChoice, Double> errors;
+    private final Map<PlayerChoice, Double> winRates;
+    private final long numTrials;
+    private final long elapsedNanos;
+
+    private ChoiceAdvice(Map<PlayerChoice, Double> evs, Map<PlayerChoice, Double> errors,
+                         Map<PlayerChoice, Double> winRates, long numTrials, long elapsedNanos) {
+        this.evs = evs;
+        this.errors = errors;
+        this.winRates = winRates;
+        this.numTrials = numTrials;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * @param evs          Amount won per unit bet in each trial, for each choice
+     * @param winRates     Fraction of hands won in each trial, for each choice
+     * @param elapsedNanos Time taken to estimate the choices
+     */
+    static ChoiceAdvice sampled(Map<PlayerChoice, RunningStats> evs, Map<PlayerChoice, RunningStats> winRates,
+                                long elapsedNanos) {
+        Map<PlayerChoice, Double> means = new EnumMap<>(PlayerChoice.class);
+        Map<PlayerChoice, Double> errors = new EnumMap<>(PlayerChoice.class);
+        Map<PlayerChoice, Double> rates = new EnumMap<>(PlayerChoice.class);
+        long numTrials = 0;
+        for (Map.Entry<PlayerChoice, RunningStats> entry : evs.entrySet()) {
+            means.put(entry.getKey(), entry.getValue().getMean());
+            errors.put(entry.getKey(), entry.getValue().getStandardError());
+            rates.put(entry.getKey(), winRates.get(entry.getKey()).getMean());
+            numTrials = entry.getValue().getCount();
+        }
+        return new ChoiceAdvice(means, errors, rates, numTrials, elapsedNanos);
+    }
+
+    /**
+     * @param solution     Exact values of the choices
+     * @param choices      Choices that were solved
+     * @param elapsedNanos Time taken to solve the choices
+     */
+    static ChoiceAdvice exact(ExpectimaxSolver.Solution solution, List<PlayerChoice> choices, long elapsedNanos) {
+        Map<PlayerChoice, Double> evs = new EnumMap<>(PlayerChoice.class);
+        Map<PlayerChoice, Double> errors = new EnumMap<>(PlayerChoice.class);
+        Map<PlayerChoice, Double> rates = new EnumMap<>(PlayerChoice.class);
+        for (PlayerChoice choice : choices) {
+            evs.put(choice, solution.getEv(choice));
+            errors.put(choice, 0.0);
+            rates.put(choice, solution.getWinRate(choice));
+        }
+        return new ChoiceAdvice(evs, errors, rates, 0, elapsedNanos);
+    }
+
+    /**
+     * @return Choices that were estimated, in the order of PlayerChoice
+     */
+    public List<PlayerChoice> getChoices() {
+        return Collections.unmodifiableList(new ArrayList<>(evs.keySet()));
+    }
+
+    /**
+     * @return True if the values were calculated exactly instead of sampled
+     */
+    public boolean isExact() {
+        return numTrials == 0 && !evs.isEmpty();
+    }
+
+    /**
+     * @return Number of trials, where every choice is played once in each trial, or 0 if the advice is exact
+     */
+    public long getNumTrials() {
+        return numTrials;
+    }
+
+    public double getEv(PlayerChoice choice) {
+        return value(evs, choice);
+    }
+
+    /**
+     * @return Standard error of the expected value, which is 0 if the advice is exact
+     */
+    public double getEvStandardError(PlayerChoice choice) {
+        return value(errors, choice);
+    }
+
+    /**
+     * @return Fraction of the hand and the hands split from it that won
+     */
+    public double getWinRate(PlayerChoice choice) {
+        return value(winRates, choice);
+    }
+
+    /**
+     * @return Choice with the highest expected value, or null if no choice was estimated
+     */
+    public PlayerChoice getBestChoice() {
+        PlayerChoice best = null;
+        for (Map.Entry<PlayerChoice, Double> entry : evs.entrySet()) {
+            if (best == null || entry.getValue() > evs.get(best)) {
+                best = entry.getKey();
+            }
+        }
+        return best;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    private static double value(Map<PlayerChoice, Double> map, PlayerChoice choice) {
+        Double value = map.get(choice);
+        if (value == null) {
+            throw new IllegalArgumentException("Choice " + choice + " was not estimated.");
+        }
+        return value;
+    }
+}
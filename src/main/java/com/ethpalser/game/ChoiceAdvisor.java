@@ -0,0 +1,252 @@
+package com.ethpalser.game;
+
+import com.ethpalser.blackjack.Card;
+import com.ethpalser.blackjack.CommonRandomSource;
+import com.ethpalser.blackjack.DeckType;
+import com.ethpalser.blackjack.ExpectimaxSolver;
+import com.ethpalser.blackjack.Hand;
+import com.ethpalser.blackjack.Player;
+import com.ethpalser.blackjack.PlayerChoice;
+import com.ethpalser.blackjack.RandomSource;
+import com.ethpalser.blackjack.RankShoe;
+import com.ethpalser.blackjack.Shoe;
+import com.ethpalser.blackjack.Table;
+import com.ethpalser.blackjack.TableSnapshot;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Estimates the expected value of each choice a player could make for a hand, from the current state of a table, in
+ * time to show the estimates before the player chooses. Workers play the rest of the round from a snapshot of the
+ * table until a time budget runs out, so the number of trials depends on how fast the machine is rather than the
+ * time taken depending on the number of trials.
+ * <br/>
+ * The dealer's hidden card is drawn again in every trial, so the estimates do not use what the player cannot see.
+ * Within a trial every choice is played against the same random numbers, so the differences between choices are
+ * estimated far more precisely than each choice's own value.
+ * <br/>
+ * The worker threads are started when the advisor is created and kept until it is closed, so advice is not delayed
+ * by starting threads.
+ * <br/>
+ * When the hand has few enough states, it is solved exactly by an ExpectimaxSolver instead, and sampling is only used
+ * when the solver gives up. The solver has at most half of the time budget, and sampling has whatever is left but
+ * never less than half, so advice that falls back to sampling still has enough trials. The solver follows only the
+ * hand being played, so its values leave out how later hands and players change the cards the dealer draws.
+ */
+public class ChoiceAdvisor implements AutoCloseable {
+
+    public static final long DEFAULT_BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(40);
+
+    private final ThreadPoolExecutor pool;
+    private final CommonRandomSource[] sources;
+    private final long budgetNanos;
+    private final int maxExactStates;
+    private final RandomSource rng;
+
+    /**
+     * Creates an advisor with one worker for each available processor and the default time budget.
+     */
+    public ChoiceAdvisor() {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_BUDGET_NANOS, ExpectimaxSolver.DEFAULT_MAX_STATES,
+                RandomSource.create());
+    }
+
+    /**
+     * @param numWorkers     Number of threads playing trials at the same time
+     * @param budgetNanos    Time spent playing trials for each advice, where every worker plays at least one trial
+     * @param maxExactStates Most states the hand can have to be solved exactly, or 0 to always sample
+     * @param rng            RandomSource that each worker's source is split from
+     * @throws IllegalArgumentException if there are no workers, a budget is negative or the source is null
+     */
+    public ChoiceAdvisor(int numWorkers, long budgetNanos, int maxExactStates, RandomSource rng) {
+        if (numWorkers < 1 || budgetNanos <= 0 || maxExactStates < 0 || rng == null) {
+            throw new IllegalArgumentException("Advisor must have a worker, positive budgets and a random source.");
+        }
+        AtomicInteger numThreads = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(numWorkers, numWorkers, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "advisor-" + numThreads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.pool.prestartAllCoreThreads();
+        this.sources = new CommonRandomSource[numWorkers];
+        for (int i = 0; i < numWorkers; i++) {
+            sources[i] = new CommonRandomSource(rng.split());
+        }
+        this.budgetNanos = budgetNanos;
+        this.maxExactStates = maxExactStates;
+        this.rng = rng;
+    }
+
+    /**
+     * Estimates each choice for the player's hand, where the hands before it and the players before the player have
+     * already been played. After the choice, the hand and the rest of the round are played by each player's strategy.
+     * The table is not changed.
+     *
+     * @param table     Table the player is playing at
+     * @param playerPos Position of the player at the table
+     * @param handNum   Index of the player's hand that is being played
+     * @param choices   Choices the player can make for the hand, where Split is left out if the hand cannot be split
+     * @return Estimates of each choice
+     * @throws IllegalArgumentException if the table or choices are null, or the player or hand does not exist
+     * @throws IllegalStateException    if the advisor is closed or interrupted
+     */
+    public ChoiceAdvice advise(Table table, int playerPos, int handNum, List<PlayerChoice> choices) {
+        if (table == null || choices == null) {
+            throw new IllegalArgumentException("Table and choices must not be null.");
+        }
+        if (playerPos < 0 || playerPos >= table.getPlayers().size()
+                || handNum < 0 || handNum >= table.getPlayer(playerPos).getHandQty()) {
+            throw new IllegalArgumentException("Player " + playerPos + " does not have hand " + handNum + ".");
+        }
+        if (pool.isShutdown()) {
+            throw new IllegalStateException("Advisor is closed.");
+        }
+        long start = System.nanoTime();
+        Player player = table.getPlayer(playerPos);
+        boolean canSplit = player.canSplit() && player.getHand(handNum).canSplit();
+        // Splitting a hand that is not a pair would play as a Stand, so it is not a choice
+        PlayerChoice[] legal = choices.stream().distinct()
+                .filter(choice -> choice != PlayerChoice.SPLIT || canSplit)
+                .toArray(PlayerChoice[]::new);
+        if (maxExactStates > 0) {
+            Hand dealerHand = table.getDealer().getHand(0);
+            ExpectimaxSolver solver = new ExpectimaxSolver(table.getDealerRule(), maxExactStates,
+                    Math.max(1, budgetNanos / 2));
+            ExpectimaxSolver.Solution solution = solver.solve(player.getHand(handNum),
+                    dealerHand.getCard(1).getValue(), table.countUnseenValues(), List.of(legal));
+            if (solution != null) {
+                return ChoiceAdvice.exact(solution, List.of(legal), System.nanoTime() - start);
+            }
+        }
+        // Nothing is displayed while advising, so a RANDOM deck can be replaced by the counts of its values
+        Shoe shoe = table.getDeck();
+        TableSnapshot snapshot = new Table(table, DeckType.RANDOM.equals(shoe.getDeckType())
+                ? RankShoe.of(shoe, rng) : shoe.copy(rng)).snapshot();
+        long sampleStart = System.nanoTime();
+        long deadline = sampleStart + Math.max(budgetNanos - (sampleStart - start), budgetNanos / 2);
+
+        List<Future<RunningStats[]>> futures = new ArrayList<>(sources.length);
+        for (CommonRandomSource source : sources) {
+            futures.add(pool.submit(() -> playTrials(snapshot, source, playerPos, handNum, legal, deadline)));
+        }
+        Map<PlayerChoice, RunningStats> evs = new EnumMap<>(PlayerChoice.class);
+        Map<PlayerChoice, RunningStats> winRates = new EnumMap<>(PlayerChoice.class);
+        for (PlayerChoice choice : legal) {
+            evs.put(choice, new RunningStats());
+            winRates.put(choice, new RunningStats());
+        }
+        try {
+            for (Future<RunningStats[]> future : futures) {
+                RunningStats[] stats = future.get();
+                for (int c = 0; c < legal.length; c++) {
+                    evs.get(legal[c]).merge(stats[c]);
+                    winRates.get(legal[c]).merge(stats[legal.length + c]);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while advising.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+        return ChoiceAdvice.sampled(evs, winRates, System.nanoTime() - start);
+    }
+
+    /**
+     * Stops the worker threads. Advice that is being estimated is finished first.
+     */
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    /**
+     * @return The expected value of each choice, followed by the win rate of each choice
+     */
+    private static RunningStats[] playTrials(TableSnapshot snapshot, CommonRandomSource source, int playerPos,
+                                             int handNum, PlayerChoice[] choices, long deadline) {
+        RunningStats[] stats = new RunningStats[choices.length * 2];
+        for (int i = 0; i < stats.length; i++) {
+            stats[i] = new RunningStats();
+        }
+        Table table = new Table(snapshot, source);
+        int bet = snapshot.getHand(playerPos, handNum).getBet();
+        do {
+            for (int c = 0; c < choices.length; c++) {
+                table.restore(snapshot);
+                if (c == 0) {
+                    source.record();
+                } else {
+                    source.replay();
+                }
+                playChoice(table, playerPos, handNum, choices[c], bet, stats, c, choices.length);
+            }
+        } while (System.nanoTime() < deadline);
+        return stats;
+    }
+
+    /**
+     * Plays the choice for the hand, then the rest of the round, and adds how much the hand and any hands split from
+     * it won per unit bet, and what fraction of them won.
+     */
+    private static void playChoice(Table table, int playerPos, int handNum, PlayerChoice choice, int bet,
+                                   RunningStats[] stats, int index, int numChoices) {
+        Hand dealerHand = table.getDealer().getHand(0);
+        table.randomizeCards(dealerHand, 1);
+        Card upCard = dealerHand.getCard(1);
+        Player player = table.getPlayer(playerPos);
+        int numHands = player.getHandQty();
+        if (table.play(player, handNum, choice)) {
+            int splitHandNum = player.getHandQty() - 1;
+            table.autoplay(player, handNum, upCard);
+            if (choice == PlayerChoice.SPLIT) {
+                table.autoplay(player, splitHandNum, upCard);
+            }
+        }
+        // Hands split from this hand are added after every other hand, before any split from the later hands
+        int lastHandNum = player.getHandQty() - 1;
+        for (int h = handNum + 1; h < numHands; h++) {
+            table.autoplay(player, h, upCard);
+        }
+        for (int p = playerPos + 1; p < table.getPlayers().size(); p++) {
+            table.autoplay(table.getPlayer(p), 0, upCard);
+        }
+        table.resolve();
+
+        int won = 0;
+        int numWon = 0;
+        int numPlayed = 0;
+        for (int h = handNum; h <= lastHandNum; h++) {
+            if (h != handNum && h < numHands) {
+                continue;
+            }
+            Hand hand = player.getHand(h);
+            switch (hand.getResult()) {
+                case WIN -> {
+                    won += hand.getBet();
+                    numWon++;
+                }
+                case LOSS -> won -= hand.getBet();
+                default -> {
+                    // A draw returns the bet
+                }
+            }
+            numPlayed++;
+        }
+        stats[index].add(won / (double) bet);
+        stats[numChoices + index].add(numWon / (double) numPlayed);
+    }
+}
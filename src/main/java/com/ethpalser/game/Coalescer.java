@@ -0,0 +1,69 @@
+package com.ethpalser.game;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Shares one computation among every caller that asks for the same key while it is running. The first caller computes
+ * the value on its own thread and the others wait for it, so identical requests that arrive together cost one
+ * computation. Once the value is computed the key is forgotten, so a later request computes it again.
+ *
+ * @param <K> Type of key identifying a computation
+ * @param <V> Type of value computed
+ */
+class Coalescer<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> running = new ConcurrentHashMap<>();
+    private final AtomicLong numComputed = new AtomicLong();
+    private final AtomicLong numCoalesced = new AtomicLong();
+
+    /**
+     * Gets the value for the key, computing it unless another caller is already computing it.
+     *
+     * @param key      Key identifying the computation
+     * @param supplier Computes the value, which is only called if no computation for the key is running
+     * @return The computed value, which is the same object for every caller that shared the computation
+     * @throws RuntimeException the exception thrown by the supplier, for every caller that shared the computation
+     */
+    V get(K key, Supplier<V> supplier) {
+        CompletableFuture<V> created = new CompletableFuture<>();
+        CompletableFuture<V> existing = running.putIfAbsent(key, created);
+        if (existing != null) {
+            numCoalesced.incrementAndGet();
+            try {
+                return existing.join();
+            } catch (CompletionException ex) {
+                throw ex.getCause() instanceof RuntimeException cause ? cause : ex;
+            }
+        }
+        numComputed.incrementAndGet();
+        try {
+            V value = supplier.get();
+            created.complete(value);
+            return value;
+        } catch (RuntimeException | Error ex) {
+            created.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            running.remove(key, created);
+        }
+    }
+
+    /**
+     * @return Number of computations that were run.
+     */
+    long getNumComputed() {
+        return numComputed.get();
+    }
+
+    /**
+     * @return Number of callers that shared a computation run by another caller.
+     */
+    long getNumCoalesced() {
+        return numCoalesced.get();
+    }
+}
@@ -0,0 +1,526 @@
+package com.ethpalser.game;
+
+import com.ethpalser.blackjack.Card;
+import com.ethpalser.blackjack.CardSuit;
+import com.ethpalser.blackjack.DealerRule;
+import com.ethpalser.blackjack.DeckType;
+import com.ethpalser.blackjack.EvTable;
+import com.ethpalser.blackjack.GameMode;
+import com.ethpalser.blackjack.Hand;
+import com.ethpalser.blackjack.Player;
+import com.ethpalser.blackjack.PlayerChoice;
+import com.ethpalser.blackjack.RandomSource;
+import com.ethpalser.blackjack.Shoe;
+import com.ethpalser.blackjack.Table;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Estimates the expected value of every choice for every two-card starting hand against every dealer up card, for a
+ * range of deck counts and deck types. The expected value is the average amount won per unit bet when the hand makes
+ * that choice first and then follows basic strategy, where a Surrender is always -0.5.
+ * <br/>
+ * The grid is divided into one task for each deck count, deck type and up card, and the tasks run at the same time on
+ * a fixed number of threads. Each task deals every starting hand from a single shoe, which is rolled back after each
+ * hand instead of being created again. Within a trial every choice is played against the same hidden dealer card, so
+ * differences between choices are not hidden by differences in the dealer's hand.
+ * <br/>
+ * Each hand's row is written to the file as soon as it finishes. Generating into a file that already has rows skips
+ * those hands, so an interrupted run continues where it stopped, and once every row is present the file is rewritten
+ * in the order of the grid. A finished grid can also be written as an EvTable, which is read without parsing.
+ */
+public class EvGrid {
+
+    private static final String USAGE = """
+            Usage: EvGrid <file> [options]
+              --decks <n or min-max>  Deck counts to generate (default: 1-8)
+              --deck-type <type>      Deck type: RANDOM, SEGMENTED or BOTH (default: BOTH)
+              --trials <n>            Trials for each hand and up card (default: 20000)
+              --dealer-rule <rule>    STAND_SOFT_17 or HIT_SOFT_17 (default: STAND_SOFT_17)
+              --threads <n>           Tasks run at the same time (default: available processors)
+              --seed <n>              Seed for repeatable results
+              --table <file>          Also write the grid as a binary EvTable file
+            """;
+    private static final String HEADER = "decks,deck_type,hand,up,hit,stand,split,double_down,surrender";
+    private static final int NUM_KEY_COLUMNS = 4;
+    // Choices in the order of the columns
+    private static final PlayerChoice[] CHOICES = {PlayerChoice.HIT, PlayerChoice.STAND, PlayerChoice.SPLIT,
+            PlayerChoice.DOUBLE_DOWN, PlayerChoice.SURRENDER};
+    // Even, so that surrendering returns exactly half
+    private static final int BET = 10;
+    private static final int NUM_VALUES = 10;
+
+    private final long numTrials;
+    private final DealerRule dealerRule;
+    private final int numThreads;
+    private final RandomSource rng;
+
+    /**
+     * @param numTrials  Trials for each starting hand and up card, where every choice is played in each trial
+     * @param dealerRule DealerRule of every table
+     * @param numThreads Number of tasks run at the same time
+     * @param rng        RandomSource each task's source is split from, in the order of the grid
+     */
+    public EvGrid(long numTrials, DealerRule dealerRule, int numThreads, RandomSource rng) {
+        if (dealerRule == null || rng == null) {
+            throw new IllegalArgumentException("Dealer rule and source must not be null.");
+        }
+        if (numTrials < 1 || numThreads < 1) {
+            throw new IllegalArgumentException("There must be at least one trial and one thread.");
+        }
+        this.numTrials = numTrials;
+        this.dealerRule = dealerRule;
+        this.numThreads = numThreads;
+        this.rng = rng;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length == 0 || args[0].startsWith("--")) {
+            System.err.print(USAGE);
+            System.exit(2);
+        }
+        Path out = Paths.get(args[0]);
+        int minDecks = 1;
+        int maxDecks = 8;
+        List<DeckType> deckTypes = List.of(DeckType.SEGMENTED, DeckType.RANDOM);
+        long trials = 20_000;
+        DealerRule dealerRule = DealerRule.STAND_SOFT_17;
+        int numThreads = Runtime.getRuntime().availableProcessors();
+        RandomSource rng = RandomSource.create();
+        Path tableOut = null;
+        try {
+            for (int i = 1; i < args.length; i += 2) {
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException("Option " + args[i] + " needs a value.");
+                }
+                String value = args[i + 1];
+                switch (args[i]) {
+                    case "--decks" -> {
+                        int dash = value.indexOf('-');
+                        minDecks = Integer.parseInt(dash < 0 ? value : value.substring(0, dash));
+                        maxDecks = dash < 0 ? minDecks : Integer.parseInt(value.substring(dash + 1));
+                    }
+                    case "--deck-type" -> deckTypes = "BOTH".equalsIgnoreCase(value)
+                            ? List.of(DeckType.SEGMENTED, DeckType.RANDOM)
+                            : List.of(DeckType.valueOf(value.toUpperCase(Locale.ROOT)));
+                    case "--trials" -> trials = Long.parseLong(value);
+                    case "--dealer-rule" -> dealerRule = DealerRule.valueOf(value.toUpperCase(Locale.ROOT));
+                    case "--threads" -> numThreads = Integer.parseInt(value);
+                    case "--seed" -> rng = RandomSource.create(Long.parseLong(value));
+                    case "--table" -> tableOut = Paths.get(value);
+                    default -> throw new IllegalArgumentException("Option " + args[i] + " is not recognized.");
+                }
+            }
+        } catch (IllegalArgumentException ex) {
+            System.err.println(ex.getMessage());
+            System.err.print(USAGE);
+            System.exit(2);
+        }
+
+        EvGrid grid = new EvGrid(trials, dealerRule, numThreads, rng);
+        int written = grid.generate(out, minDecks, maxDecks, deckTypes);
+        System.err.println("Wrote " + written + " rows to " + out);
+        if (tableOut != null) {
+            writeTable(List.of(out), tableOut);
+            System.err.println("Wrote table to " + tableOut);
+        }
+    }
+
+    /**
+     * Writes the rows of one or more grids as an EvTable file, which can then be opened without reading any text.
+     * Grids generated with different dealer rules or deck counts are combined into the same table, where a later grid
+     * replaces the rows of an earlier one.
+     *
+     * @param grids Files of generated grids
+     * @param out   Path of the table file
+     * @throws IOException              Runtime exception while reading the grids or writing the table
+     * @throws IllegalArgumentException if a grid is not in the expected format
+     * @see EvTable
+     */
+    public static void writeTable(List<Path> grids, Path out) throws IOException {
+        List<DealerRule> rules = new ArrayList<>();
+        List<List<String[]>> rows = new ArrayList<>();
+        int minDecks = Integer.MAX_VALUE;
+        int maxDecks = 0;
+        for (Path grid : grids) {
+            List<String> lines = Files.readAllLines(grid);
+            String settings = lines.isEmpty() ? "" : lines.get(0);
+            int start = settings.indexOf("dealer_rule=");
+            if (start < 0) {
+                throw new IllegalArgumentException("File " + grid + " does not start with the grid's settings.");
+            }
+            rules.add(DealerRule.valueOf(settings.substring(start + "dealer_rule=".length()).trim()));
+            List<String[]> gridRows = new ArrayList<>();
+            for (int i = 2; i < lines.size(); i++) {
+                String[] fields = lines.get(i).split(",", -1);
+                if (fields.length != NUM_KEY_COLUMNS + CHOICES.length) {
+                    throw new IllegalArgumentException("File " + grid + " line " + (i + 1) + ": Row must have "
+                            + (NUM_KEY_COLUMNS + CHOICES.length) + " columns.");
+                }
+                int numDecks = Integer.parseInt(fields[0]);
+                minDecks = Math.min(minDecks, numDecks);
+                maxDecks = Math.max(maxDecks, numDecks);
+                gridRows.add(fields);
+            }
+            rows.add(gridRows);
+        }
+        if (maxDecks == 0) {
+            throw new IllegalArgumentException("Grids must have at least one row.");
+        }
+
+        EvTable.Builder builder = new EvTable.Builder(minDecks, maxDecks);
+        for (int g = 0; g < grids.size(); g++) {
+            for (String[] fields : rows.get(g)) {
+                String[] hand = fields[2].split("-");
+                for (int c = 0; c < CHOICES.length; c++) {
+                    String ev = fields[NUM_KEY_COLUMNS + c];
+                    if (!ev.isEmpty()) {
+                        builder.setEv(rules.get(g), Integer.parseInt(fields[0]), DeckType.valueOf(fields[1]),
+                                valueOf(hand[0]), valueOf(hand[1]), valueOf(fields[3]), CHOICES[c],
+                                Float.parseFloat(ev));
+                    }
+                }
+            }
+        }
+        builder.write(out);
+    }
+
+    /**
+     * Generates every row of the grid that is not already in the file, writing each row as it finishes. A row that was
+     * only partly written when a run was interrupted is dropped and generated again.
+     *
+     * @param out       File the grid is written to, which is created if it does not exist
+     * @param minDecks  Fewest decks in the shoe
+     * @param maxDecks  Most decks in the shoe
+     * @param deckTypes DeckType of each shoe
+     * @return Number of rows generated by this call
+     * @throws IOException              Runtime exception while reading or writing the file
+     * @throws IllegalArgumentException if the file was generated with a different number of trials or dealer rule
+     * @throws InterruptedException     if interrupted while waiting for the tasks
+     */
+    public int generate(Path out, int minDecks, int maxDecks, List<DeckType> deckTypes) throws IOException,
+            InterruptedException {
+        if (minDecks < 1 || maxDecks < minDecks) {
+            throw new IllegalArgumentException("Deck counts must be at least 1 and in order.");
+        }
+        if (deckTypes.isEmpty() || deckTypes.contains(DeckType.RANK_ONLY)) {
+            throw new IllegalArgumentException("Deck types must be RANDOM or SEGMENTED.");
+        }
+        Map<String, String> rows = new ConcurrentHashMap<>(readRows(out));
+        // Rewrite what was read, so that a partly written row is not left in front of the new rows
+        writeRows(out, rows, null);
+
+        List<Task> tasks = new ArrayList<>();
+        for (int numDecks = minDecks; numDecks <= maxDecks; numDecks++) {
+            for (DeckType deckType : deckTypes) {
+                for (int upValue = 1; upValue <= NUM_VALUES; upValue++) {
+                    // Split in the order of the grid, so each task's source is the same however the threads are
+                    // scheduled and whichever tasks were already finished
+                    RandomSource source = rng.split();
+                    Task task = new Task(numDecks, deckType, upValue, source);
+                    if (!task.isDone(rows)) {
+                        tasks.add(task);
+                    }
+                }
+            }
+        }
+
+        int numRows = rows.size();
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        try (BufferedWriter writer = Files.newBufferedWriter(out, StandardOpenOption.APPEND)) {
+            for (Task task : tasks) {
+                executor.execute(() -> {
+                    try {
+                        task.run(rows, writer);
+                    } catch (IOException | RuntimeException ex) {
+                        failure.compareAndSet(null, ex);
+                    }
+                });
+            }
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+        } finally {
+            executor.shutdownNow();
+        }
+        // Rows that finished before a failure are already in the file, so generating again continues from them
+        if (failure.get() instanceof IOException ex) {
+            throw ex;
+        } else if (failure.get() instanceof RuntimeException ex) {
+            throw ex;
+        }
+        writeRows(out, rows, gridKeys(minDecks, maxDecks, deckTypes));
+        return rows.size() - numRows;
+    }
+
+    /**
+     * Plays every choice for one starting hand against one up card, dealing from the table's shoe. The shoe is rolled
+     * back afterwards, so the next hand is dealt from the same cards. A pair of ten-valued cards is always two cards of
+     * the same type, so that it can be split.
+     *
+     * @param table       Table with one player, whose hands are replaced
+     * @param firstValue  Value of the player's first card, where an Ace is 1
+     * @param secondValue Value of the player's second card
+     * @param upValue     Value of the dealer's up card
+     * @return Expected value of each choice in the order of the columns, or NaN for a Split of a hand that is not a
+     * pair
+     */
+    double[] playHand(Table table, int firstValue, int secondValue, int upValue) {
+        Shoe shoe = table.getDeck();
+        Player player = table.getPlayer(0);
+        Player dealer = table.getDealer();
+        long handMark = shoe.mark();
+
+        Card first = shoe.drawValue(firstValue);
+        Card second = firstValue == secondValue ? drawSameType(shoe, first) : shoe.drawValue(secondValue);
+        Hand playerHand = new Hand(first, second);
+        playerHand.setBet(BET);
+        int playerMoney = player.getMoney();
+        player.restoreHand(playerHand, playerMoney);
+        Card upCard = shoe.drawValue(upValue);
+        Hand dealerHand = new Hand();
+        dealerHand.addCard(shoe.draw(), false);
+        dealerHand.addCard(upCard, true);
+        int dealerMoney = dealer.getMoney();
+        dealer.restoreHand(dealerHand, dealerMoney);
+        table.mark();
+
+        boolean isPair = firstValue == secondValue;
+        RunningStats[] stats = new RunningStats[CHOICES.length];
+        for (int c = 0; c < CHOICES.length; c++) {
+            stats[c] = new RunningStats();
+        }
+        Hand dealerStart = new Hand();
+        for (long t = 0; t < numTrials; t++) {
+            table.randomizeCards(dealer.getHand(0), 1);
+            dealerStart.copyFrom(dealer.getHand(0));
+            long trialMark = shoe.mark();
+            for (int c = 0; c < CHOICES.length; c++) {
+                if (CHOICES[c] == PlayerChoice.SPLIT && !isPair) {
+                    continue;
+                }
+                stats[c].add(playChoice(table, CHOICES[c], upCard));
+                shoe.rollback(trialMark);
+                player.restoreHand(playerHand, playerMoney);
+                dealer.restoreHand(dealerStart, dealerMoney);
+            }
+            table.reset();
+        }
+        shoe.rollback(handMark);
+
+        double[] evs = new double[CHOICES.length];
+        for (int c = 0; c < CHOICES.length; c++) {
+            evs[c] = stats[c].getCount() == 0 ? Double.NaN : stats[c].getMean();
+        }
+        return evs;
+    }
+
+    /**
+     * Plays the choice for the player's only hand, then plays the rest of the player's hands with their strategy and
+     * resolves the table.
+     *
+     * @return Amount won per unit bet across all the player's hands
+     */
+    private static double playChoice(Table table, PlayerChoice choice, Card upCard) {
+        Player player = table.getPlayer(0);
+        if (table.play(player, 0, choice)) {
+            table.autoplay(player, 0, upCard);
+            if (choice == PlayerChoice.SPLIT) {
+                table.autoplay(player, 1, upCard);
+            }
+        }
+        table.resolve();
+
+        int won = 0;
+        for (int h = 0; h < player.getHandQty(); h++) {
+            Hand hand = player.getHand(h);
+            switch (hand.getResult()) {
+                case WIN -> won += hand.getBet();
+                case LOSS -> won -= hand.getBet();
+                default -> {
+                    // A draw returns the bet
+                }
+            }
+        }
+        return won / (double) BET;
+    }
+
+    private static Card drawSameType(Shoe shoe, Card card) {
+        for (CardSuit suit : CardSuit.values()) {
+            Card removed = shoe.remove(Card.of(card.getType(), suit));
+            if (removed != null) {
+                return removed;
+            }
+        }
+        throw new IllegalStateException("No other " + card.getType() + " is left to make a pair.");
+    }
+
+    /**
+     * Reads the rows of a grid written before.
+     *
+     * @return Every complete row by its key, which is empty if the file does not exist
+     */
+    private Map<String, String> readRows(Path out) throws IOException {
+        Map<String, String> rows = new ConcurrentHashMap<>();
+        if (!Files.exists(out)) {
+            return rows;
+        }
+        String text = Files.readString(out);
+        List<String> lines = text.lines().toList();
+        if (!lines.isEmpty() && !lines.get(0).equals(settingsLine())) {
+            throw new IllegalArgumentException("File " + out + " was generated with different settings: "
+                    + lines.get(0));
+        }
+        // Every row ends with a line break once it is completely written
+        int numComplete = text.endsWith("\n") ? lines.size() : lines.size() - 1;
+        for (int i = 2; i < numComplete; i++) {
+            String line = lines.get(i);
+            String[] fields = line.split(",", -1);
+            if (fields.length == NUM_KEY_COLUMNS + CHOICES.length) {
+                rows.put(keyOf(fields), line);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Replaces the file with the given rows, first writing to another file so that the grid is never partly
+     * replaced.
+     *
+     * @param order Keys of the rows in the order to write them, or null to write them in any order
+     */
+    private void writeRows(Path out, Map<String, String> rows, List<String> order) throws IOException {
+        Path dir = out.toAbsolutePath().getParent();
+        Path temp = Files.createTempFile(dir, out.getFileName().toString(), ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temp)) {
+            writer.write(settingsLine());
+            writer.newLine();
+            writer.write(HEADER);
+            writer.newLine();
+            Set<String> keys = new LinkedHashSet<>();
+            if (order != null) {
+                keys.addAll(order);
+            }
+            keys.addAll(rows.keySet());
+            for (String key : keys) {
+                String row = rows.get(key);
+                if (row != null) {
+                    writer.write(row);
+                    writer.newLine();
+                }
+            }
+        }
+        Files.move(temp, out, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private String settingsLine() {
+        return "# trials=" + numTrials + " dealer_rule=" + dealerRule.name();
+    }
+
+    private static List<String> gridKeys(int minDecks, int maxDecks, List<DeckType> deckTypes) {
+        List<String> keys = new ArrayList<>();
+        for (int numDecks = minDecks; numDecks <= maxDecks; numDecks++) {
+            for (DeckType deckType : deckTypes) {
+                for (int upValue = 1; upValue <= NUM_VALUES; upValue++) {
+                    for (int firstValue = 1; firstValue <= NUM_VALUES; firstValue++) {
+                        for (int secondValue = firstValue; secondValue <= NUM_VALUES; secondValue++) {
+                            keys.add(keyOf(numDecks, deckType, firstValue, secondValue, upValue));
+                        }
+                    }
+                }
+            }
+        }
+        return keys;
+    }
+
+    private static String keyOf(String[] fields) {
+        return String.join(",", fields[0], fields[1], fields[2], fields[3]);
+    }
+
+    private static String keyOf(int numDecks, DeckType deckType, int firstValue, int secondValue, int upValue) {
+        return numDecks + "," + deckType.name() + "," + label(firstValue) + "-" + label(secondValue) + ","
+                + label(upValue);
+    }
+
+    private static String label(int value) {
+        return value == 1 ? "A" : String.valueOf(value);
+    }
+
+    private static int valueOf(String label) {
+        return "A".equals(label) ? 1 : Integer.parseInt(label);
+    }
+
+    /**
+     * Every starting hand against one up card, for one deck count and deck type.
+     */
+    private class Task {
+        private final int numDecks;
+        private final DeckType deckType;
+        private final int upValue;
+        private final RandomSource source;
+
+        private Task(int numDecks, DeckType deckType, int upValue, RandomSource source) {
+            this.numDecks = numDecks;
+            this.deckType = deckType;
+            this.upValue = upValue;
+            this.source = source;
+        }
+
+        private boolean isDone(Map<String, String> rows) {
+            for (int firstValue = 1; firstValue <= NUM_VALUES; firstValue++) {
+                for (int secondValue = firstValue; secondValue <= NUM_VALUES; secondValue++) {
+                    if (!rows.containsKey(keyOf(numDecks, deckType, firstValue, secondValue, upValue))) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+
+        private void run(Map<String, String> rows, BufferedWriter writer) throws IOException {
+            // Nothing is displayed, so a RANDOM deck can be replaced by the counts of its values
+            DeckType shoeType = DeckType.RANDOM.equals(deckType) ? DeckType.RANK_ONLY : deckType;
+            Table table = new Table(1, numDecks, GameMode.ALL_PLAYERS_VISIBLE, shoeType, BET, source);
+            table.setDealerRule(dealerRule);
+            for (int firstValue = 1; firstValue <= NUM_VALUES; firstValue++) {
+                for (int secondValue = firstValue; secondValue <= NUM_VALUES; secondValue++) {
+                    String key = keyOf(numDecks, deckType, firstValue, secondValue, upValue);
+                    if (rows.containsKey(key)) {
+                        continue;
+                    }
+                    double[] evs = playHand(table, firstValue, secondValue, upValue);
+                    StringBuilder sb = new StringBuilder(key);
+                    for (double ev : evs) {
+                        sb.append(",");
+                        if (!Double.isNaN(ev)) {
+                            sb.append(String.format(Locale.ROOT, "%.4f", ev));
+                        }
+                    }
+                    String row = sb.toString();
+                    synchronized (writer) {
+                        writer.write(row);
+                        writer.newLine();
+                        writer.flush();
+                    }
+                    rows.put(key, row);
+                }
+            }
+        }
+    }
+}
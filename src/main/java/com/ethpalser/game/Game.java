@@ -1,15 +1,14 @@
 package com.ethpalser.game;
 
 import com.ethpalser.blackjack.Card;
+import com.ethpalser.blackjack.DealerOutcome;
 import com.ethpalser.blackjack.DeckType;
 import com.ethpalser.blackjack.GameMode;
 import com.ethpalser.blackjack.Hand;
-import com.ethpalser.blackjack.HandResult;
 import com.ethpalser.blackjack.Player;
 import com.ethpalser.blackjack.PlayerChoice;
 import com.ethpalser.blackjack.Table;
 import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.nio.file.Files;
@@ -18,11 +17,17 @@ import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Stream;
 
 public class Game {
 
     private static String SAVE_DIR = "./save/";
+    // Most trials a simulation can play, which is also where simulations by precision or time stop if neither is
+    // reached. Any simulation can be stopped early, so this is far more than needed.
+    private static final long MAX_TRIALS = 10_000_000_000L;
+    // Milliseconds between progress reports while simulating
+    private static final long PROGRESS_MILLIS = 1000;
 
     public static void main(String[] args) throws IOException {
         GameMode gameMode = GameMode.ALL_PLAYERS_VISIBLE;
@@ -106,33 +111,11 @@ public class Game {
             return defaultTable;
         }
 
-        try (BufferedReader br = new BufferedReader(new FileReader(SAVE_DIR + fileName))) {
+        try {
+            Table table = TableFile.load(Paths.get(SAVE_DIR, fileName), gameMode, deckType);
             println("File loaded!");
-            int numPlayers = Integer.parseInt(br.readLine());
-            int numDecks = Integer.parseInt(br.readLine());
-            int betAmount = Integer.parseInt(br.readLine());
-
-            Table table = new Table(numPlayers, numDecks, gameMode, deckType, betAmount);
-
-            // Load dealer and players
-            for (int i = -1; i < numPlayers; i++) {
-                List<Card> cards = new ArrayList<>();
-
-                String handString = br.readLine();
-                String[] cardStrings = handString.split("\s");
-                for (String cardString : cardStrings) {
-                    Card card = Card.parseCard(cardString);
-                    table.getDeck().remove(card);
-                    cards.add(card);
-                }
-                if (i == -1) {
-                    table.getDealer().setHand(new Hand(cards));
-                } else {
-                    table.getPlayers().get(i).setHand(new Hand(cards));
-                }
-            }
             return table;
-        } catch (IOException ex) {
+        } catch (IOException | IllegalArgumentException ex) {
             ex.printStackTrace();
         }
         defaultTable.setup();
@@ -156,31 +139,33 @@ public class Game {
         }
         int numPlayers = table.getPlayers().size();
         int playerPos = rng.nextInt(numPlayers);
-        // Start main loop of game
-        while (true) {
-            println(table.toString(playerPos));
+        // Start main loop of game, with the advisor's threads kept running between hands
+        try (ChoiceAdvisor advisor = new ChoiceAdvisor()) {
+            while (true) {
+                println(table.toString(playerPos));
+
+                Card dealerUpCard = table.getDealer().getHand(0).getCard(1);
+                // run through players before you
+                for (int i = 0; i < playerPos; i++) {
+                    Player player = table.getPlayer(i);
+                    table.autoplay(player, 0, dealerUpCard);
+                }
+                boolean exit = playerAction(br, table, playerPos, advisor);
+                if (exit) {
+                    break;
+                }
+                // run through the remaining players
+                for (int i = playerPos + 1; i < numPlayers; i++) {
+                    Player player = table.getPlayer(i);
+                    table.autoplay(player, 0, dealerUpCard);
+                }
 
-            Card dealerUpCard = table.getDealer().getHand(0).getCard(1);
-            // run through players before you
-            for (int i = 0; i < playerPos; i++) {
-                Player player = table.getPlayer(i);
-                table.autoplay(player, 0, dealerUpCard);
-            }
-            boolean exit = playerAction(br, table, playerPos);
-            if (exit) {
-                break;
-            }
-            // run through the remaining players
-            for (int i = playerPos + 1; i < numPlayers; i++) {
-                Player player = table.getPlayer(i);
-                table.autoplay(player, 0, dealerUpCard);
+                table.resolve();
+                println(table.toString(playerPos, true));
+                println("You now have $" + table.getPlayer(playerPos).getMoney() + ".");
+                println("------------------------------");
+                table.setup();
             }
-
-            table.resolve();
-            println(table.toString(playerPos, true));
-            println("You now have $" + table.getPlayer(playerPos).getMoney() + ".");
-            println("------------------------------");
-            table.setup();
         }
     }
 
@@ -200,59 +185,123 @@ public class Game {
         int playerPos = rng.nextInt(numPlayers);
         println(table.toString(playerPos));
 
-        println("How many times do you want to simulate your hand? (max 1,000,000)");
-        int numSimulations = readChoice(br, 1000000);
+        StopRule rule = askStopRule(br);
+        if (rule == null) {
+            return;
+        }
+
+        SamplingMode mode = askSamplingMode(br);
+        if (mode == null) {
+            return;
+        }
 
-        double[] results = simulateTable(table, numSimulations);
-        println("Chance of this hand winning: " + results[playerPos] * 100 + "%");
+        println("Simulating... press Enter to stop early and keep the trials played so far.");
+        SimulationTask task = SimulationTask.start(table, rule, mode, null);
+        SimulationResult result = awaitSimulation(br, task, playerPos);
+        if (task.isCancelled()) {
+            println("Stopped early.");
+        }
+        println("Chance of this hand winning: " + result.getWinEstimate(playerPos) * 100 + "% (standard error "
+                + result.getWinStandardError(playerPos) * 100 + "%)");
+        if (mode != SamplingMode.PLAIN) {
+            println("Variance reduced " + result.getVarianceReduction(playerPos)
+                    + " times compared to plain sampling.");
+        }
+        OutcomeCounts outcomes = result.getOutcomes();
+        long hands = outcomes.getHands(playerPos);
+        if (hands > 0) {
+            println("Average winnings per hand: $" + outcomes.getNetMoney(playerPos) / (double) hands);
+        }
+        println("Simulated " + result.getNumSimulations() + " times in " + result.getElapsedMillis() + "ms.");
+        System.out.print(result.getMetrics().report());
+        double[] dealerOutcomes = table.getDealerOutcomes();
+        println("Chance of the dealer busting: " + dealerOutcomes[DealerOutcome.BUST.ordinal()] * 100 + "%");
         println("------------------------------");
     }
 
     /**
-     * Automatically plays every player at the table by making a generally good choice while playing Blackjack. This
-     * will execute the given number of simulations with the same table state.
+     * Waits for a simulation to finish, reporting the player's chance of winning so far every second, and cancels it if
+     * a line is entered.
      *
-     * @param table          Contains state of all players and deck playing Blackjack
-     * @param numSimulations Number of times the game will be run
-     * @return Array of all percentages of winning their hand
+     * @param br        BufferedReader for reading input
+     * @param task      SimulationTask that is running
+     * @param playerPos Position of the player whose chance is reported
+     * @return Result of every trial that was played
+     * @throws IOException Runtime exception while reading an input
      */
-    private static double[] simulateTable(Table table, int numSimulations) {
-        List<Player> players = table.getPlayers();
-        int numPlayers = table.getPlayers().size();
-        Card dealerUpCard = table.getDealer().getHand(0).getCard(1);
-
-        int[] wins = new int[numPlayers];
-        int[] draws = new int[numPlayers];
-        int[] losses = new int[numPlayers];
-        for (int n = 0; n < numSimulations; n++) {
-            // Randomize dealer's unrevealed card for more uncertainty in probability
-            Hand dealerHand = table.getDealer().getHand(0);
-            table.getDealer().setHand(table.randomizeHand(dealerHand, 1));
-
-            for (Player player : players) {
-                table.autoplay(player, 0, dealerUpCard);
-            }
-            table.resolve();
-
-            for (int p = 0; p < players.size(); p++) {
-                Player player = players.get(p);
-                for (int q = 0; q < player.getHandQty(); q++) {
-                    HandResult result = player.getHand(q).getResult();
-                    switch (result) {
-                        case WIN -> wins[p]++;
-                        case DRAW -> draws[p]++;
-                        case LOSS -> losses[p]++;
-                    }
+    private static SimulationResult awaitSimulation(BufferedReader br, SimulationTask task, int playerPos)
+            throws IOException {
+        try {
+            while (!task.await(PROGRESS_MILLIS, TimeUnit.MILLISECONDS)) {
+                SimulationProgress progress = task.getProgress();
+                if (progress != null) {
+                    println(String.format("%,d trials: %.3f%% (within %.3f%%)", progress.getNumTrials(),
+                            progress.getWinEstimate(playerPos) * 100, progress.getWinHalfWidth(playerPos) * 100));
+                }
+                if (!task.isCancelled() && br.ready()) {
+                    br.readLine();
+                    task.cancel();
                 }
             }
-            table.reset();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            task.cancel();
+        }
+        return task.join();
+    }
+
+    /**
+     * Requests how the simulation will decide to stop, which is after a number of trials, once the win rate is precise
+     * enough or once a time limit has passed.
+     *
+     * @param br BufferedReader for reading input
+     * @return StopRule for the simulation, or null if the player exits
+     * @throws IOException Runtime exception while reading an input
+     */
+    private static StopRule askStopRule(BufferedReader br) throws IOException {
+        println("How do you want to simulate your hand?");
+        println("1. Number of times");
+        println("2. Until the chance of winning is precise");
+        println("3. Until a time limit");
+        int mode = readChoice(br, 3);
+        switch (mode) {
+            case 1 -> {
+                println("How many times do you want to simulate your hand? (max 10,000,000,000)");
+                long numSimulations = readNumber(br, 1, MAX_TRIALS);
+                return numSimulations == -1 ? null : StopRule.trials(numSimulations);
+            }
+            case 2 -> {
+                println("Within how many tenths of a percent should the chance be, 95% of the time? (1-100)");
+                int tenths = readChoice(br, 100);
+                return tenths == -1 ? null : StopRule.precision(tenths / 1000.0, MAX_TRIALS);
+            }
+            case 3 -> {
+                println("How many milliseconds can the simulation run for? (max 3,600,000)");
+                int millis = readChoice(br, 3600000);
+                return millis == -1 ? null : StopRule.timeLimit(millis, MAX_TRIALS);
+            }
+            default -> {
+                return null;
+            }
         }
+    }
 
-        double[] rates = new double[numPlayers];
-        for (int p = 0; p < numPlayers; p++) {
-            rates[p] = wins[p] / (double) (wins[p] + draws[p] + losses[p]);
+    /**
+     * Requests how the simulation will draw its random cards.
+     *
+     * @param br BufferedReader for reading input
+     * @return SamplingMode for the simulation, or null if the player exits
+     * @throws IOException Runtime exception while reading an input
+     */
+    private static SamplingMode askSamplingMode(BufferedReader br) throws IOException {
+        println("How should the cards be drawn?");
+        int pos = 1;
+        for (SamplingMode mode : SamplingMode.values()) {
+            println(pos + ". " + mode.getDisplay());
+            pos++;
         }
-        return rates;
+        int choice = readChoice(br, SamplingMode.values().length);
+        return choice == -1 ? null : SamplingMode.values()[choice - 1];
     }
 
     private static void println(String output) {
@@ -268,6 +317,19 @@ public class Game {
         println("3. Update Settings");
     }
 
+    private static void printAdvice(ChoiceAdvice advice) {
+        if (advice.isExact()) {
+            println("Expected winnings per $1 bet, calculated exactly:");
+        } else {
+            println(String.format("Expected winnings per $1 bet, from %,d trials:", advice.getNumTrials()));
+        }
+        PlayerChoice best = advice.getBestChoice();
+        for (PlayerChoice choice : advice.getChoices()) {
+            println(String.format("  %-12s %+.3f (wins %.1f%%)%s", choice, advice.getEv(choice),
+                    advice.getWinRate(choice) * 100, choice == best ? " <- best" : ""));
+        }
+    }
+
     private static void printPlayerMenu(String hand, boolean showSplit, boolean showSurrender, boolean showDouble) {
         println("What will you do for this hand (" + hand + ")?");
         println("1. Hit (Add another card)");
@@ -338,7 +400,11 @@ public class Game {
     }
 
     private static int readChoice(BufferedReader br, int choiceMin, int choiceMax) throws IOException {
-        int choice = 0;
+        return (int) readNumber(br, choiceMin, choiceMax);
+    }
+
+    private static long readNumber(BufferedReader br, long choiceMin, long choiceMax) throws IOException {
+        long choice = 0;
         boolean isValidChoice = false;
         do {
             String response = br.readLine();
@@ -347,7 +413,7 @@ public class Game {
             }
 
             try {
-                choice = Integer.parseInt(response);
+                choice = Long.parseLong(response);
             } catch (NumberFormatException ex) {
                 printInvalid();
                 continue;
@@ -384,23 +450,36 @@ public class Game {
      * @param br        BufferedReader for reading input
      * @param table     Table containing all players and the deck of cards for playing the game
      * @param playerNum Index of the player at the table
+     * @param advisor   ChoiceAdvisor estimating each choice before it is made
      * @return True if the player chooses to and can continue making a choice, otherwise false
      * @throws IOException Runtime exception while reading an input
      */
-    private static boolean playerAction(BufferedReader br, Table table, int playerNum) throws IOException {
+    private static boolean playerAction(BufferedReader br, Table table, int playerNum, ChoiceAdvisor advisor)
+            throws IOException {
         Player player = table.getPlayer(playerNum);
         for (int i = 0; i < player.getHandQty(); i++) {
             Hand currentHand = player.getHand(i);
-            boolean canSplit = player.canSplit() && currentHand.canSplit();
             boolean canSurrender = i == 0 && player.getHandQty() == 1 && currentHand.size() == 2;
             boolean canDouble = currentHand.size() == 2;
 
-            int pChoiceQty = canSplit ? 5 : 4;
             int choice;
             boolean canPlay;
             do {
+                // A hand can stop being a pair after any play, so whether it can be split is checked every time
+                boolean canSplit = player.canSplit() && currentHand.canSplit();
+                List<PlayerChoice> choices = new ArrayList<>(List.of(PlayerChoice.HIT, PlayerChoice.STAND));
+                if (canSplit) {
+                    choices.add(PlayerChoice.SPLIT);
+                }
+                if (canSurrender) {
+                    choices.add(PlayerChoice.SURRENDER);
+                }
+                if (canDouble) {
+                    choices.add(PlayerChoice.DOUBLE_DOWN);
+                }
+                printAdvice(advisor.advise(table, playerNum, i, choices));
                 printPlayerMenu(currentHand.toString(), canSplit, canSurrender, canDouble);
-                choice = readChoice(br, pChoiceQty);
+                choice = readChoice(br, choices.size());
                 // "exit" was inputted
                 if (choice == -1) {
                     return true;
@@ -424,7 +503,6 @@ public class Game {
                 canPlay = table.play(playerNum, i, playerChoice);
                 canSurrender = false;
                 canDouble = false;
-                pChoiceQty = 2;
                 println("Result: " + currentHand + "\n");
             } while (canPlay);
         }
@@ -0,0 +1,220 @@
+package com.ethpalser.game;
+
+import com.ethpalser.blackjack.HandResult;
+import com.ethpalser.blackjack.Player;
+
+/**
+ * Counts of how every hand of a simulation ended, for each player and each hand the player had by splitting, along with
+ * the money those hands won and lost. Every count is 64-bit, so billions of trials do not overflow them.
+ * <br/>
+ * Counts are immutable, and counts from separate runs of the same table can be merged into one. While a simulation
+ * runs, each worker counts into its own Tally, which is only touched by that worker, and the tallies are merged into
+ * counts once the workers have finished, so workers never write to the same counter.
+ */
+public final class OutcomeCounts {
+
+    private static final int NUM_RESULTS = HandResult.values().length;
+    private static final int NUM_HANDS = Player.MAX_HANDS;
+
+    private final int numPlayers;
+    // Indexed by player, then hand, then result
+    private final long[] counts;
+    // Indexed by player, then hand
+    private final long[] moneyWon;
+    private final long[] moneyLost;
+
+    private OutcomeCounts(int numPlayers, long[] counts, long[] moneyWon, long[] moneyLost) {
+        this.numPlayers = numPlayers;
+        this.counts = counts;
+        this.moneyWon = moneyWon;
+        this.moneyLost = moneyLost;
+    }
+
+    /**
+     * @param numPlayers Number of players at the table
+     * @return Counts with no hands for any player
+     */
+    public static OutcomeCounts empty(int numPlayers) {
+        return new Tally(numPlayers).snapshot();
+    }
+
+    /**
+     * Creates counts from each player's totals, for results that were not counted by hand. Every hand is counted as the
+     * player's first hand and no money is counted.
+     *
+     * @param wins   Number of hands won by each player
+     * @param draws  Number of hands drawn by each player
+     * @param losses Number of hands lost by each player
+     * @return Counts with each player's totals
+     */
+    static OutcomeCounts ofTotals(long[] wins, long[] draws, long[] losses) {
+        Tally tally = new Tally(wins.length);
+        for (int p = 0; p < wins.length; p++) {
+            tally.counts[index(p, 0, HandResult.WIN)] = wins[p];
+            tally.counts[index(p, 0, HandResult.DRAW)] = draws[p];
+            tally.counts[index(p, 0, HandResult.LOSS)] = losses[p];
+        }
+        return tally.snapshot();
+    }
+
+    /**
+     * Adds these counts to the counts of another run of the same table.
+     *
+     * @param other OutcomeCounts of another run
+     * @return New counts with the hands and money of both runs
+     * @throws IllegalArgumentException if the other counts are for a different number of players
+     */
+    public OutcomeCounts merge(OutcomeCounts other) {
+        if (other == null || other.numPlayers != numPlayers) {
+            throw new IllegalArgumentException("Only counts for the same number of players can be merged.");
+        }
+        Tally tally = new Tally(numPlayers);
+        tally.add(this);
+        tally.add(other);
+        return tally.snapshot();
+    }
+
+    public int getNumPlayers() {
+        return numPlayers;
+    }
+
+    /**
+     * @param playerPos The position of the player at the table in the list of players.
+     * @param handNum   Index of the player's hand, where hands made by splitting come after the first hand
+     * @param result    HandResult to count
+     * @return Number of times the hand had the result.
+     */
+    public long getCount(int playerPos, int handNum, HandResult result) {
+        return counts[index(playerPos, handNum, result)];
+    }
+
+    /**
+     * @return Number of the player's hands that had the result, across every hand index.
+     */
+    public long getCount(int playerPos, HandResult result) {
+        long sum = 0;
+        for (int h = 0; h < NUM_HANDS; h++) {
+            sum += counts[index(playerPos, h, result)];
+        }
+        return sum;
+    }
+
+    /**
+     * @return Number of hands the player had at the given index, which for later indices is how often the player split
+     * that many times.
+     */
+    public long getHands(int playerPos, int handNum) {
+        long sum = 0;
+        for (HandResult result : HandResult.values()) {
+            sum += counts[index(playerPos, handNum, result)];
+        }
+        return sum;
+    }
+
+    public long getHands(int playerPos) {
+        long sum = 0;
+        for (int h = 0; h < NUM_HANDS; h++) {
+            sum += getHands(playerPos, h);
+        }
+        return sum;
+    }
+
+    /**
+     * @return The bets won by the player's hands, not including the bets returned to them.
+     */
+    public long getMoneyWon(int playerPos) {
+        return sumHands(moneyWon, playerPos);
+    }
+
+    /**
+     * @return The bets lost by the player's hands, including half the bet of surrendered hands.
+     */
+    public long getMoneyLost(int playerPos) {
+        return sumHands(moneyLost, playerPos);
+    }
+
+    public long getNetMoney(int playerPos) {
+        return getMoneyWon(playerPos) - getMoneyLost(playerPos);
+    }
+
+    private static long sumHands(long[] money, int playerPos) {
+        long sum = 0;
+        for (int h = 0; h < NUM_HANDS; h++) {
+            sum += money[playerPos * NUM_HANDS + h];
+        }
+        return sum;
+    }
+
+    private static int index(int playerPos, int handNum, HandResult result) {
+        return (playerPos * NUM_HANDS + handNum) * NUM_RESULTS + result.ordinal();
+    }
+
+    /**
+     * Counts hands as they are played by one worker, and is not safe to share between threads.
+     */
+    static final class Tally {
+
+        private final int numPlayers;
+        private final long[] counts;
+        private final long[] moneyWon;
+        private final long[] moneyLost;
+
+        Tally(int numPlayers) {
+            if (numPlayers < 0) {
+                throw new IllegalArgumentException("Number of players must not be negative.");
+            }
+            this.numPlayers = numPlayers;
+            this.counts = new long[numPlayers * NUM_HANDS * NUM_RESULTS];
+            this.moneyWon = new long[numPlayers * NUM_HANDS];
+            this.moneyLost = new long[numPlayers * NUM_HANDS];
+        }
+
+        /**
+         * @param playerPos Position of the player at the table
+         * @param handNum   Index of the player's hand
+         * @param result    HandResult of the hand
+         * @param bet       Bet on the hand when it was resolved, which is what it won or lost
+         */
+        void add(int playerPos, int handNum, HandResult result, int bet) {
+            counts[index(playerPos, handNum, result)]++;
+            switch (result) {
+                case WIN -> moneyWon[playerPos * NUM_HANDS + handNum] += bet;
+                case LOSS -> moneyLost[playerPos * NUM_HANDS + handNum] += bet;
+                default -> {
+                    // The bet is returned
+                }
+            }
+        }
+
+        void add(OutcomeCounts other) {
+            if (other.numPlayers != numPlayers) {
+                throw new IllegalArgumentException("Only counts for the same number of players can be added.");
+            }
+            addAll(counts, other.counts);
+            addAll(moneyWon, other.moneyWon);
+            addAll(moneyLost, other.moneyLost);
+        }
+
+        void add(Tally other) {
+            if (other.numPlayers != numPlayers) {
+                throw new IllegalArgumentException("Only counts for the same number of players can be added.");
+            }
+            addAll(counts, other.counts);
+            addAll(moneyWon, other.moneyWon);
+            addAll(moneyLost, other.moneyLost);
+        }
+
+        /**
+         * @return Counts of the hands so far, which do not change as more hands are added.
+         */
+        OutcomeCounts snapshot() {
+            return new OutcomeCounts(numPlayers, counts.clone(), moneyWon.clone(), moneyLost.clone());
+        }
+
+        private static void addAll(long[] to, long[] from) {
+            for (int i = 0; i < to.length; i++) {
+                to[i] += from[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.ethpalser.game;
+
+/**
+ * The mean and variance of a stream of observations, updated one observation at a time without keeping them.
+ * <br/>
+ * Observations are added with Welford's method, which stays accurate over millions of observations where summing the
+ * squares would not. Statistics gathered separately, such as by each worker of a simulation, can be merged into one.
+ */
+public class RunningStats {
+
+    // Number of standard errors on either side of the mean that contains 95% of a normal distribution
+    static final double Z_95 = 1.959963984540054;
+
+    private long count;
+    private double mean;
+    // Sum of squared differences from the mean
+    private double m2;
+
+    public RunningStats() {
+    }
+
+    public RunningStats(RunningStats other) {
+        this.count = other.count;
+        this.mean = other.mean;
+        this.m2 = other.m2;
+    }
+
+    /**
+     * Creates the statistics of a number of observations that are each 1 or 0, which is what adding each of them
+     * one at a time would give.
+     *
+     * @param successes Number of observations that are 1
+     * @param count     Number of observations
+     * @return Statistics of the observations
+     */
+    public static RunningStats ofSuccesses(long successes, long count) {
+        if (successes < 0 || successes > count) {
+            throw new IllegalArgumentException("Successes must be from 0 to the number of observations.");
+        }
+        RunningStats stats = new RunningStats();
+        if (count > 0) {
+            stats.count = count;
+            stats.mean = successes / (double) count;
+            stats.m2 = successes * (1 - stats.mean);
+        }
+        return stats;
+    }
+
+    /**
+     * @param x Observation to add
+     */
+    public void add(double x) {
+        count++;
+        double delta = x - mean;
+        mean += delta / count;
+        m2 += delta * (x - mean);
+    }
+
+    /**
+     * Adds every observation of the other statistics to these statistics.
+     *
+     * @param other Statistics to merge, which are not changed
+     */
+    public void merge(RunningStats other) {
+        if (other.count == 0) {
+            return;
+        }
+        if (count == 0) {
+            count = other.count;
+            mean = other.mean;
+            m2 = other.m2;
+            return;
+        }
+        long total = count + other.count;
+        double delta = other.mean - mean;
+        mean += delta * other.count / total;
+        m2 += other.m2 + delta * delta * ((double) count * other.count / total);
+        count = total;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    /**
+     * @return The sample variance of the observations, or 0 if there are fewer than two.
+     */
+    public double getVariance() {
+        return count < 2 ? 0 : m2 / (count - 1);
+    }
+
+    /**
+     * @return The standard error of the mean, or 0 if there are fewer than two observations.
+     */
+    public double getStandardError() {
+        return count < 2 ? 0 : Math.sqrt(getVariance() / count);
+    }
+
+    /**
+     * @return Half the width of the 95% confidence interval of the mean, or infinity if there are fewer than two
+     * observations.
+     */
+    public double getHalfWidth() {
+        return count < 2 ? Double.POSITIVE_INFINITY : Z_95 * getStandardError();
+    }
+}
@@ -0,0 +1,22 @@
+package com.ethpalser.game;
+
+/**
+ * How a simulation draws its random cards. Every mode estimates the same chance of winning, but each mode other than
+ * PLAIN reduces how much the estimate varies, so fewer trials are needed for the same precision.
+ */
+public enum SamplingMode {
+    PLAIN("Every trial is drawn independently"),
+    STRATIFIED("The dealer's hidden card is spread evenly over the values left in the deck"),
+    ANTITHETIC("Trials are drawn in pairs with opposite cards"),
+    CONTROL_VARIATE("Trials are corrected by the exact chance of the dealer busting");
+
+    private String displayValue;
+
+    SamplingMode(String displayValue) {
+        this.displayValue = displayValue;
+    }
+
+    public String getDisplay() {
+        return this.displayValue;
+    }
+}
@@ -1,17 +1,542 @@
 package com.ethpalser.game;
 
+import com.ethpalser.blackjack.AntitheticRandomSource;
+import com.ethpalser.blackjack.Card;
+import com.ethpalser.blackjack.DealerOutcome;
+import com.ethpalser.blackjack.DealerOutcomeCalculator;
+import com.ethpalser.blackjack.DeckType;
+import com.ethpalser.blackjack.Hand;
+import com.ethpalser.blackjack.HandResult;
+import com.ethpalser.blackjack.Player;
+import com.ethpalser.blackjack.RandomSource;
+import com.ethpalser.blackjack.RankShoe;
+import com.ethpalser.blackjack.Shoe;
 import com.ethpalser.blackjack.Table;
+import com.ethpalser.game.SimulationMetrics.Phase;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Plays the same table many times to estimate how likely each player's hand is to win. The trials are split across
+ * workers, and each worker plays its share on its own copy of the table, so no table, deck or hand is shared between
+ * threads. Each worker counts into its own OutcomeCounts.Tally, and they are merged once all of them have finished.
+ * <br/>
+ * When a simulation can stop early, by reaching a precision or a time limit, the trials are played in rounds. Every
+ * worker plays its share of a round, and the statistics of all workers are merged and checked between rounds. A
+ * simulation run as a SimulationTask is always played in rounds, publishing its progress after each of them, and
+ * stops early with the trials played so far when cancelled.
+ * <br/>
+ * Workers deal from a RankShoe when the table's deck is RANDOM, as only the values of the cards and whether two of
+ * them are a pair matter to the result, so each worker's copy of the shoe is a few small arrays.
+ * <br/>
+ * The dealer's hidden card is drawn again for every trial, and how it is drawn depends on the SamplingMode. Each mode
+ * other than PLAIN uses what is known about the hidden card to make the estimate vary less between runs.
+ * <br/>
+ * Each worker counts the hands it played and times the phases of one in every few trials, and adds them to the
+ * simulation's SimulationMetrics and the global metrics after each round.
+ */
 public class Simulation implements Runnable {
 
-    private Table table;
+    private static final ForkJoinPool POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    // Rounds start small to check early, and grow until checking takes no noticeable time
+    private static final long FIRST_ROUND = 1000;
+    private static final long MAX_ROUND = 1 << 18;
+    // Fractional part of the golden ratio, which spreads a sequence of positions evenly over [0, 1)
+    private static final double GOLDEN = 0.6180339887498949;
+    private static final int NUM_VALUES = 10;
+    // Phases are timed for one in this many trials, as reading the clock costs about as much as a short phase
+    private static final int SAMPLE_INTERVAL = 64;
+    // Workers check whether the simulation was cancelled once every this many trials
+    private static final int CANCEL_INTERVAL = 1024;
 
-    private Simulation(Table table) {
+    private final Table table;
+    private final SamplingMode mode;
+    private final SimulationTask task;
+    // Chance of the dealer's hidden card being each value, added up, for STRATIFIED
+    private final double[] cumulativeWeights;
+    // Exact chance of the dealer busting given each value of hidden card, for CONTROL_VARIATE
+    private final double[] controls;
+    private final OutcomeCounts.Tally tally;
+    private final WinEstimator[] estimators;
+    private final double[] first;
+    private final double[] second;
+    private long numSimulations;
+    private long numPlayed;
+    private double phase;
+
+    // Metrics counted since they were last added to the simulation's metrics
+    private long numHands;
+    private long numTimed;
+    private final long[] phaseNanos = new long[Phase.values().length];
+    private boolean isTimed;
+    private long lapStart;
+    // Counts of the shoe and table when they were last added to the simulation's metrics
+    private long prevDraws;
+    private long prevUndos;
+    private long prevShuffles;
+    private long prevSplits;
+    private long[] prevDepths = new long[Table.MAX_AUTOPLAY_DEPTH];
+
+    private Simulation(Table table, SamplingMode mode, double[] weights, double[] controls, SimulationTask task) {
         this.table = table;
+        this.mode = mode;
+        this.task = task;
+        this.controls = controls;
+        this.cumulativeWeights = new double[NUM_VALUES];
+        double controlMean = 0;
+        double sum = 0;
+        for (int v = 0; v < NUM_VALUES; v++) {
+            sum += weights[v];
+            this.cumulativeWeights[v] = sum;
+            controlMean += weights[v] * controls[v];
+        }
+        int numPlayers = table.getPlayers().size();
+        this.tally = new OutcomeCounts.Tally(numPlayers);
+        this.estimators = new WinEstimator[numPlayers];
+        for (int p = 0; p < numPlayers; p++) {
+            this.estimators[p] = new WinEstimator(mode, weights, controlMean);
+        }
+        this.first = new double[numPlayers];
+        this.second = new double[numPlayers];
+        this.phase = table.getDeck().getRandomSource().nextDouble();
+    }
+
+    /**
+     * Simulates the table using one worker for each available processor.
+     *
+     * @param table          Contains state of all players and deck playing Blackjack
+     * @param numSimulations Number of times the game will be run
+     * @return Result containing the wins, draws and losses of every player
+     * @see #simulate(Table, int, int)
+     */
+    public static SimulationResult simulate(Table table, int numSimulations) {
+        return simulate(table, numSimulations, POOL.getParallelism());
+    }
+
+    /**
+     * Automatically plays every player at the table by making a generally good choice while playing Blackjack. This
+     * will execute the given number of simulations with the same table state, divided as evenly as possible among the
+     * given number of workers. The given table is copied for each worker and is not changed.
+     *
+     * @param table          Contains state of all players and deck playing Blackjack
+     * @param numSimulations Number of times the game will be run
+     * @param numWorkers     Number of copies of the table that are played at the same time
+     * @return Result containing the wins, draws and losses of every player
+     */
+    public static SimulationResult simulate(Table table, int numSimulations, int numWorkers) {
+        return simulate(table, numSimulations, numWorkers, RandomSource.create());
+    }
+
+    /**
+     * Simulates the table where each worker's deck draws from its own source split from the given source. Since the
+     * sources are split in order, simulating with a seeded source and the same number of workers is repeatable.
+     *
+     * @param table          Contains state of all players and deck playing Blackjack
+     * @param numSimulations Number of times the game will be run
+     * @param numWorkers     Number of copies of the table that are played at the same time
+     * @param rng            RandomSource that each worker's source is split from
+     * @return Result containing the wins, draws and losses of every player
+     */
+    public static SimulationResult simulate(Table table, int numSimulations, int numWorkers, RandomSource rng) {
+        return simulate(table, StopRule.trials(Math.max(0, numSimulations)), numWorkers, rng);
+    }
+
+    /**
+     * Simulates the table using one worker for each available processor until the rule is met.
+     *
+     * @param table Contains state of all players and deck playing Blackjack
+     * @param rule  StopRule deciding when enough trials have been played
+     * @return Result containing the wins, draws and losses of every player
+     */
+    public static SimulationResult simulate(Table table, StopRule rule) {
+        return simulate(table, rule, SamplingMode.PLAIN);
+    }
+
+    /**
+     * Simulates the table using one worker for each available processor until the rule is met.
+     *
+     * @param table Contains state of all players and deck playing Blackjack
+     * @param rule  StopRule deciding when enough trials have been played
+     * @param mode  SamplingMode deciding how the dealer's hidden card and other cards are drawn
+     * @return Result containing the wins, draws and losses of every player
+     */
+    public static SimulationResult simulate(Table table, StopRule rule, SamplingMode mode) {
+        return simulate(table, rule, mode, POOL.getParallelism(), RandomSource.create());
+    }
+
+    /**
+     * Simulates the table with plain sampling until the rule is met.
+     *
+     * @param table      Contains state of all players and deck playing Blackjack
+     * @param rule       StopRule deciding when enough trials have been played
+     * @param numWorkers Number of copies of the table that are played at the same time
+     * @param rng        RandomSource that each worker's source is split from
+     * @return Result containing the wins, draws and losses of every player
+     */
+    public static SimulationResult simulate(Table table, StopRule rule, int numWorkers, RandomSource rng) {
+        return simulate(table, rule, SamplingMode.PLAIN, numWorkers, rng);
+    }
+
+    /**
+     * Simulates the table until the rule is met. A rule that only has a number of trials plays them all in one round,
+     * otherwise the rule is checked after each round. ANTITHETIC plays trials in pairs, and a round of an odd number of
+     * trials ends with one trial that is not paired, so exactly the trials the rule asks for are played.
+     *
+     * @param table      Contains state of all players and deck playing Blackjack
+     * @param rule       StopRule deciding when enough trials have been played
+     * @param mode       SamplingMode deciding how the dealer's hidden card and other cards are drawn
+     * @param numWorkers Number of copies of the table that are played at the same time
+     * @param rng        RandomSource that each worker's source is split from
+     * @return Result containing the wins, draws and losses of every player
+     */
+    public static SimulationResult simulate(Table table, StopRule rule, SamplingMode mode, int numWorkers,
+                                            RandomSource rng) {
+        return simulate(table, rule, mode, numWorkers, rng, null);
+    }
+
+    /**
+     * Simulates the table until the rule is met or the task is cancelled. With a task every rule is played in rounds,
+     * and the progress is published to the task after each of them.
+     *
+     * @param task SimulationTask to publish progress to and check for cancelling, or null
+     * @see #simulate(Table, StopRule, SamplingMode, int, RandomSource)
+     */
+    static SimulationResult simulate(Table table, StopRule rule, SamplingMode mode, int numWorkers,
+                                     RandomSource rng, SimulationTask task) {
+        if (table == null) {
+            throw new IllegalArgumentException("Table must not be null.");
+        }
+        if (rule == null || mode == null) {
+            throw new IllegalArgumentException("Stop rule and sampling mode must not be null.");
+        }
+        SimulationEvent event = new SimulationEvent();
+        event.begin();
+        long startTime = System.nanoTime();
+        int numPlayers = table.getPlayers().size();
+        long maxTrials = rule.getMaxTrials();
+        boolean isFixed = rule.getTargetHalfWidth() == 0 && rule.getTimeLimitMillis() == 0 && task == null;
+
+        numWorkers = (int) Math.max(1, Math.min(numWorkers, maxTrials));
+        List<Table> tables = new ArrayList<>(numWorkers);
+        for (int i = 0; i < numWorkers; i++) {
+            RandomSource source = rng.split();
+            if (mode == SamplingMode.ANTITHETIC) {
+                source = new AntitheticRandomSource(source);
+            }
+            // Nothing is displayed while simulating, so a RANDOM deck can be replaced by the counts of its values
+            Shoe shoe = table.getDeck();
+            tables.add(new Table(table, DeckType.RANDOM.equals(shoe.getDeckType()) ? RankShoe.of(shoe, source)
+                    : shoe.copy(source)));
+        }
+        double[] weights = new double[NUM_VALUES];
+        double[] controls = new double[NUM_VALUES];
+        if (maxTrials > 0) {
+            weighHiddenCard(tables.get(0), mode, weights, controls);
+        }
+        List<Simulation> workers = new ArrayList<>(numWorkers);
+        for (Table copy : tables) {
+            workers.add(new Simulation(copy, mode, weights, controls, task));
+        }
+
+        SimulationMetrics metrics = new SimulationMetrics();
+        SimulationMetrics global = SimulationMetrics.global();
+        long played = 0;
+        int numRounds = 0;
+        long roundSize = isFixed ? maxTrials : FIRST_ROUND;
+        WinEstimate[] estimates = estimate(workers, numPlayers);
+        while (!rule.isMet(played, widestHalfWidth(estimates), elapsedMillis(startTime))
+                && (task == null || !task.isCancelled())) {
+            long size = Math.min(roundSize, maxTrials - played);
+            if (rule.getTimeLimitMillis() > 0 && played > 0) {
+                // Only play as many trials as the rate so far can finish before the time limit
+                long elapsed = System.nanoTime() - startTime;
+                long remaining = TimeUnit.MILLISECONDS.toNanos(rule.getTimeLimitMillis()) - elapsed;
+                size = Math.min(size, Math.max(numWorkers, (long) (played * (remaining / (double) elapsed))));
+            }
+            long roundStart = System.nanoTime();
+            played += playRound(workers, size);
+            numRounds++;
+            long roundNanos = System.nanoTime() - roundStart;
+            metrics.addElapsedNanos(roundNanos);
+            global.addElapsedNanos(roundNanos);
+            for (Simulation worker : workers) {
+                worker.addMetrics(metrics, global);
+            }
+            roundSize = Math.min(roundSize * 2, MAX_ROUND);
+            estimates = estimate(workers, numPlayers);
+            if (task != null) {
+                task.publish(new SimulationProgress(played, maxTrials, elapsedMillis(startTime), estimates));
+            }
+        }
+
+        OutcomeCounts.Tally merged = new OutcomeCounts.Tally(numPlayers);
+        for (Simulation worker : workers) {
+            merged.add(worker.tally);
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.numTrials = played;
+            event.maxTrials = maxTrials;
+            event.numRounds = numRounds;
+            event.numPlayers = numPlayers;
+            event.numDecks = table.getDeck().getNumDecks();
+            event.deckType = table.getDeck().getDeckType().name();
+            event.samplingMode = mode.name();
+            event.numWorkers = numWorkers;
+            event.isCancelled = task != null && task.isCancelled();
+            event.commit();
+        }
+        return new SimulationResult(played, merged.snapshot(), estimates, mode, elapsedMillis(startTime), metrics);
+    }
+
+    /**
+     * Finds the chance of the dealer's hidden card being each value when it is drawn again, and for CONTROL_VARIATE the
+     * exact chance of the dealer busting with each of them. The hidden card is put back and the deck is counted as each
+     * trial would see it, and then the deck is rolled back.
+     */
+    private static void weighHiddenCard(Table table, SamplingMode mode, double[] weights, double[] controls) {
+        Shoe deck = table.getDeck();
+        Hand dealerHand = table.getDealer().getHand(0);
+        long mark = deck.mark();
+        deck.add(dealerHand.getCard(0));
+        int[] counts = deck.countNextValues();
+        int[] unseen = deck.countValues();
+        deck.rollback(mark);
+
+        int total = 0;
+        for (int count : counts) {
+            total += count;
+        }
+        DealerOutcomeCalculator calculator = new DealerOutcomeCalculator(table.getDealerRule());
+        int upCardValue = dealerHand.getCard(1).getValue();
+        for (int v = 0; v < NUM_VALUES; v++) {
+            if (counts[v] == 0) {
+                continue;
+            }
+            weights[v] = counts[v] / (double) total;
+            if (mode != SamplingMode.CONTROL_VARIATE) {
+                continue;
+            }
+            unseen[v]--;
+            controls[v] = calculator.calculate(upCardValue, v + 1, unseen)[DealerOutcome.BUST.ordinal()];
+            unseen[v]++;
+        }
+    }
+
+    /**
+     * Plays a number of trials divided as evenly as possible among the workers, and waits for all of them to finish.
+     * ANTITHETIC trials are divided in pairs, so only the first worker can have a trial that is not paired.
+     *
+     * @return Number of trials that were played
+     */
+    private static long playRound(List<Simulation> workers, long numTrials) {
+        int numWorkers = workers.size();
+        int unit = workers.get(0).mode == SamplingMode.ANTITHETIC ? 2 : 1;
+        long numUnits = numTrials / unit;
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(numWorkers);
+        for (int i = 0; i < numWorkers; i++) {
+            // Spread the remainder over the first workers, so no worker has more than one extra trial or pair
+            Simulation worker = workers.get(i);
+            worker.numSimulations = unit * (numUnits / numWorkers + (i < numUnits % numWorkers ? 1 : 0))
+                    + (i == 0 ? numTrials % unit : 0);
+            worker.numPlayed = 0;
+            if (worker.numSimulations > 0) {
+                tasks.add(POOL.submit(worker));
+            }
+        }
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+        long played = 0;
+        for (Simulation worker : workers) {
+            played += worker.numPlayed;
+        }
+        return played;
+    }
+
+    private static WinEstimate[] estimate(List<Simulation> workers, int numPlayers) {
+        WinEstimate[] estimates = new WinEstimate[numPlayers];
+        for (int p = 0; p < numPlayers; p++) {
+            WinEstimator merged = workers.get(0).estimators[p].emptyCopy();
+            for (Simulation worker : workers) {
+                merged.merge(worker.estimators[p]);
+            }
+            estimates[p] = merged.estimate();
+        }
+        return estimates;
+    }
+
+    private static double widestHalfWidth(WinEstimate[] estimates) {
+        double widest = 0;
+        for (WinEstimate estimate : estimates) {
+            widest = Math.max(widest, estimate.getHalfWidth());
+        }
+        return widest;
+    }
+
+    private static long elapsedMillis(long startTime) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+    }
+
+    /**
+     * Adds what the worker counted since it last added to the metrics, which is only done between rounds while the
+     * worker is not playing.
+     */
+    private void addMetrics(SimulationMetrics... targets) {
+        Shoe shoe = table.getDeck();
+        long draws = shoe.getDrawCount();
+        long undos = shoe.getUndoCount();
+        long shuffles = shoe.getShuffleCount();
+        long splits = table.getNumSplits();
+        long[] depths = table.getAutoplayDepths();
+        long[] newDepths = new long[depths.length];
+        for (int d = 0; d < depths.length; d++) {
+            newDepths[d] = depths[d] - prevDepths[d];
+        }
+        for (SimulationMetrics metrics : targets) {
+            metrics.addTrials(numPlayed, numHands);
+            metrics.addShoe(draws - prevDraws, undos - prevUndos, shuffles - prevShuffles);
+            metrics.addTable(splits - prevSplits, newDepths);
+            metrics.addSampled(numTimed, phaseNanos);
+        }
+        prevDraws = draws;
+        prevUndos = undos;
+        prevShuffles = shuffles;
+        prevSplits = splits;
+        prevDepths = depths;
+        numHands = 0;
+        numTimed = 0;
+        Arrays.fill(phaseNanos, 0);
     }
 
     @Override
     public void run() {
+        if (mode == SamplingMode.ANTITHETIC) {
+            // Close random numbers then draw cards of close value, so mirrored numbers draw opposite cards
+            table.getDeck().sortByValue();
+        }
+        table.mark();
+
+        while (numPlayed < numSimulations) {
+            if (task != null && numPlayed % CANCEL_INTERVAL == 0 && task.isCancelled()) {
+                break;
+            }
+            isTimed = numPlayed % SAMPLE_INTERVAL == 0;
+            if (isTimed) {
+                lapStart = System.nanoTime();
+            }
+            Hand dealerHand = table.getDealer().getHand(0);
+            switch (mode) {
+                case STRATIFIED -> {
+                    int stratum = nextStratum();
+                    table.randomizeCard(dealerHand, 0, stratum + 1);
+                    lap(Phase.DEAL);
+                    playTrial(first);
+                    for (int p = 0; p < first.length; p++) {
+                        estimators[p].add(first[p], stratum, 0);
+                    }
+                }
+                case ANTITHETIC -> {
+                    AntitheticRandomSource rng = (AntitheticRandomSource) table.getDeck().getRandomSource();
+                    rng.record();
+                    table.randomizeCards(dealerHand, 1);
+                    lap(Phase.DEAL);
+                    playTrial(first);
+                    if (numPlayed + 1 == numSimulations) {
+                        // Last trial of an odd share, which has no trial to pair with
+                        for (int p = 0; p < first.length; p++) {
+                            estimators[p].addUnpaired(first[p]);
+                        }
+                        break;
+                    }
+                    rng.mirror();
+                    table.randomizeCards(table.getDealer().getHand(0), 1);
+                    lap(Phase.DEAL);
+                    playTrial(second);
+                    numPlayed++;
+                    for (int p = 0; p < first.length; p++) {
+                        estimators[p].addPair(first[p], second[p]);
+                    }
+                }
+                default -> {
+                    // Randomize dealer's unrevealed card for more uncertainty in probability
+                    table.randomizeCards(dealerHand, 1);
+                    int stratum = dealerHand.getCard(0).getValue() - 1;
+                    double control = controls[stratum];
+                    lap(Phase.DEAL);
+                    playTrial(first);
+                    for (int p = 0; p < first.length; p++) {
+                        estimators[p].add(first[p], stratum, control);
+                    }
+                }
+            }
+            numPlayed++;
+        }
+    }
+
+    /**
+     * @return The value minus 1 of the next hidden card, chosen so each value is drawn in proportion to its chance.
+     */
+    private int nextStratum() {
+        phase += GOLDEN;
+        if (phase >= 1) {
+            phase -= 1;
+        }
+        int stratum = 0;
+        while (stratum < NUM_VALUES - 1 && cumulativeWeights[stratum] <= phase) {
+            stratum++;
+        }
+        return stratum;
+    }
+
+    /**
+     * Plays every player and the dealer once from the marked table, counts each player's results and resets the table.
+     *
+     * @param winFractions Filled with the fraction of each player's hands that won
+     */
+    private void playTrial(double[] winFractions) {
+        List<Player> players = table.getPlayers();
+        Card dealerUpCard = table.getDealer().getHand(0).getCard(1);
+        for (Player player : players) {
+            table.autoplay(player, 0, dealerUpCard);
+        }
+        lap(Phase.AUTOPLAY);
+        table.resolve();
+
+        for (int p = 0; p < players.size(); p++) {
+            Player player = players.get(p);
+            int handWins = 0;
+            for (int q = 0; q < player.getHandQty(); q++) {
+                Hand hand = player.getHand(q);
+                HandResult result = hand.getResult();
+                tally.add(p, q, result, hand.getBet());
+                if (result == HandResult.WIN) {
+                    handWins++;
+                }
+            }
+            winFractions[p] = handWins / (double) player.getHandQty();
+            numHands += player.getHandQty();
+        }
+        lap(Phase.RESOLVE);
+        table.reset();
+        lap(Phase.RESET);
+        if (isTimed) {
+            numTimed++;
+        }
+    }
 
+    /**
+     * Adds the time since the last lap to the phase that just ended, if this trial is being timed.
+     */
+    private void lap(Phase phase) {
+        if (isTimed) {
+            long now = System.nanoTime();
+            phaseNanos[phase.ordinal()] += now - lapStart;
+            lapStart = now;
+        }
     }
 }
@@ -0,0 +1,48 @@
+package com.ethpalser.game;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for one simulation of a table, which starts when the simulation is called and ends once every
+ * trial has been played, so its duration is the simulation's elapsed time. It is only recorded when enabled, e.g. by
+ * the blackjack.jfc settings.
+ */
+@Name("com.ethpalser.blackjack.Simulation")
+@Label("Simulation")
+@Category("Blackjack")
+@Description("Trials of one table played across the simulation's workers")
+@Enabled(false)
+final class SimulationEvent extends Event {
+
+    @Label("Trials")
+    long numTrials;
+
+    @Label("Max Trials")
+    long maxTrials;
+
+    @Label("Rounds")
+    int numRounds;
+
+    @Label("Players")
+    int numPlayers;
+
+    @Label("Decks")
+    int numDecks;
+
+    @Label("Deck Type")
+    String deckType;
+
+    @Label("Sampling Mode")
+    String samplingMode;
+
+    @Label("Workers")
+    int numWorkers;
+
+    @Label("Cancelled")
+    boolean isCancelled;
+}
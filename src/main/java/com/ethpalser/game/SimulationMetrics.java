@@ -0,0 +1,277 @@
+package com.ethpalser.game;
+
+import com.ethpalser.blackjack.Table;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Counts where the time of simulations goes: how many trials and hands were played, how many cards were drawn, how
+ * often the shoe was reshuffled and hands were split, how deep autoplay() recursed and how long each phase of a trial
+ * took.
+ * <br/>
+ * Workers count into their own plain fields while playing, and add what they counted here once per round, so the
+ * counters cost nothing in the trial loop and every counter is a LongAdder that workers can add to at the same time.
+ * Phases are only timed for one in every few trials, as reading the clock costs about as much as a phase, and the
+ * time of every trial is estimated from them.
+ * <br/>
+ * Each simulation has its own metrics in its result, and every simulation also adds to the global metrics, which are
+ * registered with the platform MBean server as {@value #OBJECT_NAME}.
+ */
+public class SimulationMetrics implements SimulationMetricsMBean {
+
+    public static final String OBJECT_NAME = "com.ethpalser.blackjack:type=SimulationMetrics";
+
+    /**
+     * The parts of a trial that are timed.
+     */
+    public enum Phase {
+        DEAL("Deal"),
+        AUTOPLAY("Autoplay"),
+        RESOLVE("Resolve"),
+        RESET("Reset");
+
+        private final String display;
+
+        Phase(String display) {
+            this.display = display;
+        }
+
+        public String getDisplay() {
+            return this.display;
+        }
+    }
+
+    private static final int NUM_PHASES = Phase.values().length;
+
+    private final LongAdder trials = new LongAdder();
+    private final LongAdder hands = new LongAdder();
+    private final LongAdder cardsDrawn = new LongAdder();
+    private final LongAdder drawsUndone = new LongAdder();
+    private final LongAdder reshuffles = new LongAdder();
+    private final LongAdder splits = new LongAdder();
+    private final LongAdder[] autoplayDepths = newAdders(Table.MAX_AUTOPLAY_DEPTH);
+    private final LongAdder elapsedNanos = new LongAdder();
+    private final LongAdder sampledTrials = new LongAdder();
+    private final LongAdder[] sampledNanos = newAdders(NUM_PHASES);
+
+    /**
+     * @return The metrics of every simulation run by this JVM, which are registered as an MBean.
+     */
+    public static SimulationMetrics global() {
+        return Global.INSTANCE;
+    }
+
+    void addTrials(long numTrials, long numHands) {
+        trials.add(numTrials);
+        hands.add(numHands);
+    }
+
+    void addShoe(long numDrawn, long numUndone, long numShuffles) {
+        cardsDrawn.add(numDrawn);
+        drawsUndone.add(numUndone);
+        reshuffles.add(numShuffles);
+    }
+
+    void addTable(long numSplits, long[] depths) {
+        splits.add(numSplits);
+        for (int d = 0; d < depths.length; d++) {
+            if (depths[d] != 0) {
+                autoplayDepths[d].add(depths[d]);
+            }
+        }
+    }
+
+    /**
+     * @param numTrials Number of trials that were timed
+     * @param nanos     Nanoseconds spent in each phase of those trials, indexed by the ordinal of Phase
+     */
+    void addSampled(long numTrials, long[] nanos) {
+        sampledTrials.add(numTrials);
+        for (int p = 0; p < NUM_PHASES; p++) {
+            sampledNanos[p].add(nanos[p]);
+        }
+    }
+
+    void addElapsedNanos(long nanos) {
+        elapsedNanos.add(nanos);
+    }
+
+    /**
+     * Adds everything counted by other metrics, such as those of another run.
+     */
+    void add(SimulationMetrics other) {
+        addTrials(other.trials.sum(), other.hands.sum());
+        addShoe(other.cardsDrawn.sum(), other.drawsUndone.sum(), other.reshuffles.sum());
+        addTable(other.splits.sum(), other.getAutoplayDepths());
+        long[] nanos = new long[NUM_PHASES];
+        for (int p = 0; p < NUM_PHASES; p++) {
+            nanos[p] = other.sampledNanos[p].sum();
+        }
+        addSampled(other.sampledTrials.sum(), nanos);
+        addElapsedNanos(other.elapsedNanos.sum());
+    }
+
+    @Override
+    public long getTrials() {
+        return trials.sum();
+    }
+
+    @Override
+    public long getHands() {
+        return hands.sum();
+    }
+
+    @Override
+    public double getHandsPerSecond() {
+        long nanos = elapsedNanos.sum();
+        return nanos == 0 ? 0 : hands.sum() * 1e9 / nanos;
+    }
+
+    @Override
+    public long getCardsDrawn() {
+        return cardsDrawn.sum();
+    }
+
+    @Override
+    public long getDrawsUndone() {
+        return drawsUndone.sum();
+    }
+
+    @Override
+    public long getReshuffles() {
+        return reshuffles.sum();
+    }
+
+    @Override
+    public long getSplits() {
+        return splits.sum();
+    }
+
+    /**
+     * @return Number of calls to autoplay() that reached each depth of recursion, where index 0 is depth 1 and the
+     * last index also counts every deeper call
+     */
+    @Override
+    public long[] getAutoplayDepths() {
+        long[] depths = new long[autoplayDepths.length];
+        for (int d = 0; d < depths.length; d++) {
+            depths[d] = autoplayDepths[d].sum();
+        }
+        return depths;
+    }
+
+    /**
+     * @return Nanoseconds spent simulating, added across simulations but not across the workers of one simulation.
+     */
+    @Override
+    public long getElapsedNanos() {
+        return elapsedNanos.sum();
+    }
+
+    /**
+     * @return Number of trials whose phases were timed.
+     */
+    @Override
+    public long getSampledTrials() {
+        return sampledTrials.sum();
+    }
+
+    /**
+     * Estimates the nanoseconds spent in a phase across every trial, from the trials that were timed. Time is added
+     * across the workers, so with more than one worker it can be more than the elapsed time.
+     *
+     * @param phase Phase of a trial
+     * @return Estimated nanoseconds spent in the phase, or 0 if no trial was timed
+     */
+    public long getPhaseNanos(Phase phase) {
+        long sampled = sampledTrials.sum();
+        return sampled == 0 ? 0 : (long) (sampledNanos[phase.ordinal()].sum() * (trials.sum() / (double) sampled));
+    }
+
+    @Override
+    public long getDealNanos() {
+        return getPhaseNanos(Phase.DEAL);
+    }
+
+    @Override
+    public long getAutoplayNanos() {
+        return getPhaseNanos(Phase.AUTOPLAY);
+    }
+
+    @Override
+    public long getResolveNanos() {
+        return getPhaseNanos(Phase.RESOLVE);
+    }
+
+    @Override
+    public long getResetNanos() {
+        return getPhaseNanos(Phase.RESET);
+    }
+
+    /**
+     * @return A few lines describing the metrics, for printing at the end of a run.
+     */
+    @Override
+    public String report() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Trials: %d, hands: %d (%.0f hands/sec)%n", getTrials(), getHands(),
+                getHandsPerSecond()));
+        sb.append(String.format("Cards drawn: %d, draws undone: %d, reshuffles: %d, splits: %d%n", getCardsDrawn(),
+                getDrawsUndone(), getReshuffles(), getSplits()));
+        sb.append("Autoplay depth:");
+        long[] depths = getAutoplayDepths();
+        for (int d = 0; d < depths.length; d++) {
+            if (depths[d] != 0) {
+                sb.append(" ").append(d + 1).append(d == depths.length - 1 ? "+" : "").append("=").append(depths[d]);
+            }
+        }
+        sb.append(System.lineSeparator());
+        long sampled = getSampledTrials();
+        sb.append("Time per trial (").append(sampled).append(" trials timed):");
+        for (Phase phase : Phase.values()) {
+            double nanos = sampled == 0 ? 0 : sampledNanos[phase.ordinal()].sum() / (double) sampled;
+            sb.append(String.format(" %s %.0f ns", phase.getDisplay().toLowerCase(), nanos));
+        }
+        return sb.append(System.lineSeparator()).toString();
+    }
+
+    /**
+     * Sets every counter back to zero. Simulations running at the time may still add what they counted before.
+     */
+    @Override
+    public void reset() {
+        for (LongAdder adder : new LongAdder[]{trials, hands, cardsDrawn, drawsUndone, reshuffles, splits,
+                elapsedNanos, sampledTrials}) {
+            adder.reset();
+        }
+        for (LongAdder adder : autoplayDepths) {
+            adder.reset();
+        }
+        for (LongAdder adder : sampledNanos) {
+            adder.reset();
+        }
+    }
+
+    private static LongAdder[] newAdders(int length) {
+        LongAdder[] adders = new LongAdder[length];
+        for (int i = 0; i < length; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    private static class Global {
+        private static final SimulationMetrics INSTANCE = register(new SimulationMetrics());
+
+        private static SimulationMetrics register(SimulationMetrics metrics) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(metrics, new ObjectName(OBJECT_NAME));
+            } catch (JMException ex) {
+                // Metrics are still counted and reported without JMX, e.g. if another class loader registered first
+            }
+            return metrics;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.ethpalser.game;
+
+/**
+ * Management interface of SimulationMetrics, which JMX clients such as JConsole read as attributes and operations.
+ *
+ * @see SimulationMetrics
+ */
+public interface SimulationMetricsMBean {
+
+    long getTrials();
+
+    long getHands();
+
+    double getHandsPerSecond();
+
+    long getCardsDrawn();
+
+    long getDrawsUndone();
+
+    long getReshuffles();
+
+    long getSplits();
+
+    long[] getAutoplayDepths();
+
+    long getElapsedNanos();
+
+    long getSampledTrials();
+
+    long getDealNanos();
+
+    long getAutoplayNanos();
+
+    long getResolveNanos();
+
+    long getResetNanos();
+
+    String report();
+
+    void reset();
+}
@@ -0,0 +1,78 @@
+package com.ethpalser.game;
+
+/**
+ * How far a running simulation has got: the trials played so far and each player's win rate estimated from them. A
+ * new progress is published after every round of trials, so it can be shown while the simulation runs.
+ */
+public class SimulationProgress {
+
+    private final long numTrials;
+    private final long maxTrials;
+    private final long elapsedMillis;
+    private final WinEstimate[] estimates;
+
+    /**
+     * @param numTrials     Number of trials played so far
+     * @param maxTrials     Most trials the simulation will play
+     * @param elapsedMillis Milliseconds since the simulation started
+     * @param estimates     Estimate of each player's chance of winning from the trials so far
+     */
+    public SimulationProgress(long numTrials, long maxTrials, long elapsedMillis, WinEstimate[] estimates) {
+        if (estimates == null) {
+            throw new IllegalArgumentException("Win estimates must not be null.");
+        }
+        this.numTrials = numTrials;
+        this.maxTrials = maxTrials;
+        this.elapsedMillis = elapsedMillis;
+        this.estimates = estimates.clone();
+    }
+
+    /**
+     * @return The number of trials played so far.
+     */
+    public long getNumTrials() {
+        return this.numTrials;
+    }
+
+    /**
+     * @return The most trials the simulation will play, which it may stop before by reaching its precision or time.
+     */
+    public long getMaxTrials() {
+        return this.maxTrials;
+    }
+
+    public long getElapsedMillis() {
+        return this.elapsedMillis;
+    }
+
+    public int getNumPlayers() {
+        return this.estimates.length;
+    }
+
+    /**
+     * @param playerPos The position of the player at the table in the list of players.
+     * @return The estimated chance of one of the player's hands winning from the trials so far.
+     */
+    public double getWinEstimate(int playerPos) {
+        return this.estimates[playerPos].getMean();
+    }
+
+    /**
+     * @param playerPos The position of the player at the table in the list of players.
+     * @return Half the width of the 95% confidence interval of the player's win estimate so far.
+     */
+    public double getWinHalfWidth(int playerPos) {
+        return this.estimates[playerPos].getHalfWidth();
+    }
+
+    /**
+     * @return The widest half-width of any player's win rate, which is what a precision rule waits on.
+     */
+    public double getWidestHalfWidth() {
+        double widest = 0;
+        for (WinEstimate estimate : estimates) {
+            widest = Math.max(widest, estimate.getHalfWidth());
+        }
+        return widest;
+    }
+}
@@ -0,0 +1,211 @@
+package com.ethpalser.game;
+
+import com.ethpalser.blackjack.HandResult;
+
+/**
+ * The combined outcome of every trial of a simulation. Each player's hands are counted as a win, draw or loss against
+ * the dealer, including hands created by splitting.
+ * <br/>
+ * Each player's win, draw and loss rates are fractions of the same hands, so they add up to 1. Separately, each
+ * player's chance of winning is estimated by the estimator of the sampling mode, where each trial counts equally
+ * however many hands it split into. The estimate has a standard error, which describes how far it may be from the true
+ * chance of winning because of the limited number of trials.
+ * <br/>
+ * The counts are kept as OutcomeCounts, which also break the hands down by the index of each split hand and count the
+ * money they won and lost.
+ */
+public class SimulationResult {
+
+    private final long numSimulations;
+    private final OutcomeCounts outcomes;
+    private final WinEstimate[] estimates;
+    private final SamplingMode samplingMode;
+    private final long elapsedMillis;
+    private final SimulationMetrics metrics;
+
+    public SimulationResult(long numSimulations, long[] wins, long[] draws, long[] losses) {
+        this(numSimulations, wins, draws, losses, null, SamplingMode.PLAIN, 0);
+    }
+
+    /**
+     * Creates a result from each player's totals, which are counted as every hand being the player's first hand.
+     *
+     * @see #SimulationResult(long, OutcomeCounts, WinEstimate[], SamplingMode, long, SimulationMetrics)
+     */
+    public SimulationResult(long numSimulations, long[] wins, long[] draws, long[] losses, WinEstimate[] estimates,
+                            SamplingMode samplingMode, long elapsedMillis) {
+        this(numSimulations, totals(wins, draws, losses), estimates, samplingMode, elapsedMillis,
+                new SimulationMetrics());
+    }
+
+    /**
+     * @param numSimulations Number of trials that were played
+     * @param outcomes       OutcomeCounts of every player's hands
+     * @param estimates      Estimate of each player's chance of winning, or null to estimate it from the counts
+     * @param samplingMode   SamplingMode the trials were drawn with
+     * @param elapsedMillis  Milliseconds the simulation ran for
+     * @param metrics        SimulationMetrics counted while the simulation ran
+     */
+    public SimulationResult(long numSimulations, OutcomeCounts outcomes, WinEstimate[] estimates,
+                            SamplingMode samplingMode, long elapsedMillis, SimulationMetrics metrics) {
+        if (outcomes == null || metrics == null) {
+            throw new IllegalArgumentException("Outcomes and metrics must not be null.");
+        }
+        int numPlayers = outcomes.getNumPlayers();
+        if (estimates != null && estimates.length != numPlayers) {
+            throw new IllegalArgumentException("Win estimates must be given for every player.");
+        }
+        this.numSimulations = numSimulations;
+        this.outcomes = outcomes;
+        if (estimates == null) {
+            estimates = new WinEstimate[numPlayers];
+            for (int p = 0; p < numPlayers; p++) {
+                estimates[p] = WinEstimate.ofCounts(outcomes.getCount(p, HandResult.WIN), outcomes.getHands(p));
+            }
+        }
+        this.estimates = estimates;
+        this.samplingMode = samplingMode;
+        this.elapsedMillis = elapsedMillis;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Combines this result with the result of another run of the same table, as if their trials had been played in one
+     * run. The runs must be independent, such as by using different seeds.
+     *
+     * @param other SimulationResult of another run
+     * @return Result of both runs
+     * @throws IllegalArgumentException if the other result has a different number of players or sampling mode
+     */
+    public SimulationResult merge(SimulationResult other) {
+        if (other == null || other.getNumPlayers() != getNumPlayers() || other.samplingMode != samplingMode) {
+            throw new IllegalArgumentException("Only results with the same players and sampling mode can be merged.");
+        }
+        WinEstimate[] merged = new WinEstimate[estimates.length];
+        for (int p = 0; p < merged.length; p++) {
+            merged[p] = WinEstimate.combine(estimates[p], numSimulations, other.estimates[p], other.numSimulations);
+        }
+        SimulationMetrics mergedMetrics = new SimulationMetrics();
+        mergedMetrics.add(metrics);
+        mergedMetrics.add(other.metrics);
+        return new SimulationResult(numSimulations + other.numSimulations, outcomes.merge(other.outcomes), merged,
+                samplingMode, elapsedMillis + other.elapsedMillis, mergedMetrics);
+    }
+
+    /**
+     * @return The number of trials that were played.
+     */
+    public long getNumSimulations() {
+        return this.numSimulations;
+    }
+
+    /**
+     * @return The number of players at the simulated table.
+     */
+    public int getNumPlayers() {
+        return this.outcomes.getNumPlayers();
+    }
+
+    public long getWins(int playerPos) {
+        return this.outcomes.getCount(playerPos, HandResult.WIN);
+    }
+
+    public long getDraws(int playerPos) {
+        return this.outcomes.getCount(playerPos, HandResult.DRAW);
+    }
+
+    public long getLosses(int playerPos) {
+        return this.outcomes.getCount(playerPos, HandResult.LOSS);
+    }
+
+    /**
+     * @return The counts of every player's hands by hand index, and the money they won and lost.
+     */
+    public OutcomeCounts getOutcomes() {
+        return this.outcomes;
+    }
+
+    /**
+     * @param playerPos The position of the player at the table in the list of players.
+     * @return The number of hands played by the player across all trials.
+     */
+    public long getHands(int playerPos) {
+        return this.outcomes.getHands(playerPos);
+    }
+
+    /**
+     * @param playerPos The position of the player at the table in the list of players.
+     * @return The fraction of the player's hands that won, counted the same way as the draw and loss rates.
+     */
+    public double getWinRate(int playerPos) {
+        long hands = getHands(playerPos);
+        return hands == 0 ? 0 : getWins(playerPos) / (double) hands;
+    }
+
+    /**
+     * @param playerPos The position of the player at the table in the list of players.
+     * @return The estimated chance of one of the player's hands winning, where each trial counts equally.
+     */
+    public double getWinEstimate(int playerPos) {
+        return this.estimates[playerPos].getMean();
+    }
+
+    /**
+     * @param playerPos The position of the player at the table in the list of players.
+     * @return The standard error of the player's win estimate.
+     */
+    public double getWinStandardError(int playerPos) {
+        return this.estimates[playerPos].getStandardError();
+    }
+
+    /**
+     * @param playerPos The position of the player at the table in the list of players.
+     * @return Half the width of the 95% confidence interval of the player's win estimate.
+     */
+    public double getWinHalfWidth(int playerPos) {
+        return this.estimates[playerPos].getHalfWidth();
+    }
+
+    /**
+     * @param playerPos The position of the player at the table in the list of players.
+     * @return How many times smaller the variance of the player's win estimate is than with plain sampling.
+     */
+    public double getVarianceReduction(int playerPos) {
+        return this.estimates[playerPos].getVarianceReduction();
+    }
+
+    public SamplingMode getSamplingMode() {
+        return this.samplingMode;
+    }
+
+    /**
+     * @return The number of milliseconds the simulation ran for.
+     */
+    public long getElapsedMillis() {
+        return this.elapsedMillis;
+    }
+
+    /**
+     * @return The counts and timings of the simulation, for finding where its time went.
+     */
+    public SimulationMetrics getMetrics() {
+        return this.metrics;
+    }
+
+    public double getDrawRate(int playerPos) {
+        long hands = getHands(playerPos);
+        return hands == 0 ? 0 : getDraws(playerPos) / (double) hands;
+    }
+
+    public double getLossRate(int playerPos) {
+        long hands = getHands(playerPos);
+        return hands == 0 ? 0 : getLosses(playerPos) / (double) hands;
+    }
+
+    private static OutcomeCounts totals(long[] wins, long[] draws, long[] losses) {
+        if (wins.length != draws.length || wins.length != losses.length) {
+            throw new IllegalArgumentException("Wins, draws and losses must have a count for every player.");
+        }
+        return OutcomeCounts.ofTotals(wins, draws, losses);
+    }
+}
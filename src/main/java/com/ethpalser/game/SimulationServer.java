@@ -0,0 +1,272 @@
+package com.ethpalser.game;
+
+import com.ethpalser.blackjack.DeckType;
+import com.ethpalser.blackjack.GameMode;
+import com.ethpalser.blackjack.RandomSource;
+import com.ethpalser.blackjack.Table;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Simulates tables sent over HTTP, so other tools can use the simulator without the console. A table is sent as the
+ * body of a POST to /simulate in the same format as a saved table, and each player's win, draw and loss rates are
+ * returned as JSON. The same options as the batch runner are given in the query string, e.g.
+ * /simulate?trials=100000&amp;mode=STRATIFIED.
+ * <br/>
+ * Each request is handled on its own virtual thread when the JVM has them, and otherwise on a bounded pool of
+ * threads, where requests beyond the pool wait in its queue instead of each needing a thread. The trials of every
+ * request are played on the simulation's shared pool, so the number of requests does not change how many threads
+ * play trials.
+ * <br/>
+ * Requests with the same table and options that arrive while one of them is being simulated share that simulation,
+ * and all receive its result.
+ */
+public class SimulationServer {
+
+    private static final String USAGE = """
+            Usage: SimulationServer [options]
+              --port <n>              Port to listen on (default: 8080)
+              --max-trials <n>        Most trials a request may ask for (default: 10000000)
+            """;
+    private static final long DEFAULT_TRIALS = 100_000;
+    // Largest table accepted, which is far more than any table needs
+    private static final int MAX_BODY_SIZE = 64 * 1024;
+    // Threads handling requests when there are no virtual threads
+    private static final int MAX_POOL_THREADS = 256;
+    // Connections waiting to be accepted, so a burst of requests is not refused before the server reaches them
+    private static final int BACKLOG = 4096;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final long maxTrials;
+    private final Coalescer<String, SimulationResult> coalescer = new Coalescer<>();
+
+    /**
+     * Creates a server listening on the given address, which does not accept requests until started.
+     *
+     * @param address   Address to listen on, where port 0 chooses any free port
+     * @param maxTrials Most trials a request may ask for
+     * @throws IOException Runtime exception while binding to the address
+     */
+    public SimulationServer(InetSocketAddress address, long maxTrials) throws IOException {
+        if (maxTrials < 1) {
+            throw new IllegalArgumentException("Requests must be allowed at least one trial.");
+        }
+        this.maxTrials = maxTrials;
+        this.server = HttpServer.create(address, BACKLOG);
+        this.executor = newRequestExecutor();
+        this.server.setExecutor(executor);
+        this.server.createContext("/simulate", this::handle);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = 8080;
+        long maxTrials = 10_000_000;
+        try {
+            for (int i = 0; i < args.length; i += 2) {
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException("Option " + args[i] + " needs a value.");
+                }
+                switch (args[i]) {
+                    case "--port" -> port = Integer.parseInt(args[i + 1]);
+                    case "--max-trials" -> maxTrials = Long.parseLong(args[i + 1]);
+                    default -> throw new IllegalArgumentException("Option " + args[i] + " is not recognized.");
+                }
+            }
+        } catch (IllegalArgumentException ex) {
+            System.err.println(ex.getMessage());
+            System.err.print(USAGE);
+            System.exit(2);
+        }
+        SimulationServer server = new SimulationServer(
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), port), maxTrials);
+        server.start();
+        System.err.println("Listening on http://localhost:" + server.getPort() + "/simulate");
+    }
+
+    /**
+     * Creates an executor that starts a virtual thread for each request. Virtual threads are looked up when the server
+     * is created, so the server still runs on a JVM without them by using a bounded pool instead.
+     */
+    static ExecutorService newRequestExecutor() {
+        try {
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        } catch (ReflectiveOperationException ex) {
+            // Either the method does not exist, or it threw because virtual threads are a disabled preview
+            return Executors.newFixedThreadPool(MAX_POOL_THREADS);
+        }
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stops accepting requests, waits for the requests being handled to finish and stops their threads.
+     *
+     * @param delaySeconds Most seconds to wait for requests being handled
+     */
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(delaySeconds, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        executor.shutdownNow();
+    }
+
+    /**
+     * @return The port the server is listening on.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * @return Number of simulations that were run.
+     */
+    public long getNumSimulated() {
+        return coalescer.getNumComputed();
+    }
+
+    /**
+     * @return Number of requests that shared the simulation of an identical request.
+     */
+    public long getNumCoalesced() {
+        return coalescer.getNumCoalesced();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", "POST");
+                respond(exchange, 405, error("Tables must be sent with POST."));
+                return;
+            }
+            String body = readBody(exchange.getRequestBody());
+            if (body == null) {
+                respond(exchange, 413, error("Table must be at most " + MAX_BODY_SIZE + " bytes."));
+                return;
+            }
+            try {
+                Map<String, String> options = parseQuery(exchange.getRequestURI().getRawQuery());
+                // Tables are identified by their lines without surrounding spaces, so line endings do not matter
+                String key = options + "\n" + String.join("\n", body.strip().lines().map(String::strip).toList());
+                SimulationResult result = coalescer.get(key, () -> simulate(body, options));
+                respond(exchange, 200, format(result));
+            } catch (IllegalArgumentException ex) {
+                respond(exchange, 400, error(ex.getMessage()));
+            } catch (RuntimeException ex) {
+                respond(exchange, 500, error(ex.toString()));
+            }
+        }
+    }
+
+    /**
+     * Reads the table and simulates it with the given options.
+     *
+     * @throws IllegalArgumentException if the table or an option is not valid
+     */
+    private SimulationResult simulate(String body, Map<String, String> options) {
+        long trials = DEFAULT_TRIALS;
+        double precision = 0;
+        long timeMillis = 0;
+        SamplingMode mode = SamplingMode.PLAIN;
+        DeckType deckType = DeckType.RANDOM;
+        RandomSource rng = RandomSource.create();
+        for (Map.Entry<String, String> option : options.entrySet()) {
+            String value = option.getValue();
+            switch (option.getKey()) {
+                case "trials" -> trials = Long.parseLong(value);
+                case "precision" -> precision = Double.parseDouble(value);
+                case "time" -> timeMillis = Long.parseLong(value);
+                case "mode" -> mode = SamplingMode.valueOf(value.toUpperCase(Locale.ROOT));
+                case "deck-type" -> deckType = DeckType.valueOf(value.toUpperCase(Locale.ROOT));
+                case "seed" -> rng = RandomSource.create(Long.parseLong(value));
+                default -> throw new IllegalArgumentException("Option " + option.getKey() + " is not recognized.");
+            }
+        }
+        if (trials < 1 || trials > maxTrials) {
+            throw new IllegalArgumentException("Trials must be from 1 to " + maxTrials + ".");
+        }
+        // Both a precision and a time limit can be given, and the simulation stops at whichever is reached first
+        StopRule rule = StopRule.of(precision, timeMillis, trials);
+
+        Table table;
+        try {
+            table = TableFile.read(new BufferedReader(new StringReader(body)), GameMode.ALL_PLAYERS_VISIBLE,
+                    deckType);
+        } catch (IOException ex) {
+            // Reading from a string does not fail
+            throw new IllegalStateException(ex);
+        }
+        return Simulation.simulate(table, rule, mode, Runtime.getRuntime().availableProcessors(), rng);
+    }
+
+    /**
+     * @return The body as text, or null if it is larger than a table can be
+     */
+    private static String readBody(InputStream in) throws IOException {
+        byte[] bytes = in.readNBytes(MAX_BODY_SIZE + 1);
+        return bytes.length > MAX_BODY_SIZE ? null : new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return Every option in the query string, in order of name so the same options are always written the same
+     */
+    private static Map<String, String> parseQuery(String query) {
+        Map<String, String> options = new TreeMap<>();
+        if (query == null || query.isEmpty()) {
+            return options;
+        }
+        for (String pair : query.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals < 0) {
+                throw new IllegalArgumentException("Option " + pair + " needs a value.");
+            }
+            options.put(URLDecoder.decode(pair.substring(0, equals), StandardCharsets.UTF_8),
+                    URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8));
+        }
+        return options;
+    }
+
+    private static String format(SimulationResult result) {
+        StringBuilder sb = new StringBuilder("{\"players\":").append(result.getNumPlayers())
+                .append(",\"trials\":").append(result.getNumSimulations())
+                .append(",\"elapsed_ms\":").append(result.getElapsedMillis());
+        BatchRunner.appendJsonRates(sb, result);
+        return sb.append("}").toString();
+    }
+
+    private static String error(String message) {
+        return "{\"error\":" + BatchRunner.jsonString(message == null ? "Request is not valid." : message) + "}";
+    }
+
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.ethpalser.game;
+
+import com.ethpalser.blackjack.RandomSource;
+import com.ethpalser.blackjack.Table;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+/**
+ * A simulation running in the background, which publishes its progress after every round of trials and can be
+ * cancelled at any time. A cancelled simulation stops within a few thousand trials and its result has every trial
+ * played until then, so a long run can be stopped once its estimate is good enough without losing it.
+ * <br/>
+ * The table must not be changed until the task is done, as the workers copy it when the simulation starts.
+ */
+public class SimulationTask {
+
+    private final CompletableFuture<SimulationResult> future = new CompletableFuture<>();
+    private final Consumer<SimulationProgress> listener;
+    private volatile boolean isCancelled;
+    private volatile SimulationProgress progress;
+
+    private SimulationTask(Consumer<SimulationProgress> listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Starts simulating the table using one worker for each available processor.
+     *
+     * @see #start(Table, StopRule, SamplingMode, int, RandomSource, Consumer)
+     */
+    public static SimulationTask start(Table table, StopRule rule, SamplingMode mode,
+                                       Consumer<SimulationProgress> listener) {
+        return start(table, rule, mode, Runtime.getRuntime().availableProcessors(), RandomSource.create(), listener);
+    }
+
+    /**
+     * Starts simulating the table on a background thread until the rule is met or the task is cancelled. Unlike
+     * Simulation.simulate(), a rule that only has a number of trials is also played in rounds, so it has progress.
+     *
+     * @param table      Contains state of all players and deck playing Blackjack
+     * @param rule       StopRule deciding when enough trials have been played
+     * @param mode       SamplingMode deciding how the dealer's hidden card and other cards are drawn
+     * @param numWorkers Number of copies of the table that are played at the same time
+     * @param rng        RandomSource that each worker's source is split from
+     * @param listener   Called with the progress after every round on the simulation's thread, or null
+     * @return Task that is running the simulation
+     * @throws IllegalArgumentException if the table, rule, mode or source is null
+     */
+    public static SimulationTask start(Table table, StopRule rule, SamplingMode mode, int numWorkers,
+                                       RandomSource rng, Consumer<SimulationProgress> listener) {
+        if (table == null || rule == null || mode == null || rng == null) {
+            throw new IllegalArgumentException("Table, stop rule, sampling mode and random source must not be null.");
+        }
+        SimulationTask task = new SimulationTask(listener);
+        Thread thread = new Thread(() -> {
+            try {
+                task.future.complete(Simulation.simulate(table, rule, mode, numWorkers, rng, task));
+            } catch (RuntimeException | Error ex) {
+                task.future.completeExceptionally(ex);
+            }
+        }, "simulation");
+        // A simulation left running does not keep the program from exiting
+        thread.setDaemon(true);
+        thread.start();
+        return task;
+    }
+
+    /**
+     * Asks the simulation to stop, after which its result has the trials played so far. Cancelling a task that is
+     * done does nothing.
+     */
+    public void cancel() {
+        this.isCancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return this.isCancelled;
+    }
+
+    public boolean isDone() {
+        return this.future.isDone();
+    }
+
+    /**
+     * @return The progress after the latest round, or null if no round has finished yet.
+     */
+    public SimulationProgress getProgress() {
+        return this.progress;
+    }
+
+    /**
+     * Waits for the simulation to finish, either by meeting its rule or by being cancelled.
+     *
+     * @return Result of every trial that was played
+     * @throws RuntimeException the exception thrown by the simulation
+     */
+    public SimulationResult join() {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            throw ex.getCause() instanceof RuntimeException cause ? cause : ex;
+        }
+    }
+
+    /**
+     * Waits up to the given time for the simulation to finish.
+     *
+     * @param timeout Most time to wait
+     * @param unit    TimeUnit of the timeout
+     * @return true if the simulation has finished
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+        try {
+            future.get(timeout, unit);
+        } catch (ExecutionException | TimeoutException ex) {
+            // A failure is thrown by join(), and a timeout is returned as not being done
+        }
+        return future.isDone();
+    }
+
+    void publish(SimulationProgress progress) {
+        this.progress = progress;
+        if (listener != null) {
+            listener.accept(progress);
+        }
+    }
+}
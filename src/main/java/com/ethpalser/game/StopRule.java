@@ -0,0 +1,106 @@
+package com.ethpalser.game;
+
+/**
+ * Decides when a simulation has played enough trials. Every rule stops at a maximum number of trials, and can also stop
+ * once every player's win rate is known to a target precision, or once a time limit has passed.
+ */
+public class StopRule {
+
+    // Fewer trials than this can look precise by chance, such as when every hand so far has lost
+    private static final long MIN_TRIALS_FOR_PRECISION = 1000;
+
+    private final long maxTrials;
+    private final double targetHalfWidth;
+    private final long timeLimitMillis;
+
+    private StopRule(long maxTrials, double targetHalfWidth, long timeLimitMillis) {
+        if (maxTrials < 0) {
+            throw new IllegalArgumentException("Maximum trials must not be negative.");
+        }
+        this.maxTrials = maxTrials;
+        this.targetHalfWidth = targetHalfWidth;
+        this.timeLimitMillis = timeLimitMillis;
+    }
+
+    /**
+     * @param numTrials Number of trials to play
+     * @return Rule that stops after exactly this many trials
+     */
+    public static StopRule trials(long numTrials) {
+        return new StopRule(numTrials, 0, 0);
+    }
+
+    /**
+     * @param halfWidth Half the width of the 95% confidence interval that every player's win rate must be within
+     * @param maxTrials Number of trials to stop at if the precision is not reached
+     * @return Rule that stops when the win rate of every player is this precise
+     */
+    public static StopRule precision(double halfWidth, long maxTrials) {
+        if (!(halfWidth > 0)) {
+            throw new IllegalArgumentException("Half-width must be greater than 0.");
+        }
+        return new StopRule(maxTrials, halfWidth, 0);
+    }
+
+    /**
+     * @param millis    Milliseconds the simulation may run for
+     * @param maxTrials Number of trials to stop at if time has not run out
+     * @return Rule that stops once the time limit has passed
+     */
+    public static StopRule timeLimit(long millis, long maxTrials) {
+        if (millis < 1) {
+            throw new IllegalArgumentException("Time limit must be at least 1 millisecond.");
+        }
+        return new StopRule(maxTrials, 0, millis);
+    }
+
+    /**
+     * @param halfWidth Half the width of the 95% confidence interval that every player's win rate must be within, or 0
+     *                  for no target precision
+     * @param millis    Milliseconds the simulation may run for, or 0 for no time limit
+     * @param maxTrials Number of trials to stop at if neither the precision nor the time limit is reached
+     * @return Rule that stops at whichever of the precision, time limit and trials is reached first
+     */
+    public static StopRule of(double halfWidth, long millis, long maxTrials) {
+        if (!(halfWidth >= 0) || millis < 0) {
+            throw new IllegalArgumentException("Half-width and time limit must not be negative.");
+        }
+        return new StopRule(maxTrials, halfWidth, millis);
+    }
+
+    public long getMaxTrials() {
+        return maxTrials;
+    }
+
+    /**
+     * @return The target half-width of the 95% confidence interval, or 0 if there is no target.
+     */
+    public double getTargetHalfWidth() {
+        return targetHalfWidth;
+    }
+
+    /**
+     * @return The time limit in milliseconds, or 0 if there is no time limit.
+     */
+    public long getTimeLimitMillis() {
+        return timeLimitMillis;
+    }
+
+    /**
+     * Checks if the simulation should stop.
+     *
+     * @param numTrials     Number of trials played so far
+     * @param halfWidth     Widest half-width of the 95% confidence interval of any player's win rate so far
+     * @param elapsedMillis Milliseconds since the simulation started
+     * @return True if the simulation should stop, otherwise false
+     */
+    public boolean isMet(long numTrials, double halfWidth, long elapsedMillis) {
+        if (numTrials >= maxTrials) {
+            return true;
+        }
+        if (timeLimitMillis > 0 && elapsedMillis >= timeLimitMillis) {
+            return true;
+        }
+        return targetHalfWidth > 0 && numTrials >= MIN_TRIALS_FOR_PRECISION && halfWidth <= targetHalfWidth;
+    }
+}
@@ -0,0 +1,101 @@
+package com.ethpalser.game;
+
+import com.ethpalser.blackjack.Card;
+import com.ethpalser.blackjack.DeckType;
+import com.ethpalser.blackjack.GameMode;
+import com.ethpalser.blackjack.Hand;
+import com.ethpalser.blackjack.Table;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Reads a table saved as text. The first three lines are the number of players, the number of decks and the bet
+ * amount, followed by one line of cards for the dealer and then one line for each player. Each card is written as its
+ * type and optionally its suit, and a card starting with x is hidden, such as the dealer's first card.
+ * <br/>
+ * Every card in a hand is removed from the deck, and the table is marked once loaded, so it can be simulated as is.
+ */
+public class TableFile {
+
+    private TableFile() {
+    }
+
+    /**
+     * @param path     Path of the file containing the table
+     * @param gameMode GameMode that determines how cards are viewed
+     * @param deckType DeckType that determines how the deck is structured
+     * @return Table loaded from the file
+     * @throws IOException              Runtime exception while reading the file
+     * @throws IllegalArgumentException if the file is not in the expected format
+     */
+    public static Table load(Path path, GameMode gameMode, DeckType deckType) throws IOException {
+        try (BufferedReader br = Files.newBufferedReader(path)) {
+            return read(br, gameMode, deckType);
+        }
+    }
+
+    /**
+     * @param br       BufferedReader for reading the table
+     * @param gameMode GameMode that determines how cards are viewed
+     * @param deckType DeckType that determines how the deck is structured
+     * @return Table read from the reader
+     * @throws IOException              Runtime exception while reading the table
+     * @throws IllegalArgumentException if the table is not in the expected format
+     */
+    public static Table read(BufferedReader br, GameMode gameMode, DeckType deckType) throws IOException {
+        int numPlayers = readNumber(br, 1, "number of players");
+        int numDecks = readNumber(br, 2, "number of decks");
+        int betAmount = readNumber(br, 3, "bet amount");
+        if (numPlayers < 1) {
+            throw new IllegalArgumentException("Line 1: There must be at least one player.");
+        }
+
+        Table table = new Table(numPlayers, numDecks, gameMode, deckType, betAmount);
+        // Load dealer and players
+        for (int i = -1; i < numPlayers; i++) {
+            int lineNum = i + 5;
+            String handString = br.readLine();
+            if (handString == null || handString.isBlank()) {
+                throw new IllegalArgumentException("Line " + lineNum + ": Expected a hand for "
+                        + (i == -1 ? "the dealer." : "player " + (i + 1) + "."));
+            }
+            Hand hand = new Hand();
+            for (String cardString : handString.trim().split("\\s+")) {
+                Card card;
+                try {
+                    card = Card.parseCard(cardString);
+                } catch (IllegalArgumentException ex) {
+                    throw new IllegalArgumentException("Line " + lineNum + ": Card '" + cardString
+                            + "' is not recognized.", ex);
+                }
+                table.getDeck().remove(card);
+                hand.addCard(card, !Card.isHidden(cardString));
+            }
+            if (i == -1) {
+                if (hand.size() < 2) {
+                    throw new IllegalArgumentException("Line " + lineNum + ": The dealer must have two cards.");
+                }
+                table.getDealer().setHand(hand);
+            } else {
+                table.getPlayers().get(i).setHand(hand);
+            }
+        }
+        table.mark();
+        return table;
+    }
+
+    private static int readNumber(BufferedReader br, int lineNum, String name) throws IOException {
+        String line = br.readLine();
+        if (line == null) {
+            throw new IllegalArgumentException("Line " + lineNum + ": Expected the " + name + ".");
+        }
+        try {
+            return Integer.parseInt(line.trim());
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Line " + lineNum + ": The " + name + " '" + line
+                    + "' is not a number.");
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.ethpalser.game;
+
+/**
+ * An estimate of a player's chance of winning a hand, with its standard error and how much the sampling mode reduced
+ * its variance compared to plain sampling of the same trials.
+ */
+public class WinEstimate {
+
+    private final double mean;
+    private final double standardError;
+    private final double varianceReduction;
+
+    public WinEstimate(double mean, double standardError, double varianceReduction) {
+        this.mean = mean;
+        this.standardError = standardError;
+        this.varianceReduction = varianceReduction;
+    }
+
+    /**
+     * Creates a plain estimate from a number of hands won out of a number of hands played.
+     *
+     * @param wins  Number of hands won
+     * @param hands Number of hands played
+     * @return Estimate of the chance of winning
+     */
+    public static WinEstimate ofCounts(long wins, long hands) {
+        RunningStats stats = RunningStats.ofSuccesses(wins, hands);
+        return new WinEstimate(stats.getMean(), stats.getStandardError(), 1);
+    }
+
+    /**
+     * Combines the estimates of two independent runs, where each run counts in proportion to its trials.
+     *
+     * @param first        Estimate of the first run
+     * @param firstTrials  Number of trials of the first run
+     * @param second       Estimate of the second run
+     * @param secondTrials Number of trials of the second run
+     * @return Estimate of both runs together
+     */
+    public static WinEstimate combine(WinEstimate first, long firstTrials, WinEstimate second, long secondTrials) {
+        long trials = firstTrials + secondTrials;
+        if (trials == 0) {
+            return first;
+        }
+        double a = firstTrials / (double) trials;
+        double b = secondTrials / (double) trials;
+        double variance = a * a * first.standardError * first.standardError
+                + b * b * second.standardError * second.standardError;
+        return new WinEstimate(a * first.mean + b * second.mean, Math.sqrt(variance),
+                a * first.varianceReduction + b * second.varianceReduction);
+    }
+
+    /**
+     * @return The estimated chance of winning a hand, from 0 to 1.
+     */
+    public double getMean() {
+        return mean;
+    }
+
+    public double getStandardError() {
+        return standardError;
+    }
+
+    /**
+     * @return Half the width of the 95% confidence interval of the estimate.
+     */
+    public double getHalfWidth() {
+        return RunningStats.Z_95 * standardError;
+    }
+
+    /**
+     * @return How many times smaller the variance is than plain sampling of the same trials, which is also how many
+     * times more trials plain sampling would need for the same precision.
+     */
+    public double getVarianceReduction() {
+        return varianceReduction;
+    }
+}
@@ -0,0 +1,163 @@
+package com.ethpalser.game;
+
+/**
+ * Estimates one player's chance of winning from the trials of a simulation, using the estimator of its sampling mode.
+ * Each trial is observed as the fraction of the player's hands that won. Every trial is also kept as if it were
+ * sampled plainly, which is what the variance reduction is measured against.
+ */
+class WinEstimator {
+
+    private static final int NUM_STRATA = 10;
+
+    private final SamplingMode mode;
+    // Chance of the dealer's hidden card being each value, for STRATIFIED
+    private final double[] weights;
+    // Exact expected value of the control, for CONTROL_VARIATE
+    private final double controlMean;
+
+    private final RunningStats plain = new RunningStats();
+    private final RunningStats[] strata;
+    private final RunningStats pairs = new RunningStats();
+    // Means and sums of squared differences of the observation y and the control x, for CONTROL_VARIATE
+    private long count;
+    private double meanX;
+    private double meanY;
+    private double m2X;
+    private double m2Y;
+    private double coMoment;
+
+    /**
+     * @param mode        SamplingMode of the simulation
+     * @param weights     Chance of each stratum, which is only used by STRATIFIED
+     * @param controlMean Exact expected value of the control, which is only used by CONTROL_VARIATE
+     */
+    WinEstimator(SamplingMode mode, double[] weights, double controlMean) {
+        this.mode = mode;
+        this.weights = weights;
+        this.controlMean = controlMean;
+        this.strata = new RunningStats[NUM_STRATA];
+        for (int i = 0; i < NUM_STRATA; i++) {
+            this.strata[i] = new RunningStats();
+        }
+    }
+
+    /**
+     * @return A new estimator with the same mode, weights and control mean, which has no trials.
+     */
+    WinEstimator emptyCopy() {
+        return new WinEstimator(mode, weights, controlMean);
+    }
+
+    /**
+     * Adds one trial.
+     *
+     * @param y       Fraction of the player's hands that won
+     * @param stratum Value of the dealer's hidden card minus 1
+     * @param x       Value of the control for this trial
+     */
+    void add(double y, int stratum, double x) {
+        plain.add(y);
+        strata[stratum].add(y);
+        count++;
+        double dx = x - meanX;
+        double dy = y - meanY;
+        meanX += dx / count;
+        meanY += dy / count;
+        m2X += dx * (x - meanX);
+        m2Y += dy * (y - meanY);
+        coMoment += dx * (y - meanY);
+    }
+
+    /**
+     * Adds a pair of antithetic trials.
+     *
+     * @param first  Fraction of the player's hands that won in the first trial
+     * @param second Fraction of the player's hands that won in the mirrored trial
+     */
+    void addPair(double first, double second) {
+        plain.add(first);
+        plain.add(second);
+        pairs.add((first + second) / 2);
+    }
+
+    /**
+     * Adds an antithetic trial that has no mirrored trial. It is only kept as if it were sampled plainly, as the
+     * estimate is the mean of the pairs.
+     *
+     * @param y Fraction of the player's hands that won
+     */
+    void addUnpaired(double y) {
+        plain.add(y);
+    }
+
+    /**
+     * Adds every trial of another estimator of the same player and mode.
+     *
+     * @param other WinEstimator to merge, which is not changed
+     */
+    void merge(WinEstimator other) {
+        plain.merge(other.plain);
+        pairs.merge(other.pairs);
+        for (int i = 0; i < NUM_STRATA; i++) {
+            strata[i].merge(other.strata[i]);
+        }
+        if (other.count == 0) {
+            return;
+        }
+        long total = count + other.count;
+        double dx = other.meanX - meanX;
+        double dy = other.meanY - meanY;
+        double scale = (double) count * other.count / total;
+        m2X += other.m2X + dx * dx * scale;
+        m2Y += other.m2Y + dy * dy * scale;
+        coMoment += other.coMoment + dx * dy * scale;
+        meanX += dx * other.count / total;
+        meanY += dy * other.count / total;
+        count = total;
+    }
+
+    /**
+     * @return The current estimate of the chance of winning.
+     */
+    WinEstimate estimate() {
+        double mean;
+        double variance;
+        switch (mode) {
+            case STRATIFIED -> {
+                mean = 0;
+                variance = 0;
+                for (int i = 0; i < NUM_STRATA; i++) {
+                    if (weights[i] == 0) {
+                        continue;
+                    }
+                    RunningStats stratum = strata[i];
+                    mean += weights[i] * stratum.getMean();
+                    variance = stratum.getCount() < 2 ? Double.POSITIVE_INFINITY
+                            : variance + weights[i] * weights[i] * stratum.getVariance() / stratum.getCount();
+                }
+            }
+            case ANTITHETIC -> {
+                mean = pairs.getMean();
+                variance = varianceOfMean(pairs);
+            }
+            case CONTROL_VARIATE -> {
+                // Remove the part of y explained by how far the control was from its known mean
+                double beta = m2X == 0 ? 0 : coMoment / m2X;
+                mean = meanY - beta * (meanX - controlMean);
+                double residual = m2X == 0 ? m2Y : m2Y - coMoment * beta;
+                variance = count < 3 ? Double.POSITIVE_INFINITY : Math.max(0, residual) / (count - 2) / count;
+            }
+            default -> {
+                mean = plain.getMean();
+                variance = varianceOfMean(plain);
+            }
+        }
+        double plainVariance = varianceOfMean(plain);
+        double reduction = variance == 0 || Double.isInfinite(plainVariance) ? 1 : plainVariance / variance;
+        return new WinEstimate(mean, Math.sqrt(variance), reduction);
+    }
+
+    private static double varianceOfMean(RunningStats stats) {
+        return stats.getCount() < 2 ? Double.POSITIVE_INFINITY : stats.getVariance() / stats.getCount();
+    }
+}
@@ -0,0 +1,80 @@
+package com.ethpalser.blackjack;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+class ChartStrategyTest {
+
+    private final Strategy basic = ChartStrategy.basic();
+
+    @Test
+    void choose_hardSixteenVsTenCanSurrender_isSurrender() {
+        Hand hand = new Hand(Card.of(CardType.TEN), Card.of(CardType.SIX));
+        assertEquals(PlayerChoice.SURRENDER, basic.choose(hand, Card.of(CardType.KING), true, true));
+    }
+
+    @Test
+    void choose_hardSixteenVsTenCannotSurrender_isHit() {
+        Hand hand = new Hand(Card.of(CardType.TEN), Card.of(CardType.SIX));
+        assertEquals(PlayerChoice.HIT, basic.choose(hand, Card.of(CardType.KING), true, false));
+    }
+
+    @Test
+    void choose_elevenVsSix_isDoubleDown() {
+        Hand hand = new Hand(Card.of(CardType.FIVE), Card.of(CardType.SIX));
+        assertEquals(PlayerChoice.DOUBLE_DOWN, basic.choose(hand, Card.of(CardType.SIX), true, true));
+    }
+
+    @Test
+    void choose_elevenWithThreeCardsVsSix_isHit() {
+        Hand hand = new Hand(Card.of(CardType.TWO), Card.of(CardType.THREE), Card.of(CardType.SIX));
+        assertEquals(PlayerChoice.HIT, basic.choose(hand, Card.of(CardType.SIX), true, false));
+    }
+
+    @Test
+    void choose_softEighteenVsThreeWithThreeCards_isStand() {
+        Hand hand = new Hand(Card.of(CardType.ACE), Card.of(CardType.THREE), Card.of(CardType.FOUR));
+        assertEquals(PlayerChoice.STAND, basic.choose(hand, Card.of(CardType.THREE), true, false));
+    }
+
+    @Test
+    void choose_pairOfEightsVsAce_isSplit() {
+        Hand hand = new Hand(Card.of(CardType.EIGHT), Card.of(CardType.EIGHT));
+        assertEquals(PlayerChoice.SPLIT, basic.choose(hand, Card.of(CardType.ACE), true, true));
+    }
+
+    @Test
+    void choose_pairOfEightsVsAceCannotSplit_isSurrender() {
+        Hand hand = new Hand(Card.of(CardType.EIGHT), Card.of(CardType.EIGHT));
+        assertEquals(PlayerChoice.SURRENDER, basic.choose(hand, Card.of(CardType.ACE), false, true));
+    }
+
+    @Test
+    void parse_customChart_usesChartAndDefaults() throws IOException {
+        String chart = """
+                # Always stand on 12 or more
+                [hard]
+                12 S S S S S S S S S S
+                """;
+        Strategy test = ChartStrategy.parse(new BufferedReader(new StringReader(chart)));
+        Hand twelve = new Hand(Card.of(CardType.TEN), Card.of(CardType.TWO));
+        Hand sixteen = new Hand(Card.of(CardType.TEN), Card.of(CardType.SIX));
+        // 12 is in the chart, but 16 is not, so it hits as it is below 17
+        assertEquals(PlayerChoice.STAND, test.choose(twelve, Card.of(CardType.KING), true, true));
+        assertEquals(PlayerChoice.HIT, test.choose(sixteen, Card.of(CardType.KING), true, true));
+    }
+
+    @Test
+    void parse_splitOutsidePairs_shouldThrow() {
+        String chart = """
+                [hard]
+                12 P S S S S S S S S S
+                """;
+        assertThrows(IllegalArgumentException.class,
+                () -> ChartStrategy.parse(new BufferedReader(new StringReader(chart))));
+    }
+
+}
@@ -0,0 +1,62 @@
+package com.ethpalser.blackjack;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+class DealerOutcomeCacheTest {
+
+    private static int[] counts(int tens) {
+        int[] counts = new int[10];
+        for (int v = 0; v < 9; v++) {
+            counts[v] = 4;
+        }
+        counts[9] = tens;
+        return counts;
+    }
+
+    @Test
+    void calculate_sameShoeTwice_isHitOnSecond() {
+        // given
+        DealerOutcomeCache cache = new DealerOutcomeCache(8);
+        DealerOutcomeCalculator calculator = new DealerOutcomeCalculator(DealerRule.STAND_SOFT_17, cache);
+        // when
+        double[] first = calculator.calculate(6, counts(16));
+        double[] second = calculator.calculate(6, counts(16));
+        // then
+        assertArrayEquals(first, second);
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    void get_differentRule_isMiss() {
+        DealerOutcomeCache cache = new DealerOutcomeCache(8);
+        new DealerOutcomeCalculator(DealerRule.STAND_SOFT_17, cache).calculate(6, counts(16));
+        assertNull(cache.get(DealerRule.HIT_SOFT_17, 6, counts(16)));
+    }
+
+    @Test
+    void put_overCapacity_evictsLeastRecentlyUsed() {
+        // given
+        DealerOutcomeCache cache = new DealerOutcomeCache(2);
+        double[] odds = new double[DealerOutcome.values().length];
+        cache.put(DealerRule.STAND_SOFT_17, 6, counts(14), odds);
+        cache.put(DealerRule.STAND_SOFT_17, 6, counts(15), odds);
+        // when the first is used, then a third is added
+        cache.get(DealerRule.STAND_SOFT_17, 6, counts(14));
+        cache.put(DealerRule.STAND_SOFT_17, 6, counts(16), odds);
+        // then
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictions());
+        assertNotNull(cache.get(DealerRule.STAND_SOFT_17, 6, counts(14)));
+        assertNull(cache.get(DealerRule.STAND_SOFT_17, 6, counts(15)));
+    }
+
+    @Test
+    void get_changeReturnedOdds_doesNotChangeCache() {
+        DealerOutcomeCache cache = new DealerOutcomeCache(2);
+        cache.put(DealerRule.STAND_SOFT_17, 6, counts(16), new double[DealerOutcome.values().length]);
+        cache.get(DealerRule.STAND_SOFT_17, 6, counts(16))[0] = 1.0;
+        assertEquals(0.0, cache.get(DealerRule.STAND_SOFT_17, 6, counts(16))[0]);
+    }
+}
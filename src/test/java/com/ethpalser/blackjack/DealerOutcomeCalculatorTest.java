@@ -0,0 +1,102 @@
+package com.ethpalser.blackjack;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+class DealerOutcomeCalculatorTest {
+
+    private static final double DELTA = 1e-9;
+
+    private final DealerOutcomeCalculator standSoft17 = new DealerOutcomeCalculator(DealerRule.STAND_SOFT_17);
+    private final DealerOutcomeCalculator hitSoft17 = new DealerOutcomeCalculator(DealerRule.HIT_SOFT_17);
+
+    private static int[] decks(int numDecks) {
+        int[] counts = new int[10];
+        for (int v = 0; v < 9; v++) {
+            counts[v] = 4 * numDecks;
+        }
+        counts[9] = 16 * numDecks;
+        return counts;
+    }
+
+    private static double get(double[] odds, DealerOutcome outcome) {
+        return odds[outcome.ordinal()];
+    }
+
+    @Test
+    void calculate_onlyTensWithSevenUp_isAlwaysSeventeen() {
+        int[] counts = new int[10];
+        counts[9] = 20;
+        double[] odds = standSoft17.calculate(7, counts);
+        assertEquals(1.0, get(odds, DealerOutcome.SEVENTEEN), DELTA);
+    }
+
+    @Test
+    void calculate_onlyTensWithAceUp_isAlwaysBlackjack() {
+        int[] counts = new int[10];
+        counts[9] = 20;
+        double[] odds = standSoft17.calculate(1, counts);
+        assertEquals(1.0, get(odds, DealerOutcome.BLACKJACK), DELTA);
+    }
+
+    @Test
+    void calculate_sixAndTenLeftWithTenUp_isHalfTwentyHalfBust() {
+        // given
+        int[] counts = new int[10];
+        counts[5] = 1;
+        counts[9] = 1;
+        // when
+        double[] odds = standSoft17.calculate(10, counts);
+        // then the hidden card is a 6 then the dealer hits 16 with the last 10, or it is the 10 and the dealer has 20
+        assertEquals(0.5, get(odds, DealerOutcome.TWENTY), DELTA);
+        assertEquals(0.5, get(odds, DealerOutcome.BUST), DELTA);
+    }
+
+    @Test
+    void calculate_eightDecks_sumsToOne() {
+        for (int up = 1; up <= 10; up++) {
+            double total = 0;
+            for (double p : hitSoft17.calculate(up, decks(8))) {
+                total += p;
+            }
+            assertEquals(1.0, total, DELTA);
+        }
+    }
+
+    @Test
+    void calculate_eightDecksWithSixUp_bustsAboutFortyTwoPercent() {
+        double bust = get(standSoft17.calculate(6, decks(8)), DealerOutcome.BUST);
+        assertEquals(0.42, bust, 0.01);
+    }
+
+    @Test
+    void calculate_hitSoft17WithSixUp_bustsMoreThanStandSoft17() {
+        double stand = get(standSoft17.calculate(6, decks(8)), DealerOutcome.BUST);
+        double hit = get(hitSoft17.calculate(6, decks(8)), DealerOutcome.BUST);
+        assertTrue(hit > stand);
+    }
+
+    @Test
+    void calculate_standSoft17WithSixUp_neverHitsSoftSeventeen() {
+        // given an Ace hidden under the 6 is the only way to reach soft 17 with two cards
+        int[] counts = new int[10];
+        counts[0] = 1;
+        // when
+        double[] odds = standSoft17.calculate(6, counts);
+        // then
+        assertEquals(1.0, get(odds, DealerOutcome.SEVENTEEN), DELTA);
+    }
+
+    @Test
+    void calculate_emptyShoe_throwsIllegalArgument() {
+        assertThrows(IllegalArgumentException.class, () -> standSoft17.calculate(6, new int[10]));
+    }
+
+    @Test
+    void calculate_deckWithUpCard_matchesCounts() {
+        Deck deck = new Deck(DeckType.RANDOM, 2);
+        double[] fromDeck = standSoft17.calculate(Card.of(CardType.KING), deck);
+        double[] fromCounts = standSoft17.calculate(10, decks(2));
+        assertArrayEquals(fromCounts, fromDeck, DELTA);
+    }
+}
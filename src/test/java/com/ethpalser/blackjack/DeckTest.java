@@ -38,7 +38,7 @@ class DeckTest {
 
     @Test
     void draw_oneCardInDeck_shouldBeLastCard() {
-        Card card = new Card(CardType.ACE, CardSuit.SPADES);
+        Card card = Card.of(CardType.ACE, CardSuit.SPADES);
         Deck test = new Deck(DeckType.SEGMENTED, card);
         Card drawn = test.draw();
         assertEquals(card.getType(), drawn.getType());
@@ -47,7 +47,7 @@ class DeckTest {
 
     @Test
     void draw_noCardInDeck_shouldBeAnyCard() {
-        Card card = new Card(CardType.ACE, CardSuit.SPADES);
+        Card card = Card.of(CardType.ACE, CardSuit.SPADES);
         Deck test = new Deck(DeckType.SEGMENTED, card);
         test.draw(); // Empty the deck
         Card drawn = test.draw();
@@ -66,6 +66,23 @@ class DeckTest {
         assertArrayEquals(new int[]{4, 4, 4, 4, 4, 4, 4, 4, 4, 4, 4, 4, 4}, cardCount);
     }
 
+    @Test
+    void draw_sameSeed_shouldDrawSameCards() {
+        Deck first = new Deck(DeckType.RANDOM, 6, true, RandomSource.create(42));
+        Deck second = new Deck(DeckType.RANDOM, 6, true, RandomSource.create(42));
+        assertEquals(first.getPosInsert(), second.getPosInsert());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(first.draw().getOrdinalValue(), second.draw().getOrdinalValue());
+        }
+    }
+
+    @Test
+    void draw_onlyCardInDeck_shouldBeSharedInstance() {
+        Card card = Card.of(CardType.ACE, CardSuit.SPADES);
+        Deck test = new Deck(DeckType.SEGMENTED, card);
+        assertSame(card, test.draw());
+    }
+
     @Test
     void undoDraw_fromNewDeck_shouldDoNothing() {
         Deck test = new Deck(DeckType.RANDOM, 2, true);
@@ -124,10 +141,96 @@ class DeckTest {
         assertArrayEquals(cardCount, newCardCount);
     }
 
+    @Test
+    void undoDraw_afterManyDraws_shouldRestoreDeckOrder() {
+        // Given a deck that has some cards drawn
+        Deck test = new Deck(DeckType.SEGMENTED, 2, false);
+        for (int i = 0; i < 30; i++) {
+            test.draw();
+        }
+        String original = test.toString();
+        // When more cards are drawn and then all of them are undone
+        for (int i = 0; i < 40; i++) {
+            test.draw();
+        }
+        for (int i = 0; i < 40; i++) {
+            test.undoDraw();
+        }
+        // Then the deck has the same cards in the same order
+        assertEquals(original, test.toString());
+    }
+
+    @Test
+    void draw_pastReshuffle_shouldHaveFullDeck() {
+        // Given a deck that is reshuffled on the last card
+        Deck test = new Deck(DeckType.RANDOM, 1, false);
+        for (int i = 0; i < 51; i++) {
+            test.draw();
+        }
+        // When the next card reshuffles the deck
+        test.draw();
+        // Then the deck has every card except the one drawn
+        int[] cardCount = test.count();
+        int total = 0;
+        for (int count : cardCount) {
+            total += count;
+        }
+        assertEquals(51, total);
+    }
+
+    @Test
+    void rollback_afterDrawsAndAdds_shouldRestoreCards() {
+        // Given a deck that is marked after some cards are drawn
+        Deck test = new Deck(DeckType.RANDOM, 2, true);
+        Card held = test.draw();
+        for (int i = 0; i < 10; i++) {
+            test.draw();
+        }
+        int[] cardCount = test.count();
+        long mark = test.mark();
+        // When a held card is added back, more cards are drawn, and the deck is rolled back
+        test.add(held);
+        for (int i = 0; i < 10; i++) {
+            test.draw();
+        }
+        test.rollback(mark);
+        // Then the deck has the same cards as when it was marked
+        assertArrayEquals(cardCount, test.count());
+    }
+
+    @Test
+    void rollback_pastReshuffle_shouldRestoreCards() {
+        // Given a deck that is marked just before it is reshuffled
+        Deck test = new Deck(DeckType.SEGMENTED, 1, false);
+        for (int i = 0; i < 50; i++) {
+            test.draw();
+        }
+        int[] cardCount = test.count();
+        long mark = test.mark();
+        // When the deck is reshuffled and rolled back
+        for (int i = 0; i < 5; i++) {
+            test.draw();
+        }
+        test.rollback(mark);
+        // Then the deck has the same cards as before it was reshuffled
+        assertEquals(2, test.size());
+        assertArrayEquals(cardCount, test.count());
+    }
+
+    @Test
+    void rollback_afterTooManyDraws_shouldThrow() {
+        Deck test = new Deck(DeckType.RANDOM, 1, false);
+        long mark = test.mark();
+        for (int i = 0; i < 300; i++) {
+            test.draw();
+        }
+        assertThrows(IllegalStateException.class, () -> test.rollback(mark));
+    }
+
     @Test
     void findCard_kingOfSpadesFromNewDeck_shouldExist() {
         // Given a new deck
-        Card card = new Card(CardType.KING, CardSuit.SPADES);
+        Card card = Card.of(CardType.KING, CardSuit.SPADES);
         Deck test = new Deck(DeckType.RANDOM, 4, true);
         // When findCard (King of Spades)
         int cardIndex = test.find(card);
@@ -138,7 +241,7 @@ class DeckTest {
     @Test
     void findCard_aceOfSpadesFromDeckWithoutAce_shouldNotExist() {
         // Given a new deck
-        Card card = new Card(CardType.ACE, CardSuit.SPADES);
+        Card card = Card.of(CardType.ACE, CardSuit.SPADES);
         Deck test = new Deck(DeckType.RANDOM, 1, true);
         test.remove(card);
         // When findCard (Ace of Spades)
@@ -151,7 +254,7 @@ class DeckTest {
     void findCard_aceOfSpadesFromDeckWithOne_shouldExist() {
         int numDecks = 4;
         // Given a new deck with 4 decks
-        Card card = new Card(CardType.ACE, CardSuit.SPADES);
+        Card card = Card.of(CardType.ACE, CardSuit.SPADES);
         Deck test = new Deck(DeckType.RANDOM, numDecks, true);
         for (int i = 0; i < numDecks - 1; i++) {
             // Remove all but one ace
@@ -166,7 +269,7 @@ class DeckTest {
     @Test
     void removeCard_kingOfSpadesFromNewDeck_shouldExist() {
         // Given a new deck
-        Card card = new Card(CardType.KING, CardSuit.SPADES);
+        Card card = Card.of(CardType.KING, CardSuit.SPADES);
         Deck test = new Deck(DeckType.RANDOM, 4, true);
         int originalSize = test.size();
         // When removeCard (King of Spades)
@@ -181,7 +284,7 @@ class DeckTest {
     void removeCard_aceOfSpadesFromDeckWithoutAce_shouldNotExist() {
         // Given a new deck without an Ace of Spades
         Deck test = new Deck(DeckType.RANDOM, 1, true);
-        Card card = new Card(CardType.ACE, CardSuit.SPADES);
+        Card card = Card.of(CardType.ACE, CardSuit.SPADES);
         test.remove(card);
         // When removeCard (Ace of Spades)
         Card removed = test.remove(card);
@@ -194,7 +297,7 @@ class DeckTest {
         // Given a new deck with 4 decks without 3 Ace of Spades
         int numDecks = 4;
         Deck test = new Deck(DeckType.RANDOM, numDecks, true);
-        Card card = new Card(CardType.ACE, CardSuit.SPADES);
+        Card card = Card.of(CardType.ACE, CardSuit.SPADES);
         for (int i = 0; i < numDecks - 1; i++) {
             // Remove all but one ace
             test.remove(card);
@@ -211,7 +314,7 @@ class DeckTest {
         Deck test = new Deck(DeckType.RANDOM, 1, true);
         int originalSize = test.size();
         // When addCard
-        Card card = new Card(CardType.QUEEN, CardSuit.SPADES);
+        Card card = Card.of(CardType.QUEEN, CardSuit.SPADES);
         test.add(card);
         int updatedSize = test.size();
         // Should be equal
@@ -222,7 +325,7 @@ class DeckTest {
     void addCard_queenOfSpadesToDeckWithoutQueen_shouldAdd() {
         // Given new deck
         Deck test = new Deck(DeckType.RANDOM, 1, true);
-        Card card = new Card(CardType.QUEEN, CardSuit.SPADES);
+        Card card = Card.of(CardType.QUEEN, CardSuit.SPADES);
         test.remove(card);
         int originalSize = test.size();
         // When addCard
@@ -234,4 +337,150 @@ class DeckTest {
         assertEquals(11, index); // Queens should be the 12th card (11th index) in a complete deck
     }
 
+    @Test
+    void drawValue_six_shouldOnlyDrawSixes() {
+        // Given deck
+        Deck test = new Deck(DeckType.RANDOM, 2, false, RandomSource.create(3));
+        // When drawing every six
+        for (int i = 0; i < 8; i++) {
+            assertEquals(6, test.drawValue(6).getValue());
+        }
+        // Should have no sixes left
+        assertEquals(0, test.countValues()[5]);
+        assertThrows(IllegalStateException.class, () -> test.drawValue(6));
+    }
+
+    @Test
+    void sortByValue_shuffledDeck_shouldKeepCardsAndOrderByValue() {
+        // Given deck with some cards drawn
+        Deck test = new Deck(DeckType.RANDOM, 1, false, RandomSource.create(3));
+        for (int i = 0; i < 10; i++) {
+            test.draw();
+        }
+        int[] before = test.count();
+        // When sorted
+        test.sortByValue();
+        // Should have the same cards from lowest to highest
+        assertArrayEquals(before, test.count());
+        List<Card> cards = test.getAll();
+        for (int i = 1; i < cards.size(); i++) {
+            assertTrue(cards.get(i - 1).getType().ordinal() <= cards.get(i).getType().ordinal());
+        }
+    }
+
+    @Test
+    void restore_afterMoreDraws_shouldHaveSnapshotCardsAndUndoEarlierDraws() {
+        // Given deck with a draw before the snapshot
+        Deck test = new Deck(DeckType.RANDOM, 1, false, RandomSource.create(3));
+        Card first = test.draw();
+        Shoe.Snapshot snapshot = test.snapshot();
+        List<Card> before = test.getAll();
+        // When drawn from, then restored
+        for (int i = 0; i < 10; i++) {
+            test.draw();
+        }
+        test.restore(snapshot);
+        // Should have the same cards, and still undo the draw made before the snapshot
+        assertEquals(before, test.getAll());
+        test.undoDraw();
+        assertEquals(52, test.size());
+        assertTrue(test.find(first) >= 0);
+    }
+
+    private static int countByScanning(Deck deck, CountingSystem system) {
+        // Every card starts in the deck, so the count starts from what the full shoe's tags add up to
+        int numDecks = deck.getNumDecks();
+        int count = system.getInitialCount(numDecks) + numDecks * system.sum(new Deck().countValues());
+        for (Card card : deck.getAll()) {
+            count -= system.getTag(card.getValue());
+        }
+        return count;
+    }
+
+    @Test
+    void getRunningCount_afterDrawsUndoesAndAdds_shouldMatchCardsInDeck() {
+        // Given deck with an insert, so it reshuffles part way through
+        Deck test = new Deck(DeckType.RANDOM, 2, true, RandomSource.create(9));
+        // When cards are drawn, undone and added back across many reshuffles
+        for (int round = 0; round < 500; round++) {
+            Card card = test.draw();
+            test.draw();
+            test.undoDraw();
+            if (round % 7 == 0) {
+                test.add(card);
+            }
+            // Should match the cards still in the deck
+            for (CountingSystem system : CountingSystem.values()) {
+                assertEquals(countByScanning(test, system), test.getRunningCount(system));
+            }
+        }
+    }
+
+    @Test
+    void getRunningCount_rollbackPastReshuffle_shouldReturnToMarkedCount() {
+        // Given nearly empty deck with a mark
+        Deck test = new Deck(DeckType.RANDOM, 1, false, RandomSource.create(6));
+        for (int i = 0; i < 45; i++) {
+            test.draw();
+        }
+        int before = test.getRunningCount(CountingSystem.KO);
+        long mark = test.mark();
+        // When drawing reshuffles, a card is added back, and then rolled back
+        for (int i = 0; i < 10; i++) {
+            test.draw();
+        }
+        test.add(Card.of(CardType.TWO));
+        test.rollback(mark);
+        // Should have the count before the reshuffle
+        assertEquals(before, test.getRunningCount(CountingSystem.KO));
+        assertEquals(countByScanning(test, CountingSystem.KO), test.getRunningCount(CountingSystem.KO));
+    }
+
+    @Test
+    void getTrueCount_halfShoeOfLowCardsDrawn_shouldDivideByDecksRemaining() {
+        // Given two decks with every 2 to 6 removed
+        Deck test = new Deck(DeckType.RANDOM, 2, false, RandomSource.create(4));
+        for (int value = 2; value <= 6; value++) {
+            for (int i = 0; i < 8; i++) {
+                test.drawValue(value);
+            }
+        }
+        // Should count each as +1 for Hi-Lo, over the 1.23 decks remaining
+        assertEquals(40, test.getRunningCount(CountingSystem.HI_LO));
+        assertEquals(40 * 52.0 / 64, test.getTrueCount(CountingSystem.HI_LO), 1e-12);
+        assertArrayEquals(new int[]{8, 0, 0, 0, 0, 0, 8, 8, 8, 32}, test.countValues());
+    }
+
+    @Test
+    void getRunningCount_knockOutSixDecks_shouldStartAtInitialCountAndEndAtPivot() {
+        // Given six decks
+        Deck test = new Deck(DeckType.RANDOM, 6, false, RandomSource.create(2));
+        // Should start at 4 - 4 x 6
+        assertEquals(-20, test.getRunningCount(CountingSystem.KO));
+        // When every card but the last is drawn, as drawing the last card reshuffles
+        for (int i = 0; i < 311; i++) {
+            test.draw();
+        }
+        Card last = test.getAll().get(0);
+        // Should be at the pivot once the last card is counted too
+        assertEquals(4, test.getRunningCount(CountingSystem.KO) + CountingSystem.KO.getTag(last.getValue()));
+        assertThrows(IllegalArgumentException.class, () -> test.getTrueCount(CountingSystem.KO));
+    }
+
+    @Test
+    void getRunningCount_restoredAndReshuffled_shouldStartAgain() {
+        Deck test = new Deck(DeckType.SEGMENTED, 1, false, RandomSource.create(5));
+        Shoe.Snapshot snapshot = test.snapshot();
+        for (int i = 0; i < 20; i++) {
+            test.draw();
+        }
+        test.restore(snapshot);
+        assertEquals(0, test.getRunningCount(CountingSystem.OMEGA_II));
+        for (int i = 0; i < 52; i++) {
+            test.draw();
+        }
+        // The last draw reshuffled, so only one card is out of the deck
+        assertEquals(test.getRunningCount(CountingSystem.HI_LO), countByScanning(test, CountingSystem.HI_LO));
+        assertEquals(51, test.size());
+    }
 }
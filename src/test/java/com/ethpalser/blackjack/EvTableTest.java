@@ -0,0 +1,128 @@
+package com.ethpalser.blackjack;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class EvTableTest {
+
+    @TempDir
+    Path dir;
+
+    private EvTable writeAndOpen(EvTable.Builder builder) throws IOException {
+        Path path = dir.resolve("ev.bin");
+        builder.write(path);
+        return EvTable.open(path);
+    }
+
+    @Test
+    void open_writtenTable_readsEveryValueSet() throws IOException {
+        // given
+        EvTable.Builder builder = new EvTable.Builder(2, 6)
+                .setEv(DealerRule.HIT_SOFT_17, 6, DeckType.SEGMENTED, 10, 6, 10, PlayerChoice.STAND, -0.54f)
+                .setEv(DealerRule.STAND_SOFT_17, 2, DeckType.RANDOM, 1, 1, 6, PlayerChoice.SPLIT, 0.7f);
+        // when
+        EvTable table = writeAndOpen(builder);
+        // then
+        assertEquals(2, table.getMinDecks());
+        assertEquals(6, table.getMaxDecks());
+        assertEquals(-0.54f, table.getEv(DealerRule.HIT_SOFT_17, 6, DeckType.SEGMENTED, 6, 10, 10,
+                PlayerChoice.STAND));
+        assertEquals(0.7f, table.getEv(DealerRule.STAND_SOFT_17, 2, DeckType.RANK_ONLY, 1, 1, 6,
+                PlayerChoice.SPLIT));
+        assertTrue(Float.isNaN(table.getEv(DealerRule.STAND_SOFT_17, 6, DeckType.SEGMENTED, 10, 6, 10,
+                PlayerChoice.STAND)));
+    }
+
+    @Test
+    void open_writtenTable_dealerOutcomesMatchCalculator() throws IOException {
+        // given
+        int[] counts = {24, 24, 24, 24, 24, 23, 24, 24, 24, 96};
+        double[] expected = new DealerOutcomeCalculator(DealerRule.STAND_SOFT_17).calculate(6, counts);
+        // when
+        EvTable table = writeAndOpen(new EvTable.Builder(1, 8));
+        // then
+        for (DealerOutcome outcome : DealerOutcome.values()) {
+            assertEquals(expected[outcome.ordinal()], table.getDealerOutcome(DealerRule.STAND_SOFT_17, 6,
+                    DeckType.RANDOM, 6, outcome), 1e-6);
+        }
+    }
+
+    @Test
+    void open_writtenTable_segmentedDealerOutcomesAreOfOneDeck() throws IOException {
+        // given
+        int[] counts = {4, 4, 4, 4, 4, 3, 4, 4, 4, 16};
+        double[] expected = new DealerOutcomeCalculator(DealerRule.STAND_SOFT_17).calculate(6, counts);
+        // when
+        EvTable table = writeAndOpen(new EvTable.Builder(1, 8));
+        // then
+        for (DealerOutcome outcome : DealerOutcome.values()) {
+            assertEquals(expected[outcome.ordinal()], table.getDealerOutcome(DealerRule.STAND_SOFT_17, 6,
+                    DeckType.SEGMENTED, 6, outcome), 1e-6);
+        }
+    }
+
+    @Test
+    void getEv_deckCountNotInTable_throws() throws IOException {
+        EvTable table = writeAndOpen(new EvTable.Builder(1, 2));
+        assertThrows(IllegalArgumentException.class, () -> table.getEv(DealerRule.STAND_SOFT_17, 6,
+                DeckType.RANDOM, 10, 6, 10, PlayerChoice.HIT));
+    }
+
+    @Test
+    void open_otherVersion_throws() throws IOException {
+        // given
+        Path path = dir.resolve("ev.bin");
+        new EvTable.Builder(1, 1).write(path);
+        byte[] bytes = Files.readAllBytes(path);
+        ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).putInt(4, EvTable.VERSION + 1);
+        Files.write(path, bytes);
+        // when / then
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () -> EvTable.open(path));
+        assertTrue(ex.getMessage().contains("version"));
+    }
+
+    @Test
+    void open_truncatedFile_throws() throws IOException {
+        // given
+        Path path = dir.resolve("ev.bin");
+        new EvTable.Builder(1, 1).write(path);
+        byte[] bytes = Files.readAllBytes(path);
+        Files.write(path, Arrays.copyOf(bytes, bytes.length - 4));
+        // when / then
+        assertThrows(IllegalArgumentException.class, () -> EvTable.open(path));
+    }
+
+    @Test
+    void choose_twoCardHand_choosesHighestAllowedValue() throws IOException {
+        // given
+        EvTable table = writeAndOpen(new EvTable.Builder(6, 6)
+                .setEv(DealerRule.STAND_SOFT_17, 6, DeckType.RANDOM, 10, 6, 10, PlayerChoice.HIT, -0.54f)
+                .setEv(DealerRule.STAND_SOFT_17, 6, DeckType.RANDOM, 10, 6, 10, PlayerChoice.STAND, -0.57f)
+                .setEv(DealerRule.STAND_SOFT_17, 6, DeckType.RANDOM, 10, 6, 10, PlayerChoice.SURRENDER, -0.5f));
+        Strategy strategy = new EvStrategy(table, DealerRule.STAND_SOFT_17, 6, DeckType.RANDOM);
+        Hand hand = new Hand(Card.of(CardType.TEN), Card.of(CardType.SIX));
+        Card up = Card.of(CardType.KING);
+        // when / then
+        assertEquals(PlayerChoice.SURRENDER, strategy.choose(hand, up, true, true));
+        assertEquals(PlayerChoice.HIT, strategy.choose(hand, up, true, false));
+    }
+
+    @Test
+    void choose_handNotInTable_followsFallback() throws IOException {
+        // given
+        EvTable table = writeAndOpen(new EvTable.Builder(6, 6));
+        Strategy strategy = new EvStrategy(table, DealerRule.STAND_SOFT_17, 6, DeckType.RANDOM);
+        Hand hand = new Hand(Card.of(CardType.TEN), Card.of(CardType.NINE));
+        // when
+        PlayerChoice choice = strategy.choose(hand, Card.of(CardType.SIX), true, true);
+        // then
+        assertEquals(PlayerChoice.STAND, choice);
+    }
+}
@@ -0,0 +1,94 @@
+package com.ethpalser.blackjack;
+
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+class ExpectimaxSolverTest {
+
+    private static final List<PlayerChoice> ALL_BUT_SPLIT = List.of(PlayerChoice.HIT, PlayerChoice.STAND,
+            PlayerChoice.DOUBLE_DOWN, PlayerChoice.SURRENDER);
+
+    private static int[] fullShoe(int numDecks, Card... removed) {
+        int[] counts = new int[10];
+        for (int v = 0; v < 10; v++) {
+            counts[v] = (v == 9 ? 16 : 4) * numDecks;
+        }
+        for (Card card : removed) {
+            counts[card.getValue() - 1]--;
+        }
+        return counts;
+    }
+
+    @Test
+    void solve_onlyFivesLeft_hitWinsEveryTime() {
+        // Given 16 against a 10, where the only cards left are three fives
+        Hand hand = new Hand(Card.of(CardType.TEN), Card.of(CardType.SIX));
+        int[] counts = new int[10];
+        counts[4] = 3;
+        // When
+        ExpectimaxSolver.Solution test = new ExpectimaxSolver(DealerRule.STAND_SOFT_17).solve(hand, 10, counts,
+                ALL_BUT_SPLIT);
+        // Should make 21 against the dealer's 20 by hitting, and lose to it by standing
+        assertEquals(1, test.getEv(PlayerChoice.HIT), 1e-12);
+        assertEquals(1, test.getWinRate(PlayerChoice.HIT), 1e-12);
+        assertEquals(-1, test.getEv(PlayerChoice.STAND), 1e-12);
+        assertEquals(2, test.getEv(PlayerChoice.DOUBLE_DOWN), 1e-12);
+        assertEquals(-0.5, test.getEv(PlayerChoice.SURRENDER), 1e-12);
+    }
+
+    @Test
+    void solve_stand_matchesDealerOutcomes() {
+        // Given 18 against a 9
+        Hand hand = new Hand(Card.of(CardType.TEN), Card.of(CardType.EIGHT));
+        int[] counts = fullShoe(1, Card.of(CardType.TEN), Card.of(CardType.EIGHT), Card.of(CardType.NINE));
+        double[] odds = new DealerOutcomeCalculator(DealerRule.STAND_SOFT_17).calculate(9, counts);
+        // When
+        ExpectimaxSolver.Solution test = new ExpectimaxSolver(DealerRule.STAND_SOFT_17).solve(hand, 9, counts,
+                List.of(PlayerChoice.STAND));
+        // Should win when the dealer busts or stops on 17, and draw on 18
+        double win = odds[DealerOutcome.BUST.ordinal()] + odds[DealerOutcome.SEVENTEEN.ordinal()];
+        double draw = odds[DealerOutcome.EIGHTEEN.ordinal()];
+        assertEquals(win - (1 - win - draw), test.getEv(PlayerChoice.STAND), 1e-12);
+        assertEquals(win, test.getWinRate(PlayerChoice.STAND), 1e-12);
+        assertFalse(test.isSolved(PlayerChoice.HIT));
+    }
+
+    @Test
+    void solve_basicStrategyHands_prefersBasicStrategyChoice() {
+        ExpectimaxSolver solver = new ExpectimaxSolver(DealerRule.STAND_SOFT_17);
+        // Hard 11 against a 6 doubles
+        Hand eleven = new Hand(Card.of(CardType.SIX), Card.of(CardType.FIVE));
+        ExpectimaxSolver.Solution test = solver.solve(eleven, 6, fullShoe(6, eleven.getCard(0), eleven.getCard(1),
+                Card.of(CardType.SIX)), ALL_BUT_SPLIT);
+        assertTrue(test.getEv(PlayerChoice.DOUBLE_DOWN) > test.getEv(PlayerChoice.HIT));
+        // Eights against a 6 split
+        Hand eights = new Hand(Card.of(CardType.EIGHT), Card.of(CardType.EIGHT));
+        test = solver.solve(eights, 6, fullShoe(6, eights.getCard(0), eights.getCard(1), Card.of(CardType.SIX)),
+                List.of(PlayerChoice.HIT, PlayerChoice.STAND, PlayerChoice.SPLIT));
+        assertTrue(test.getEv(PlayerChoice.SPLIT) > test.getEv(PlayerChoice.STAND));
+        assertTrue(test.getEv(PlayerChoice.STAND) > test.getEv(PlayerChoice.HIT));
+    }
+
+    @Test
+    void solve_moreStatesThanBudget_returnsNull() {
+        Hand hand = new Hand(Card.of(CardType.ACE), Card.of(CardType.TWO));
+        ExpectimaxSolver solver = new ExpectimaxSolver(DealerRule.STAND_SOFT_17, 10);
+        assertNull(solver.solve(hand, 6, fullShoe(6), List.of(PlayerChoice.HIT)));
+    }
+
+    @Test
+    void solve_longerThanTimeLimit_returnsNull() {
+        Hand hand = new Hand(Card.of(CardType.ACE), Card.of(CardType.TWO));
+        ExpectimaxSolver solver = new ExpectimaxSolver(DealerRule.STAND_SOFT_17, Integer.MAX_VALUE, 1);
+        assertNull(solver.solve(hand, 1, fullShoe(6), List.of(PlayerChoice.HIT)));
+    }
+
+    @Test
+    void solve_splitWithoutPair_throws() {
+        Hand hand = new Hand(Card.of(CardType.TEN), Card.of(CardType.SIX));
+        ExpectimaxSolver solver = new ExpectimaxSolver(DealerRule.STAND_SOFT_17);
+        assertThrows(IllegalArgumentException.class, () -> solver.solve(hand, 6, fullShoe(1),
+                List.of(PlayerChoice.SPLIT)));
+    }
+}
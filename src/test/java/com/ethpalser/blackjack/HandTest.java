@@ -48,7 +48,7 @@ class HandTest {
     @Test
     void add_aceToAceSix_equalsEighteen() {
         Hand test = HandTestCases.softSeventeen();
-        Card card = new Card(CardType.ACE, CardSuit.SPADES);
+        Card card = Card.of(CardType.ACE, CardSuit.SPADES);
         // evaluate is executed when the new card is added
         test.addCard(card);
         int value = test.getValue();
@@ -59,7 +59,7 @@ class HandTest {
     void add_sevenToAceFiveSix_equalsNineteen() {
         Hand test = HandTestCases.aceFiveSix();
         // evaluate is executed when the new card is added
-        test.addCard(new Card(CardType.SEVEN));
+        test.addCard(Card.of(CardType.SEVEN));
         int value = test.getValue();
         assertEquals(19, value);
     }
@@ -147,4 +147,63 @@ class HandTest {
         assertEquals(HandResult.WIN, result);
     }
 
+    @Test
+    void isSoft_aceAndSix_true() {
+        Hand test = HandTestCases.softSeventeen();
+        assertTrue(test.isSoft());
+        assertTrue(test.isSoftSeventeen());
+    }
+
+    @Test
+    void isSoft_aceFiveSix_false() {
+        Hand test = HandTestCases.aceFiveSix();
+        assertFalse(test.isSoft());
+    }
+
+    @Test
+    void replaceCard_sixInAceSixWithJack_equalsTwentyOne() {
+        Hand test = HandTestCases.softSeventeen();
+        Card replaced = test.replaceCard(1, Card.of(CardType.JACK));
+        assertEquals(CardType.SIX, replaced.getType());
+        assertEquals(21, test.getValue());
+    }
+
+    @Test
+    void removeCard_aceFromAcePair_equalsEleven() {
+        Hand test = HandTestCases.acePair();
+        test.removeCard(1);
+        assertEquals(1, test.size());
+        assertEquals(11, test.getValue());
+    }
+
+    @Test
+    void copyFrom_clearedHand_equalsOriginal() {
+        Hand original = HandTestCases.aceFiveSix();
+        Hand test = HandTestCases.sevenEightNine();
+        test.clear();
+        test.copyFrom(original);
+        assertEquals(original.size(), test.size());
+        assertEquals(original.getValue(), test.getValue());
+        assertFalse(test.isBust());
+    }
+
+    @Test
+    void toString_hiddenFirstCard_hidesOnlyFirstCard() {
+        Hand test = new Hand();
+        test.addCard(Card.of(CardType.ACE), false);
+        test.addCard(Card.of(CardType.SIX));
+        assertEquals("x 6", test.toString());
+        test.showHand();
+        assertEquals("A 6", test.toString());
+    }
+
+    @Test
+    void removeCard_firstOfHiddenAndVisible_keepsVisibleCard() {
+        Hand test = new Hand();
+        test.addCard(Card.of(CardType.ACE), false);
+        test.addCard(Card.of(CardType.SIX));
+        test.removeCard(0);
+        assertTrue(test.isVisible(0));
+    }
+
 }
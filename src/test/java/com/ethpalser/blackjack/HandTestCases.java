@@ -3,28 +3,28 @@ package com.ethpalser.blackjack;
 public class HandTestCases {
 
     public static Hand hardSeventeen() {
-        return new Hand(new Card(CardType.SEVEN), new Card(CardType.TEN));
+        return new Hand(Card.of(CardType.SEVEN), Card.of(CardType.TEN));
     }
 
     public static Hand softSeventeen() {
-        return new Hand(new Card(CardType.ACE), new Card(CardType.SIX));
+        return new Hand(Card.of(CardType.ACE), Card.of(CardType.SIX));
     }
 
     // Blackjack
     public static Hand aceJack() {
-        return new Hand(new Card(CardType.ACE), new Card(CardType.JACK));
+        return new Hand(Card.of(CardType.ACE), Card.of(CardType.JACK));
     }
 
     public static Hand acePair() {
-        return new Hand(new Card(CardType.ACE), new Card(CardType.ACE));
+        return new Hand(Card.of(CardType.ACE), Card.of(CardType.ACE));
     }
 
     public static Hand aceFiveSix() {
-        return new Hand(new Card(CardType.ACE), new Card(CardType.FIVE), new Card(CardType.SIX));
+        return new Hand(Card.of(CardType.ACE), Card.of(CardType.FIVE), Card.of(CardType.SIX));
     }
 
     public static Hand sevenEightNine() {
-        return new Hand(new Card(CardType.SEVEN), new Card(CardType.EIGHT), new Card(CardType.NINE));
+        return new Hand(Card.of(CardType.SEVEN), Card.of(CardType.EIGHT), Card.of(CardType.NINE));
     }
 
 }
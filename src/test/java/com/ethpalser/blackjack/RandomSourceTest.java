@@ -0,0 +1,87 @@
+package com.ethpalser.blackjack;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+class RandomSourceTest {
+
+    @Test
+    void nextInt_sameSeed_shouldGenerateSameNumbers() {
+        RandomSource first = RandomSource.create(42);
+        RandomSource second = RandomSource.create(42);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(first.nextInt(52), second.nextInt(52));
+        }
+    }
+
+    @Test
+    void nextInt_xoshiroSameSeed_shouldGenerateSameNumbers() {
+        RandomSource first = new XoshiroRandomSource(42);
+        RandomSource second = new XoshiroRandomSource(42);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(first.nextInt(416), second.nextInt(416));
+        }
+    }
+
+    @Test
+    void nextInt_xoshiroSmallBound_shouldGenerateEveryNumberInBounds() {
+        RandomSource test = new XoshiroRandomSource(7);
+        int[] seen = new int[13];
+        for (int i = 0; i < 1300; i++) {
+            int value = test.nextInt(13);
+            assertTrue(0 <= value && value < 13);
+            seen[value]++;
+        }
+        for (int count : seen) {
+            assertTrue(count > 0);
+        }
+    }
+
+    @Test
+    void split_sameSeed_shouldSplitIntoSameSources() {
+        RandomSource first = RandomSource.create(42).split();
+        RandomSource second = RandomSource.create(42).split();
+        for (int i = 0; i < 100; i++) {
+            assertEquals(first.nextDouble(), second.nextDouble());
+        }
+    }
+
+    @Test
+    void mirror_afterRecording_shouldReplayOppositeNumbers() {
+        AntitheticRandomSource test = new AntitheticRandomSource(RandomSource.create(42));
+        test.record();
+        int[] recorded = new int[20];
+        for (int i = 0; i < recorded.length; i++) {
+            recorded[i] = test.nextInt(52);
+        }
+        test.mirror();
+        for (int recordedValue : recorded) {
+            assertEquals(51 - recordedValue, test.nextInt(52));
+        }
+    }
+
+
+    @Test
+    void replay_afterRecording_shouldRepeatNumbersThenShareNewOnes() {
+        CommonRandomSource test = new CommonRandomSource(RandomSource.create(42));
+        test.record();
+        double[] recorded = {test.nextDouble(), test.nextDouble()};
+        test.replay();
+        assertEquals(recorded[0], test.nextDouble());
+        assertEquals(recorded[1], test.nextDouble());
+        double extra = test.nextDouble();
+        test.replay();
+        assertEquals(recorded[0], test.nextDouble());
+        assertEquals(recorded[1], test.nextDouble());
+        assertEquals(extra, test.nextDouble());
+    }
+
+    @Test
+    void record_afterReplaying_shouldTakeNewNumbers() {
+        CommonRandomSource test = new CommonRandomSource(RandomSource.create(42));
+        test.record();
+        double first = test.nextDouble();
+        test.record();
+        assertNotEquals(first, test.nextDouble());
+    }
+}
@@ -0,0 +1,191 @@
+package com.ethpalser.blackjack;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+class RankShoeTest {
+
+    @Test
+    void new_oneDeck_hasFourOfEachValueAndSixteenTens() {
+        RankShoe test = new RankShoe(1);
+        assertArrayEquals(new int[]{4, 4, 4, 4, 4, 4, 4, 4, 4, 16}, test.countValues());
+        assertEquals(52, test.size());
+    }
+
+    @Test
+    void draw_everyCard_drawsEachValueItsCount() {
+        // Given full shoe
+        RankShoe test = new RankShoe(2, false, RandomSource.create(5));
+        int[] drawn = new int[10];
+        // When every card but the last is drawn, as drawing the last card reshuffles
+        for (int i = 0; i < 103; i++) {
+            drawn[test.draw().getValue() - 1]++;
+        }
+        int[] remaining = test.countValues();
+        for (int v = 0; v < 10; v++) {
+            drawn[v] += remaining[v];
+        }
+        // Should have drawn every card but the one remaining
+        assertArrayEquals(new int[]{8, 8, 8, 8, 8, 8, 8, 8, 8, 32}, drawn);
+    }
+
+    @Test
+    void draw_tenValuedCards_drawsEveryTypeOfTen() {
+        // Given shoe of only ten-valued cards
+        RankShoe test = new RankShoe(1, false, RandomSource.create(5));
+        for (int v = 1; v < 10; v++) {
+            for (int i = 0; i < 4; i++) {
+                test.drawValue(v);
+            }
+        }
+        Set<CardType> types = EnumSet.noneOf(CardType.class);
+        // When most of the tens are drawn
+        for (int i = 0; i < 15; i++) {
+            types.add(test.draw().getType());
+        }
+        // Should draw Tens, Jacks, Queens and Kings, so two ten-valued cards are not always a pair
+        assertEquals(EnumSet.of(CardType.TEN, CardType.JACK, CardType.QUEEN, CardType.KING), types);
+    }
+
+    @Test
+    void draw_onlyTensLeftOfTenValuedCards_drawsOnlyTens() {
+        // Given shoe without its Jacks, Queens and Kings
+        RankShoe test = new RankShoe(1, false, RandomSource.create(5));
+        for (CardType type : new CardType[]{CardType.JACK, CardType.QUEEN, CardType.KING}) {
+            for (int i = 0; i < 4; i++) {
+                assertNotNull(test.remove(Card.of(type)));
+            }
+        }
+        // When every remaining ten-valued card is drawn
+        List<CardType> drawn = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            drawn.add(test.drawValue(10).getType());
+        }
+        // Should draw the four Tens
+        assertEquals(List.of(CardType.TEN, CardType.TEN, CardType.TEN, CardType.TEN), drawn);
+        assertNull(test.remove(Card.of(CardType.KING)));
+    }
+
+    @Test
+    void drawValue_tenManyTimes_drawsEachTypeOfTenItsCount() {
+        // Given full shoe
+        RankShoe test = new RankShoe(2, false, RandomSource.create(5));
+        int[] drawn = new int[13];
+        // When every ten-valued card is drawn
+        for (int i = 0; i < 32; i++) {
+            drawn[test.drawValue(10).getType().ordinal()]++;
+        }
+        // Should draw each of the 8 Tens, Jacks, Queens and Kings once
+        assertArrayEquals(new int[]{0, 0, 0, 0, 0, 0, 0, 0, 0, 8, 8, 8, 8}, drawn);
+    }
+
+    @Test
+    void rollback_afterDrawsAndAdds_shouldRestoreCounts() {
+        // Given shoe with a mark
+        RankShoe test = new RankShoe(1, false, RandomSource.create(5));
+        test.drawValue(10);
+        int[] before = test.count();
+        long mark = test.mark();
+        // When cards are drawn and added, then rolled back
+        Card card = test.draw();
+        test.draw();
+        test.add(card);
+        test.add(Card.of(CardType.KING));
+        test.rollback(mark);
+        // Should have the same counts
+        assertArrayEquals(before, test.count());
+        assertEquals(51, test.size());
+    }
+
+    @Test
+    void rollback_pastReshuffle_shouldRestoreCounts() {
+        // Given nearly empty shoe with a mark
+        RankShoe test = new RankShoe(1, false, RandomSource.create(5));
+        for (int i = 0; i < 50; i++) {
+            test.draw();
+        }
+        int[] before = test.count();
+        long mark = test.mark();
+        // When drawing reshuffles, then rolled back
+        for (int i = 0; i < 5; i++) {
+            test.draw();
+        }
+        test.rollback(mark);
+        // Should have the counts before the reshuffle
+        assertArrayEquals(before, test.count());
+    }
+
+    @Test
+    void rollback_pastReshuffle_shouldKeepCounters() {
+        // Given nearly empty shoe with a mark
+        RankShoe test = new RankShoe(1, false, RandomSource.create(5));
+        for (int i = 0; i < 50; i++) {
+            test.draw();
+        }
+        long mark = test.mark();
+        // When drawing reshuffles, then one draw is undone and the rest rolled back
+        for (int i = 0; i < 5; i++) {
+            test.draw();
+        }
+        test.undoDraw();
+        test.rollback(mark);
+        // Should still count what happened
+        assertEquals(55, test.getDrawCount());
+        assertEquals(1, test.getUndoCount());
+        assertEquals(1, test.getShuffleCount());
+    }
+
+    @Test
+    void undoDraw_afterDraw_shouldAddCardBack() {
+        RankShoe test = new RankShoe(1, false, RandomSource.create(5));
+        Card card = test.draw();
+        test.undoDraw();
+        assertEquals(52, test.size());
+        assertEquals(card.getValue() == 10 ? 16 : 4, test.countValues()[card.getValue() - 1]);
+    }
+
+    @Test
+    void of_deckWithCardsRemoved_hasSameCounts() {
+        Deck deck = new Deck(DeckType.RANDOM, 2, false, RandomSource.create(5));
+        for (int i = 0; i < 20; i++) {
+            deck.draw();
+        }
+        RankShoe test = RankShoe.of(deck, RandomSource.create(6));
+        assertArrayEquals(deck.count(), test.count());
+        assertArrayEquals(deck.countValues(), test.countValues());
+        assertEquals(deck.getNumDrawn(), test.getNumDrawn());
+    }
+
+    @Test
+    void drawValue_noneLeft_throwsIllegalState() {
+        RankShoe test = new RankShoe(1, false, RandomSource.create(5));
+        for (int i = 0; i < 4; i++) {
+            test.drawValue(1);
+        }
+        assertThrows(IllegalStateException.class, () -> test.drawValue(1));
+    }
+
+    @Test
+    void getRunningCount_afterDrawsAndRollback_shouldCountCardsDrawn() {
+        // Given shoe with a mark
+        RankShoe test = new RankShoe(1, false, RandomSource.create(5));
+        long mark = test.mark();
+        // When low cards and an Ace are drawn
+        test.drawValue(5);
+        test.drawValue(2);
+        test.drawValue(1);
+        // Should count each card's tag
+        assertEquals(1, test.getRunningCount(CountingSystem.HI_LO));
+        assertEquals(1, test.getRunningCount(CountingSystem.KO));
+        assertEquals(3, test.getRunningCount(CountingSystem.OMEGA_II));
+        test.rollback(mark);
+        assertEquals(0, test.getRunningCount(CountingSystem.HI_LO));
+        assertTrue(CountingSystem.HI_LO.isBalanced());
+        assertFalse(CountingSystem.KO.isBalanced());
+    }
+}
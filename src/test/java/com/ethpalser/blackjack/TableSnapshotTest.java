@@ -0,0 +1,110 @@
+package com.ethpalser.blackjack;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+class TableSnapshotTest {
+
+    private static Table table(DeckType deckType) {
+        Table table = new Table(3, 2, GameMode.ALL_PLAYERS_VISIBLE, deckType, 10, RandomSource.create(7));
+        table.setup();
+        return table;
+    }
+
+    private static void assertSameState(Table expected, Table actual) {
+        assertEquals(expected.getDeck().size(), actual.getDeck().size());
+        assertArrayEquals(expected.getDeck().countValues(), actual.getDeck().countValues());
+        assertEquals(expected.getDealer().getHand(0).toString(), actual.getDealer().getHand(0).toString());
+        for (int p = 0; p < expected.getPlayers().size(); p++) {
+            Player player = expected.getPlayer(p);
+            Player other = actual.getPlayer(p);
+            assertEquals(player.getMoney(), other.getMoney());
+            assertEquals(player.getHandQty(), other.getHandQty());
+            for (int h = 0; h < player.getHandQty(); h++) {
+                assertEquals(player.getHand(h).toString(), other.getHand(h).toString());
+                assertEquals(player.getHand(h).getBet(), other.getHand(h).getBet());
+            }
+        }
+    }
+
+    @Test
+    void restore_afterPlayingOn_returnsToSnapshot() {
+        for (DeckType deckType : DeckType.values()) {
+            // given a table part way through a round
+            Table table = table(deckType);
+            table.play(0, 0, PlayerChoice.HIT);
+            Table expected = new Table(table);
+            TableSnapshot snapshot = table.snapshot();
+            // when the round is played on, then restored
+            Card upCard = table.getDealer().getHand(0).getCard(1);
+            for (Player player : table.getPlayers()) {
+                table.autoplay(player, 0, upCard);
+            }
+            table.resolve();
+            table.restore(snapshot);
+            // then
+            assertSameState(expected, table);
+        }
+    }
+
+    @Test
+    void newTable_fromSnapshotWithSameSeed_dealsSameCards() {
+        // given
+        TableSnapshot snapshot = table(DeckType.RANDOM).snapshot();
+        // when
+        Table first = new Table(snapshot, RandomSource.create(3));
+        Table second = new Table(snapshot, RandomSource.create(3));
+        // then
+        assertSameState(first, second);
+        for (int i = 0; i < 20; i++) {
+            assertEquals(first.getDeck().draw(), second.getDeck().draw());
+        }
+    }
+
+    @Test
+    void snapshot_tableChangedAfter_doesNotChange() {
+        // given
+        Table table = table(DeckType.SEGMENTED);
+        TableSnapshot snapshot = table.snapshot();
+        String hand = snapshot.getHand(0, 0).toString();
+        int money = snapshot.getMoney(0);
+        // when
+        table.play(0, 0, PlayerChoice.DOUBLE_DOWN);
+        snapshot.getHand(0, 0).addCard(Card.of(CardType.ACE));
+        // then
+        assertEquals(hand, snapshot.getHand(0, 0).toString());
+        assertEquals(money, snapshot.getMoney(0));
+        assertEquals(3, snapshot.getNumPlayers());
+    }
+
+    @Test
+    void restore_thenMarkAndReset_resetsToRestoredState() {
+        // given
+        Table table = table(DeckType.RANDOM);
+        TableSnapshot snapshot = table.snapshot();
+        table.play(1, 0, PlayerChoice.HIT);
+        // when
+        table.restore(snapshot);
+        // then the old mark is gone, and a new one resets to the snapshot
+        assertThrows(IllegalStateException.class, table::reset);
+        table.mark();
+        table.play(1, 0, PlayerChoice.HIT);
+        table.reset();
+        assertSameState(new Table(snapshot, RandomSource.create(1)), table);
+    }
+
+    @Test
+    void restore_differentNumberOfPlayers_throws() {
+        Table table = table(DeckType.RANDOM);
+        Table other = new Table(2, 2, GameMode.ALL_PLAYERS_VISIBLE, DeckType.RANDOM, 10, RandomSource.create(7));
+        other.setup();
+        assertThrows(IllegalArgumentException.class, () -> table.restore(other.snapshot()));
+    }
+
+    @Test
+    void restore_differentKindOfShoe_throws() {
+        Table table = table(DeckType.RANDOM);
+        TableSnapshot snapshot = table(DeckType.RANK_ONLY).snapshot();
+        assertThrows(IllegalArgumentException.class, () -> table.restore(snapshot));
+    }
+}
@@ -0,0 +1,35 @@
+package com.ethpalser.blackjack;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+class TableTest {
+
+    @Test
+    void getRunningCount_afterSetup_countsOnlyVisibleCards() {
+        // given
+        Table table = new Table(2, 1, GameMode.ALL_PLAYERS_VISIBLE, DeckType.RANDOM, 10, RandomSource.create(3));
+        table.setup();
+        // when
+        int runningCount = table.getRunningCount(CountingSystem.HI_LO);
+        // then the dealer's hidden card is not counted, though it has left the deck
+        int expected = CountingSystem.HI_LO.getTag(table.getDealer().getHand(0).getCard(1).getValue());
+        for (Player player : table.getPlayers()) {
+            Hand hand = player.getHand(0);
+            for (int i = 0; i < hand.size(); i++) {
+                expected += CountingSystem.HI_LO.getTag(hand.getCard(i).getValue());
+            }
+        }
+        assertEquals(expected, runningCount);
+        assertEquals(expected * 52.0 / 47, table.getTrueCount(CountingSystem.HI_LO), 1e-12);
+        int hiddenTag = CountingSystem.HI_LO.getTag(table.getDealer().getHand(0).getCard(0).getValue());
+        assertEquals(expected + hiddenTag, table.getDeck().getRunningCount(CountingSystem.HI_LO));
+    }
+
+    @Test
+    void getTrueCount_unbalancedSystem_throws() {
+        Table table = new Table(1, 6, GameMode.ALL_PLAYERS_VISIBLE, DeckType.RANDOM, 10, RandomSource.create(3));
+        table.setup();
+        assertThrows(IllegalArgumentException.class, () -> table.getTrueCount(CountingSystem.KO));
+    }
+}
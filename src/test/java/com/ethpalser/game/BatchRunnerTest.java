@@ -0,0 +1,209 @@
+package com.ethpalser.game;
+
+import com.ethpalser.blackjack.DeckType;
+import com.ethpalser.blackjack.RandomSource;
+import com.ethpalser.blackjack.Table;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class BatchRunnerTest {
+
+    private static final String TABLE = "2\n1\n10\nx 7\n10 6\nA 5\n";
+    // Three players, which the failing runner below cannot simulate
+    private static final String FAILING_TABLE = "3\n1\n10\nx 7\n10 6\nA 5\n9 9\n";
+    private static final String INVALID_TABLE = "1\n1\n10\nx 7\nZ 6\n";
+
+    @TempDir
+    Path dir;
+
+    private static BatchRunner runner(boolean isJson, long numTrials) {
+        return new BatchRunner(StopRule.trials(numTrials), SamplingMode.PLAIN, DeckType.RANDOM, isJson, 2,
+                RandomSource.create(1));
+    }
+
+    /**
+     * @return Runner that fails while simulating any table of three players, after the table has been read
+     */
+    private static BatchRunner failingRunner(boolean isJson) {
+        return new BatchRunner(StopRule.trials(100), SamplingMode.PLAIN, DeckType.RANDOM, isJson, 2,
+                RandomSource.create(1)) {
+            @Override
+            SimulationResult simulate(Table table, RandomSource source) {
+                if (table.getPlayers().size() == 3) {
+                    throw new IllegalStateException("Simulation failed.");
+                }
+                return super.simulate(table, source);
+            }
+        };
+    }
+
+    private Path write(String name, String text) throws IOException {
+        Path path = dir.resolve(name);
+        Files.createDirectories(path.getParent());
+        return Files.writeString(path, text);
+    }
+
+    private static List<String> run(BatchRunner runner, List<Path> scenarios) throws Exception {
+        StringWriter writer = new StringWriter();
+        runner.run(scenarios, writer);
+        return writer.toString().lines().toList();
+    }
+
+    /**
+     * @return Fields of one CSV line, where a quoted field may contain commas and doubled quotes
+     */
+    private static List<String> csvFields(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean isQuoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (isQuoted && c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                field.append('"');
+                i++;
+            } else if (c == '"') {
+                isQuoted = !isQuoted;
+            } else if (c == ',' && !isQuoted) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    @Test
+    void listScenarios_directory_listsEveryFileInPathOrder() throws IOException {
+        // given
+        Path b = write("b.txt", TABLE);
+        Path a = write("a.txt", TABLE);
+        Path nested = write("sub/c.txt", TABLE);
+        // when
+        List<Path> scenarios = BatchRunner.listScenarios(dir);
+        // then
+        assertEquals(List.of(a, b, nested), scenarios);
+    }
+
+    @Test
+    void listScenarios_manifest_resolvesRelativePathsAndSkipsComments() throws IOException {
+        // given
+        Path table = write("tables/one.txt", TABLE);
+        Path manifest = write("lists/manifest.txt", "# tables to run\n\n  ../tables/one.txt  \n#../tables/two.txt\n"
+                + table + "\n");
+        // when
+        List<Path> scenarios = BatchRunner.listScenarios(manifest);
+        // then
+        assertEquals(2, scenarios.size());
+        assertEquals(table, scenarios.get(0).normalize());
+        assertEquals(table, scenarios.get(1));
+    }
+
+    @Test
+    void run_someScenariosFail_writesOneLinePerScenario() throws Exception {
+        // given a table that cannot be read and one that cannot be simulated among tables that can
+        List<Path> scenarios = List.of(write("good1.txt", TABLE), write("invalid.txt", INVALID_TABLE),
+                write("failing.txt", FAILING_TABLE), write("good2.txt", TABLE));
+        // when
+        List<String> lines = run(failingRunner(false), scenarios);
+        // then
+        assertEquals(scenarios.size() + 1, lines.size());
+        Set<String> names = new HashSet<>();
+        for (String line : lines.subList(1, lines.size())) {
+            List<String> fields = csvFields(line);
+            names.add(fields.get(0));
+            String error = fields.get(fields.size() - 1);
+            if (fields.get(0).endsWith("invalid.txt")) {
+                assertTrue(error.startsWith("Line 5:"));
+            } else if (fields.get(0).endsWith("failing.txt")) {
+                assertEquals("Simulation failed.", error);
+            } else {
+                assertEquals("", error);
+            }
+        }
+        assertEquals(scenarios.size(), names.size());
+    }
+
+    @Test
+    void run_csv_everyRowHasTheHeaderColumns() throws Exception {
+        // given
+        List<Path> scenarios = List.of(write("good.txt", TABLE), write("invalid.txt", INVALID_TABLE),
+                write("failing.txt", FAILING_TABLE));
+        // when
+        List<String> lines = run(failingRunner(false), scenarios);
+        // then
+        int numColumns = csvFields(lines.get(0)).size();
+        assertEquals(10, numColumns);
+        for (String line : lines.subList(1, lines.size())) {
+            assertEquals(numColumns, csvFields(line).size(), line);
+        }
+    }
+
+    @Test
+    void run_csv_resultRowHasEachPlayersRates() throws Exception {
+        // given
+        Path scenario = write("good.txt", TABLE);
+        // when
+        List<String> fields = csvFields(run(runner(false, 1000), List.of(scenario)).get(1));
+        // then
+        assertEquals(scenario.toString(), fields.get(0));
+        assertEquals("2", fields.get(1));
+        assertEquals("1000", fields.get(2));
+        assertEquals(2, fields.get(4).split(";").length);
+    }
+
+    @Test
+    void run_csvNameWithCommaAndQuote_isQuoted() throws Exception {
+        // given
+        Path scenario = write("a,\"b\".txt", TABLE);
+        // when
+        String line = run(runner(false, 100), List.of(scenario)).get(1);
+        // then
+        assertTrue(line.startsWith("\"" + scenario.toString().replace("\"", "\"\"") + "\","));
+        assertEquals(scenario.toString(), csvFields(line).get(0));
+    }
+
+    @Test
+    void run_json_everyLineParses() throws Exception {
+        // given names that must be escaped, and a table that cannot be read
+        Path quoted = write("a\"b\\c.txt", TABLE);
+        Path invalid = write("invalid\t.txt", INVALID_TABLE);
+        // when
+        List<String> lines = run(runner(true, 1000), List.of(quoted, invalid));
+        // then
+        assertEquals(2, lines.size());
+        for (String line : lines) {
+            Map<?, ?> json = (Map<?, ?>) Json.parse(line);
+            if (json.get("scenario").equals(quoted.toString())) {
+                assertEquals(2.0, json.get("players"));
+                assertEquals(1000.0, json.get("trials"));
+                assertEquals(2, ((List<?>) json.get("win_estimate")).size());
+            } else {
+                assertEquals(invalid.toString(), json.get("scenario"));
+                assertTrue(((String) json.get("error")).startsWith("Line 5:"));
+            }
+        }
+    }
+
+    @Test
+    void run_jsonOneTrial_writesNullStandardError() throws Exception {
+        // given
+        Path scenario = write("good.txt", TABLE);
+        // when
+        Map<?, ?> json = (Map<?, ?>) Json.parse(run(runner(true, 1), List.of(scenario)).get(0));
+        // then
+        assertEquals(Arrays.asList(null, null), json.get("standard_error"));
+    }
+}
@@ -0,0 +1,173 @@
+package com.ethpalser.game;
+
+import com.ethpalser.blackjack.DeckType;
+import com.ethpalser.blackjack.ExpectimaxSolver;
+import com.ethpalser.blackjack.GameMode;
+import com.ethpalser.blackjack.PlayerChoice;
+import com.ethpalser.blackjack.RandomSource;
+import com.ethpalser.blackjack.Table;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+class ChoiceAdvisorTest {
+
+    private static final long BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private static Table read(String text) throws IOException {
+        return TableFile.read(new BufferedReader(new StringReader(text)), GameMode.ALL_PLAYERS_VISIBLE,
+                DeckType.RANDOM);
+    }
+
+    @Test
+    void advise_twentyAgainstSix_standIsBest() throws IOException {
+        // given
+        Table table = read("1\n6\n10\nx 6\n10 10\n");
+        // when
+        ChoiceAdvice advice;
+        try (ChoiceAdvisor advisor = new ChoiceAdvisor(2, BUDGET_NANOS, 0, RandomSource.create(1))) {
+            advice = advisor.advise(table, 0, 0, List.of(PlayerChoice.HIT, PlayerChoice.STAND));
+        }
+        // then
+        assertEquals(PlayerChoice.STAND, advice.getBestChoice());
+        assertTrue(advice.getEv(PlayerChoice.STAND) > 0.3);
+        assertTrue(advice.getEv(PlayerChoice.HIT) < 0);
+        assertTrue(advice.getWinRate(PlayerChoice.STAND) > advice.getWinRate(PlayerChoice.HIT));
+        assertTrue(advice.getNumTrials() >= 2);
+    }
+
+    @Test
+    void advise_surrender_losesExactlyHalf() throws IOException {
+        // given
+        Table table = read("2\n6\n10\nx 10\n10 6\n9 9\n");
+        // when
+        ChoiceAdvice advice;
+        try (ChoiceAdvisor advisor = new ChoiceAdvisor(1, BUDGET_NANOS, 0, RandomSource.create(2))) {
+            advice = advisor.advise(table, 0, 0, List.of(PlayerChoice.STAND, PlayerChoice.SURRENDER));
+        }
+        // then
+        assertEquals(-0.5, advice.getEv(PlayerChoice.SURRENDER), 1e-12);
+        assertEquals(0, advice.getEvStandardError(PlayerChoice.SURRENDER), 1e-12);
+        assertEquals(0, advice.getWinRate(PlayerChoice.SURRENDER), 1e-12);
+        assertEquals(List.of(PlayerChoice.STAND, PlayerChoice.SURRENDER), advice.getChoices());
+    }
+
+    @Test
+    void advise_split_doesNotChangeTable() throws IOException {
+        // given
+        Table table = read("2\n1\n10\nx 6\n8 8\n10 7\n");
+        String before = table.toString(0, true);
+        int numCards = table.getDeck().size();
+        // when
+        ChoiceAdvice advice;
+        try (ChoiceAdvisor advisor = new ChoiceAdvisor(2, BUDGET_NANOS, 0, RandomSource.create(3))) {
+            advice = advisor.advise(table, 0, 0, List.of(PlayerChoice.HIT, PlayerChoice.STAND, PlayerChoice.SPLIT));
+        }
+        // then
+        assertEquals(before, table.toString(0, true));
+        assertEquals(numCards, table.getDeck().size());
+        assertEquals(1, table.getPlayer(0).getHandQty());
+        assertTrue(advice.getEv(PlayerChoice.SPLIT) > advice.getEv(PlayerChoice.STAND));
+    }
+
+    @Test
+    void advise_shortBudget_returnsSoon() throws IOException {
+        // given
+        Table table = read("1\n6\n10\nx 9\n10 2\n");
+        // when
+        ChoiceAdvice advice;
+        try (ChoiceAdvisor advisor = new ChoiceAdvisor(2, TimeUnit.MILLISECONDS.toNanos(5), 0,
+                RandomSource.create(4))) {
+            advice = advisor.advise(table, 0, 0, List.of(PlayerChoice.HIT, PlayerChoice.STAND,
+                    PlayerChoice.DOUBLE_DOWN));
+        }
+        // then
+        assertTrue(advice.getNumTrials() >= 2);
+        assertTrue(advice.getElapsedNanos() < TimeUnit.SECONDS.toNanos(5));
+    }
+
+    @Test
+    void advise_missingHandOrClosed_throws() throws IOException {
+        Table table = read("1\n1\n10\nx 7\n10 10\n");
+        ChoiceAdvisor advisor = new ChoiceAdvisor(1, BUDGET_NANOS, 0, RandomSource.create(5));
+        List<PlayerChoice> choices = List.of(PlayerChoice.STAND);
+        assertThrows(IllegalArgumentException.class, () -> advisor.advise(table, 0, 1, choices));
+        assertThrows(IllegalArgumentException.class, () -> advisor.advise(table, 1, 0, choices));
+        advisor.close();
+        assertThrows(IllegalStateException.class, () -> advisor.advise(table, 0, 0, choices));
+    }
+
+    @Test
+    void advise_smallHand_solvesExactly() throws IOException {
+        // given
+        Table table = read("1\n6\n10\nx 10\n10 6\n");
+        List<PlayerChoice> choices = List.of(PlayerChoice.HIT, PlayerChoice.STAND, PlayerChoice.SURRENDER);
+        // when
+        ChoiceAdvice advice;
+        try (ChoiceAdvisor advisor = new ChoiceAdvisor(1, BUDGET_NANOS, ExpectimaxSolver.DEFAULT_MAX_STATES,
+                RandomSource.create(6))) {
+            advice = advisor.advise(table, 0, 0, choices);
+        }
+        // then
+        assertTrue(advice.isExact());
+        assertEquals(0, advice.getNumTrials());
+        assertEquals(0, advice.getEvStandardError(PlayerChoice.HIT));
+        assertEquals(-0.5, advice.getEv(PlayerChoice.SURRENDER));
+        assertEquals(choices, advice.getChoices());
+    }
+
+    @Test
+    void advise_moreStatesThanBudget_samplesInstead() throws IOException {
+        // given
+        Table table = read("1\n6\n10\nx 6\nA 2\n");
+        // when
+        ChoiceAdvice advice;
+        try (ChoiceAdvisor advisor = new ChoiceAdvisor(1, BUDGET_NANOS, 1, RandomSource.create(7))) {
+            advice = advisor.advise(table, 0, 0, List.of(PlayerChoice.HIT, PlayerChoice.STAND));
+        }
+        // then
+        assertFalse(advice.isExact());
+        assertTrue(advice.getNumTrials() > 0);
+    }
+
+    @Test
+    void advise_pairAfterHit_leavesOutSplit() throws IOException {
+        // given a pair that was hit, so it can no longer be split
+        Table table = read("1\n6\n10\nx 6\n4 4\n");
+        table.play(0, 0, PlayerChoice.HIT);
+        List<PlayerChoice> choices = List.of(PlayerChoice.HIT, PlayerChoice.STAND, PlayerChoice.SPLIT);
+        // when
+        ChoiceAdvice exact;
+        ChoiceAdvice sampled;
+        try (ChoiceAdvisor advisor = new ChoiceAdvisor(1, BUDGET_NANOS, ExpectimaxSolver.DEFAULT_MAX_STATES,
+                RandomSource.create(8))) {
+            exact = advisor.advise(table, 0, 0, choices);
+        }
+        try (ChoiceAdvisor advisor = new ChoiceAdvisor(1, BUDGET_NANOS, 0, RandomSource.create(8))) {
+            sampled = advisor.advise(table, 0, 0, choices);
+        }
+        // then
+        assertEquals(List.of(PlayerChoice.HIT, PlayerChoice.STAND), exact.getChoices());
+        assertEquals(List.of(PlayerChoice.HIT, PlayerChoice.STAND), sampled.getChoices());
+    }
+
+    @Test
+    void advise_solverOutOfTime_stillSamplesManyTrials() throws IOException {
+        // given a hand with too many states to solve in half of the budget
+        Table table = read("1\n6\n10\nx A\n2 3\n");
+        // when
+        ChoiceAdvice advice;
+        try (ChoiceAdvisor advisor = new ChoiceAdvisor(2, TimeUnit.MILLISECONDS.toNanos(20), Integer.MAX_VALUE,
+                RandomSource.create(9))) {
+            advice = advisor.advise(table, 0, 0, List.of(PlayerChoice.HIT, PlayerChoice.STAND,
+                    PlayerChoice.DOUBLE_DOWN));
+        }
+        // then sampling had its own share of the budget
+        assertFalse(advice.isExact());
+        assertTrue(advice.getNumTrials() > 2);
+    }
+}
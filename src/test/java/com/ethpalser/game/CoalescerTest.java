@@ -0,0 +1,73 @@
+package com.ethpalser.game;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+class CoalescerTest {
+
+    @Test
+    void get_sameKeyWhileRunning_sharesComputation() throws Exception {
+        // given
+        Coalescer<String, Object> coalescer = new Coalescer<>();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        CompletableFuture<Object> first = CompletableFuture.supplyAsync(() -> coalescer.get("table", () -> {
+            calls.incrementAndGet();
+            started.countDown();
+            awaitQuietly(release);
+            return new Object();
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        // when
+        CompletableFuture<Object> second = CompletableFuture.supplyAsync(() -> coalescer.get("table", () -> {
+            calls.incrementAndGet();
+            return new Object();
+        }));
+        while (coalescer.getNumCoalesced() == 0) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+        // then
+        assertSame(first.get(5, TimeUnit.SECONDS), second.get(5, TimeUnit.SECONDS));
+        assertEquals(1, calls.get());
+        assertEquals(1, coalescer.getNumComputed());
+    }
+
+    @Test
+    void get_sameKeyAfterFinished_computesAgain() {
+        // given
+        Coalescer<String, Integer> coalescer = new Coalescer<>();
+        coalescer.get("table", () -> 1);
+        // when
+        int value = coalescer.get("table", () -> 2);
+        // then
+        assertEquals(2, value);
+        assertEquals(2, coalescer.getNumComputed());
+        assertEquals(0, coalescer.getNumCoalesced());
+    }
+
+    @Test
+    void get_supplierThrows_throwsAndForgetsKey() {
+        // given
+        Coalescer<String, Integer> coalescer = new Coalescer<>();
+        // when
+        assertThrows(IllegalArgumentException.class, () -> coalescer.get("table", () -> {
+            throw new IllegalArgumentException("Line 1: bad");
+        }));
+        // then
+        assertEquals(3, coalescer.get("table", () -> 3));
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.ethpalser.game;
+
+import com.ethpalser.blackjack.DealerRule;
+import com.ethpalser.blackjack.DeckType;
+import com.ethpalser.blackjack.EvTable;
+import com.ethpalser.blackjack.GameMode;
+import com.ethpalser.blackjack.PlayerChoice;
+import com.ethpalser.blackjack.RandomSource;
+import com.ethpalser.blackjack.Table;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class EvGridTest {
+
+    // Columns of the values returned by playHand()
+    private static final int HIT = 0;
+    private static final int STAND = 1;
+    private static final int SPLIT = 2;
+    private static final int SURRENDER = 4;
+    private static final int ROWS_PER_DECK_TYPE = 55 * 10;
+
+    private static EvGrid grid(long numTrials) {
+        return new EvGrid(numTrials, DealerRule.STAND_SOFT_17, 1, RandomSource.create(42));
+    }
+
+    private static Table table(DeckType deckType) {
+        return new Table(1, 1, GameMode.ALL_PLAYERS_VISIBLE, deckType, 10, RandomSource.create(7));
+    }
+
+    @Test
+    void playHand_hardSixteenAgainstTen_surrenderIsHalfAndSplitIsMissing() {
+        // given
+        Table table = table(DeckType.RANK_ONLY);
+        // when
+        double[] evs = grid(2000).playHand(table, 10, 6, 10);
+        // then
+        assertEquals(-0.5, evs[SURRENDER]);
+        assertTrue(Double.isNaN(evs[SPLIT]));
+        assertTrue(evs[STAND] < 0);
+    }
+
+    @Test
+    void playHand_hardTwentyAgainstSix_standIsBetterThanHit() {
+        // given
+        Table table = table(DeckType.RANK_ONLY);
+        // when
+        double[] evs = grid(2000).playHand(table, 10, 10, 6);
+        // then
+        assertTrue(evs[STAND] > 0.5);
+        assertTrue(evs[STAND] > evs[HIT]);
+    }
+
+    @Test
+    void playHand_pairOfTensInDeck_canSplitAndRollsBackShoe() {
+        // given
+        Table table = table(DeckType.SEGMENTED);
+        int[] counts = table.getDeck().countValues();
+        // when
+        double[] evs = grid(200).playHand(table, 10, 10, 5);
+        // then
+        assertFalse(Double.isNaN(evs[SPLIT]));
+        assertArrayEquals(counts, table.getDeck().countValues());
+        assertEquals(52, table.getDeck().size());
+    }
+
+    @Test
+    void generate_interruptedFile_generatesOnlyMissingRows(@TempDir Path dir) throws IOException,
+            InterruptedException {
+        // given
+        Path out = dir.resolve("grid.csv");
+        grid(5).generate(out, 1, 1, List.of(DeckType.RANDOM));
+        List<String> lines = Files.readAllLines(out);
+        assertEquals(2 + ROWS_PER_DECK_TYPE, lines.size());
+        List<String> kept = new ArrayList<>(lines.subList(0, 100));
+        // A row that was being written when the run stopped
+        Files.writeString(out, String.join("\n", kept) + "\n1,RANDOM,A-");
+        // when
+        int written = grid(5).generate(out, 1, 1, List.of(DeckType.RANDOM));
+        // then
+        List<String> resumed = Files.readAllLines(out);
+        assertEquals(ROWS_PER_DECK_TYPE - 98, written);
+        assertEquals(lines.size(), resumed.size());
+        assertTrue(resumed.containsAll(kept));
+        assertTrue(resumed.get(2).startsWith("1,RANDOM,A-A,A,"));
+    }
+
+    @Test
+    void writeTable_generatedGrid_hasEveryRow(@TempDir Path dir) throws IOException, InterruptedException {
+        // given
+        Path out = dir.resolve("grid.csv");
+        Path tableOut = dir.resolve("grid.bin");
+        grid(2).generate(out, 2, 2, List.of(DeckType.SEGMENTED));
+        String row = Files.readAllLines(out).stream().filter(line -> line.startsWith("2,SEGMENTED,8-8,10,"))
+                .findFirst().orElseThrow();
+        String[] fields = row.split(",", -1);
+        // when
+        EvGrid.writeTable(List.of(out), tableOut);
+        // then
+        EvTable table = EvTable.open(tableOut);
+        assertEquals(Float.parseFloat(fields[4 + SPLIT]), table.getEv(DealerRule.STAND_SOFT_17, 2,
+                DeckType.SEGMENTED, 8, 8, 10, PlayerChoice.SPLIT));
+        assertEquals(-0.5f, table.getEv(DealerRule.STAND_SOFT_17, 2, DeckType.SEGMENTED, 8, 8, 10,
+                PlayerChoice.SURRENDER));
+        assertTrue(Float.isNaN(table.getEv(DealerRule.HIT_SOFT_17, 2, DeckType.SEGMENTED, 8, 8, 10,
+                PlayerChoice.SURRENDER)));
+    }
+
+    @Test
+    void generate_differentTrials_throws(@TempDir Path dir) throws IOException, InterruptedException {
+        // given
+        Path out = dir.resolve("grid.csv");
+        grid(1).generate(out, 1, 1, List.of(DeckType.RANDOM));
+        // when / then
+        assertThrows(IllegalArgumentException.class, () -> grid(2).generate(out, 1, 1, List.of(DeckType.RANDOM)));
+    }
+}
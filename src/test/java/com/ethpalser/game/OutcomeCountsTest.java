@@ -0,0 +1,113 @@
+package com.ethpalser.game;
+
+import com.ethpalser.blackjack.DeckType;
+import com.ethpalser.blackjack.GameMode;
+import com.ethpalser.blackjack.HandResult;
+import com.ethpalser.blackjack.RandomSource;
+import com.ethpalser.blackjack.Table;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+class OutcomeCountsTest {
+
+    @Test
+    void add_handsOfEachResult_countsThemByHandAndMoney() {
+        // given
+        OutcomeCounts.Tally tally = new OutcomeCounts.Tally(2);
+        // when
+        tally.add(0, 0, HandResult.WIN, 10);
+        tally.add(0, 1, HandResult.LOSS, 20);
+        tally.add(0, 1, HandResult.DRAW, 10);
+        tally.add(1, 0, HandResult.LOSS, 5);
+        OutcomeCounts counts = tally.snapshot();
+        // then
+        assertEquals(1, counts.getCount(0, 0, HandResult.WIN));
+        assertEquals(2, counts.getHands(0, 1));
+        assertEquals(3, counts.getHands(0));
+        assertEquals(10, counts.getMoneyWon(0));
+        assertEquals(20, counts.getMoneyLost(0));
+        assertEquals(-10, counts.getNetMoney(0));
+        assertEquals(-5, counts.getNetMoney(1));
+    }
+
+    @Test
+    void snapshot_thenMoreHands_doesNotChange() {
+        // given
+        OutcomeCounts.Tally tally = new OutcomeCounts.Tally(1);
+        tally.add(0, 0, HandResult.WIN, 10);
+        OutcomeCounts counts = tally.snapshot();
+        // when
+        tally.add(0, 0, HandResult.WIN, 10);
+        // then
+        assertEquals(1, counts.getHands(0));
+    }
+
+    @Test
+    void merge_twoCounts_addsEveryCount() {
+        // given
+        OutcomeCounts.Tally first = new OutcomeCounts.Tally(1);
+        first.add(0, 0, HandResult.WIN, 10);
+        OutcomeCounts.Tally second = new OutcomeCounts.Tally(1);
+        second.add(0, 2, HandResult.LOSS, 10);
+        second.add(0, 0, HandResult.WIN, 10);
+        // when
+        OutcomeCounts merged = first.snapshot().merge(second.snapshot());
+        // then
+        assertEquals(2, merged.getCount(0, HandResult.WIN));
+        assertEquals(1, merged.getHands(0, 2));
+        assertEquals(10, merged.getNetMoney(0));
+    }
+
+    @Test
+    void merge_differentPlayers_throws() {
+        OutcomeCounts one = OutcomeCounts.empty(1);
+        assertThrows(IllegalArgumentException.class, () -> one.merge(OutcomeCounts.empty(2)));
+    }
+
+    @Test
+    void add_beyondIntRange_doesNotOverflow() {
+        // given
+        OutcomeCounts.Tally tally = new OutcomeCounts.Tally(1);
+        tally.add(0, 0, HandResult.WIN, Integer.MAX_VALUE);
+        tally.add(0, 0, HandResult.WIN, Integer.MAX_VALUE);
+        // when
+        OutcomeCounts counts = tally.snapshot().merge(tally.snapshot());
+        // then
+        assertEquals(4L * Integer.MAX_VALUE, counts.getMoneyWon(0));
+    }
+
+    @Test
+    void simulate_countsByHand_matchTotalsAndSplits() {
+        // given
+        Table table = new Table(3, 6, GameMode.ALL_PLAYERS_VISIBLE, DeckType.RANDOM, 10, RandomSource.create(7));
+        table.setup();
+        // when
+        SimulationResult result = Simulation.simulate(table, StopRule.trials(20_000), 2, RandomSource.create(1));
+        // then
+        OutcomeCounts counts = result.getOutcomes();
+        long splits = 0;
+        for (int p = 0; p < counts.getNumPlayers(); p++) {
+            assertEquals(20_000, counts.getHands(p, 0));
+            assertEquals(result.getWins(p) + result.getDraws(p) + result.getLosses(p), counts.getHands(p));
+            splits += counts.getHands(p) - counts.getHands(p, 0);
+        }
+        assertEquals(result.getMetrics().getSplits(), splits);
+    }
+
+    @Test
+    void merge_twoRuns_combinesTrialsAndRates() {
+        // given
+        Table table = new Table(1, 6, GameMode.ALL_PLAYERS_VISIBLE, DeckType.RANDOM, 10, RandomSource.create(7));
+        table.setup();
+        SimulationResult first = Simulation.simulate(table, StopRule.trials(10_000), 1, RandomSource.create(1));
+        SimulationResult second = Simulation.simulate(table, StopRule.trials(30_000), 1, RandomSource.create(2));
+        // when
+        SimulationResult merged = first.merge(second);
+        // then
+        assertEquals(40_000, merged.getNumSimulations());
+        assertEquals(first.getWins(0) + second.getWins(0), merged.getWins(0));
+        assertEquals((first.getWinEstimate(0) + 3 * second.getWinEstimate(0)) / 4, merged.getWinEstimate(0), 1e-12);
+        assertTrue(merged.getWinStandardError(0) < second.getWinStandardError(0));
+        assertEquals(40_000, merged.getMetrics().getTrials());
+    }
+}
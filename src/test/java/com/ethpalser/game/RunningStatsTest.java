@@ -0,0 +1,57 @@
+package com.ethpalser.game;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+class RunningStatsTest {
+
+    private static final double DELTA = 1e-12;
+
+    @Test
+    void add_knownValues_hasMeanAndSampleVariance() {
+        RunningStats stats = new RunningStats();
+        for (double x : new double[]{2, 4, 4, 4, 5, 5, 7, 9}) {
+            stats.add(x);
+        }
+        assertEquals(8, stats.getCount());
+        assertEquals(5.0, stats.getMean(), DELTA);
+        assertEquals(32.0 / 7, stats.getVariance(), DELTA);
+    }
+
+    @Test
+    void merge_twoHalves_equalsAddingAll() {
+        // given
+        RunningStats all = new RunningStats();
+        RunningStats first = new RunningStats();
+        RunningStats second = new RunningStats();
+        for (int i = 0; i < 100; i++) {
+            double x = (i * 37 % 11) / 3.0;
+            all.add(x);
+            (i < 30 ? first : second).add(x);
+        }
+        // when
+        first.merge(second);
+        // then
+        assertEquals(all.getCount(), first.getCount());
+        assertEquals(all.getMean(), first.getMean(), DELTA);
+        assertEquals(all.getVariance(), first.getVariance(), DELTA);
+    }
+
+    @Test
+    void ofSuccesses_equalsAddingOnesAndZeros() {
+        RunningStats added = new RunningStats();
+        for (int i = 0; i < 50; i++) {
+            added.add(i < 20 ? 1 : 0);
+        }
+        RunningStats counted = RunningStats.ofSuccesses(20, 50);
+        assertEquals(added.getMean(), counted.getMean(), DELTA);
+        assertEquals(added.getVariance(), counted.getVariance(), DELTA);
+    }
+
+    @Test
+    void getHalfWidth_oneObservation_isInfinite() {
+        RunningStats stats = new RunningStats();
+        stats.add(1);
+        assertEquals(Double.POSITIVE_INFINITY, stats.getHalfWidth());
+    }
+}
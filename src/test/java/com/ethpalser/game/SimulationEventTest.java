@@ -0,0 +1,87 @@
+package com.ethpalser.game;
+
+import com.ethpalser.blackjack.Deck;
+import com.ethpalser.blackjack.DeckType;
+import com.ethpalser.blackjack.GameMode;
+import com.ethpalser.blackjack.RandomSource;
+import com.ethpalser.blackjack.Table;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SimulationEventTest {
+
+    @TempDir
+    Path dir;
+
+    private List<RecordedEvent> record(String eventName, Runnable action) throws IOException {
+        Path file = dir.resolve("recording.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(eventName).withoutThreshold();
+            recording.start();
+            action.run();
+            recording.stop();
+            recording.dump(file);
+        }
+        return RecordingFile.readAllEvents(file).stream()
+                .filter(event -> event.getEventType().getName().equals(eventName))
+                .toList();
+    }
+
+    @Test
+    void simulate_whileRecording_recordsOneSimulationEvent() throws IOException {
+        // given
+        Table table = new Table(2, 6, GameMode.ALL_PLAYERS_VISIBLE, DeckType.RANDOM, 10, RandomSource.create(7));
+        table.setup();
+        // when
+        List<RecordedEvent> events = record("com.ethpalser.blackjack.Simulation",
+                () -> Simulation.simulate(table, StopRule.trials(2000), 2, RandomSource.create(1)));
+        // then
+        assertEquals(1, events.size());
+        RecordedEvent event = events.get(0);
+        assertEquals(2000, event.getLong("numTrials"));
+        assertEquals(2, event.getInt("numPlayers"));
+        assertEquals(6, event.getInt("numDecks"));
+        assertEquals("PLAIN", event.getString("samplingMode"));
+    }
+
+    @Test
+    void draw_pastEveryCard_recordsReshuffleEvent() throws IOException {
+        // given
+        Deck deck = new Deck(DeckType.RANDOM, 1, false, RandomSource.create(3));
+        // when
+        List<RecordedEvent> events = record("com.ethpalser.blackjack.Reshuffle", () -> {
+            for (int i = 0; i < 60; i++) {
+                deck.draw();
+            }
+        });
+        // then
+        assertEquals(1, events.size());
+        assertEquals("Deck", events.get(0).getString("shoe"));
+        assertEquals(1, events.get(0).getInt("numDecks"));
+    }
+
+    @Test
+    void simulate_notRecording_recordsNothing() throws IOException {
+        // given
+        Table table = new Table(1, 1, GameMode.ALL_PLAYERS_VISIBLE, DeckType.RANDOM, 10, RandomSource.create(7));
+        table.setup();
+        // when
+        Path file = dir.resolve("empty.jfr");
+        try (Recording recording = new Recording()) {
+            recording.start();
+            Simulation.simulate(table, StopRule.trials(100), 1, RandomSource.create(1));
+            recording.stop();
+            recording.dump(file);
+        }
+        // then events are off unless enabled, e.g. by the settings profile
+        assertTrue(RecordingFile.readAllEvents(file).stream()
+                .noneMatch(event -> event.getEventType().getName().startsWith("com.ethpalser.")));
+    }
+}
@@ -0,0 +1,99 @@
+package com.ethpalser.game;
+
+import com.ethpalser.blackjack.DeckType;
+import com.ethpalser.blackjack.GameMode;
+import com.ethpalser.blackjack.RandomSource;
+import com.ethpalser.blackjack.Table;
+import java.lang.management.ManagementFactory;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+class SimulationMetricsTest {
+
+    private static Table table() {
+        Table table = new Table(2, 6, GameMode.ALL_PLAYERS_VISIBLE, DeckType.RANDOM, 10, RandomSource.create(7));
+        table.setup();
+        return table;
+    }
+
+    @Test
+    void simulate_fixedTrials_countsEveryTrialAndHand() {
+        // when
+        SimulationResult result = Simulation.simulate(table(), StopRule.trials(10_000), 2, RandomSource.create(1));
+        // then
+        SimulationMetrics metrics = result.getMetrics();
+        assertEquals(10_000, metrics.getTrials());
+        long hands = 0;
+        for (int p = 0; p < result.getNumPlayers(); p++) {
+            hands += result.getHands(p);
+        }
+        assertEquals(hands, metrics.getHands());
+        assertEquals(hands - 2 * 10_000, metrics.getSplits());
+        assertTrue(metrics.getCardsDrawn() >= 10_000);
+        assertTrue(metrics.getHandsPerSecond() > 0);
+    }
+
+    @Test
+    void simulate_fixedTrials_countsAutoplayOncePerPlayerPerTrial() {
+        // when
+        SimulationMetrics metrics = Simulation.simulate(table(), StopRule.trials(5000), 1, RandomSource.create(2))
+                .getMetrics();
+        // then
+        long calls = 0;
+        for (long count : metrics.getAutoplayDepths()) {
+            calls += count;
+        }
+        assertEquals(2 * 5000, calls);
+    }
+
+    @Test
+    void simulate_precision_timesSomeOfEveryRound() {
+        // when
+        SimulationMetrics metrics = Simulation.simulate(table(), StopRule.precision(0.01, 1_000_000), 2,
+                RandomSource.create(3)).getMetrics();
+        // then
+        assertTrue(metrics.getSampledTrials() > 0);
+        assertTrue(metrics.getSampledTrials() < metrics.getTrials());
+        for (SimulationMetrics.Phase phase : SimulationMetrics.Phase.values()) {
+            assertTrue(metrics.getPhaseNanos(phase) > 0, phase.getDisplay());
+        }
+        assertTrue(metrics.report().contains("hands/sec"));
+    }
+
+    @Test
+    void global_afterSimulating_isRegisteredAndIncludesTheRun() throws Exception {
+        // given
+        long before = SimulationMetrics.global().getTrials();
+        // when
+        Simulation.simulate(table(), StopRule.trials(1000), 1, RandomSource.create(4));
+        // then
+        assertTrue(SimulationMetrics.global().getTrials() >= before + 1000);
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(SimulationMetrics.OBJECT_NAME);
+        assertTrue(server.isRegistered(name));
+        assertTrue((Long) server.getAttribute(name, "Trials") >= 1000);
+    }
+
+    @Test
+    void reset_afterCounting_setsEveryCounterToZero() {
+        // given
+        SimulationMetrics metrics = new SimulationMetrics();
+        metrics.addTrials(10, 12);
+        metrics.addShoe(50, 3, 1);
+        metrics.addTable(2, new long[]{8, 2});
+        metrics.addSampled(1, new long[]{1, 2, 3, 4});
+        metrics.addElapsedNanos(100);
+        // when
+        metrics.reset();
+        // then
+        assertEquals(0, metrics.getTrials());
+        assertEquals(0, metrics.getHands());
+        assertEquals(0, metrics.getCardsDrawn());
+        assertEquals(0, metrics.getSplits());
+        assertEquals(0, metrics.getAutoplayDepths()[0]);
+        assertEquals(0, metrics.getDealNanos());
+        assertEquals(0, metrics.getHandsPerSecond());
+    }
+}
@@ -0,0 +1,110 @@
+package com.ethpalser.game;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SimulationServerTest {
+
+    private static final String TABLE = "2\n1\n10\nx 7\n10 6\nA 5\n";
+
+    private SimulationServer server;
+    private HttpClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new SimulationServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1_000_000);
+        server.start();
+        client = HttpClient.newHttpClient();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    private HttpRequest post(String query, String body) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + "/simulate" + query))
+                .POST(HttpRequest.BodyPublishers.ofString(body)).build();
+    }
+
+    @Test
+    void simulate_validTable_returnsRatesOfEveryPlayer() throws Exception {
+        // when
+        HttpResponse<String> response = client.send(post("?trials=2000&seed=1", TABLE),
+                HttpResponse.BodyHandlers.ofString());
+        // then
+        assertEquals(200, response.statusCode());
+        assertTrue(response.body().startsWith("{\"players\":2,\"trials\":2000,"));
+        assertTrue(response.body().contains("\"win_rate\":["));
+    }
+
+    @Test
+    void simulate_oneTrial_returnsValidJsonWithNullStandardError() throws Exception {
+        // when one trial, which has no standard error
+        HttpResponse<String> response = client.send(post("?trials=1&seed=1", TABLE),
+                HttpResponse.BodyHandlers.ofString());
+        // then
+        assertEquals(200, response.statusCode());
+        Map<?, ?> json = (Map<?, ?>) Json.parse(response.body());
+        assertEquals(Arrays.asList(null, null), json.get("standard_error"));
+        assertEquals(2, ((List<?>) json.get("win_rate")).size());
+    }
+
+    @Test
+    void simulate_invalidTable_returnsBadRequestWithLine() throws Exception {
+        // when
+        HttpResponse<String> response = client.send(post("", "1\n1\n10\nx 7\nZ 6\n"),
+                HttpResponse.BodyHandlers.ofString());
+        // then
+        assertEquals(400, response.statusCode());
+        assertTrue(response.body().contains("Line 5:"));
+    }
+
+    @Test
+    void simulate_tooManyTrials_returnsBadRequest() throws Exception {
+        HttpResponse<String> response = client.send(post("?trials=2000000", TABLE),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, response.statusCode());
+    }
+
+    @Test
+    void simulate_get_returnsMethodNotAllowed() throws Exception {
+        // given
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + "/simulate"))
+                .GET().build();
+        // when
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        // then
+        assertEquals(405, response.statusCode());
+    }
+
+    @Test
+    void simulate_manyIdenticalRequests_everyRequestIsAnsweredOnce() {
+        // given
+        int numRequests = 50;
+        List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+        // when
+        for (int i = 0; i < numRequests; i++) {
+            responses.add(client.sendAsync(post("?trials=20000", TABLE), HttpResponse.BodyHandlers.ofString()));
+        }
+        // then
+        for (CompletableFuture<HttpResponse<String>> response : responses) {
+            assertEquals(200, response.join().statusCode());
+        }
+        assertEquals(numRequests, server.getNumSimulated() + server.getNumCoalesced());
+    }
+}
@@ -0,0 +1,85 @@
+package com.ethpalser.game;
+
+import com.ethpalser.blackjack.DeckType;
+import com.ethpalser.blackjack.GameMode;
+import com.ethpalser.blackjack.RandomSource;
+import com.ethpalser.blackjack.Table;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+class SimulationTaskTest {
+
+    private static Table table() {
+        Table table = new Table(2, 6, GameMode.ALL_PLAYERS_VISIBLE, DeckType.RANDOM, 10, RandomSource.create(7));
+        table.setup();
+        return table;
+    }
+
+    @Test
+    void start_fixedTrials_playsThemAllInRoundsWithProgress() {
+        // given
+        List<SimulationProgress> published = new CopyOnWriteArrayList<>();
+        // when
+        SimulationTask task = SimulationTask.start(table(), StopRule.trials(50_000), SamplingMode.PLAIN, 2,
+                RandomSource.create(1), published::add);
+        SimulationResult result = task.join();
+        // then
+        assertEquals(50_000, result.getNumSimulations());
+        assertFalse(task.isCancelled());
+        assertTrue(task.isDone());
+        assertTrue(published.size() > 1);
+        for (int i = 1; i < published.size(); i++) {
+            assertTrue(published.get(i).getNumTrials() > published.get(i - 1).getNumTrials());
+        }
+        SimulationProgress last = task.getProgress();
+        assertEquals(50_000, last.getNumTrials());
+        assertEquals(result.getWinEstimate(0), last.getWinEstimate(0), 1e-12);
+    }
+
+    @Test
+    void cancel_whileRunning_returnsTrialsPlayedSoFar() throws InterruptedException {
+        // given a simulation far too long to finish
+        CountDownLatch started = new CountDownLatch(1);
+        SimulationTask task = SimulationTask.start(table(), StopRule.trials(Long.MAX_VALUE / 2), SamplingMode.PLAIN,
+                2, RandomSource.create(2), progress -> started.countDown());
+        assertTrue(started.await(30, TimeUnit.SECONDS));
+        // when
+        task.cancel();
+        assertTrue(task.await(30, TimeUnit.SECONDS));
+        SimulationResult result = task.join();
+        // then
+        assertTrue(task.isCancelled());
+        assertTrue(result.getNumSimulations() >= task.getProgress().getNumTrials());
+        assertTrue(result.getNumSimulations() > 0);
+        long hands = result.getWins(0) + result.getDraws(0) + result.getLosses(0);
+        assertTrue(hands >= result.getNumSimulations());
+        assertEquals(result.getNumSimulations(), result.getMetrics().getTrials());
+    }
+
+    @Test
+    void await_beforeFinishing_returnsFalse() throws InterruptedException {
+        // given a simulation far too long to finish, which has played its first round
+        CountDownLatch started = new CountDownLatch(1);
+        SimulationTask task = SimulationTask.start(table(), StopRule.trials(Long.MAX_VALUE / 2), SamplingMode.PLAIN,
+                1, RandomSource.create(3), progress -> started.countDown());
+        assertTrue(started.await(30, TimeUnit.SECONDS));
+        // when
+        boolean isDone = task.await(10, TimeUnit.MILLISECONDS);
+        // then
+        assertFalse(isDone);
+        task.cancel();
+        SimulationResult result = task.join();
+        assertTrue(result.getNumSimulations() > 0);
+        assertEquals(result.getNumSimulations(), result.getMetrics().getTrials());
+    }
+
+    @Test
+    void start_nullRule_throws() {
+        assertThrows(IllegalArgumentException.class, () -> SimulationTask.start(table(), null, SamplingMode.PLAIN,
+                null));
+    }
+}
@@ -0,0 +1,138 @@
+package com.ethpalser.game;
+
+import com.ethpalser.blackjack.DeckType;
+import com.ethpalser.blackjack.GameMode;
+import com.ethpalser.blackjack.RandomSource;
+import com.ethpalser.blackjack.Table;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+class SimulationTest {
+
+    private static Table table() {
+        Table table = new Table(2, 6, GameMode.ALL_PLAYERS_VISIBLE, DeckType.RANDOM, 10, RandomSource.create(7));
+        table.setup();
+        return table;
+    }
+
+    @Test
+    void simulate_fixedTrials_playsExactlyThatMany() {
+        SimulationResult result = Simulation.simulate(table(), StopRule.trials(1234), 3, RandomSource.create(1));
+        assertEquals(1234, result.getNumSimulations());
+    }
+
+    @Test
+    void simulate_manyWorkers_countsAddUpToHandsPlayed() {
+        // given
+        Table table = table();
+        int deckSize = table.getDeck().size();
+        // when
+        SimulationResult result = Simulation.simulate(table, StopRule.trials(5000), 4, RandomSource.create(1));
+        // then every hand of every worker is counted once, and the workers played copies of the table
+        for (int p = 0; p < result.getNumPlayers(); p++) {
+            assertEquals(result.getHands(p), result.getWins(p) + result.getDraws(p) + result.getLosses(p));
+            assertTrue(result.getHands(p) >= result.getNumSimulations());
+        }
+        assertEquals(5000, result.getMetrics().getTrials());
+        assertEquals(deckSize, table.getDeck().size());
+    }
+
+    @Test
+    void simulate_oneAndManyWorkers_agree() {
+        // given
+        Table table = table();
+        // when
+        SimulationResult one = Simulation.simulate(table, StopRule.trials(40_000), 1, RandomSource.create(3));
+        SimulationResult many = Simulation.simulate(table, StopRule.trials(40_000), 4, RandomSource.create(3));
+        // then each worker draws from its own source, so the rates agree within a few standard errors
+        assertEquals(one.getNumSimulations(), many.getNumSimulations());
+        for (int p = 0; p < one.getNumPlayers(); p++) {
+            double error = Math.hypot(one.getWinStandardError(p), many.getWinStandardError(p));
+            assertEquals(one.getWinEstimate(p), many.getWinEstimate(p), 5 * error);
+        }
+    }
+
+    @Test
+    void simulate_antitheticOddTrials_playsExactlyThatMany() {
+        // given an odd number of trials, which cannot all be played in pairs
+        StopRule rule = StopRule.trials(1001);
+        // when
+        SimulationResult result = Simulation.simulate(table(), rule, SamplingMode.ANTITHETIC, 4,
+                RandomSource.create(1));
+        // then
+        assertEquals(1001, result.getNumSimulations());
+        assertEquals(1001, result.getMetrics().getTrials());
+    }
+
+    @Test
+    void simulate_precision_stopsOnceWithinHalfWidth() {
+        // given
+        StopRule rule = StopRule.precision(0.01, 10_000_000);
+        // when
+        SimulationResult result = Simulation.simulate(table(), rule, 2, RandomSource.create(1));
+        // then
+        assertTrue(result.getNumSimulations() < rule.getMaxTrials());
+        for (int p = 0; p < result.getNumPlayers(); p++) {
+            assertTrue(result.getWinHalfWidth(p) <= 0.01);
+        }
+    }
+
+    @Test
+    void simulate_timeLimit_stopsNearLimit() {
+        SimulationResult result = Simulation.simulate(table(), StopRule.timeLimit(50, Long.MAX_VALUE), 2,
+                RandomSource.create(1));
+        assertTrue(result.getNumSimulations() > 0);
+        assertTrue(result.getElapsedMillis() < 1000);
+    }
+
+    @Test
+    void simulate_seededTwice_isRepeatable() {
+        SimulationResult first = Simulation.simulate(table(), StopRule.precision(0.02, 1_000_000), 2,
+                RandomSource.create(5));
+        SimulationResult second = Simulation.simulate(table(), StopRule.precision(0.02, 1_000_000), 2,
+                RandomSource.create(5));
+        assertEquals(first.getNumSimulations(), second.getNumSimulations());
+        assertEquals(first.getWins(0), second.getWins(0));
+    }
+
+    @Test
+    void simulate_everySamplingMode_agreesWithPlain() {
+        // given
+        Table table = table();
+        SimulationResult plain = Simulation.simulate(table, StopRule.trials(100_000), SamplingMode.PLAIN, 2,
+                RandomSource.create(1));
+        for (SamplingMode mode : SamplingMode.values()) {
+            // when
+            SimulationResult result = Simulation.simulate(table, StopRule.trials(100_000), mode, 2,
+                    RandomSource.create(2));
+            // then the estimates are within a few standard errors of each other
+            for (int p = 0; p < result.getNumPlayers(); p++) {
+                double error = Math.hypot(plain.getWinStandardError(p), result.getWinStandardError(p));
+                assertEquals(plain.getWinEstimate(p), result.getWinEstimate(p), 5 * error + 1e-9, mode.name());
+            }
+        }
+    }
+
+    @Test
+    void simulate_withSplits_ratesAddUpToOne() throws IOException {
+        // given a pair of eights, which the strategy splits
+        Table table = TableFile.read(new BufferedReader(new StringReader("1\n6\n10\nx 10\n8 8\n")),
+                GameMode.ALL_PLAYERS_VISIBLE, DeckType.RANDOM);
+        // when
+        SimulationResult result = Simulation.simulate(table, StopRule.trials(10_000), SamplingMode.PLAIN, 2,
+                RandomSource.create(1));
+        // then
+        assertTrue(result.getHands(0) > result.getNumSimulations());
+        assertEquals(1.0, result.getWinRate(0) + result.getDrawRate(0) + result.getLossRate(0), 1e-9);
+    }
+
+    @Test
+    void simulate_plain_hasNoVarianceReduction() {
+        SimulationResult result = Simulation.simulate(table(), StopRule.trials(10_000), SamplingMode.PLAIN, 1,
+                RandomSource.create(1));
+        assertEquals(1.0, result.getVarianceReduction(0), 1e-9);
+    }
+}
@@ -0,0 +1,38 @@
+package com.ethpalser.game;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+class StopRuleTest {
+
+    @Test
+    void isMet_precisionAndTimeLimit_stopsAtTimeLimitWhenNotPrecise() {
+        // given
+        StopRule rule = StopRule.of(0.001, 100, 1_000_000);
+        // when / then
+        assertFalse(rule.isMet(5000, 0.01, 99));
+        assertTrue(rule.isMet(5000, 0.01, 100));
+    }
+
+    @Test
+    void isMet_precisionAndTimeLimit_stopsAtPrecisionBeforeTimeLimit() {
+        // given
+        StopRule rule = StopRule.of(0.001, 100, 1_000_000);
+        // when / then
+        assertTrue(rule.isMet(5000, 0.0005, 10));
+    }
+
+    @Test
+    void of_noPrecisionOrTimeLimit_stopsOnlyAtTrials() {
+        // given
+        StopRule rule = StopRule.of(0, 0, 1000);
+        // when / then
+        assertFalse(rule.isMet(999, 0, Long.MAX_VALUE));
+        assertTrue(rule.isMet(1000, 0, 0));
+    }
+
+    @Test
+    void of_negativeTimeLimit_throws() {
+        assertThrows(IllegalArgumentException.class, () -> StopRule.of(0.01, -1, 1000));
+    }
+}
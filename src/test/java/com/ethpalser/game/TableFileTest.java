@@ -0,0 +1,53 @@
+package com.ethpalser.game;
+
+import com.ethpalser.blackjack.DeckType;
+import com.ethpalser.blackjack.GameMode;
+import com.ethpalser.blackjack.Table;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+class TableFileTest {
+
+    private static Table read(String text) throws IOException {
+        return TableFile.read(new BufferedReader(new StringReader(text)), GameMode.ALL_PLAYERS_VISIBLE,
+                DeckType.RANDOM);
+    }
+
+    @Test
+    void read_dealerAndTwoPlayers_removesCardsFromDeck() throws IOException {
+        // given
+        String text = "2\n1\n10\nxh 7\n10 6\nA 5\n";
+        // when
+        Table table = read(text);
+        // then
+        assertEquals(2, table.getPlayers().size());
+        assertEquals(46, table.getDeck().size());
+        assertFalse(table.getDealer().getHand(0).isVisible(0));
+        assertEquals(16, table.getPlayer(0).getHand(0).getValue());
+    }
+
+    @Test
+    void read_tenWithAndWithoutSuit_parsesAsTen() throws IOException {
+        // given
+        String text = "1\n1\n10\nx 7\n10h 10\n";
+        // when
+        Table table = read(text);
+        // then
+        assertEquals(20, table.getPlayer(0).getHand(0).getValue());
+    }
+
+    @Test
+    void read_missingPlayerHand_throwsWithLine() {
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () -> read("2\n1\n10\nx 7\n10 6\n"));
+        assertTrue(ex.getMessage().startsWith("Line 6:"));
+    }
+
+    @Test
+    void read_unknownCard_throwsWithLine() {
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () -> read("1\n1\n10\nx 7\nZ 6\n"));
+        assertTrue(ex.getMessage().startsWith("Line 5:"));
+    }
+}